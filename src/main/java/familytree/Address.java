@@ -23,7 +23,11 @@
  */
 package familytree;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Objects;
 import java.util.zip.DataFormatException;
 
@@ -36,13 +40,35 @@ import java.util.zip.DataFormatException;
  * The default constructor leaves the fields of the address undefined and nullified. If the parameters
  * {@code streetNumber}, {@code streetName}, {@code cityName}, and {@code postalCode} are supplied, then they are
  * assigned to the address's street number, street name, city/suburb, and postal code fields, respectively.
+ * <p>
+ * An address is externalized as a schema version followed by its fields; the postal code is written in place rather
+ * than as a separate object.
+ * <p>
+ * An address holds the canonical instance of its postal code (see {@link PostalCode#intern()}), which is shared by
+ * every address with the same postal code. The {@link #intern()} method likewise returns a canonical, immutable
+ * address equal to this one; persons hold canonical addresses, so that the members of a household share one
+ * instance, and copying a person's address copies a reference. To change an address held by a person, change a copy
+ * and set the copy as the person's address.
  */
-public class Address implements Serializable {
+public class Address implements Externalizable {
+
+    /**
+     * The serialization version of the class.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The version of the externalized form written by {@link #writeExternal(java.io.ObjectOutput)}.
+     */
+    private static final int SCHEMA_VERSION = 1;
+    /**
+     * The canonical addresses.
+     */
+    private static final SymbolTable<Address> CANONICAL = new SymbolTable<>();
 
     /**
-     * The street number.
+     * The street number, or zero if undefined.
      */
-    private Integer streetNumber = null;
+    private int streetNumber = 0;
     /**
      * The street name.
      */
@@ -55,6 +81,10 @@ public class Address implements Serializable {
      * The postal code.
      */
     private PostalCode postalCode = null;
+    /**
+     * Whether the address is canonical, and so may not be changed.
+     */
+    private transient boolean frozen = false;
 
     /**
      * Creates a new {@code Address} object and leaves the fields of the address undefined and nullified.
@@ -84,8 +114,8 @@ public class Address implements Serializable {
         if (Address.isValidStreetNumber(streetNumber)) {
             this.streetNumber = streetNumber;
             this.streetName = streetName;
-            this.cityName = cityName;
-            this.postalCode = new PostalCode(postalCode);
+            this.cityName = SymbolTable.SHARED.intern(cityName);
+            this.postalCode = postalCode.intern();
         } else {
             throw new DataFormatException();
         }
@@ -94,7 +124,8 @@ public class Address implements Serializable {
     /**
      * Creates a new {@code Address} object and assigns the street number, street name, city/suburb, and postal code
      * fields of the supplied parameter {@code obj} to the address's street number, street name, city/suburb, and postal
-     * code fields, respectively. The new {@code Address} object is a "deep copy" of the parameter {@code obj}.
+     * code fields, respectively. The new {@code Address} object may be changed, even if {@code obj} is canonical; it
+     * shares the canonical postal code of {@code obj}.
      *
      * @param obj the reference {@code Address} object to copy.
      */
@@ -102,13 +133,52 @@ public class Address implements Serializable {
         this.streetNumber = obj.streetNumber;
         this.streetName = obj.streetName;
         this.cityName = obj.cityName;
-        this.postalCode = new PostalCode(obj.postalCode);
+        this.postalCode = obj.postalCode;
     }
 
-    private static boolean isValidStreetNumber(final Integer streetNumber) {
+    private static boolean isValidStreetNumber(final int streetNumber) {
         return streetNumber > 0;
     }
 
+    private void checkMutable() throws UnsupportedOperationException {
+        if (frozen) {
+            throw new UnsupportedOperationException("Canonical address");
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the address.
+     * <p>
+     * The {@code intern} method returns the immutable address that is equal to this one and is shared by every caller,
+     * creating it from a copy of this address if there is none. A canonical address returns itself.
+     * <p>
+     * The return value is an immutable {@code Address} object, whose setters throw an
+     * {@code UnsupportedOperationException}.
+     *
+     * @return The canonical instance of the address.
+     * @see familytree.SymbolTable
+     */
+    public final Address intern() {
+        if (frozen) {
+            return this;
+        }
+
+        return CANONICAL.intern(this, address -> {
+            final Address canonical = new Address(address);
+            canonical.frozen = true;
+            return canonical;
+        });
+    }
+
+    /**
+     * Returns whether the address is a canonical instance, which may not be changed.
+     *
+     * @return {@code true} if the address was returned by {@link #intern()}; {@code false} otherwise.
+     */
+    public final boolean isFrozen() {
+        return frozen;
+    }
+
     /**
      * Returns the street number.
      * <p>
@@ -120,6 +190,20 @@ public class Address implements Serializable {
      * @see java.lang.Integer
      */
     public final Integer getStreetNumber() {
+        return streetNumber == 0 ? null : streetNumber;
+    }
+
+    /**
+     * Returns the street number as a primitive.
+     * <p>
+     * The {@code getStreetNumberAsInt} method retrieves the street number part of the address without boxing it, for
+     * callers that read many addresses.
+     * <p>
+     * The return value is the street number, which is positive, or zero if the street number is undefined.
+     *
+     * @return The street number, or zero.
+     */
+    public final int getStreetNumberAsInt() {
         return streetNumber;
     }
 
@@ -132,11 +216,31 @@ public class Address implements Serializable {
      * be zero, and may not be negative.
      *
      * @param streetNumber the new street number.
-     * @throws DataFormatException if the street number is zero or negative.
+     * @throws DataFormatException           if the street number is zero or negative.
+     * @throws UnsupportedOperationException if the address is canonical.
      * @see java.lang.Integer
      * @see java.util.zip.DataFormatException
      */
-    public final void setStreetNumber(final Integer streetNumber) throws DataFormatException {
+    public final void setStreetNumber(final Integer streetNumber)
+    throws DataFormatException, UnsupportedOperationException {
+        setStreetNumber(streetNumber.intValue());
+    }
+
+    /**
+     * Sets the street number from a primitive.
+     * <p>
+     * The {@code setStreetNumber} method assigns the value supplied by the {@code streetNumber} parameter to the
+     * integer representing the street number part of the address, without boxing it. The method throws a
+     * {@code DataFormatException} if the street number is zero or negative.
+     *
+     * @param streetNumber the new street number.
+     * @throws DataFormatException           if the street number is zero or negative.
+     * @throws UnsupportedOperationException if the address is canonical.
+     * @see java.util.zip.DataFormatException
+     */
+    public final void setStreetNumber(final int streetNumber)
+    throws DataFormatException, UnsupportedOperationException {
+        checkMutable();
         if (Address.isValidStreetNumber(streetNumber)) {
             this.streetNumber = streetNumber;
         } else {
@@ -165,9 +269,11 @@ public class Address implements Serializable {
      * string representing the street name part of the address.
      *
      * @param streetName the new street name.
+     * @throws UnsupportedOperationException if the address is canonical.
      * @see java.lang.String
      */
-    public final void setStreetName(final String streetName) {
+    public final void setStreetName(final String streetName) throws UnsupportedOperationException {
+        checkMutable();
         this.streetName = streetName;
     }
 
@@ -192,10 +298,13 @@ public class Address implements Serializable {
      * representing the city/suburb part of the address.
      *
      * @param cityName the new city/suburb name.
+     * @throws UnsupportedOperationException if the address is canonical.
      * @see java.lang.String
+     * @see familytree.SymbolTable
      */
-    public final void setCityName(final String cityName) {
-        this.cityName = cityName;
+    public final void setCityName(final String cityName) throws UnsupportedOperationException {
+        checkMutable();
+        this.cityName = SymbolTable.SHARED.intern(cityName);
     }
 
     /**
@@ -215,14 +324,72 @@ public class Address implements Serializable {
     /**
      * Sets the postal code.
      * <p>
-     * The {@code setCharacterSet} method assigns the value supplied by the {@code postalCode} parameter to the postal
-     * code part of the address.
+     * The {@code setCharacterSet} method assigns the canonical instance of the value supplied by the
+     * {@code postalCode} parameter to the postal code part of the address.
      *
      * @param postalCode the new postal code.
+     * @throws UnsupportedOperationException if the address is canonical.
      * @see familytree.PostalCode
      */
-    public final void setPostalCode(final PostalCode postalCode) {
-        this.postalCode = new PostalCode(postalCode);
+    public final void setPostalCode(final PostalCode postalCode) throws UnsupportedOperationException {
+        checkMutable();
+        this.postalCode = postalCode == null ? null : postalCode.intern();
+    }
+
+    /**
+     * Writes the address to an object output.
+     * <p>
+     * The {@code writeExternal} method writes the schema version, the street number as a variable-length integer (zero
+     * if undefined), the street name and city/suburb name as length-prefixed UTF-8 strings, and then whether a postal
+     * code is present, followed by the postal code itself.
+     *
+     * @param out the stream to write the address to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeByte(SCHEMA_VERSION);
+        DataCodec.putVarint(out, streetNumber);
+        DataCodec.putString(out, streetName);
+        DataCodec.putString(out, cityName);
+        out.writeBoolean(postalCode != null);
+        if (postalCode != null) {
+            postalCode.writeExternal(out);
+        }
+    }
+
+    /**
+     * Reads the address from an object input.
+     * <p>
+     * The {@code readExternal} method restores an address written by {@link #writeExternal(java.io.ObjectOutput)}.
+     *
+     * @param in the stream to read the address from.
+     * @throws IOException                   if an I/O error occurs, the schema version is not supported, or a field
+     *                                       is not valid.
+     * @throws UnsupportedOperationException if the address is canonical.
+     */
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException, UnsupportedOperationException {
+        checkMutable();
+        final int version = in.readUnsignedByte();
+        if (version != SCHEMA_VERSION) {
+            throw new InvalidObjectException("Unsupported Address schema version: " + version);
+        }
+
+        final int number = DataCodec.getVarint(in);
+        if (number < 0) {
+            throw new InvalidObjectException("Invalid street number: " + number);
+        }
+        this.streetNumber = number;
+        this.streetName = DataCodec.getString(in);
+        this.cityName = SymbolTable.SHARED.intern(DataCodec.getString(in));
+        if (in.readBoolean()) {
+            final PostalCode read = new PostalCode();
+            read.readExternal(in);
+            this.postalCode = read.intern();
+        } else {
+            this.postalCode = null;
+        }
     }
 
     /**
@@ -265,8 +432,7 @@ public class Address implements Serializable {
         }
 
         final Address other = (Address) obj;
-        return Objects.equals(this.streetNumber, other.streetNumber) && Objects.equals(this.streetName,
-                                                                                       other.streetName) &&
+        return this.streetNumber == other.streetNumber && Objects.equals(this.streetName, other.streetName) &&
                Objects.equals(this.cityName, other.cityName) && Objects.equals(this.postalCode, other.postalCode);
     }
 
@@ -299,7 +465,7 @@ public class Address implements Serializable {
     public int hashCode() {
         int hash = 0;
 
-        hash = hash + Objects.hashCode(this.streetNumber);
+        hash = hash + this.streetNumber;
         hash = hash + Objects.hashCode(this.streetName);
         hash = hash + Objects.hashCode(this.cityName);
         hash = hash + Objects.hashCode(this.postalCode);
@@ -324,8 +490,8 @@ public class Address implements Serializable {
      */
     @Override
     public String toString() {
-        return "Address{" + "streetNumber=" + streetNumber + ", streetName=" + streetName + ", cityName=" + cityName +
-               ", postalCode=" + postalCode + '}';
+        return "Address{" + "streetNumber=" + getStreetNumber() + ", streetName=" + streetName + ", cityName=" +
+               cityName + ", postalCode=" + postalCode + '}';
     }
 
 }
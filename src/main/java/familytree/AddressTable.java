@@ -0,0 +1,393 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code AddressTable} class stores postal addresses as columns of primitives.
+ * <p>
+ * An address table holds each address it is given as a row of four columns: the street number as an {@code int}, the
+ * street name and city/suburb name as {@code int} identifiers of strings held once by the table, and the postal code
+ * packed into a {@code long}. A postal code of at most {@link #PACKED_LENGTH} digits and upper-case letters, as most
+ * are, is packed as a number whose digits in base 37 are its characters in base 36 plus one, so that leading zeros are
+ * kept; any other postal code is held aside, as a {@code PostalCode} object. The accessors of a row return
+ * primitives, so that a scan over many addresses neither boxes nor follows references; whole {@code Address} objects
+ * are made only when asked for.
+ * <p>
+ * A table made by {@link #of(FamilyGraph)} has a row for every person in a family graph, indexed by the person's
+ * identifier, alongside the graph's own columns. The table is a copy, and does not follow later changes to the graph.
+ * The {@code AddressTable} class is not thread-safe; concurrent readers must not run alongside a writer.
+ *
+ * @see familytree.Address
+ * @see familytree.FamilyGraph
+ */
+public final class AddressTable {
+
+    /**
+     * The identifier of the absence of a string.
+     */
+    public static final int NO_STRING = 0;
+    /**
+     * The value of a postal code that is undefined, or is not packed.
+     */
+    public static final long NOT_PACKED = -1L;
+    /**
+     * The greatest length of a postal code that can be packed.
+     */
+    public static final int PACKED_LENGTH = 12;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int RADIX = 37;
+    /**
+     * The street number of a row without an address.
+     */
+    private static final int NO_ADDRESS = -1;
+    /**
+     * The packed postal code of a row whose postal code is held aside.
+     */
+    private static final long HELD_ASIDE = -2L;
+
+    private int size = 0;
+    private int[] streetNumbers;
+    private int[] streetNames;
+    private int[] cityNames;
+    private long[] postalCodes;
+    private final Map<Integer, PostalCode> unpacked = new HashMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Creates a new, empty {@code AddressTable} object.
+     */
+    public AddressTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty {@code AddressTable} object with room for the supplied number of addresses before any of
+     * its columns need to grow.
+     *
+     * @param initialCapacity the number of addresses to reserve room for.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public AddressTable(final int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+
+        this.streetNumbers = new int[initialCapacity];
+        this.streetNames = new int[initialCapacity];
+        this.cityNames = new int[initialCapacity];
+        this.postalCodes = new long[initialCapacity];
+        strings.add(null);
+    }
+
+    /**
+     * Creates an address table with a row for every person in a family graph.
+     *
+     * @param graph the family graph.
+     * @return The address table, whose row numbers are the identifiers of the persons.
+     */
+    public static AddressTable of(final FamilyGraph graph) {
+        final AddressTable table = new AddressTable(graph.size());
+        for (int id = 0; id < graph.size(); id++) {
+            table.add(graph.person(id).getAddress());
+        }
+
+        return table;
+    }
+
+    /**
+     * Adds an address to the table.
+     * <p>
+     * The return value is the number of the row holding the address.
+     *
+     * @param address the address, or {@code null} for a row without an address.
+     * @return The row number.
+     */
+    public int add(final Address address) {
+        if (size == streetNumbers.length) {
+            final int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+            streetNumbers = Arrays.copyOf(streetNumbers, capacity);
+            streetNames = Arrays.copyOf(streetNames, capacity);
+            cityNames = Arrays.copyOf(cityNames, capacity);
+            postalCodes = Arrays.copyOf(postalCodes, capacity);
+        }
+
+        final int row = size++;
+        if (address == null) {
+            streetNumbers[row] = NO_ADDRESS;
+            streetNames[row] = NO_STRING;
+            cityNames[row] = NO_STRING;
+            postalCodes[row] = NOT_PACKED;
+            return row;
+        }
+
+        streetNumbers[row] = address.getStreetNumberAsInt();
+        streetNames[row] = id(address.getStreetName());
+        cityNames[row] = id(address.getCityName());
+
+        final PostalCode postalCode = address.getPostalCode();
+        final long packed = postalCode == null ? NOT_PACKED : pack(postalCode.getCharacterSet());
+        if (postalCode != null && packed == NOT_PACKED) {
+            unpacked.put(row, postalCode.intern());
+            postalCodes[row] = HELD_ASIDE;
+        } else {
+            postalCodes[row] = packed;
+        }
+
+        return row;
+    }
+
+    private int id(final String string) {
+        if (string == null) {
+            return NO_STRING;
+        }
+
+        return ids.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct street and city/suburb names held by the table.
+     *
+     * @return The number of distinct strings.
+     */
+    public int stringCount() {
+        return strings.size() - 1;
+    }
+
+    /**
+     * Returns whether a row holds an address.
+     *
+     * @param row the row number.
+     * @return {@code true} if the row holds an address; {@code false} if it was added for a {@code null} address.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public boolean hasAddress(final int row) throws IndexOutOfBoundsException {
+        return streetNumbers[checkRow(row)] != NO_ADDRESS;
+    }
+
+    /**
+     * Returns the street number of a row.
+     *
+     * @param row the row number.
+     * @return The street number, or zero if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public int streetNumber(final int row) throws IndexOutOfBoundsException {
+        return Math.max(streetNumbers[checkRow(row)], 0);
+    }
+
+    /**
+     * Returns the identifier of the street name of a row. Rows with equal street names have equal identifiers.
+     *
+     * @param row the row number.
+     * @return The identifier of the street name, or {@link #NO_STRING} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public int streetNameId(final int row) throws IndexOutOfBoundsException {
+        return streetNames[checkRow(row)];
+    }
+
+    /**
+     * Returns the identifier of the city/suburb name of a row. Rows with equal city/suburb names have equal
+     * identifiers.
+     *
+     * @param row the row number.
+     * @return The identifier of the city/suburb name, or {@link #NO_STRING} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public int cityNameId(final int row) throws IndexOutOfBoundsException {
+        return cityNames[checkRow(row)];
+    }
+
+    /**
+     * Returns the string with an identifier.
+     *
+     * @param id the identifier of the string.
+     * @return The string, or {@code null} if the identifier is {@link #NO_STRING}.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public String string(final int id) throws IndexOutOfBoundsException {
+        return strings.get(id);
+    }
+
+    /**
+     * Returns the street name of a row.
+     *
+     * @param row the row number.
+     * @return The street name, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public String streetName(final int row) throws IndexOutOfBoundsException {
+        return strings.get(streetNameId(row));
+    }
+
+    /**
+     * Returns the city/suburb name of a row.
+     *
+     * @param row the row number.
+     * @return The city/suburb name, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public String cityName(final int row) throws IndexOutOfBoundsException {
+        return strings.get(cityNameId(row));
+    }
+
+    /**
+     * Returns the packed postal code of a row. Rows with equal packed postal codes have equal postal codes.
+     *
+     * @param row the row number.
+     * @return The packed postal code, or {@link #NOT_PACKED} if the postal code is undefined or could not be packed.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public long packedPostalCode(final int row) throws IndexOutOfBoundsException {
+        final long packed = postalCodes[checkRow(row)];
+        return packed == HELD_ASIDE ? NOT_PACKED : packed;
+    }
+
+    /**
+     * Returns the postal code of a row.
+     *
+     * @param row the row number.
+     * @return The canonical postal code, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     * @see familytree.PostalCode#intern()
+     */
+    public PostalCode postalCode(final int row) throws IndexOutOfBoundsException {
+        final long packed = postalCodes[checkRow(row)];
+        if (packed == HELD_ASIDE) {
+            return unpacked.get(row);
+        } else if (packed == NOT_PACKED) {
+            return null;
+        }
+
+        final PostalCode postalCode = new PostalCode();
+        try {
+            postalCode.setCharacterSet(unpack(packed));
+        } catch (DataFormatException exc) {
+            throw new IllegalStateException("Packed postal code rejected", exc);
+        }
+        return postalCode.intern();
+    }
+
+    /**
+     * Returns the address of a row.
+     *
+     * @param row the row number.
+     * @return The canonical address, or {@code null} if the row has no address.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     * @see familytree.Address#intern()
+     */
+    public Address address(final int row) throws IndexOutOfBoundsException {
+        if (!hasAddress(row)) {
+            return null;
+        }
+
+        final Address address = new Address();
+        try {
+            if (streetNumbers[row] != 0) {
+                address.setStreetNumber(streetNumbers[row]);
+            }
+        } catch (DataFormatException exc) {
+            throw new IllegalStateException("Stored street number rejected", exc);
+        }
+        address.setStreetName(streetName(row));
+        address.setCityName(cityName(row));
+        address.setPostalCode(postalCode(row));
+        return address.intern();
+    }
+
+    /**
+     * Packs a postal code into a {@code long}.
+     *
+     * @param characterSet the character set of the postal code.
+     * @return The packed postal code, which is not negative; or {@link #NOT_PACKED} if the character set is
+     *         {@code null}, longer than {@link #PACKED_LENGTH}, or holds anything but digits and upper-case letters.
+     */
+    static long pack(final CharSequence characterSet) {
+        if (characterSet == null || characterSet.length() > PACKED_LENGTH) {
+            return NOT_PACKED;
+        }
+
+        long packed = 0L;
+        for (int i = 0; i < characterSet.length(); i++) {
+            final char c = characterSet.charAt(i);
+            final int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 10;
+            } else {
+                return NOT_PACKED;
+            }
+            packed = packed * RADIX + digit + 1;
+        }
+
+        return packed;
+    }
+
+    /**
+     * Unpacks a postal code packed by {@link #pack(CharSequence)}.
+     *
+     * @param packed the packed postal code, which is not negative.
+     * @return The character set of the postal code.
+     */
+    static String unpack(final long packed) {
+        final char[] chars = new char[PACKED_LENGTH];
+        int start = PACKED_LENGTH;
+        for (long rest = packed; rest != 0L; rest /= RADIX) {
+            chars[--start] = Character.toUpperCase(Character.forDigit((int) (rest % RADIX) - 1, 36));
+        }
+
+        return new String(chars, start, PACKED_LENGTH - start);
+    }
+
+    private int checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row out of range: " + row);
+        }
+
+        return row;
+    }
+
+}
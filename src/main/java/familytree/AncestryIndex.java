@@ -0,0 +1,290 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The {@code AncestryIndex} class answers queries for the ancestors and descendants of the persons in a family graph.
+ * <p>
+ * The {@code AncestryIndex} class represents the set of ancestors, and the set of descendants, of a person as a
+ * {@code BitSet} indexed by the identifiers of the {@code FamilyGraph}. Each set is computed once, from the sets of the
+ * person's parents (or children), and memoized, so that sub-pedigrees shared by many persons are only ever walked once
+ * and a repeated query costs no more than a lookup.
+ * <p>
+ * The index registers itself as a listener of the graph. When a mother, father, or child link changes, or a person is
+ * added with links to persons already in the graph, only the sets that the change can affect are discarded: the
+ * ancestor sets of the child and of their descendants, and the descendant sets of the parent and of their ancestors.
+ * Every other memoized set is kept.
+ * <p>
+ * The {@code AncestryIndex} class is not thread-safe, and, like the graph it indexes, must not be queried while the
+ * graph is being changed.
+ *
+ * @see familytree.FamilyGraph
+ */
+public final class AncestryIndex implements AutoCloseable {
+
+    private final FamilyGraph graph;
+    private final FamilyGraph.Listener listener = this::memberChanged;
+    private BitSet[] ancestors;
+    private BitSet[] descendants;
+    private final BitSet visiting = new BitSet();
+    private int[] stack = new int[16];
+    private int[] cursor = new int[16];
+
+    /**
+     * Creates a new {@code AncestryIndex} object over the supplied family graph and registers it as a listener of the
+     * graph.
+     *
+     * @param graph the family graph to index.
+     * @see familytree.FamilyGraph#addListener(familytree.FamilyGraph.Listener)
+     */
+    public AncestryIndex(final FamilyGraph graph) {
+        this.graph = graph;
+        this.ancestors = new BitSet[graph.size()];
+        this.descendants = new BitSet[graph.size()];
+        graph.addListener(listener);
+    }
+
+    /**
+     * Returns the family graph that is indexed.
+     *
+     * @return The family graph.
+     */
+    public FamilyGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the set of a person's ancestors.
+     * <p>
+     * The {@code ancestors} method retrieves the identifiers of every person who can be reached from the supplied
+     * person by following parent links, excluding the person themselves.
+     * <p>
+     * The return value is a copy of the memoized set, which the caller is free to modify.
+     *
+     * @param id the identifier of the person.
+     * @return The set of the identifiers of the person's ancestors.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public BitSet ancestors(final int id) throws IndexOutOfBoundsException {
+        return (BitSet) closure(id, true).clone();
+    }
+
+    /**
+     * Returns the set of a person's descendants.
+     * <p>
+     * The {@code descendants} method retrieves the identifiers of every person who can be reached from the supplied
+     * person by following child links, excluding the person themselves.
+     * <p>
+     * The return value is a copy of the memoized set, which the caller is free to modify.
+     *
+     * @param id the identifier of the person.
+     * @return The set of the identifiers of the person's descendants.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public BitSet descendants(final int id) throws IndexOutOfBoundsException {
+        return (BitSet) closure(id, false).clone();
+    }
+
+    /**
+     * Returns the number of a person's ancestors.
+     *
+     * @param id the identifier of the person.
+     * @return The number of ancestors.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int ancestorCount(final int id) throws IndexOutOfBoundsException {
+        return closure(id, true).cardinality();
+    }
+
+    /**
+     * Returns the number of a person's descendants.
+     *
+     * @param id the identifier of the person.
+     * @return The number of descendants.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int descendantCount(final int id) throws IndexOutOfBoundsException {
+        return closure(id, false).cardinality();
+    }
+
+    /**
+     * Indicates whether one person is an ancestor of another.
+     *
+     * @param ancestor the identifier of the possible ancestor.
+     * @param id       the identifier of the person.
+     * @return {@code true} if {@code ancestor} is an ancestor of {@code id}; {@code false} otherwise.
+     * @throws IndexOutOfBoundsException if either identifier is not in use.
+     */
+    public boolean isAncestor(final int ancestor, final int id) throws IndexOutOfBoundsException {
+        graph.person(ancestor);
+        return closure(id, true).get(ancestor);
+    }
+
+    /**
+     * Indicates whether one person is a descendant of another.
+     *
+     * @param descendant the identifier of the possible descendant.
+     * @param id         the identifier of the person.
+     * @return {@code true} if {@code descendant} is a descendant of {@code id}; {@code false} otherwise.
+     * @throws IndexOutOfBoundsException if either identifier is not in use.
+     */
+    public boolean isDescendant(final int descendant, final int id) throws IndexOutOfBoundsException {
+        return isAncestor(id, descendant);
+    }
+
+    /**
+     * Unregisters the index from the graph and discards every memoized set.
+     */
+    @Override
+    public void close() {
+        graph.removeListener(listener);
+        Arrays.fill(ancestors, null);
+        Arrays.fill(descendants, null);
+    }
+
+    private void memberChanged(final int id, final FamilyGraph.Change change, final Object previous) {
+        switch (change) {
+            case ADDED -> {
+                if (graph.size() > ancestors.length) {
+                    final int capacity = Math.max(graph.size(), ancestors.length + (ancestors.length >> 1));
+                    ancestors = Arrays.copyOf(ancestors, capacity);
+                    descendants = Arrays.copyOf(descendants, capacity);
+                }
+
+                // A new person may be the child, or the parent, of persons whose sets are already memoized.
+                for (int i = 0; i < graph.parentCount(id); i++) {
+                    linkChanged(graph.parent(id, i), id);
+                }
+                for (int i = 0; i < graph.childCount(id); i++) {
+                    linkChanged(id, graph.child(id, i));
+                }
+            }
+            case MOTHER, FATHER -> {
+                linkChanged(graph.idOf((Person) previous), id);
+                linkChanged(change == FamilyGraph.Change.MOTHER ? graph.mother(id) : graph.father(id), id);
+            }
+            case CHILD_ADDED, CHILD_REMOVED -> linkChanged(id, graph.idOf((Person) previous));
+            default -> {
+            }
+        }
+    }
+
+    private void linkChanged(final int parent, final int child) {
+        if (parent == FamilyGraph.NONE || child == FamilyGraph.NONE) {
+            return;
+        }
+
+        discard(child, true);
+        discard(parent, false);
+    }
+
+    /**
+     * Discards the memoized sets of a person, and of everyone whose set includes them, in the given direction. A set is
+     * only ever memoized after the sets it was built from, so the walk stops at persons who have none.
+     */
+    private void discard(final int id, final boolean up) {
+        final BitSet[] sets = up ? ancestors : descendants;
+        if (sets[id] == null) {
+            return;
+        }
+
+        int depth = 0;
+        stack = push(stack, depth++, id);
+        sets[id] = null;
+
+        while (depth > 0) {
+            final int node = stack[--depth];
+            final int count = up ? graph.childCount(node) : graph.parentCount(node);
+
+            for (int i = 0; i < count; i++) {
+                final int next = up ? graph.child(node, i) : graph.parent(node, i);
+                if (sets[next] != null) {
+                    sets[next] = null;
+                    stack = push(stack, depth++, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the memoized set for a person, computing it and every missing set it depends on through an iterative
+     * depth-first walk. A link back to a person still on the walk (a cycle in the data) is recorded but not followed.
+     */
+    private BitSet closure(final int id, final boolean up) {
+        graph.person(id);
+        final BitSet[] sets = up ? ancestors : descendants;
+        if (sets[id] != null) {
+            return sets[id];
+        }
+
+        int depth = 0;
+        stack = push(stack, depth, id);
+        cursor = push(cursor, depth++, 0);
+        visiting.set(id);
+
+        while (depth > 0) {
+            final int node = stack[depth - 1];
+            final int index = cursor[depth - 1];
+
+            if (index < (up ? graph.parentCount(node) : graph.childCount(node))) {
+                cursor[depth - 1]++;
+                final int next = up ? graph.parent(node, index) : graph.child(node, index);
+
+                if (sets[next] == null && !visiting.get(next)) {
+                    visiting.set(next);
+                    stack = push(stack, depth, next);
+                    cursor = push(cursor, depth++, 0);
+                }
+            } else {
+                final BitSet set = new BitSet();
+                final int count = up ? graph.parentCount(node) : graph.childCount(node);
+
+                for (int i = 0; i < count; i++) {
+                    final int next = up ? graph.parent(node, i) : graph.child(node, i);
+                    set.set(next);
+                    if (sets[next] != null) {
+                        set.or(sets[next]);
+                    }
+                }
+
+                set.clear(node);
+                sets[node] = set;
+                visiting.clear(node);
+                depth--;
+            }
+        }
+
+        return sets[id];
+    }
+
+    private static int[] push(final int[] array, final int index, final int value) {
+        final int[] target = index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+        target[index] = value;
+        return target;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code BiographyStore} class holds biographies compressed, outside the Java heap.
+ * <p>
+ * A family graph keeps the biographies of its persons in a biography store, so that the text of a large tree, of
+ * which only a few biographies are shown at a time, does not weigh on the garbage collector. Each biography is
+ * compressed with a {@code Deflater} and appended to a chunk of direct memory, and is identified by a handle; it is
+ * decompressed only when asked for, and the most recently used biographies are kept decompressed in a small
+ * least-recently-used cache. Biographies shorter than {@link #INLINE_LIMIT} characters are not worth compressing, and
+ * are left on the heap by the persons holding them.
+ * <p>
+ * Entries are never overwritten, so that a handle stays valid for as long as the store exists, and several graphs,
+ * such as a graph and its snapshots, may share a store. The space of a biography that has been replaced is not
+ * reclaimed until the store is discarded. A biography store may be used by several threads at once.
+ *
+ * @see familytree.Person#getBiography()
+ */
+public final class BiographyStore {
+
+    /**
+     * The length, in characters, from which a biography is kept in the store rather than on the heap.
+     */
+    public static final int INLINE_LIMIT = 256;
+    /**
+     * The number of decompressed biographies cached by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Map<Long, String> cache;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private byte[] scratch = new byte[4096];
+    private int count = 0;
+    private long storedBytes = 0L;
+    private long hits = 0L;
+    private long misses = 0L;
+
+    /**
+     * Creates a new, empty {@code BiographyStore} object which caches the default number of decompressed biographies.
+     */
+    public BiographyStore() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new, empty {@code BiographyStore} object which caches the supplied number of decompressed biographies.
+     *
+     * @param cacheSize the number of decompressed biographies to cache.
+     * @throws IllegalArgumentException if the cache size is negative.
+     */
+    public BiographyStore(final int cacheSize) throws IllegalArgumentException {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Negative cache size: " + cacheSize);
+        }
+
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Compresses a biography into the store.
+     *
+     * @param biography the biography to be stored.
+     * @return The handle of the biography, which is never zero.
+     * @throws NullPointerException if the biography is {@code null}.
+     */
+    public synchronized long put(final String biography) throws NullPointerException {
+        final byte[] bytes = biography.getBytes(StandardCharsets.UTF_8);
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            length += deflater.deflate(scratch, length, scratch.length - length);
+        }
+
+        // Text that does not compress is stored as it is, marked by a negative length.
+        final boolean compressed = length < bytes.length;
+        final byte[] body = compressed ? scratch : bytes;
+        final int bodyLength = compressed ? length : bytes.length;
+
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < ENTRY_HEADER_SIZE + bodyLength) {
+            chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, ENTRY_HEADER_SIZE + bodyLength));
+            chunks.add(chunk);
+        }
+
+        final long handle = ((long) chunks.size() << 32) | chunk.position();
+        chunk.putInt(compressed ? bodyLength : -bodyLength).putInt(bytes.length).put(body, 0, bodyLength);
+        count++;
+        storedBytes += ENTRY_HEADER_SIZE + bodyLength;
+        cache.put(handle, biography);
+
+        return handle;
+    }
+
+    /**
+     * Returns a biography held by the store, decompressing it unless it is cached.
+     *
+     * @param handle the handle of the biography.
+     * @return The biography.
+     * @throws IllegalArgumentException if the handle was not returned by this store.
+     */
+    public synchronized String get(final long handle) throws IllegalArgumentException {
+        final String cached = cache.get(handle);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+
+        final int chunkIndex = (int) (handle >>> 32) - 1, offset = (int) handle;
+        if (chunkIndex < 0 || chunkIndex >= chunks.size() || offset < 0
+            || offset > chunks.get(chunkIndex).position() - ENTRY_HEADER_SIZE) {
+            throw new IllegalArgumentException("Unknown biography handle: " + handle);
+        }
+
+        final ByteBuffer chunk = chunks.get(chunkIndex);
+        final int bodyLength = chunk.getInt(offset), length = chunk.getInt(offset + 4);
+        final ByteBuffer body = chunk.slice(offset + ENTRY_HEADER_SIZE, Math.abs(bodyLength));
+        final byte[] bytes = new byte[length];
+        if (bodyLength < 0) {
+            body.get(bytes);
+        } else {
+            inflater.reset();
+            inflater.setInput(body);
+            try {
+                for (int n = 0; n < length && !inflater.finished(); ) {
+                    n += inflater.inflate(bytes, n, length - n);
+                }
+            } catch (DataFormatException exc) {
+                // Entries are written only by this store, so a corrupt entry is a programming error.
+                throw new IllegalStateException(exc);
+            }
+        }
+
+        final String biography = new String(bytes, StandardCharsets.UTF_8);
+        cache.put(handle, biography);
+        return biography;
+    }
+
+    /**
+     * Returns the number of biographies held by the store.
+     *
+     * @return The number of biographies.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory holding biographies, including those that have been replaced.
+     *
+     * @return The number of bytes stored.
+     */
+    public synchronized long storedBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Returns the number of biographies returned from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of biographies that had to be decompressed.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+}
@@ -0,0 +1,541 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code ChunkedTreeFile} class reads and writes family graphs in the chunked family tree format, which allows a
+ * branch of a family tree to be read without reading the rest of the file.
+ * <p>
+ * A chunked family tree file begins with a header of a magic number and a format version, followed by chunks of at
+ * most a fixed number of persons each. Every chunk can be decoded on its own: it lists the identifiers of its persons,
+ * and holds its own table of the strings they refer to, their personal details, and their relationships as
+ * identifiers, encoded as in the {@code STRS}, {@code PERS}, and {@code LINK} sections of a {@link FamilyTreeFile}.
+ * Persons are assigned to chunks in lineage order, each person being followed by their spouse and then by their
+ * descendants, so that close relatives are usually found in the same chunk or the next one.
+ * <p>
+ * The chunks are followed by a footer of the offset and length of every chunk, as pairs of eight-byte integers, and
+ * the chunk of every person, as four-byte integers in identifier order, and by a trailer holding the offset of the
+ * footer, the numbers of chunks and persons, and the magic number again. The footer is mapped into memory rather than
+ * read, so that {@link #readBranch(Path, int, int)} touches only the pages of the footer and the chunks that the branch
+ * it reads lies in, however large the file is.
+ * <p>
+ * Identifiers, string references, lengths, and counts within a chunk are unsigned variable-length integers, and
+ * optional values are stored plus one so that zero can stand for {@code null}.
+ *
+ * @see familytree.FamilyTreeFile
+ */
+public final class ChunkedTreeFile {
+
+    /**
+     * The magic number at the start and end of a chunked family tree file: the characters {@code ARBC}.
+     */
+    public static final int MAGIC = 0x41524243;
+    /**
+     * The latest version of the chunked family tree format, which is the version written.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The default maximum number of persons in a chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int TRAILER_SIZE = 20;
+
+    private ChunkedTreeFile() {
+    }
+
+    /**
+     * Writes a family graph to a file in chunks of {@link #DEFAULT_CHUNK_SIZE} persons, replacing the file if it
+     * exists.
+     *
+     * @param graph the family graph to be written.
+     * @param path  the path of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FamilyGraph graph, final Path path) throws IOException {
+        write(graph, path, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Writes a family graph to a file, replacing the file if it exists.
+     *
+     * @param graph     the family graph to be written.
+     * @param path      the path of the file.
+     * @param chunkSize the maximum number of persons in a chunk.
+     * @throws IOException              if an I/O error occurs.
+     * @throws IllegalArgumentException if the chunk size is not positive.
+     */
+    public static void write(final FamilyGraph graph, final Path path, final int chunkSize)
+    throws IOException, IllegalArgumentException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(graph, out, chunkSize);
+        }
+    }
+
+    private static void write(final FamilyGraph graph, final OutputStream out, final int chunkSize)
+    throws IOException {
+        final int size = graph.size();
+        final int[] order = lineageOrder(graph);
+        final int chunkCount = (size + chunkSize - 1) / chunkSize;
+        final long[] chunks = new long[chunkCount * 2];
+        final int[] chunkOf = new int[size];
+
+        final DataCodec.Writer writer = new DataCodec.Writer(out);
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final int from = chunk * chunkSize, to = Math.min(from + chunkSize, size);
+            final Map<String, Integer> refs = new HashMap<>();
+            final List<String> strings = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                chunkOf[order[i]] = chunk;
+                FamilyTreeFile.internStrings(graph.person(order[i]), refs, strings);
+            }
+
+            chunks[chunk * 2] = writer.position();
+            writer.putVarint(to - from);
+            for (int i = from; i < to; i++) {
+                writer.putVarint(order[i]);
+            }
+            writer.putVarint(strings.size());
+            for (String string : strings) {
+                writer.putString(string);
+            }
+            for (int i = from; i < to; i++) {
+                FamilyTreeFile.writePerson(graph.person(order[i]), refs, writer);
+            }
+            for (int i = from; i < to; i++) {
+                writeLinks(graph, order[i], writer);
+            }
+            chunks[chunk * 2 + 1] = writer.position() - chunks[chunk * 2];
+        }
+
+        final long footer = writer.position();
+        for (long value : chunks) {
+            writer.putLong(value);
+        }
+        for (int chunk : chunkOf) {
+            writer.putInt(chunk);
+        }
+        writer.putLong(footer);
+        writer.putInt(chunkCount);
+        writer.putInt(size);
+        writer.putInt(MAGIC);
+        writer.flush();
+    }
+
+    private static void writeLinks(final FamilyGraph graph, final int id, final DataCodec.Writer writer)
+    throws IOException {
+        if (graph.person(id) instanceof FamilyMember member) {
+            writer.putVarint(graph.mother(id) + 1);
+            writer.putVarint(graph.father(id) + 1);
+            writer.putVarint(graph.spouse(id) + 1);
+
+            final Set<Person> children = member.getChildren();
+            if (children != null) {
+                writer.putVarint(children.size());
+                for (Person child : children) {
+                    writer.putVarint(graph.idOf(child) + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Orders the persons of a graph by lineage: every person whose parents are not in the graph is followed by their
+     * spouse and by the descendants of both, depth first, before the next such person.
+     */
+    private static int[] lineageOrder(final FamilyGraph graph) {
+        final int size = graph.size();
+        final int[] order = new int[size];
+        final boolean[] placed = new boolean[size];
+        final ArrayDeque<Integer> stack = new ArrayDeque<>();
+        int count = 0;
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int id = 0; id < size; id++) {
+                // Start from the founders of each lineage, then from anyone left over.
+                if (placed[id] || (pass == 0 && graph.parentCount(id) > 0)) {
+                    continue;
+                }
+
+                stack.push(id);
+                while (!stack.isEmpty()) {
+                    final int next = stack.pop();
+                    if (placed[next]) {
+                        continue;
+                    }
+
+                    placed[next] = true;
+                    order[count++] = next;
+                    for (int i = graph.childCount(next) - 1; i >= 0; i--) {
+                        stack.push(graph.child(next, i));
+                    }
+                    final int spouse = graph.spouse(next);
+                    if (spouse != FamilyGraph.NONE) {
+                        stack.push(spouse);
+                    }
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Reads a whole family graph from a file.
+     * <p>
+     * The return value is a new family graph holding every person in the file, with their original identifiers.
+     *
+     * @param path the path of the file.
+     * @return The family graph.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if the file is not a chunked family tree file, is of an unsupported version, or is
+     *                             corrupt.
+     */
+    public static FamilyGraph read(final Path path) throws IOException, DataFormatException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Footer footer = footer(channel);
+            final Map<Integer, Person> people = new HashMap<>();
+            final Map<Integer, int[]> links = new HashMap<>();
+            for (int chunk = 0; chunk < footer.chunkCount; chunk++) {
+                readChunk(channel, footer, chunk, people, links);
+            }
+
+            final Person[] ordered = new Person[footer.size];
+            for (int id = 0; id < ordered.length; id++) {
+                ordered[id] = people.get(id);
+                if (ordered[id] == null) {
+                    throw new DataFormatException("Person missing from every chunk: " + id);
+                }
+            }
+
+            return link(ordered, people, links);
+        }
+    }
+
+    /**
+     * Reads a branch of a family graph from a file.
+     * <p>
+     * The {@code readBranch} method reads the persons within a number of generations of a root person, counting a
+     * generation for every step from a person to a parent or a child, and none for the step to a spouse. Only the
+     * chunks holding those persons are read. The relationships of the persons of the branch to persons outside it are
+     * not read: a parent, spouse, or child outside the branch is left out.
+     * <p>
+     * The return value is a new family graph in which the root person has the identifier {@code 0}, and the other
+     * persons follow in order of their distance from the root.
+     *
+     * @param path        the path of the file.
+     * @param root        the identifier of the root person in the file.
+     * @param generations the number of generations.
+     * @return The family graph of the branch.
+     * @throws IOException               if an I/O error occurs.
+     * @throws DataFormatException       if the file is not a chunked family tree file, is of an unsupported version,
+     *                                   or is corrupt.
+     * @throws IllegalArgumentException  if the number of generations is negative.
+     * @throws IndexOutOfBoundsException if the root identifier is not in use.
+     */
+    public static FamilyGraph readBranch(final Path path, final int root, final int generations)
+    throws IOException, DataFormatException, IllegalArgumentException, IndexOutOfBoundsException {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Illegal number of generations: " + generations);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final Footer footer = footer(channel);
+            if (root < 0 || root >= footer.size) {
+                throw new IndexOutOfBoundsException("Identifier out of range: " + root);
+            }
+
+            final Map<Integer, Person> loaded = new HashMap<>();
+            final Map<Integer, int[]> links = new HashMap<>();
+            final Set<Integer> read = new HashSet<>();
+            final Map<Integer, Integer> distances = new LinkedHashMap<>();
+            final ArrayDeque<int[]> queue = new ArrayDeque<>();
+            distances.put(root, 0);
+            queue.add(new int[] {root, 0});
+
+            // A spouse is as far from the root as their partner, so is queued in front of those one generation further.
+            while (!queue.isEmpty()) {
+                final int[] next = queue.poll();
+                final int id = next[0], distance = next[1];
+                if (distances.get(id) < distance) {
+                    continue;
+                }
+
+                final int chunk = footer.chunkOf(id);
+                if (read.add(chunk)) {
+                    readChunk(channel, footer, chunk, loaded, links);
+                }
+                if (!loaded.containsKey(id)) {
+                    throw new DataFormatException("Person missing from chunk " + chunk + ": " + id);
+                }
+
+                final int[] related = links.get(id);
+                if (related == null) {
+                    continue;
+                }
+                if (visit(related[2], distance, distances)) {
+                    queue.addFirst(new int[] {related[2], distance});
+                }
+                for (int i = 0; i < related.length && distance < generations; i++) {
+                    if (i != 2 && visit(related[i], distance + 1, distances)) {
+                        queue.addLast(new int[] {related[i], distance + 1});
+                    }
+                }
+            }
+
+            final List<Integer> ids = new ArrayList<>(distances.keySet());
+            ids.sort(Comparator.comparing(distances::get));
+            final Person[] ordered = new Person[ids.size()];
+            final Map<Integer, Person> branch = new HashMap<>();
+            for (int i = 0; i < ordered.length; i++) {
+                ordered[i] = loaded.get(ids.get(i));
+                branch.put(ids.get(i), ordered[i]);
+            }
+
+            return link(ordered, branch, links);
+        }
+    }
+
+    private static boolean visit(final int id, final int distance, final Map<Integer, Integer> distances) {
+        if (id == FamilyGraph.NONE) {
+            return false;
+        }
+
+        final Integer known = distances.get(id);
+        if (known != null && known <= distance) {
+            return false;
+        }
+
+        distances.put(id, distance);
+        return true;
+    }
+
+    /**
+     * Links the persons read from a file to their relatives among them, and adds them to a new graph in order.
+     */
+    private static FamilyGraph link(final Person[] ordered, final Map<Integer, Person> people,
+                                    final Map<Integer, int[]> links) {
+        // Fill the sets of children before any parent or spouse is linked, so that hashing a family member whose
+        // equality is structural never has to follow a link back to the set being filled.
+        for (Map.Entry<Integer, Person> entry : people.entrySet()) {
+            final int[] related = links.get(entry.getKey());
+            if (entry.getValue() instanceof FamilyMember member && member.getChildren() != null) {
+                for (int i = 3; i < related.length; i++) {
+                    final Person child = people.get(related[i]);
+                    if (child != null) {
+                        member.getChildren().add(child);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Person> entry : people.entrySet()) {
+            final int[] related = links.get(entry.getKey());
+            if (entry.getValue() instanceof FamilyMember member) {
+                member.setMother(people.get(related[0]));
+                member.setFather(people.get(related[1]));
+                member.setSpouse(people.get(related[2]));
+            }
+        }
+
+        final FamilyGraph graph = new FamilyGraph(Math.max(ordered.length, 1));
+        graph.addAll(Arrays.asList(ordered));
+
+        return graph;
+    }
+
+    private static Footer footer(final FileChannel channel) throws IOException, DataFormatException {
+        final long length = channel.size();
+        if (length < HEADER_SIZE + TRAILER_SIZE) {
+            throw new DataFormatException("Not a chunked family tree file");
+        }
+
+        final ByteBuffer header = read(channel, 0, HEADER_SIZE);
+        final ByteBuffer trailer = read(channel, length - TRAILER_SIZE, TRAILER_SIZE);
+        if (header.getInt(0) != MAGIC || trailer.getInt(TRAILER_SIZE - 4) != MAGIC) {
+            throw new DataFormatException("Not a chunked family tree file");
+        }
+
+        final int version = header.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new DataFormatException("Unsupported chunked family tree file version: " + version);
+        }
+
+        final long offset = trailer.getLong(0);
+        final int chunkCount = trailer.getInt(8), size = trailer.getInt(12);
+        final long footerLength = chunkCount * 16L + size * 4L;
+        if (chunkCount < 0 || size < 0 || offset < HEADER_SIZE || footerLength > Integer.MAX_VALUE
+            || offset + footerLength != length - TRAILER_SIZE) {
+            throw new DataFormatException("Footer out of bounds: " + offset);
+        }
+
+        final ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, offset, footerLength);
+        return new Footer(footer.slice(0, chunkCount * 16).asLongBuffer(),
+                          footer.slice(chunkCount * 16, size * 4).asIntBuffer(), chunkCount, size, offset);
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length)
+    throws IOException, DataFormatException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new DataFormatException("Unexpected end of file");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes every person of a chunk, with the identifiers of their mother, father, spouse, and children.
+     */
+    private static void readChunk(final FileChannel channel, final Footer footer, final int chunk,
+                                  final Map<Integer, Person> people, final Map<Integer, int[]> links)
+    throws IOException, DataFormatException {
+        final long offset = footer.chunks.get(chunk * 2), length = footer.chunks.get(chunk * 2 + 1);
+        if (offset < HEADER_SIZE || length < 0 || length > Integer.MAX_VALUE || offset + length > footer.offset) {
+            throw new DataFormatException("Chunk out of bounds: " + chunk);
+        }
+
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        try {
+            final int[] ids = new int[DataCodec.getCount(buffer)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = checkId(DataCodec.getVarint(buffer), footer);
+            }
+
+            final String[] table = new String[DataCodec.getCount(buffer)];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = DataCodec.getString(buffer);
+            }
+
+            final Person[] persons = new Person[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                persons[i] = FamilyTreeFile.readPerson(buffer, table);
+                if (people.putIfAbsent(ids[i], persons[i]) != null) {
+                    throw new DataFormatException("Person in more than one chunk: " + ids[i]);
+                }
+            }
+
+            for (int i = 0; i < ids.length; i++) {
+                if (persons[i] instanceof FamilyMember member) {
+                    links.put(ids[i], readLinks(buffer, footer, member.getChildren() != null));
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            final DataFormatException corrupt = new DataFormatException("Corrupt chunk: " + chunk);
+            corrupt.initCause(exc);
+            throw corrupt;
+        }
+    }
+
+    private static int[] readLinks(final ByteBuffer buffer, final Footer footer, final boolean hasChildren)
+    throws DataFormatException {
+        final int mother = checkLink(DataCodec.getVarint(buffer) - 1, footer);
+        final int father = checkLink(DataCodec.getVarint(buffer) - 1, footer);
+        final int spouse = checkLink(DataCodec.getVarint(buffer) - 1, footer);
+        final int children = hasChildren ? DataCodec.getCount(buffer) : 0;
+
+        final int[] related = new int[3 + children];
+        related[0] = mother;
+        related[1] = father;
+        related[2] = spouse;
+        for (int i = 0; i < children; i++) {
+            related[3 + i] = checkLink(DataCodec.getVarint(buffer) - 1, footer);
+        }
+
+        return related;
+    }
+
+    private static int checkId(final int id, final Footer footer) throws DataFormatException {
+        if (id >= footer.size) {
+            throw new DataFormatException("Identifier out of range: " + id);
+        }
+
+        return id;
+    }
+
+    private static int checkLink(final int id, final Footer footer) throws DataFormatException {
+        return id < 0 ? FamilyGraph.NONE : checkId(id, footer);
+    }
+
+    private static final class Footer {
+
+        private final LongBuffer chunks;
+        private final IntBuffer chunkOf;
+        private final int chunkCount;
+        private final int size;
+        private final long offset;
+
+        private Footer(final LongBuffer chunks, final IntBuffer chunkOf, final int chunkCount, final int size,
+                       final long offset) {
+            this.chunks = chunks;
+            this.chunkOf = chunkOf;
+            this.chunkCount = chunkCount;
+            this.size = size;
+            this.offset = offset;
+        }
+
+        private int chunkOf(final int id) throws DataFormatException {
+            final int chunk = chunkOf.get(id);
+            if (chunk < 0 || chunk >= chunkCount) {
+                throw new DataFormatException("Chunk out of range: " + chunk);
+            }
+
+            return chunk;
+        }
+
+    }
+
+}
@@ -0,0 +1,396 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code CsvFile} class imports persons from CSV files, such as the feeds of personnel systems.
+ * <p>
+ * Every line of a CSV file is a record of eight comma-separated fields: forename, middle name, surname, sex, street
+ * number, street name, city/suburb, and postal code. A field may be enclosed in double quotes, so that it can hold a
+ * comma, and a double quote within a quoted field is written twice. Fields are stripped of surrounding white space,
+ * and an empty field is left undefined. The sex is one of {@code F}, {@code M}, or {@code U}, or the name of a
+ * {@link Sex} constant, in any case.
+ * <p>
+ * The file is read in chunks of lines by the calling thread, and the chunks are parsed and validated in parallel on
+ * the common fork/join pool. Validation never throws: every record is given a {@link Result} code, so that a file in
+ * which many records are malformed costs no more to read than one in which all are valid. The valid records of each
+ * chunk are added to the family graph as a batch, in the order of the file, as unrelated family members; the others
+ * are written to a reject file, each preceded by its line number and result code as two extra fields. Memory use is
+ * bounded by the number of chunks in flight, not by the size of the file.
+ *
+ * @see familytree.GedcomFile
+ */
+public final class CsvFile {
+
+    /**
+     * The number of fields in a record.
+     */
+    public static final int FIELDS = 8;
+    /**
+     * The number of lines in each chunk parsed by one task.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The {@code CsvFile.Result} enumeration classifies the records of a CSV file.
+     */
+    public enum Result {
+
+        /**
+         * The record is valid, and has been imported.
+         */
+        VALID,
+        /**
+         * The record does not have {@link #FIELDS} fields.
+         */
+        FIELD_COUNT,
+        /**
+         * A quoted field is not closed, or is followed by something other than a comma.
+         */
+        MALFORMED_QUOTE,
+        /**
+         * The record has neither a forename nor a surname.
+         */
+        MISSING_NAME,
+        /**
+         * The sex is not recognised.
+         */
+        INVALID_SEX,
+        /**
+         * The street number is not a positive integer.
+         */
+        INVALID_STREET_NUMBER,
+        /**
+         * The postal code is not a valid character set.
+         */
+        INVALID_POSTAL_CODE
+
+    }
+
+    private CsvFile() {
+    }
+
+    /**
+     * Imports the records of a CSV file into a family graph.
+     * <p>
+     * The return value counts the records of every result, including those imported.
+     *
+     * @param path    the path of the CSV file.
+     * @param header  whether the first line of the file is a header, to be skipped.
+     * @param graph   the family graph to import into.
+     * @param rejects the path of the reject file, which is replaced if it exists; or {@code null} if rejected records
+     *                are not to be written.
+     * @return The counts of the records read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static Report read(final Path path, final boolean header, final FamilyGraph graph, final Path rejects)
+    throws IOException {
+        final Report report = new Report();
+        final int inFlight = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+        final ArrayDeque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             Writer out = rejects == null ? Writer.nullWriter()
+                          : Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+            long number = 1;
+            if (header && in.readLine() != null) {
+                number++;
+            }
+
+            while (true) {
+                final String[] lines = new String[CHUNK_SIZE];
+                int count = 0;
+                for (String line; count < CHUNK_SIZE && (line = in.readLine()) != null; ) {
+                    lines[count++] = line;
+                }
+                if (count > 0) {
+                    final Chunk chunk = new Chunk(number, Arrays.copyOf(lines, count));
+                    pending.add(CompletableFuture.supplyAsync(chunk::parse));
+                    number += count;
+                }
+
+                // Apply the chunks in file order, once enough are in flight to keep the pool busy.
+                while (!pending.isEmpty() && (pending.size() >= inFlight || count < CHUNK_SIZE)) {
+                    apply(join(pending.poll()), graph, out, report);
+                }
+                if (count < CHUNK_SIZE) {
+                    return report;
+                }
+            }
+        } finally {
+            for (CompletableFuture<Chunk> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private static Chunk join(final CompletableFuture<Chunk> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exc;
+        }
+    }
+
+    private static void apply(final Chunk chunk, final FamilyGraph graph, final Writer out, final Report report)
+    throws IOException {
+        graph.addAll(chunk.valid);
+        report.counts[Result.VALID.ordinal()] += chunk.valid.size();
+
+        for (int i = 0; i < chunk.lines.length; i++) {
+            final Result result = chunk.results[i];
+            if (result != Result.VALID) {
+                report.counts[result.ordinal()]++;
+                out.write(Long.toString(chunk.first + i));
+                out.write(',');
+                out.write(result.name());
+                out.write(',');
+                out.write(chunk.lines[i]);
+                out.write(System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Splits a line into its fields, unquoting and stripping them.
+     *
+     * @param line   the line.
+     * @param fields the array to hold the fields, which are {@code null} if empty.
+     * @return {@link Result#VALID} if the line has {@link #FIELDS} well-formed fields; the problem otherwise.
+     */
+    static Result split(final String line, final String[] fields) {
+        final int length = line.length();
+        int count = 0, i = 0;
+
+        while (true) {
+            if (count == FIELDS) {
+                return Result.FIELD_COUNT;
+            }
+
+            final String field;
+            if (i < length && line.charAt(i) == '"') {
+                final StringBuilder quoted = new StringBuilder();
+                for (i++; ; i++) {
+                    if (i >= length) {
+                        return Result.MALFORMED_QUOTE;
+                    } else if (line.charAt(i) != '"') {
+                        quoted.append(line.charAt(i));
+                    } else if (i + 1 < length && line.charAt(i + 1) == '"') {
+                        quoted.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (++i < length && line.charAt(i) != ',') {
+                    return Result.MALFORMED_QUOTE;
+                }
+                field = quoted.toString();
+            } else {
+                final int comma = line.indexOf(',', i);
+                final int end = comma < 0 ? length : comma;
+                field = line.substring(i, end);
+                i = end;
+            }
+
+            final String stripped = field.strip();
+            fields[count++] = stripped.isEmpty() ? null : stripped;
+            if (i >= length) {
+                return count == FIELDS ? Result.VALID : Result.FIELD_COUNT;
+            }
+            i++;
+        }
+    }
+
+    private static Sex sex(final String value) {
+        for (Sex sex : Sex.values()) {
+            if (sex.name().equalsIgnoreCase(value)
+                || value.length() == 1 && Character.toUpperCase(value.charAt(0)) == sex.name().charAt(0)) {
+                return sex;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a street number, parsed without exceptions.
+     *
+     * @return The street number, or zero if the value is not a positive integer of at most nine digits.
+     */
+    private static int streetNumber(final String value) {
+        if (value.length() > 9) {
+            return 0;
+        }
+
+        int number = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            number = number * 10 + (c - '0');
+        }
+
+        return number;
+    }
+
+    /**
+     * The {@code CsvFile.Report} class counts the records of a CSV file by result.
+     */
+    public static final class Report {
+
+        private final long[] counts = new long[Result.values().length];
+
+        private Report() {
+        }
+
+        /**
+         * Returns the number of records with a result.
+         *
+         * @param result the result.
+         * @return The number of records.
+         */
+        public long count(final Result result) {
+            return counts[result.ordinal()];
+        }
+
+        /**
+         * Returns the number of records imported.
+         *
+         * @return The number of valid records.
+         */
+        public long imported() {
+            return counts[Result.VALID.ordinal()];
+        }
+
+        /**
+         * Returns the number of records rejected.
+         *
+         * @return The number of invalid records.
+         */
+        public long rejected() {
+            return Arrays.stream(counts).sum() - imported();
+        }
+
+    }
+
+    /**
+     * The {@code CsvFile.Chunk} class holds consecutive lines, and the result of parsing each.
+     */
+    private static final class Chunk {
+
+        private final long first;
+        private final String[] lines;
+        private final Result[] results;
+        private final List<Person> valid = new ArrayList<>();
+
+        private Chunk(final long first, final String[] lines) {
+            this.first = first;
+            this.lines = lines;
+            this.results = new Result[lines.length];
+        }
+
+        private Chunk parse() {
+            final String[][] records = new String[lines.length][FIELDS];
+            final String[] postalCodes = new String[lines.length];
+            final boolean[] validCodes = new boolean[lines.length];
+            for (int i = 0; i < lines.length; i++) {
+                results[i] = split(lines[i], records[i]);
+                postalCodes[i] = records[i][7];
+            }
+
+            // Validate the column of postal codes in one pass; an undefined postal code is valid.
+            PostalCodeFormat.GENERIC.validate(postalCodes, validCodes);
+            for (int i = 0; i < lines.length; i++) {
+                if (results[i] == Result.VALID) {
+                    results[i] = record(records[i], validCodes[i] || postalCodes[i] == null);
+                }
+            }
+
+            return this;
+        }
+
+        private Result record(final String[] fields, final boolean validCode) {
+            if (fields[0] == null && fields[2] == null) {
+                return Result.MISSING_NAME;
+            }
+
+            final Sex sex = fields[3] == null ? null : sex(fields[3]);
+            if (fields[3] != null && sex == null) {
+                return Result.INVALID_SEX;
+            }
+
+            final int streetNumber = fields[4] == null ? 0 : streetNumber(fields[4]);
+            if (fields[4] != null && streetNumber == 0) {
+                return Result.INVALID_STREET_NUMBER;
+            } else if (!validCode) {
+                return Result.INVALID_POSTAL_CODE;
+            }
+
+            final Address address = new Address();
+            try {
+                if (streetNumber != 0) {
+                    address.setStreetNumber(streetNumber);
+                }
+                address.setStreetName(fields[5]);
+                address.setCityName(fields[6]);
+                if (fields[7] != null) {
+                    address.setPostalCode(new PostalCode(fields[7]));
+                }
+            } catch (DataFormatException exc) {
+                throw new IllegalStateException("Validated field rejected", exc);
+            }
+
+            final FamilyMember member = new FamilyMember(
+                    new Person(new Name(fields[0], fields[1], fields[2]), sex, address, null), null, null, null, null,
+                    new HashSet<>());
+            member.identify();
+            valid.add(member);
+            return Result.VALID;
+        }
+
+    }
+
+}
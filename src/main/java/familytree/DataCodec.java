@@ -0,0 +1,345 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code DataCodec} class encodes and decodes the primitive values of the binary family tree formats.
+ * <p>
+ * Integers that are usually small, such as identifiers and lengths, are written as unsigned variable-length integers of
+ * seven bits per byte, least significant group first, with the high bit of each byte set when more bytes follow.
+ * Strings are written as their UTF-8 length plus one followed by their UTF-8 bytes, so that a length of zero stands for
+ * {@code null}. Fixed-width values are big-endian.
+ * <p>
+ * The same encodings are available over {@code DataInput} and {@code DataOutput}, for the externalized forms of the
+ * model classes.
+ *
+ * @see familytree.FamilyTreeFile
+ */
+final class DataCodec {
+
+    private DataCodec() {
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param buffer the buffer to read from.
+     * @return The integer, which is not negative.
+     * @throws DataFormatException if the integer is greater than {@code Integer.MAX_VALUE}, or the buffer ends before
+     *                             its encoding does.
+     */
+    static int getVarint(final ByteBuffer buffer) throws DataFormatException {
+        final long value = getVarlong(buffer);
+        if (value < 0L || value > Integer.MAX_VALUE) {
+            throw new DataFormatException("Integer out of range: " + Long.toUnsignedString(value));
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads the number of items that follow, each of which takes at least one byte of the buffer.
+     * <p>
+     * The count is checked against the bytes remaining before the caller allocates room for the items, so that a
+     * corrupt count is reported rather than exhausting the heap.
+     *
+     * @param buffer the buffer to read from.
+     * @return The count, which is not negative.
+     * @throws DataFormatException if the count is greater than the number of bytes remaining, or the buffer ends before
+     *                             its encoding does.
+     */
+    static int getCount(final ByteBuffer buffer) throws DataFormatException {
+        final int count = getVarint(buffer);
+        if (count > buffer.remaining()) {
+            throw new DataFormatException("Count exceeds remaining data: " + count);
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads an unsigned variable-length long integer.
+     *
+     * @param buffer the buffer to read from.
+     * @return The long integer.
+     * @throws DataFormatException if the encoding is longer than ten bytes, or the buffer ends before it does.
+     */
+    static long getVarlong(final ByteBuffer buffer) throws DataFormatException {
+        long value = 0L;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new DataFormatException("Truncated integer");
+            }
+
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new DataFormatException("Malformed integer");
+    }
+
+    /**
+     * Reads a string, or {@code null}.
+     *
+     * @param buffer the buffer to read from.
+     * @return The string, or {@code null}.
+     * @throws DataFormatException if the buffer ends before the string does.
+     */
+    static String getString(final ByteBuffer buffer) throws DataFormatException {
+        final int length = getVarint(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+
+        if (length > buffer.remaining()) {
+            throw new DataFormatException("Truncated string");
+        }
+
+        final String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                               StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return value;
+    }
+
+    /**
+     * Skips over a string, or {@code null}, without decoding it.
+     *
+     * @param buffer the buffer to read from.
+     * @throws DataFormatException if the buffer ends before the string does.
+     */
+    static void skipString(final ByteBuffer buffer) throws DataFormatException {
+        final int length = getVarint(buffer) - 1;
+        if (length > buffer.remaining()) {
+            throw new DataFormatException("Truncated string");
+        }
+
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param out   the output to write to.
+     * @param value the integer.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void putVarint(final DataOutput out, final int value) throws IOException {
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            out.writeByte((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        out.writeByte(rest);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @param in the input to read from.
+     * @return The integer, which is not negative.
+     * @throws IOException if an I/O error occurs, the encoding is longer than five bytes, or the integer is greater
+     *                     than {@code Integer.MAX_VALUE}.
+     */
+    static int getVarint(final DataInput in) throws IOException {
+        long value = 0L;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value > Integer.MAX_VALUE) {
+                    throw new StreamCorruptedException("Integer out of range: " + value);
+                }
+                return (int) value;
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed integer");
+    }
+
+    /**
+     * Writes a string, or {@code null}.
+     *
+     * @param out   the output to write to.
+     * @param value the string, or {@code null}.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void putString(final DataOutput out, final String value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string, or {@code null}.
+     *
+     * @param in the input to read from.
+     * @return The string, or {@code null}.
+     * @throws IOException if an I/O error occurs, or the length is malformed.
+     */
+    static String getString(final DataInput in) throws IOException {
+        final int length = getVarint(in) - 1;
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new StreamCorruptedException("String length out of range");
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The {@code DataCodec.Writer} class buffers encoded values in front of an output stream and keeps count of the
+     * bytes written, so that section offsets can be recorded as a file is written.
+     */
+    static final class Writer {
+
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count = 0;
+        private long flushed = 0L;
+
+        /**
+         * Creates a new {@code DataCodec.Writer} object that writes to the supplied stream.
+         *
+         * @param out the stream to write to.
+         */
+        Writer(final OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         *
+         * @return The number of bytes written.
+         */
+        long position() {
+            return flushed + count;
+        }
+
+        void putByte(final int value) throws IOException {
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        void putInt(final int value) throws IOException {
+            putByte(value >>> 24);
+            putByte(value >>> 16);
+            putByte(value >>> 8);
+            putByte(value);
+        }
+
+        void putLong(final long value) throws IOException {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void putVarint(final int value) throws IOException {
+            putVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void putVarlong(final long value) throws IOException {
+            long rest = value;
+            while ((rest & ~0x7FL) != 0) {
+                putByte((int) (rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            putByte((int) rest);
+        }
+
+        void putString(final String value) throws IOException {
+            if (value == null) {
+                putVarint(0);
+                return;
+            }
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length + 1);
+            if (bytes.length > buffer.length - count) {
+                drain();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    flushed += bytes.length;
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        /**
+         * Writes any buffered bytes to the stream and flushes it.
+         *
+         * @throws IOException if an I/O error occurs.
+         */
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, count);
+            flushed += count;
+            count = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,522 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+
+import static familytree.FamilyTreeFile.ADDRESS;
+import static familytree.FamilyTreeFile.CHILDREN;
+import static familytree.FamilyTreeFile.MEMBER;
+import static familytree.FamilyTreeFile.NAME;
+import static familytree.FamilyTreeFile.POSTAL_CODE;
+import static familytree.FamilyTreeFile.SEX_SHIFT;
+
+/**
+ * The {@code FamilyArchive} class gives read-only access to the persons of a family tree file without reading the
+ * whole file.
+ * <p>
+ * A family archive maps the file into memory and decodes nothing on opening but the section index, so that opening
+ * takes about the same time whatever the size of the file. The details and relationships of a person are decoded from
+ * the mapped bytes when they are asked for, one person at a time, and the strings they refer to are decoded only when
+ * one of their fields is returned. Nothing decoded is retained, so an archive uses little memory beyond the pages of
+ * the file that the operating system keeps resident.
+ * <p>
+ * The persons of an archive are identified as they are in a {@link FamilyGraph}, by dense identifiers in the order in
+ * which they were written, and their relationships are returned as identifiers. Since the accessors of {@code Person}
+ * and {@code FamilyMember} cannot be deferred, {@link #person(int)} returns a detached copy of a person's details
+ * rather than a view.
+ * <p>
+ * A file written without the {@code SIDX} and {@code PIDX} sections is indexed on opening, in time proportional to
+ * its size. A family archive may be read by several threads at once.
+ *
+ * @see familytree.FamilyTreeFile
+ */
+public final class FamilyArchive {
+
+    private static final Sex[] SEXES = Sex.values();
+
+    private final ByteBuffer strings;
+    private final ByteBuffer persons;
+    private final ByteBuffer links;
+    private final IntBuffer stringIndex;
+    private final IntBuffer personIndex;
+    private final int size;
+
+    private FamilyArchive(final ByteBuffer strings, final ByteBuffer persons, final ByteBuffer links,
+                          final IntBuffer stringIndex, final IntBuffer personIndex, final int size) {
+        this.strings = strings;
+        this.persons = persons;
+        this.links = links;
+        this.stringIndex = stringIndex;
+        this.personIndex = personIndex;
+        this.size = size;
+    }
+
+    /**
+     * Opens a family tree file as an archive, by mapping it into memory.
+     * <p>
+     * Each section of the file is mapped on its own, so that a file of any size may be opened as long as none of its
+     * sections is larger than 2 GiB.
+     *
+     * @param path the path of the file.
+     * @return The family archive.
+     * @throws IOException         if an I/O error occurs, or a section of the file is too large to be mapped.
+     * @throws DataFormatException if the file is not a family tree file, is of an unsupported version, or is corrupt.
+     */
+    public static FamilyArchive open(final Path path) throws IOException, DataFormatException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return open(FamilyTreeFile.sections(channel, FamilyTreeFile.STRINGS, FamilyTreeFile.PERSONS,
+                                                FamilyTreeFile.LINKS, FamilyTreeFile.STRING_INDEX,
+                                                FamilyTreeFile.PERSON_INDEX));
+        }
+    }
+
+    /**
+     * Opens the family tree file held by the remaining bytes of a buffer as an archive. The buffer is not copied.
+     *
+     * @param buffer the buffer holding a family tree file.
+     * @return The family archive.
+     * @throws DataFormatException if the buffer does not hold a family tree file, holds one of an unsupported version,
+     *                             or is corrupt.
+     */
+    public static FamilyArchive open(final ByteBuffer buffer) throws DataFormatException {
+        final ByteBuffer file = buffer.slice();
+
+        try {
+            return open(FamilyTreeFile.sections(file, FamilyTreeFile.STRINGS, FamilyTreeFile.PERSONS,
+                                                FamilyTreeFile.LINKS, FamilyTreeFile.STRING_INDEX,
+                                                FamilyTreeFile.PERSON_INDEX));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    private static FamilyArchive open(final ByteBuffer[] bodies) throws DataFormatException {
+        try {
+            final ByteBuffer strings = bodies[0], persons = bodies[1], links = bodies[2];
+            if (strings == null || persons == null || links == null) {
+                throw new DataFormatException("Missing family tree file section");
+            }
+
+            final int stringCount = DataCodec.getCount(strings);
+            final int size = DataCodec.getCount(persons);
+            IntBuffer stringIndex = bodies[3] == null ? null : bodies[3].asIntBuffer();
+            IntBuffer personIndex = bodies[4] == null ? null : bodies[4].asIntBuffer();
+            if (stringIndex == null || personIndex == null) {
+                stringIndex = indexStrings(strings, stringCount);
+                personIndex = indexPersons(persons, links, size);
+            }
+            if (stringIndex.limit() != stringCount || personIndex.limit() != size * 2) {
+                throw new DataFormatException("Index does not match family tree file");
+            }
+
+            return new FamilyArchive(strings.clear(), persons.clear(), links.clear(), stringIndex, personIndex, size);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns the number of persons in the archive.
+     *
+     * @return The number of persons in the archive.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether a person is a family member, and so may have relatives.
+     *
+     * @param id the identifier of the person.
+     * @return {@code true} if the person is a family member; {@code false} otherwise.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public boolean isMember(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        return (flags(id) & MEMBER) != 0;
+    }
+
+    /**
+     * Returns a person's sex.
+     *
+     * @param id the identifier of the person.
+     * @return The person's sex, or {@code null} if it is not recorded.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public Sex sex(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final int sex = (flags(id) >>> SEX_SHIFT) & 0x03;
+        if (sex > SEXES.length) {
+            throw new DataFormatException("Sex out of range: " + sex);
+        }
+
+        return sex == 0 ? null : SEXES[sex - 1];
+    }
+
+    /**
+     * Returns a person's name.
+     *
+     * @param id the identifier of the person.
+     * @return A new {@code Name} object holding the person's name, or {@code null} if it is not recorded.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public Name name(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final ByteBuffer record = record(id);
+        try {
+            return (record.get() & NAME) == 0 ? null : readName(record);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns a person's address.
+     *
+     * @param id the identifier of the person.
+     * @return A new {@code Address} object holding the person's address, or {@code null} if it is not recorded.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public Address address(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final ByteBuffer record = record(id);
+        try {
+            final int flags = record.get();
+            skipName(record, flags);
+            return (flags & ADDRESS) == 0 ? null : readAddress(record, flags);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns a person's biography.
+     *
+     * @param id the identifier of the person.
+     * @return The person's biography, or {@code null} if it is not recorded.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public String biography(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final ByteBuffer record = record(id);
+        try {
+            final int flags = record.get();
+            skipName(record, flags);
+            skipAddress(record, flags);
+            return DataCodec.getString(record);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns a family member's family, or gentile, name.
+     *
+     * @param id the identifier of the person.
+     * @return The family name, or {@code null} if it is not recorded or the person is not a family member.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public String familyName(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final ByteBuffer record = record(id);
+        try {
+            final int flags = record.get();
+            if ((flags & MEMBER) == 0) {
+                return null;
+            }
+
+            skipName(record, flags);
+            skipAddress(record, flags);
+            DataCodec.skipString(record);
+            return string(DataCodec.getVarint(record));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns the identifier of a person's mother.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the mother, or {@link FamilyGraph#NONE} if there is none.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int mother(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        return link(id, 0);
+    }
+
+    /**
+     * Returns the identifier of a person's father.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the father, or {@link FamilyGraph#NONE} if there is none.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int father(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        return link(id, 1);
+    }
+
+    /**
+     * Returns the identifier of a person's spouse.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the spouse, or {@link FamilyGraph#NONE} if there is none.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int spouse(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        return link(id, 2);
+    }
+
+    /**
+     * Returns the identifiers of a person's children.
+     *
+     * @param id the identifier of the person.
+     * @return The identifiers of the children, in the order in which they were written; empty if there are none.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int[] children(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final int flags = flags(id);
+        if ((flags & CHILDREN) == 0) {
+            return new int[0];
+        }
+
+        final ByteBuffer record = links(id);
+        try {
+            for (int i = 0; i < 3; i++) {
+                DataCodec.getVarint(record);
+            }
+
+            final int count = DataCodec.getCount(record);
+            final int[] children = new int[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = checkLink(DataCodec.getVarint(record) - 1);
+            }
+            return children;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    /**
+     * Returns a detached copy of a person's details.
+     * <p>
+     * The {@code person} method decodes the whole of a person's record into a new {@code Person} object, or a new
+     * {@code FamilyMember} object holding the family name and identity key of a family member. The copy is bound to no
+     * graph and has no relatives; the relationships of the person are returned by the other methods of the archive.
+     *
+     * @param id the identifier of the person.
+     * @return The copy of the person.
+     * @throws DataFormatException       if the person's record is corrupt.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public Person person(final int id) throws DataFormatException, IndexOutOfBoundsException {
+        final ByteBuffer record = record(id);
+        try {
+            final int flags = record.get();
+            final Person person = (flags & MEMBER) == 0 ? new Person() : new FamilyMember();
+            person.setSex(sex(id));
+            if ((flags & NAME) != 0) {
+                person.setName(readName(record));
+            }
+            if ((flags & ADDRESS) != 0) {
+                person.setAddress(readAddress(record, flags));
+            }
+            person.setBiography(DataCodec.getString(record));
+
+            if (person instanceof FamilyMember member) {
+                member.setFamilyName(string(DataCodec.getVarint(record)));
+                final long identityKey = DataCodec.getVarlong(record);
+                if (identityKey != 0L) {
+                    member.setIdentityKey(identityKey);
+                }
+            }
+            return person;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    private static DataFormatException corrupt(final RuntimeException cause) {
+        final DataFormatException corrupt = new DataFormatException("Corrupt family tree file");
+        corrupt.initCause(cause);
+        return corrupt;
+    }
+
+    private static IntBuffer indexStrings(final ByteBuffer strings, final int count) throws DataFormatException {
+        final int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = strings.position();
+            DataCodec.skipString(strings);
+        }
+
+        return IntBuffer.wrap(offsets);
+    }
+
+    private static IntBuffer indexPersons(final ByteBuffer persons, final ByteBuffer links, final int size)
+    throws DataFormatException {
+        final int[] offsets = new int[size * 2];
+        links.position(0);
+        for (int id = 0; id < size; id++) {
+            offsets[id * 2] = persons.position();
+            offsets[id * 2 + 1] = links.position();
+
+            final int flags = persons.get();
+            skipName(persons, flags);
+            skipAddress(persons, flags);
+            DataCodec.skipString(persons);
+            if ((flags & MEMBER) != 0) {
+                DataCodec.getVarint(persons);
+                DataCodec.getVarlong(persons);
+
+                for (int i = 0; i < 3; i++) {
+                    DataCodec.getVarint(links);
+                }
+                if ((flags & CHILDREN) != 0) {
+                    for (int i = 0, count = DataCodec.getVarint(links); i < count; i++) {
+                        DataCodec.getVarint(links);
+                    }
+                }
+            }
+        }
+
+        return IntBuffer.wrap(offsets);
+    }
+
+    private static void skipName(final ByteBuffer record, final int flags) throws DataFormatException {
+        if ((flags & NAME) != 0) {
+            for (int i = 0; i < 3; i++) {
+                DataCodec.getVarint(record);
+            }
+        }
+    }
+
+    private static void skipAddress(final ByteBuffer record, final int flags) throws DataFormatException {
+        if ((flags & ADDRESS) != 0) {
+            for (int i = 0; i < 3; i++) {
+                DataCodec.getVarint(record);
+            }
+        }
+        if ((flags & POSTAL_CODE) != 0) {
+            DataCodec.getVarint(record);
+        }
+    }
+
+    private Name readName(final ByteBuffer record) throws DataFormatException {
+        return new Name(string(DataCodec.getVarint(record)), string(DataCodec.getVarint(record)),
+                        string(DataCodec.getVarint(record)));
+    }
+
+    private Address readAddress(final ByteBuffer record, final int flags) throws DataFormatException {
+        final Address address = new Address();
+        final int streetNumber = DataCodec.getVarint(record);
+        if (streetNumber != 0) {
+            address.setStreetNumber(streetNumber);
+        }
+        address.setStreetName(string(DataCodec.getVarint(record)));
+        address.setCityName(string(DataCodec.getVarint(record)));
+        if ((flags & POSTAL_CODE) != 0) {
+            final String characterSet = string(DataCodec.getVarint(record));
+            address.setPostalCode(characterSet == null ? new PostalCode() : new PostalCode(characterSet));
+        }
+
+        return address;
+    }
+
+    private String string(final int ref) throws DataFormatException {
+        if (ref > stringIndex.limit()) {
+            throw new DataFormatException("String reference out of range: " + ref);
+        }
+
+        return ref == 0 ? null : DataCodec.getString(strings.duplicate().position(stringIndex.get(ref - 1)));
+    }
+
+    private int checkId(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Identifier out of range: " + id);
+        }
+
+        return id;
+    }
+
+    private int checkLink(final int id) throws DataFormatException {
+        if (id >= size) {
+            throw new DataFormatException("Identifier out of range: " + id);
+        }
+
+        return id;
+    }
+
+    private ByteBuffer record(final int id) throws DataFormatException {
+        try {
+            return persons.duplicate().position(personIndex.get(checkId(id) * 2));
+        } catch (IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    private ByteBuffer links(final int id) throws DataFormatException {
+        try {
+            return links.duplicate().position(personIndex.get(checkId(id) * 2 + 1));
+        } catch (IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    private int flags(final int id) throws DataFormatException {
+        try {
+            return record(id).get();
+        } catch (BufferUnderflowException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+    private int link(final int id, final int field) throws DataFormatException {
+        if ((flags(id) & MEMBER) == 0) {
+            return FamilyGraph.NONE;
+        }
+
+        final ByteBuffer record = links(id);
+        try {
+            for (int i = 0; i < field; i++) {
+                DataCodec.getVarint(record);
+            }
+            return checkLink(DataCodec.getVarint(record) - 1);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exc) {
+            throw corrupt(exc);
+        }
+    }
+
+}
@@ -0,0 +1,755 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The {@code FamilyGraph} class stores the relationships between family members as columns of primitive integers.
+ * <p>
+ * The {@code FamilyGraph} class assigns each person that is added to it a dense integer identifier, starting at zero,
+ * and binds the person to the graph. The biological mother, biological father, and spouse of every bound family member
+ * are held in parallel {@code int} columns indexed by identifier, and the parent/child relationships are held in
+ * compressed sparse row (CSR) adjacency arrays, so that traversals over the family tree become sequential scans of
+ * primitive arrays rather than chains of object references.
+ * <p>
+ * Adding a person to the graph also adds every relative that is reachable from them through the mother, father, spouse,
+ * and children fields of {@code FamilyMember}. Once bound, a family member reports changes to its relationships back to
+ * the graph, which keeps the columns in step with the object model. The child and parent adjacency arrays are the union
+ * of the {@code FamilyMember} children sets and the mother/father fields, and are rebuilt lazily after a change.
+ * <p>
+ * The graph also indexes every person by name, so that all persons sharing a name can be found without scanning the
+ * tree. The index follows calls to {@code Person.setName}, but not changes made in place to a {@code Name} object.
+ * <p>
+ * Indices derived from the graph may register a {@link Listener} to be told of every person that is added and every
+ * relationship that changes, so that they can update themselves incrementally. Listeners are also told when a setter
+ * of {@code Person} or {@code FamilyMember} replaces a personal detail of a bound person.
+ * <p>
+ * The long biographies of bound persons are held compressed, off the heap, in the graph's {@link BiographyStore}.
+ * <p>
+ * The {@code FamilyGraph} class is not thread-safe; concurrent readers must not run alongside a writer.
+ */
+public final class FamilyGraph {
+
+    /**
+     * The identifier used to represent the absence of a person.
+     */
+    public static final int NONE = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Defines a list of the changes that a {@code Listener} may be told of.
+     */
+    public enum Change {
+
+        /**
+         * The person was added to the graph.
+         */
+        ADDED,
+        /**
+         * The family member's biological mother changed.
+         */
+        MOTHER,
+        /**
+         * The family member's biological father changed.
+         */
+        FATHER,
+        /**
+         * The family member's spouse changed.
+         */
+        SPOUSE,
+        /**
+         * A child was added to the family member's set of children.
+         */
+        CHILD_ADDED,
+        /**
+         * A child was removed from the family member's set of children.
+         */
+        CHILD_REMOVED,
+        /**
+         * The person's name was replaced.
+         */
+        NAME,
+        /**
+         * The person's biological sex changed.
+         */
+        SEX,
+        /**
+         * The person's postal address was replaced.
+         */
+        ADDRESS,
+        /**
+         * The person's biography changed.
+         */
+        BIOGRAPHY,
+        /**
+         * The family member's family, or gentile, name changed.
+         */
+        FAMILY_NAME;
+
+        /**
+         * Returns whether the change is to a relationship, and therefore to the structure of the graph.
+         *
+         * @return {@code true} if the change adds a person or changes a relationship; {@code false} if it changes only
+         *         the personal details of a person.
+         */
+        public boolean isStructural() {
+            return this.ordinal() <= CHILD_REMOVED.ordinal();
+        }
+
+    }
+
+    /**
+     * The {@code Listener} interface is implemented by objects that are told of changes to a {@code FamilyGraph}.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Invoked after a person has been added to the graph, or after one of their relationships or personal details
+         * has changed.
+         * <p>
+         * For a change of mother, father, or spouse, {@code previous} is the person who previously held the role (if
+         * any). For a child being added or removed, {@code previous} is that child. For a change of name, sex,
+         * address, biography, or family name, {@code previous} is the previous value of that field: a {@code Name},
+         * {@code Sex}, {@code Address}, or {@code String}. For a person being added, {@code previous} is {@code null}.
+         *
+         * @param id       the identifier of the person that changed.
+         * @param change   the kind of change.
+         * @param previous the previous value of the changed field, or the child concerned.
+         */
+        void memberChanged(int id, Change change, Object previous);
+
+    }
+
+    private Person[] persons;
+    private int[] mothers;
+    private int[] fathers;
+    private int[] spouses;
+    private int size = 0;
+    private final Map<Name, int[]> names = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    /**
+     * The store holding the long biographies of the bound persons.
+     */
+    final BiographyStore biographies;
+
+    private int[] childOffsets = new int[1];
+    private int[] childIds = new int[0];
+    private int[] parentOffsets = new int[1];
+    private int[] parentIds = new int[0];
+    private boolean adjacencyValid = true;
+    private int modCount = 0;
+    private long changeCount = 0L;
+
+    /**
+     * Creates a new, empty {@code FamilyGraph} object.
+     */
+    public FamilyGraph() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty {@code FamilyGraph} object with room for the supplied number of persons before any of its
+     * columns need to grow.
+     *
+     * @param initialCapacity the number of persons to reserve room for.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public FamilyGraph(final int initialCapacity) throws IllegalArgumentException {
+        this(initialCapacity, new BiographyStore());
+    }
+
+    private FamilyGraph(final int initialCapacity, final BiographyStore biographies)
+    throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+
+        this.persons = new Person[initialCapacity];
+        this.mothers = new int[initialCapacity];
+        this.fathers = new int[initialCapacity];
+        this.spouses = new int[initialCapacity];
+        this.biographies = biographies;
+    }
+
+    /**
+     * Adds a person, and every relative reachable from them, to the graph.
+     * <p>
+     * The {@code add} method binds the supplied person to the graph and assigns them the next free identifier. If the
+     * person is a {@code FamilyMember}, their mother, father, spouse, and children are added as well, and so on
+     * transitively. Persons that are already bound to this graph keep their identifier.
+     * <p>
+     * The return value is the identifier of the supplied person.
+     *
+     * @param person the person to be added.
+     * @return The identifier of the person.
+     * @throws IllegalArgumentException if the person, or one of their relatives, is bound to another graph.
+     * @throws NullPointerException     if the person is {@code null}.
+     */
+    public int add(final Person person) throws IllegalArgumentException, NullPointerException {
+        final int first = size;
+        final ArrayDeque<Person> pending = new ArrayDeque<>();
+        bind(Objects.requireNonNull(person), pending);
+        expand(pending, first);
+
+        return person.id;
+    }
+
+    /**
+     * Adds every person in the supplied collection, and every relative reachable from them, to the graph.
+     * <p>
+     * The {@code addAll} method binds the persons of the collection first, in iteration order, so that those who were
+     * not already bound receive consecutive identifiers; their relatives are bound afterwards. The relationships of the
+     * new persons are read, and the listeners told, once for the whole collection.
+     * <p>
+     * The return value is the number of persons that were newly added to the graph.
+     *
+     * @param people the persons to be added.
+     * @return The number of persons that were newly added to the graph.
+     * @throws IllegalArgumentException if a person is bound to another graph.
+     * @throws NullPointerException     if the collection, or one of its elements, is {@code null}.
+     * @see #add(familytree.Person)
+     */
+    public int addAll(final Collection<? extends Person> people) throws IllegalArgumentException, NullPointerException {
+        final int first = size;
+        final ArrayDeque<Person> pending = new ArrayDeque<>();
+
+        for (Person person : people) {
+            bind(Objects.requireNonNull(person), pending);
+        }
+        expand(pending, first);
+
+        return size - first;
+    }
+
+    /**
+     * Returns the number of persons in the graph.
+     *
+     * @return The number of persons in the graph.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the person with the supplied identifier.
+     *
+     * @param id the identifier of the person.
+     * @return The person with the supplied identifier.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public Person person(final int id) throws IndexOutOfBoundsException {
+        return persons[checkId(id)];
+    }
+
+    /**
+     * Returns the identifier of the supplied person.
+     *
+     * @param person the person to look up.
+     * @return The identifier of the person, if bound to this graph; {@link #NONE} otherwise.
+     */
+    public int idOf(final Person person) {
+        return person != null && person.graph == this ? person.id : NONE;
+    }
+
+    /**
+     * Returns the number of persons in the graph with the supplied name.
+     *
+     * @param name the name to look up.
+     * @return The number of persons with the name.
+     */
+    public int countByName(final Name name) {
+        final int[] ids = names.get(name);
+        return ids == null ? 0 : ids[0];
+    }
+
+    /**
+     * Returns the identifier of one of the persons in the graph with the supplied name.
+     *
+     * @param name  the name to look up.
+     * @param index the index of the person, from zero (inclusive) to {@link #countByName(familytree.Name)} (exclusive).
+     * @return The identifier of the person.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int idByName(final Name name, final int index) throws IndexOutOfBoundsException {
+        return names.get(name)[Objects.checkIndex(index, countByName(name)) + 1];
+    }
+
+    /**
+     * Returns the first person added to the graph with the supplied name.
+     *
+     * @param name the name to look up.
+     * @return The person with the name, if any; {@code null} otherwise.
+     */
+    public Person findByName(final Name name) {
+        return countByName(name) == 0 ? null : persons[idByName(name, 0)];
+    }
+
+    /**
+     * Returns the identifier of a person's biological mother.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the mother, if any; {@link #NONE} otherwise.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int mother(final int id) throws IndexOutOfBoundsException {
+        return mothers[checkId(id)];
+    }
+
+    /**
+     * Returns the identifier of a person's biological father.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the father, if any; {@link #NONE} otherwise.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int father(final int id) throws IndexOutOfBoundsException {
+        return fathers[checkId(id)];
+    }
+
+    /**
+     * Returns the identifier of a person's spouse.
+     *
+     * @param id the identifier of the person.
+     * @return The identifier of the spouse, if any; {@link #NONE} otherwise.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int spouse(final int id) throws IndexOutOfBoundsException {
+        return spouses[checkId(id)];
+    }
+
+    /**
+     * Returns the number of children a person has.
+     * <p>
+     * A person's children are those listed in their {@code FamilyMember} children set together with every person who
+     * names them as mother or father; each child is counted once.
+     *
+     * @param id the identifier of the person.
+     * @return The number of children.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int childCount(final int id) throws IndexOutOfBoundsException {
+        checkId(id);
+        validate();
+        return childOffsets[id + 1] - childOffsets[id];
+    }
+
+    /**
+     * Returns the identifier of one of a person's children.
+     *
+     * @param id    the identifier of the person.
+     * @param index the index of the child, from zero (inclusive) to {@link #childCount(int)} (exclusive).
+     * @return The identifier of the child.
+     * @throws IndexOutOfBoundsException if the identifier is not in use, or the index is out of range.
+     */
+    public int child(final int id, final int index) throws IndexOutOfBoundsException {
+        return childIds[childOffsets[id] + Objects.checkIndex(index, childCount(id))];
+    }
+
+    /**
+     * Returns the number of parents a person has.
+     * <p>
+     * A person's parents are their mother and father together with every family member who lists them as a child;
+     * each parent is counted once.
+     *
+     * @param id the identifier of the person.
+     * @return The number of parents.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int parentCount(final int id) throws IndexOutOfBoundsException {
+        checkId(id);
+        validate();
+        return parentOffsets[id + 1] - parentOffsets[id];
+    }
+
+    /**
+     * Returns the identifier of one of a person's parents.
+     *
+     * @param id    the identifier of the person.
+     * @param index the index of the parent, from zero (inclusive) to {@link #parentCount(int)} (exclusive).
+     * @return The identifier of the parent.
+     * @throws IndexOutOfBoundsException if the identifier is not in use, or the index is out of range.
+     */
+    public int parent(final int id, final int index) throws IndexOutOfBoundsException {
+        return parentIds[parentOffsets[id] + Objects.checkIndex(index, parentCount(id))];
+    }
+
+    /**
+     * Returns the store holding the long biographies of the persons bound to the graph.
+     *
+     * @return The biography store.
+     */
+    public BiographyStore biographies() {
+        return biographies;
+    }
+
+    /**
+     * Returns the modification count of the graph, which is incremented every time a person is added or a relationship
+     * changes. Derived indices may compare it against a stored value to detect that they are stale.
+     *
+     * @return The modification count.
+     */
+    public int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Returns the number of changes reported to the graph's listeners, whether or not any are registered. Unlike the
+     * modification count, it also counts changes to the details of persons.
+     *
+     * @return The change count.
+     */
+    long changeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns a copy of the graph whose persons are copies of the persons of this graph, with the same identifiers and
+     * relationships.
+     * <p>
+     * The {@code snapshot} method copies the name of every person, and shares their immutable address, so that the
+     * copy is unaffected by later changes to this graph, and may be read on another thread while this graph continues
+     * to be edited. The copy shares the biography store of this graph, whose entries are never overwritten, and has no
+     * listeners. Null children, and children not bound to this graph, are not copied.
+     *
+     * @return A copy of the graph.
+     */
+    public FamilyGraph snapshot() {
+        final Person[] copies = new Person[size];
+        for (int id = 0; id < size; id++) {
+            final Person person = persons[id];
+            final Person copy;
+            if (person instanceof FamilyMember member) {
+                copy = member.getChildren() == null ? new FamilyMember()
+                        : new FamilyMember(new Person(), null, null, null, null, new HashSet<>());
+            } else {
+                copy = new Person();
+            }
+            copy.setName(person.getName() == null ? null : new Name(person.getName()));
+            copy.setSex(person.getSex());
+            copy.setAddress(person.getAddress());
+            copy.shareBiography(person);
+
+            if (person instanceof FamilyMember member) {
+                final FamilyMember memberCopy = (FamilyMember) copy;
+                memberCopy.setFamilyName(member.getFamilyName());
+                if (member.getIdentityKey() != 0L) {
+                    memberCopy.setIdentityKey(member.getIdentityKey());
+                }
+            }
+            copies[id] = copy;
+        }
+
+        // Children are added before any parent or spouse is linked, so that hashing a child does not recurse back up.
+        // A null child, or one put straight into a set of children without being added to the graph, is left out.
+        for (int id = 0; id < size; id++) {
+            if (persons[id] instanceof FamilyMember member && member.getChildren() != null) {
+                final Set<Person> children = ((FamilyMember) copies[id]).getChildren();
+                for (Person child : member.getChildren()) {
+                    final int childId = idOf(child);
+                    if (childId != NONE) {
+                        children.add(copies[childId]);
+                    }
+                }
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            if (copies[id] instanceof FamilyMember memberCopy) {
+                memberCopy.setMother(mothers[id] == NONE ? null : copies[mothers[id]]);
+                memberCopy.setFather(fathers[id] == NONE ? null : copies[fathers[id]]);
+                memberCopy.setSpouse(spouses[id] == NONE ? null : copies[spouses[id]]);
+            }
+        }
+
+        final FamilyGraph snapshot = new FamilyGraph(size, biographies);
+        snapshot.addAll(Arrays.asList(copies));
+        return snapshot;
+    }
+
+    /**
+     * Registers a listener to be told of changes to the graph.
+     *
+     * @param listener the listener to register.
+     * @throws NullPointerException if the listener is {@code null}.
+     */
+    public void addListener(final Listener listener) throws NullPointerException {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Re-reads the relationships of a bound family member after one of them has changed, adding any new relatives to
+     * the graph, and tells the registered listeners.
+     *
+     * @param member   the family member whose relationships changed.
+     * @param change   the kind of change.
+     * @param previous the previous value of the changed field, or the child concerned.
+     */
+    void linkChanged(final FamilyMember member, final Change change, final Person previous) {
+        final ArrayDeque<Person> pending = new ArrayDeque<>();
+        pending.push(member);
+        expand(pending, size);
+        readLinks(member.id);
+        invalidate();
+        fire(member.id, change, previous);
+    }
+
+    private void fire(final int id, final Change change, final Object previous) {
+        changeCount++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).memberChanged(id, change, previous);
+        }
+    }
+
+    /**
+     * Moves a bound person to a new key in the name index after their name has been replaced, and tells the
+     * registered listeners.
+     *
+     * @param person   the person whose name changed.
+     * @param previous the person's previous name.
+     */
+    void nameChanged(final Person person, final Name previous) {
+        unindexName(previous, person.id);
+        indexName(person.getName(), person.id);
+        fire(person.id, Change.NAME, previous);
+    }
+
+    /**
+     * Tells the registered listeners that a personal detail of a bound person has changed. The relationships of the
+     * graph are unaffected, so its modification count is not advanced.
+     *
+     * @param person   the person whose details changed.
+     * @param change   the kind of change.
+     * @param previous the previous value of the changed field.
+     */
+    void detailChanged(final Person person, final Change change, final Object previous) {
+        fire(person.id, change, previous);
+    }
+
+    private void indexName(final Name name, final int id) {
+        if (name == null) {
+            return;
+        }
+
+        int[] ids = names.get(name);
+        if (ids == null) {
+            ids = new int[2];
+            names.put(new Name(name), ids);
+        } else if (ids[0] + 1 == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            names.replace(name, ids);
+        }
+        ids[++ids[0]] = id;
+    }
+
+    private void unindexName(final Name name, final int id) {
+        final int[] ids = name == null ? null : names.get(name);
+        if (ids == null) {
+            return;
+        }
+
+        for (int i = 1; i <= ids[0]; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(ids, i + 1, ids, i, ids[0] - i);
+                if (--ids[0] == 0) {
+                    names.remove(name);
+                }
+                return;
+            }
+        }
+    }
+
+    private void expand(final ArrayDeque<Person> pending, final int first) {
+        while (!pending.isEmpty()) {
+            if (pending.pop() instanceof FamilyMember member) {
+                bind(member.getMother(), pending);
+                bind(member.getFather(), pending);
+                bind(member.getSpouse(), pending);
+
+                final Set<Person> children = member.getChildren();
+                if (children != null) {
+                    for (Person child : children) {
+                        bind(child, pending);
+                    }
+                }
+            }
+        }
+
+        for (int id = first; id < size; id++) {
+            readLinks(id);
+        }
+
+        if (size > first) {
+            invalidate();
+
+            for (int id = first; id < size; id++) {
+                fire(id, Change.ADDED, null);
+            }
+        }
+    }
+
+    private void bind(final Person person, final ArrayDeque<Person> pending) {
+        if (person == null || person.graph == this) {
+            return;
+        }
+
+        if (person.graph != null) {
+            throw new IllegalArgumentException("Person is bound to another graph: " + person.getName());
+        }
+
+        if (size == persons.length) {
+            final int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            persons = Arrays.copyOf(persons, capacity);
+            mothers = Arrays.copyOf(mothers, capacity);
+            fathers = Arrays.copyOf(fathers, capacity);
+            spouses = Arrays.copyOf(spouses, capacity);
+        }
+
+        persons[size] = person;
+        mothers[size] = NONE;
+        fathers[size] = NONE;
+        spouses[size] = NONE;
+        person.graph = this;
+        person.id = size++;
+        person.storeBiography();
+        indexName(person.getName(), person.id);
+        pending.push(person);
+    }
+
+    private void readLinks(final int id) {
+        if (persons[id] instanceof FamilyMember member) {
+            mothers[id] = idOf(member.getMother());
+            fathers[id] = idOf(member.getFather());
+            spouses[id] = idOf(member.getSpouse());
+        }
+    }
+
+    private void invalidate() {
+        adjacencyValid = false;
+        modCount++;
+    }
+
+    private int checkId(final int id) throws IndexOutOfBoundsException {
+        return Objects.checkIndex(id, size);
+    }
+
+    /**
+     * Rebuilds the child and parent adjacency arrays if a change has left them stale. The adjacency is otherwise
+     * rebuilt on first use, so this must be called before the graph is read from several threads at once.
+     */
+    void validate() {
+        if (adjacencyValid) {
+            return;
+        }
+
+        // Count the candidate edges per parent, scatter them, then drop duplicates in place.
+        final int[] offsets = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            if (mothers[id] != NONE) {
+                offsets[mothers[id] + 1]++;
+            }
+            if (fathers[id] != NONE) {
+                offsets[fathers[id] + 1]++;
+            }
+            if (persons[id] instanceof FamilyMember member && member.getChildren() != null) {
+                offsets[id + 1] += member.getChildren().size();
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+
+        final int[] cursor = Arrays.copyOf(offsets, size);
+        final int[] edges = new int[offsets[size]];
+        for (int id = 0; id < size; id++) {
+            if (mothers[id] != NONE) {
+                edges[cursor[mothers[id]]++] = id;
+            }
+            if (fathers[id] != NONE) {
+                edges[cursor[fathers[id]]++] = id;
+            }
+            if (persons[id] instanceof FamilyMember member && member.getChildren() != null) {
+                for (Person child : member.getChildren()) {
+                    edges[cursor[id]++] = idOf(child);
+                }
+            }
+        }
+
+        final int[] seen = new int[size];
+        Arrays.fill(seen, NONE);
+        final int[] children = new int[edges.length];
+        final int[] childStarts = new int[size + 1];
+        final int[] parentStarts = new int[size + 1];
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            childStarts[id] = count;
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                final int child = edges[e];
+                if (child != NONE && seen[child] != id) {
+                    seen[child] = id;
+                    children[count++] = child;
+                    parentStarts[child + 1]++;
+                }
+            }
+        }
+        childStarts[size] = count;
+
+        for (int id = 0; id < size; id++) {
+            parentStarts[id + 1] += parentStarts[id];
+        }
+        final int[] parents = new int[count];
+        final int[] fill = Arrays.copyOf(parentStarts, size);
+        for (int id = 0; id < size; id++) {
+            for (int e = childStarts[id]; e < childStarts[id + 1]; e++) {
+                parents[fill[children[e]]++] = id;
+            }
+        }
+
+        this.childOffsets = childStarts;
+        this.childIds = Arrays.copyOf(children, count);
+        this.parentOffsets = parentStarts;
+        this.parentIds = parents;
+        this.adjacencyValid = true;
+    }
+
+}
@@ -23,8 +23,17 @@
  */
 package familytree;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The {@code FamilyMember} class encapsulates data relating to a person who is a member of a family unit.
@@ -40,9 +49,35 @@ import java.util.Set;
  * supplied, then the parameter {@code familyMember} is used to represent and construct the person, and the remaining
  * parameters are assigned to the family member's family (or gentile) name, mother, father, spouse, and children fields,
  * respectively.
+ * <p>
+ * A family member may be bound to a {@code FamilyGraph}, in which case any change to their mother, father, spouse, or
+ * children is reported to the graph so that its relationship columns remain current.
+ * <p>
+ * By default, equality and hashing of family members are structural and follow every relative, which is costly on a
+ * deep tree and never terminates where relatives refer back to one another. A family member that has been given an
+ * identity key (see {@link #identify()}) is instead compared and hashed by that key alone. The structural comparison
+ * remains available, bounded in depth, through {@link #deepEquals(familytree.Person, familytree.Person, int)}.
+ * <p>
+ * A family member is externalized as a person, followed by a schema version, their family name and identity key, and
+ * their mother, father, spouse, and children as objects, so that relatives shared within a stream are written once.
+ *
+ * @see familytree.FamilyGraph
  */
 public class FamilyMember extends Person {
 
+    /**
+     * The serialization version of the class.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The version of the externalized form written by {@link #writeExternal(java.io.ObjectOutput)}.
+     */
+    private static final int SCHEMA_VERSION = 1;
+    /**
+     * The most recently issued identity key.
+     */
+    private static final AtomicLong IDENTITY_KEYS = new AtomicLong();
+
     /**
      * The family, or gentile, name.
      */
@@ -63,6 +98,22 @@ public class FamilyMember extends Person {
      * The family member's children (if any).
      */
     private Set<Person> natus = null;
+    /**
+     * The family member's identity key, or zero if the family member is compared structurally.
+     */
+    private long identitas = 0L;
+    /**
+     * The family member's children keyed by name, built lazily from the set of children.
+     */
+    private transient Map<Name, Person> natusIndex = null;
+    /**
+     * The number of children covered by the name index.
+     */
+    private transient int natusIndexed = 0;
+    /**
+     * Whether two or more indexed children share a name, so that only the first of them is held by the index.
+     */
+    private transient boolean natusShadowed = false;
 
     /**
      * Creates a new {@code FamilyMember} object and leaves the fields of the family member undefined and nullified.
@@ -90,7 +141,7 @@ public class FamilyMember extends Person {
     public FamilyMember(final Person familyMember, final String familyName, final Person mother, final Person father,
                         final Person spouse, final Set<Person> children) {
         super(familyMember);
-        this.genus = familyName;
+        this.genus = SymbolTable.SHARED.intern(familyName);
         this.maternus = mother;
         this.paternus = father;
         this.sponsus = spouse;
@@ -113,6 +164,7 @@ public class FamilyMember extends Person {
         this.paternus = obj.paternus;
         this.sponsus = obj.sponsus;
         this.natus = obj.natus;
+        this.identitas = obj.identitas;
     }
 
     private static Person findChild(final Set<Person> children, final Name childName) {
@@ -125,6 +177,195 @@ public class FamilyMember extends Person {
         return null;
     }
 
+    private Map<Name, Person> childIndex() {
+        if (natusIndex == null || natusIndexed != natus.size()) {
+            natusIndex = new HashMap<>();
+            natusIndexed = 0;
+            natusShadowed = false;
+
+            for (Person child : natus) {
+                indexChild(child);
+            }
+        }
+
+        return natusIndex;
+    }
+
+    private void indexChild(final Person child) {
+        final Name name = child == null ? null : child.getName();
+
+        if (natusIndex.putIfAbsent(name == null ? null : new Name(name), child) != null) {
+            natusShadowed = true;
+        }
+        natusIndexed++;
+    }
+
+    /**
+     * Returns the family member's identity key.
+     * <p>
+     * The {@code getIdentityKey} method retrieves the key which identifies the family member for the purposes of
+     * {@code equals} and {@code hashCode}.
+     * <p>
+     * The return value is the identity key. If the family member has not been given an identity key, the return value
+     * is zero.
+     *
+     * @return The identity key, if any; zero otherwise.
+     */
+    public final long getIdentityKey() {
+        return identitas;
+    }
+
+    /**
+     * Sets the family member's identity key.
+     * <p>
+     * The {@code setIdentityKey} method assigns the value supplied by the {@code identityKey} parameter to the family
+     * member's identity key, typically to restore a key that was previously issued and saved. Keys issued later by
+     * {@link #identify()} are guaranteed to be greater than any key set by this method. As the key determines the hash
+     * code, it should not be changed while the family member is held in a hash-based collection.
+     *
+     * @param identityKey the new identity key, or zero to revert to structural comparison.
+     * @throws IllegalArgumentException if the identity key is negative.
+     */
+    public final void setIdentityKey(final long identityKey) throws IllegalArgumentException {
+        if (identityKey < 0L) {
+            throw new IllegalArgumentException("Negative identity key: " + identityKey);
+        }
+
+        IDENTITY_KEYS.accumulateAndGet(identityKey, Math::max);
+        this.identitas = identityKey;
+    }
+
+    /**
+     * Gives the family member an identity key, if they do not already have one.
+     * <p>
+     * The {@code identify} method issues a new, unique identity key to the family member. From then on, the family
+     * member is equal only to family members with the same identity key, and its hash code is derived from the key
+     * alone, so that both operations take constant time. As the key determines the hash code, the family member should
+     * be identified before being placed in a hash-based collection.
+     * <p>
+     * The return value is the family member's identity key.
+     *
+     * @return The identity key.
+     */
+    public final long identify() {
+        if (identitas == 0L) {
+            identitas = IDENTITY_KEYS.incrementAndGet();
+        }
+
+        return identitas;
+    }
+
+    /**
+     * Compares two persons, and their relatives, field by field up to a bounded depth.
+     * <p>
+     * The {@code deepEquals} method compares the name, sex, address, and biography of the two persons, and, where both
+     * are family members, their family names, and then compares their mothers, fathers, spouses, and children in the
+     * same way, following relatives no further than {@code maxDepth} steps from the starting pair. Identity keys are
+     * ignored. Children are paired up by their personal details, and a relative that is reached twice must be paired
+     * with the same counterpart each time, so that cycles between relatives are handled.
+     * <p>
+     * The return value indicates whether the two family trees are equal within the depth bound.
+     *
+     * @param x        the first person.
+     * @param y        the second person.
+     * @param maxDepth the number of relationship steps to follow from the starting pair.
+     * @return {@code true} if the persons and their relatives are equal within the depth bound; {@code false}
+     * otherwise.
+     */
+    public static boolean deepEquals(final Person x, final Person y, final int maxDepth) {
+        final IdentityHashMap<Person, Person> paired = new IdentityHashMap<>();
+        final ArrayDeque<Person[]> pending = new ArrayDeque<>();
+        final ArrayDeque<Integer> depths = new ArrayDeque<>();
+
+        if (!FamilyMember.pair(x, y, paired, pending)) {
+            return false;
+        }
+        depths.add(0);
+
+        while (!pending.isEmpty()) {
+            final Person[] pair = pending.poll();
+            final int depth = depths.poll();
+
+            if (!pair[0].sameDetails(pair[1]) || pair[0].getClass() != pair[1].getClass()) {
+                return false;
+            }
+
+            if (pair[0] instanceof FamilyMember a && pair[1] instanceof FamilyMember b) {
+                if (!Objects.equals(a.genus, b.genus)) {
+                    return false;
+                }
+
+                if (depth < maxDepth) {
+                    final int before = pending.size();
+
+                    if (!FamilyMember.pair(a.maternus, b.maternus, paired, pending) ||
+                        !FamilyMember.pair(a.paternus, b.paternus, paired, pending) ||
+                        !FamilyMember.pair(a.sponsus, b.sponsus, paired, pending) ||
+                        !FamilyMember.pairChildren(a.natus, b.natus, paired, pending)) {
+                        return false;
+                    }
+
+                    for (int i = before; i < pending.size(); i++) {
+                        depths.add(depth + 1);
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean pair(final Person x, final Person y, final IdentityHashMap<Person, Person> paired,
+                                final ArrayDeque<Person[]> pending) {
+        if (x == null || y == null) {
+            return x == y;
+        }
+
+        final Person previous = paired.putIfAbsent(x, y);
+        if (previous == null) {
+            pending.add(new Person[]{x, y});
+            return true;
+        }
+
+        return previous == y;
+    }
+
+    private static boolean pairChildren(final Set<Person> x, final Set<Person> y,
+                                        final IdentityHashMap<Person, Person> paired,
+                                        final ArrayDeque<Person[]> pending) {
+        if (x == null || y == null) {
+            return x == y;
+        }
+
+        if (x.size() != y.size()) {
+            return false;
+        }
+
+        final IdentityHashMap<Person, Boolean> unmatched = new IdentityHashMap<>();
+        for (Person b : y) {
+            unmatched.put(b, Boolean.TRUE);
+        }
+
+        for (Person a : x) {
+            Person match = paired.get(a);
+
+            if (match == null && a != null) {
+                for (Person b : unmatched.keySet()) {
+                    if (b != null && a.sameDetails(b)) {
+                        match = b;
+                        break;
+                    }
+                }
+            }
+
+            if (unmatched.remove(match) == null || !FamilyMember.pair(a, match, paired, pending)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Returns the family member's family, or gentile, name.
      * <p>
@@ -148,9 +389,15 @@ public class FamilyMember extends Person {
      *
      * @param familyName the family member's new family, or gentile, name.
      * @see java.lang.String
+     * @see familytree.SymbolTable
      */
     public final void setFamilyName(final String familyName) {
-        this.genus = familyName;
+        final String previous = this.genus;
+        this.genus = SymbolTable.SHARED.intern(familyName);
+
+        if (graph != null) {
+            graph.detailChanged(this, FamilyGraph.Change.FAMILY_NAME, previous);
+        }
     }
 
     /**
@@ -177,7 +424,9 @@ public class FamilyMember extends Person {
      * @see familytree.Person
      */
     public final void setMother(final Person mother) {
+        final Person previous = this.maternus;
         this.maternus = mother;
+        linkChanged(FamilyGraph.Change.MOTHER, previous);
     }
 
     /**
@@ -204,7 +453,9 @@ public class FamilyMember extends Person {
      * @see familytree.Person
      */
     public final void setFather(final Person father) {
+        final Person previous = this.paternus;
         this.paternus = father;
+        linkChanged(FamilyGraph.Change.FATHER, previous);
     }
 
     /**
@@ -232,7 +483,9 @@ public class FamilyMember extends Person {
      * @see familytree.Person
      */
     public final void setSpouse(final Person spouse) {
+        final Person previous = this.sponsus;
         this.sponsus = spouse;
+        linkChanged(FamilyGraph.Change.SPOUSE, previous);
     }
 
     /**
@@ -260,13 +513,27 @@ public class FamilyMember extends Person {
      * The return value is a {@code Person} object representing the family member's child specified by the value
      * supplied by the {@code childName} parameter. If the family member does not have a child with the specified name,
      * the return value is {@code null}.
+     * <p>
+     * The children are looked up through an index keyed by name, which is kept in step by {@code addChild} and
+     * {@code removeChild}. The index is rebuilt when the number of children differs from the number it covers, or when
+     * it holds a child that is no longer in the set, but it cannot see every direct modification of the set: a child
+     * added directly in place of one removed directly, leaving the number of children unchanged, may not be found.
+     * Children should be replaced through {@code addChild} and {@code removeChild}, and a child whose {@code Name}
+     * object is altered in place after being added should be removed and added again.
      *
      * @param childName the specified child's name.
      * @return The specified child, if found; {@code null} otherwise.
      * @see familytree.Person
      */
     public final Person getChild(final Name childName) {
-        return FamilyMember.findChild(natus, childName);
+        final Person child = childIndex().get(childName);
+
+        if (child != null && (!Objects.equals(child.getName(), childName) || !natus.contains(child))) {
+            natusIndex = null;
+            return FamilyMember.findChild(natus, childName);
+        }
+
+        return child;
     }
 
     /**
@@ -297,7 +564,15 @@ public class FamilyMember extends Person {
      */
     public boolean addChild(final Person child)
     throws UnsupportedOperationException, IllegalArgumentException, ClassCastException, NullPointerException {
-        return natus.add(child);
+        final boolean added = natus.add(child);
+        if (added) {
+            if (natusIndex != null && natusIndexed == natus.size() - 1) {
+                indexChild(child);
+            }
+            linkChanged(FamilyGraph.Change.CHILD_ADDED, child);
+        }
+
+        return added;
     }
 
     /**
@@ -319,7 +594,100 @@ public class FamilyMember extends Person {
      */
     public boolean removeChild(final Name childName)
     throws UnsupportedOperationException, ClassCastException, NullPointerException {
-        return natus.remove(FamilyMember.findChild(natus, childName));
+        return unlinkChild(getChild(childName));
+    }
+
+    /**
+     * Removes a particular child from the family member's set of children, whatever their name, and reports the
+     * removal to the bound graph.
+     *
+     * @param child the child to be removed from the set, if present.
+     * @return {@code true} if the set contained the child; {@code false} otherwise.
+     */
+    boolean unlinkChild(final Person child) {
+        final boolean removed = natus.remove(child);
+        if (removed) {
+            final Name childName = child == null ? null : child.getName();
+            if (natusIndex == null || natusShadowed || natusIndex.get(childName) != child) {
+                natusIndex = null;
+            } else {
+                natusIndex.remove(childName);
+                natusIndexed--;
+            }
+            linkChanged(FamilyGraph.Change.CHILD_REMOVED, child);
+        }
+
+        return removed;
+    }
+
+    private void linkChanged(final FamilyGraph.Change change, final Person previous) {
+        if (graph != null) {
+            graph.linkChanged(this, change, previous);
+        }
+    }
+
+    /**
+     * Writes the family member to an object output.
+     * <p>
+     * The {@code writeExternal} method writes the family member as a person, then the schema version, the family name
+     * as a length-prefixed UTF-8 string, and the identity key, followed by the mother, father, spouse, and set of
+     * children as objects. The identity key is written before any relative, so that a family member read back has
+     * their key, and therefore their hash code, before any set of children that refers back to them is filled.
+     *
+     * @param out the stream to write the family member to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeByte(SCHEMA_VERSION);
+        DataCodec.putString(out, genus);
+        out.writeLong(identitas);
+        out.writeObject(maternus);
+        out.writeObject(paternus);
+        out.writeObject(sponsus);
+        out.writeObject(natus);
+    }
+
+    /**
+     * Reads the family member from an object input.
+     * <p>
+     * The {@code readExternal} method restores a family member written by
+     * {@link #writeExternal(java.io.ObjectOutput)}. Identity keys issued afterwards by {@link #identify()} are greater
+     * than the key that was read.
+     *
+     * @param in the stream to read the family member from.
+     * @throws IOException            if an I/O error occurs, the schema version is not supported, or a field is not
+     *                                valid.
+     * @throws ClassNotFoundException if the class of a relative or of the set of children cannot be found.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        final int version = in.readUnsignedByte();
+        if (version != SCHEMA_VERSION) {
+            throw new InvalidObjectException("Unsupported FamilyMember schema version: " + version);
+        }
+
+        this.genus = SymbolTable.SHARED.intern(DataCodec.getString(in));
+        final long key = in.readLong();
+        if (key < 0L) {
+            throw new InvalidObjectException("Invalid identity key: " + key);
+        }
+        this.identitas = key;
+        IDENTITY_KEYS.accumulateAndGet(key, Math::max);
+
+        try {
+            this.maternus = (Person) in.readObject();
+            this.paternus = (Person) in.readObject();
+            this.sponsus = (Person) in.readObject();
+            this.natus = (Set<Person>) in.readObject();
+        } catch (ClassCastException exc) {
+            final InvalidObjectException invalid = new InvalidObjectException("Invalid relative");
+            invalid.initCause(exc);
+            throw invalid;
+        }
     }
 
     /**
@@ -345,6 +713,9 @@ public class FamilyMember extends Person {
      * possible equivalence relation on {@code FamilyMember} objects; that is, for any non-null
      * reference values {@code x} and {@code y}, this method returns true if and only if {@code x} and
      * {@code y} refer to the same object ({@code x == y} has the value true).
+     * <p>
+     * If either family member has an identity key, the family members are equal if and only if their identity keys
+     * are equal, and no other field is compared.
      *
      * @param obj the reference object with which to compare.
      * @return {@code true} if this object is the same as the {@code obj} argument; {@code false} otherwise.
@@ -362,6 +733,10 @@ public class FamilyMember extends Person {
         }
 
         final FamilyMember other = (FamilyMember) obj;
+        if (this.identitas != 0L || other.identitas != 0L) {
+            return this.identitas == other.identitas;
+        }
+
         return super.equals(obj) && Objects.equals(this.genus, other.genus) && Objects.equals(this.maternus,
                                                                                               other.maternus) &&
                Objects.equals(this.paternus, other.paternus) && Objects.equals(this.sponsus, other.sponsus) &&
@@ -387,7 +762,8 @@ public class FamilyMember extends Person {
      * </ul>
      * <p>
      * As much as is reasonably practical, the {@code hashCode} method defined by the
-     * {@code FamilyMember} class does return distinct integers for distinct objects.
+     * {@code FamilyMember} class does return distinct integers for distinct objects. If the family member has an
+     * identity key, the hash code is derived from the key alone.
      *
      * @return A hash code value for this object.
      * @see java.lang.Object#equals(java.lang.Object)
@@ -395,6 +771,10 @@ public class FamilyMember extends Person {
      */
     @Override
     public int hashCode() {
+        if (identitas != 0L) {
+            return Long.hashCode(identitas);
+        }
+
         int hash = 0;
 
         hash = 6 * hash + super.hashCode();
@@ -37,6 +37,8 @@ import javafx.stage.Stage;
 
 public class FamilyTree extends Application {
 
+    private FamilyTreeController controller = null;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -44,16 +46,26 @@ public class FamilyTree extends Application {
     @Override
     public void start(Stage stage) {
         try {
-            Parent root = FXMLLoader.load(Objects.requireNonNull(this.getClass().getResource("family-tree.fxml")));
+            FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(this.getClass().getResource("family-tree.fxml")));
+            Parent root = loader.load();
+            controller = loader.getController();
             Scene scene = new Scene(root);
             stage.setTitle("FamilyTree");
             stage.getIcons().add(
                     new Image(Objects.requireNonNull(this.getClass().getResource("family-tree.png")).toString()));
             stage.setScene(scene);
             stage.show();
+            controller.start(RecoveryLog.defaultDirectory());
         } catch (IOException exc) {
             Logger.getLogger(Application.class.getName()).log(Level.SEVERE, exc.toString(), exc);
         }
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.stop();
+        }
+    }
+
 }
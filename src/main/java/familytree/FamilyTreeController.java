@@ -23,6 +23,7 @@
  */
 package familytree;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Dialog;
@@ -33,15 +34,26 @@ import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javafx.stage.Window;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
 
 public class FamilyTreeController {
 
+    private static final long COMPACTION_PERIOD_MINUTES = 5;
+
     @FXML
     private MenuItem menuItemNew;
     @FXML
     private MenuItem menuItemOpen;
     @FXML
+    private MenuItem menuItemOpenArchive;
+    @FXML
     private MenuItem menuItemClose;
     @FXML
     private MenuItem menuItemSave;
@@ -64,6 +76,15 @@ public class FamilyTreeController {
     @FXML
     private MenuItem menuItemAbout;
 
+    private FamilyGraph graph = new FamilyGraph();
+    private UndoHistory history = new UndoHistory(graph);
+    private ModelJournal journal = null;
+    private FamilyArchive archive = null;
+    private RecoveryLog recovery = null;
+    private Path recoveryDirectory = null;
+    private final SaveService saveService = new SaveService(Platform::runLater);
+    private int savesInProgress = 0;
+
     @FXML
     private void menuItemNewOnAction(ActionEvent event) {
 
@@ -75,9 +96,257 @@ public class FamilyTreeController {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Family Tree");
         fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt", "*.dat"),
+                                                 new ExtensionFilter("GEDCOM Files", "*.ged"),
+                                                 new ExtensionFilter("CSV Files", "*.csv"),
                                                  new ExtensionFilter("All Files", "*.*"));
         Window window = open.getDialogPane().getScene().getWindow();
-        fileChooser.showOpenDialog(window);
+        File file = fileChooser.showOpenDialog(window);
+        if (file == null) {
+            return;
+        }
+
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".dat") && !name.endsWith(".ged") && !name.endsWith(".csv")) {
+            showError("Open Family Tree", "The format of " + file.getName() + " is not supported.");
+            return;
+        }
+
+        try {
+            if (name.endsWith(".ged")) {
+                setGraph(GedcomFile.read(file.toPath()), file.toPath());
+                closeJournal();
+            } else if (name.endsWith(".csv")) {
+                FamilyGraph imported = new FamilyGraph();
+                Path rejects = file.toPath().resolveSibling(file.getName() + ".rejects");
+                CsvFile.Report report = CsvFile.read(file.toPath(), true, imported, rejects);
+                setGraph(imported, file.toPath());
+                closeJournal();
+                if (report.rejected() > 0) {
+                    showError("Open Family Tree", report.rejected() + " of " + (report.imported() + report.rejected())
+                                                  + " records could not be imported; see " + rejects.getFileName());
+                }
+            } else {
+                ModelJournal opened = ModelJournal.open(file.toPath());
+                closeJournal();
+                journal = opened;
+                journal.scheduleCompaction(COMPACTION_PERIOD_MINUTES, TimeUnit.MINUTES);
+                setGraph(journal.getGraph(), file.toPath());
+            }
+            setArchive(null);
+        } catch (IOException | DataFormatException exc) {
+            Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+            showError("Open Family Tree", file.getName() + " could not be opened: " + exc.getMessage());
+        }
+    }
+
+    @FXML
+    private void menuItemOpenArchiveOnAction(ActionEvent event) {
+        Dialog<String> open = new Dialog<>();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Family Tree Archive");
+        fileChooser.getExtensionFilters().add(new ExtensionFilter("Family Tree Files", "*.dat"));
+        Window window = open.getDialogPane().getScene().getWindow();
+        File file = fileChooser.showOpenDialog(window);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            FamilyArchive opened = FamilyArchive.open(file.toPath());
+            closeJournal();
+            setGraph(new FamilyGraph(), null);
+            setArchive(opened);
+        } catch (IOException | DataFormatException exc) {
+            Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+            showError("Open Family Tree Archive", file.getName() + " could not be opened: " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Recovers the changes left in the recovery directory by a session that did not end cleanly, if any, and starts
+     * recording the changes of this session there.
+     *
+     * @param recoveryDirectory the recovery directory.
+     */
+    void start(Path recoveryDirectory) {
+        this.recoveryDirectory = recoveryDirectory;
+        if (RecoveryLog.isDirty(recoveryDirectory)) {
+            try {
+                RecoveryLog.Recovery recovered = RecoveryLog.recover(recoveryDirectory);
+                setGraph(recovered.getGraph(), recovered.getSource(), true);
+                showError("Recover Family Tree", "Unsaved changes"
+                                                 + (recovered.getSource() == null ? ""
+                                                    : " to " + recovered.getSource().getFileName())
+                                                 + " were recovered. Use Save As to keep them.");
+                return;
+            } catch (IOException | DataFormatException exc) {
+                Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+                showError("Recover Family Tree", "Unsaved changes could not be recovered: " + exc.getMessage());
+            }
+        }
+        setGraph(graph, null);
+    }
+
+    /**
+     * Waits for background saves, saves the open family tree's journal, and deletes the recovery log. The saves are
+     * waited for first, so that a journal whose base file is still being written keeps its changes.
+     */
+    void stop() {
+        saveService.close();
+        closeJournal();
+        closeRecovery();
+    }
+
+    private void setGraph(FamilyGraph graph, Path source) {
+        setGraph(graph, source, false);
+    }
+
+    private void setGraph(FamilyGraph graph, Path source, boolean unsaved) {
+        history.close();
+        this.graph = graph;
+        history = new UndoHistory(graph);
+
+        if (recoveryDirectory != null) {
+            closeRecovery();
+            try {
+                recovery = RecoveryLog.start(graph, source, recoveryDirectory, unsaved);
+            } catch (IOException exc) {
+                Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+            }
+        }
+    }
+
+    private void closeRecovery() {
+        if (recovery == null) {
+            return;
+        }
+
+        try {
+            recovery.close();
+        } catch (IOException exc) {
+            Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+        } finally {
+            recovery = null;
+        }
+    }
+
+    @FXML
+    private void menuItemUndoOnAction(ActionEvent event) {
+        history.undo();
+    }
+
+    @FXML
+    private void menuItemRedoOnAction(ActionEvent event) {
+        history.redo();
+    }
+
+    private void setArchive(FamilyArchive archive) {
+        this.archive = archive;
+        menuItemSave.setDisable(archive != null);
+        menuItemSaveAs.setDisable(archive != null);
+    }
+
+    @FXML
+    private void menuItemSaveOnAction(ActionEvent event) {
+        if (journal == null) {
+            menuItemSaveAsOnAction(event);
+        } else {
+            saveStarted();
+            saveService.save(journal, new SaveProgress());
+        }
+    }
+
+    @FXML
+    private void menuItemSaveAsOnAction(ActionEvent event) {
+        Dialog<String> saveAs = new Dialog<>();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Family Tree");
+        fileChooser.getExtensionFilters().add(new ExtensionFilter("Family Tree Files", "*.dat"));
+        Window window = saveAs.getDialogPane().getScene().getWindow();
+        File file = fileChooser.showSaveDialog(window);
+        if (file != null) {
+            save(file.toPath());
+        }
+    }
+
+    private void save(Path target) {
+        closeJournal();
+        SaveProgress progress = new SaveProgress();
+        journal = ModelJournal.create(graph, target, saveService, progress);
+        journal.scheduleCompaction(COMPACTION_PERIOD_MINUTES, TimeUnit.MINUTES);
+        progress.created = journal;
+        saveStarted();
+    }
+
+    private void saveStarted() {
+        savesInProgress++;
+        menuItemSave.setText("Saving…");
+    }
+
+    private void saveCompleted() {
+        if (--savesInProgress == 0) {
+            menuItemSave.setText("Save");
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException exc) {
+            Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+            showError("Save Family Tree", journal.getBase().getFileName() + " could not be saved: "
+                                          + exc.getMessage());
+        } finally {
+            journal = null;
+        }
+    }
+
+    private class SaveProgress implements SaveService.Listener {
+
+        private ModelJournal created = null;
+        private final RecoveryLog log = recovery;
+        private final long changes = recovery == null ? 0L : recovery.changeCount();
+
+        @Override
+        public void progress(Path target, long bytesWritten) {
+            menuItemSave.setText(String.format("Saving… %.1f MB", bytesWritten / 1e6));
+        }
+
+        @Override
+        public void completed(Path target, IOException failure) {
+            saveCompleted();
+            if (failure == null) {
+                if (log != null && log == recovery) {
+                    try {
+                        recovery.saved(changes, target);
+                    } catch (IOException exc) {
+                        Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, exc.toString(), exc);
+                    }
+                }
+                return;
+            }
+
+            Logger.getLogger(FamilyTreeController.class.getName()).log(Level.WARNING, failure.toString(), failure);
+            showError("Save Family Tree", target.getFileName() + " could not be saved: " + failure.getMessage());
+            if (created != null && created == journal) {
+                // The base file was not written, so the journal has nothing to be replayed over.
+                closeJournal();
+            }
+        }
+
+    }
+
+    private void showError(String title, String message) {
+        Dialog<String> error = new Dialog<>();
+        error.setTitle(title);
+        error.setContentText(message);
+        error.show();
+        Window window = error.getDialogPane().getScene().getWindow();
+        window.setOnCloseRequest(e -> error.hide());
     }
 
     @FXML
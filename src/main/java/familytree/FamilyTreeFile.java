@@ -0,0 +1,576 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code FamilyTreeFile} class reads and writes family graphs in the compact binary family tree format.
+ * <p>
+ * A family tree file begins with a header of a magic number and a format version, and ends with a section index
+ * followed by a trailer holding the offset of the index and the magic number again. The index lists the tag, offset,
+ * and length of every section, so that a reader can find the sections in any order and skip those it does not know.
+ * Version 1 of the format has three sections:
+ * <ul>
+ * <li>{@code STRS}: a table of the distinct name parts, family names, street names, city/suburb names, and postal
+ * codes, which the other sections refer to by index.</li>
+ * <li>{@code PERS}: the personal details of every person, in identifier order.</li>
+ * <li>{@code LINK}: the mother, father, spouse, and children of every family member, as identifiers.</li>
+ * </ul>
+ * <p>
+ * Two further sections are written so that a file can be read one person at a time, as {@link FamilyArchive} does,
+ * and are skipped when a whole graph is read. Files without them remain readable.
+ * <ul>
+ * <li>{@code SIDX}: the offset within {@code STRS} of every string, as a four-byte integer.</li>
+ * <li>{@code PIDX}: the offsets within {@code PERS} and {@code LINK} of the records of every person, as pairs of
+ * four-byte integers.</li>
+ * </ul>
+ * <p>
+ * Identifiers, string references, lengths, and counts are unsigned variable-length integers, and optional values are
+ * stored plus one so that zero can stand for {@code null}. A graph read from a file gives every person the identifier
+ * they had in the graph that was written.
+ *
+ * @see familytree.FamilyGraph
+ */
+public final class FamilyTreeFile {
+
+    /**
+     * The magic number at the start and end of a family tree file: the characters {@code ARBF}.
+     */
+    public static final int MAGIC = 0x41524246;
+    /**
+     * The latest version of the family tree format, which is the version written.
+     */
+    public static final int VERSION = 1;
+
+    static final int STRINGS = 0x53545253;
+    static final int PERSONS = 0x50455253;
+    static final int LINKS = 0x4C494E4B;
+    static final int STRING_INDEX = 0x53494458;
+    static final int PERSON_INDEX = 0x50494458;
+    private static final int HEADER_SIZE = 8;
+    private static final int TRAILER_SIZE = 12;
+
+    static final int MEMBER = 0x01;
+    static final int NAME = 0x02;
+    static final int ADDRESS = 0x04;
+    static final int POSTAL_CODE = 0x08;
+    static final int CHILDREN = 0x10;
+    static final int SEX_SHIFT = 5;
+
+    private FamilyTreeFile() {
+    }
+
+    /**
+     * Writes a family graph to a file, replacing the file if it exists.
+     *
+     * @param graph the family graph to be written.
+     * @param path  the path of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FamilyGraph graph, final Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(graph, out);
+        }
+    }
+
+    /**
+     * Writes a family graph to an output stream. The stream is flushed but not closed.
+     *
+     * @param graph the family graph to be written.
+     * @param out   the stream to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FamilyGraph graph, final OutputStream out) throws IOException {
+        final int size = graph.size();
+        final Map<String, Integer> refs = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+
+        for (int id = 0; id < size; id++) {
+            internStrings(graph.person(id), refs, strings);
+        }
+
+        final DataCodec.Writer writer = new DataCodec.Writer(out);
+        final int[] tags = {STRINGS, PERSONS, LINKS, STRING_INDEX, PERSON_INDEX};
+        final long[] sections = new long[tags.length];
+        final int[] stringOffsets = new int[strings.size()];
+        final int[] personOffsets = new int[size * 2];
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+
+        sections[0] = writer.position();
+        writer.putVarint(strings.size());
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = (int) (writer.position() - sections[0]);
+            writer.putString(strings.get(i));
+        }
+
+        sections[1] = writer.position();
+        writer.putVarint(size);
+        for (int id = 0; id < size; id++) {
+            personOffsets[id * 2] = (int) (writer.position() - sections[1]);
+            writePerson(graph.person(id), refs, writer);
+        }
+
+        sections[2] = writer.position();
+        for (int id = 0; id < size; id++) {
+            personOffsets[id * 2 + 1] = (int) (writer.position() - sections[2]);
+            if (graph.person(id) instanceof FamilyMember member) {
+                writer.putVarint(graph.idOf(member.getMother()) + 1);
+                writer.putVarint(graph.idOf(member.getFather()) + 1);
+                writer.putVarint(graph.idOf(member.getSpouse()) + 1);
+
+                final Set<Person> children = member.getChildren();
+                if (children != null) {
+                    writer.putVarint(children.size());
+                    for (Person child : children) {
+                        writer.putVarint(graph.idOf(child) + 1);
+                    }
+                }
+            }
+        }
+
+        sections[3] = writer.position();
+        for (int offset : stringOffsets) {
+            writer.putInt(offset);
+        }
+
+        sections[4] = writer.position();
+        for (int offset : personOffsets) {
+            writer.putInt(offset);
+        }
+
+        final long index = writer.position();
+        writer.putVarint(tags.length);
+        for (int i = 0; i < tags.length; i++) {
+            final long end = i + 1 < tags.length ? sections[i + 1] : index;
+            writer.putInt(tags[i]);
+            writer.putLong(sections[i]);
+            writer.putLong(end - sections[i]);
+        }
+        writer.putLong(index);
+        writer.putInt(MAGIC);
+        writer.flush();
+    }
+
+    /**
+     * Adds the strings of a person's record that are not yet in a string table to the table.
+     *
+     * @param person  the person.
+     * @param refs    the index of every string in the table.
+     * @param strings the strings of the table, in order.
+     */
+    static void internStrings(final Person person, final Map<String, Integer> refs, final List<String> strings) {
+        final Name name = person.getName();
+        if (name != null) {
+            intern(name.getForename(), refs, strings);
+            intern(name.getMidname(), refs, strings);
+            intern(name.getSurname(), refs, strings);
+        }
+
+        final Address address = person.getAddress();
+        if (address != null) {
+            intern(address.getStreetName(), refs, strings);
+            intern(address.getCityName(), refs, strings);
+            if (address.getPostalCode() != null) {
+                intern(address.getPostalCode().getCharacterSet(), refs, strings);
+            }
+        }
+
+        if (person instanceof FamilyMember member) {
+            intern(member.getFamilyName(), refs, strings);
+        }
+    }
+
+    private static void intern(final String string, final Map<String, Integer> refs, final List<String> strings) {
+        if (string != null && !refs.containsKey(string)) {
+            refs.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void putRef(final String string, final Map<String, Integer> refs, final DataCodec.Writer writer)
+    throws IOException {
+        writer.putVarint(string == null ? 0 : refs.get(string) + 1);
+    }
+
+    /**
+     * Writes a person's record, referring to the strings of a table written before it.
+     *
+     * @param person the person.
+     * @param refs   the index of every string in the table.
+     * @param writer the writer.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void writePerson(final Person person, final Map<String, Integer> refs, final DataCodec.Writer writer)
+    throws IOException {
+        final Name name = person.getName();
+        final Address address = person.getAddress();
+        final PostalCode postalCode = address == null ? null : address.getPostalCode();
+        final FamilyMember member = person instanceof FamilyMember m ? m : null;
+        final Sex sex = person.getSex();
+
+        int flags = sex == null ? 0 : (sex.ordinal() + 1) << SEX_SHIFT;
+        if (member != null) {
+            flags |= MEMBER;
+            if (member.getChildren() != null) {
+                flags |= CHILDREN;
+            }
+        }
+        if (name != null) {
+            flags |= NAME;
+        }
+        if (address != null) {
+            flags |= ADDRESS;
+        }
+        if (postalCode != null) {
+            flags |= POSTAL_CODE;
+        }
+        writer.putByte(flags);
+
+        if (name != null) {
+            putRef(name.getForename(), refs, writer);
+            putRef(name.getMidname(), refs, writer);
+            putRef(name.getSurname(), refs, writer);
+        }
+        if (address != null) {
+            writer.putVarint(address.getStreetNumberAsInt());
+            putRef(address.getStreetName(), refs, writer);
+            putRef(address.getCityName(), refs, writer);
+        }
+        if (postalCode != null) {
+            putRef(postalCode.getCharacterSet(), refs, writer);
+        }
+        writer.putString(person.getBiography());
+        if (member != null) {
+            putRef(member.getFamilyName(), refs, writer);
+            writer.putVarlong(member.getIdentityKey());
+        }
+    }
+
+    /**
+     * Reads a family graph from a file.
+     * <p>
+     * The {@code read} method maps the file into memory and decodes it in place.
+     * <p>
+     * The return value is a new family graph holding every person in the file, with their original identifiers.
+     *
+     * @param path the path of the file.
+     * @return The family graph.
+     * @throws IOException         if an I/O error occurs, or the file is too large to be mapped.
+     * @throws DataFormatException if the file is not a family tree file, is of an unsupported version, or is corrupt.
+     */
+    public static FamilyGraph read(final Path path) throws IOException, DataFormatException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + path);
+            }
+
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * Reads a family graph from the remaining bytes of a buffer.
+     * <p>
+     * The return value is a new family graph holding every person in the buffer, with their original identifiers.
+     *
+     * @param buffer the buffer holding a family tree file.
+     * @return The family graph.
+     * @throws DataFormatException if the buffer does not hold a family tree file, holds one of an unsupported version,
+     *                             or is corrupt.
+     */
+    public static FamilyGraph read(final ByteBuffer buffer) throws DataFormatException {
+        final ByteBuffer file = buffer.slice();
+
+        try {
+            return decode(file);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            final DataFormatException corrupt = new DataFormatException("Corrupt family tree file");
+            corrupt.initCause(e);
+            throw corrupt;
+        }
+    }
+
+    /**
+     * Checks the header and trailer of a family tree file, and finds the sections with the supplied tags.
+     *
+     * @param file the buffer holding the file, from offset zero.
+     * @param tags the tags of the sections to find.
+     * @return The bodies of the sections, in the order of their tags; {@code null} for any section that is missing.
+     * @throws DataFormatException if the buffer does not hold a family tree file, holds one of an unsupported version,
+     *                             or its section index is corrupt.
+     */
+    static ByteBuffer[] sections(final ByteBuffer file, final int... tags) throws DataFormatException {
+        final int limit = file.limit();
+        if (limit < HEADER_SIZE + TRAILER_SIZE) {
+            throw new DataFormatException("Not a family tree file");
+        }
+        checkFrame(file.getInt(0), file.getInt(4), file.getInt(limit - 4));
+
+        final ByteBuffer index = section(file, file.getLong(limit - TRAILER_SIZE), limit - TRAILER_SIZE);
+        final long[] bounds = locate(index, tags, limit);
+        final ByteBuffer[] bodies = new ByteBuffer[tags.length];
+        for (int t = 0; t < tags.length; t++) {
+            if (bounds[t * 2] >= 0) {
+                bodies[t] = section(file, bounds[t * 2], bounds[t * 2 + 1]);
+            }
+        }
+
+        return bodies;
+    }
+
+    /**
+     * Checks the header and trailer of a family tree file, and maps the sections with the supplied tags into memory
+     * one by one, so that a file larger than a single buffer can hold may be read as long as each of its sections fits
+     * in one.
+     *
+     * @param channel the channel of the file.
+     * @param tags    the tags of the sections to map.
+     * @return The bodies of the sections, in the order of their tags; {@code null} for any section that is missing.
+     * @throws IOException         if an I/O error occurs, or a section is too large to be mapped.
+     * @throws DataFormatException if the file is not a family tree file, is of an unsupported version, or its section
+     *                             index is corrupt.
+     */
+    static ByteBuffer[] sections(final FileChannel channel, final int... tags) throws IOException, DataFormatException {
+        final long limit = channel.size();
+        if (limit < HEADER_SIZE + TRAILER_SIZE) {
+            throw new DataFormatException("Not a family tree file");
+        }
+
+        final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        final ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, limit - TRAILER_SIZE, TRAILER_SIZE);
+        checkFrame(header.getInt(0), header.getInt(4), trailer.getInt(TRAILER_SIZE - 4));
+
+        try {
+            final ByteBuffer index = section(channel, trailer.getLong(0), limit - TRAILER_SIZE, limit);
+            final long[] bounds = locate(index, tags, limit);
+            final ByteBuffer[] bodies = new ByteBuffer[tags.length];
+            for (int t = 0; t < tags.length; t++) {
+                if (bounds[t * 2] >= 0) {
+                    bodies[t] = section(channel, bounds[t * 2], bounds[t * 2 + 1], limit);
+                }
+            }
+
+            return bodies;
+        } catch (BufferUnderflowException exc) {
+            final DataFormatException corrupt = new DataFormatException("Corrupt family tree file");
+            corrupt.initCause(exc);
+            throw corrupt;
+        }
+    }
+
+    private static void checkFrame(final int magic, final int version, final int trailingMagic)
+    throws DataFormatException {
+        if (magic != MAGIC || trailingMagic != MAGIC) {
+            throw new DataFormatException("Not a family tree file");
+        } else if (version < 1 || version > VERSION) {
+            throw new DataFormatException("Unsupported family tree file version: " + version);
+        }
+    }
+
+    /**
+     * Finds the sections with the supplied tags in a section index, returning the start and end offsets of each, or
+     * {@code -1} for both if it is missing. The offsets are checked against the file when the sections are sliced.
+     */
+    private static long[] locate(final ByteBuffer index, final int[] tags, final long limit)
+    throws DataFormatException {
+        final long[] bounds = new long[tags.length * 2];
+        Arrays.fill(bounds, -1L);
+        for (int i = 0, count = DataCodec.getCount(index); i < count; i++) {
+            final int tag = index.getInt();
+            final long offset = index.getLong(), length = index.getLong();
+            if (offset < 0 || length < 0 || offset > limit - length) {
+                throw new DataFormatException("Section out of bounds: " + offset + ".." + (offset + length));
+            }
+            for (int t = 0; t < tags.length; t++) {
+                if (tags[t] == tag) {
+                    bounds[t * 2] = offset;
+                    bounds[t * 2 + 1] = offset + length;
+                }
+            }
+        }
+
+        return bounds;
+    }
+
+    private static FamilyGraph decode(final ByteBuffer file) throws DataFormatException {
+        final ByteBuffer[] bodies = sections(file, STRINGS, PERSONS, LINKS);
+        final ByteBuffer strings = bodies[0], persons = bodies[1], links = bodies[2];
+        if (strings == null || persons == null || links == null) {
+            throw new DataFormatException("Missing family tree file section");
+        }
+
+        final String[] table = new String[DataCodec.getCount(strings)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = DataCodec.getString(strings);
+        }
+
+        final Person[] people = new Person[DataCodec.getCount(persons)];
+        for (int id = 0; id < people.length; id++) {
+            people[id] = readPerson(persons, table);
+        }
+
+        // Fill the sets of children before any parent or spouse is linked, so that hashing a family member whose
+        // equality is structural never has to follow a link back to the set being filled.
+        final Person[] related = new Person[people.length * 3];
+        for (int id = 0; id < people.length; id++) {
+            if (people[id] instanceof FamilyMember member) {
+                related[id * 3] = readId(links, people);
+                related[id * 3 + 1] = readId(links, people);
+                related[id * 3 + 2] = readId(links, people);
+
+                final Set<Person> children = member.getChildren();
+                if (children != null) {
+                    for (int i = 0, count = DataCodec.getCount(links); i < count; i++) {
+                        children.add(readId(links, people));
+                    }
+                }
+            }
+        }
+
+        for (int id = 0; id < people.length; id++) {
+            if (people[id] instanceof FamilyMember member) {
+                member.setMother(related[id * 3]);
+                member.setFather(related[id * 3 + 1]);
+                member.setSpouse(related[id * 3 + 2]);
+            }
+        }
+
+        final FamilyGraph graph = new FamilyGraph(Math.max(people.length, 1));
+        graph.addAll(Arrays.asList(people));
+
+        return graph;
+    }
+
+    private static ByteBuffer section(final ByteBuffer file, final long from, final long to)
+    throws DataFormatException {
+        if (from < HEADER_SIZE || to < from || to > file.limit() - TRAILER_SIZE) {
+            throw new DataFormatException("Section out of bounds: " + from + ".." + to);
+        }
+
+        return file.slice((int) from, (int) (to - from));
+    }
+
+    private static ByteBuffer section(final FileChannel channel, final long from, final long to, final long limit)
+    throws IOException, DataFormatException {
+        if (from < HEADER_SIZE || to < from || to > limit - TRAILER_SIZE) {
+            throw new DataFormatException("Section out of bounds: " + from + ".." + to);
+        } else if (to - from > Integer.MAX_VALUE) {
+            throw new IOException("Section too large to be mapped: " + (to - from) + " bytes");
+        }
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    private static String readRef(final ByteBuffer buffer, final String[] table) throws DataFormatException {
+        final int ref = DataCodec.getVarint(buffer);
+        if (ref > table.length) {
+            throw new DataFormatException("String reference out of range: " + ref);
+        }
+
+        return ref == 0 ? null : table[ref - 1];
+    }
+
+    private static Person readId(final ByteBuffer buffer, final Person[] people) throws DataFormatException {
+        final int id = DataCodec.getVarint(buffer) - 1;
+        if (id >= people.length) {
+            throw new DataFormatException("Identifier out of range: " + id);
+        }
+
+        return id < 0 ? null : people[id];
+    }
+
+    /**
+     * Reads a person's record, resolving its string references against a table.
+     *
+     * @param buffer the buffer positioned at the record.
+     * @param table  the string table.
+     * @return A new {@code Person} object, or a new {@code FamilyMember} object with no relatives.
+     * @throws DataFormatException if the record is corrupt.
+     */
+    static Person readPerson(final ByteBuffer buffer, final String[] table) throws DataFormatException {
+        final int flags = buffer.get();
+        final Person person;
+        if ((flags & MEMBER) == 0) {
+            person = new Person();
+        } else if ((flags & CHILDREN) == 0) {
+            person = new FamilyMember();
+        } else {
+            person = new FamilyMember(new Person(), null, null, null, null, new HashSet<>());
+        }
+
+        final int sex = (flags >>> SEX_SHIFT) & 0x03;
+        if (sex > Sex.values().length) {
+            throw new DataFormatException("Sex out of range: " + sex);
+        }
+        person.setSex(sex == 0 ? null : Sex.values()[sex - 1]);
+
+        if ((flags & NAME) != 0) {
+            person.setName(new Name(readRef(buffer, table), readRef(buffer, table), readRef(buffer, table)));
+        }
+        if ((flags & ADDRESS) != 0) {
+            final Address address = new Address();
+            final int streetNumber = DataCodec.getVarint(buffer);
+            if (streetNumber != 0) {
+                address.setStreetNumber(streetNumber);
+            }
+            address.setStreetName(readRef(buffer, table));
+            address.setCityName(readRef(buffer, table));
+            if ((flags & POSTAL_CODE) != 0) {
+                final String characterSet = readRef(buffer, table);
+                address.setPostalCode(characterSet == null ? new PostalCode() : new PostalCode(characterSet));
+            }
+            person.setAddress(address);
+        }
+        person.setBiography(DataCodec.getString(buffer));
+
+        if (person instanceof FamilyMember member) {
+            member.setFamilyName(readRef(buffer, table));
+            final long identityKey = DataCodec.getVarlong(buffer);
+            if (identityKey != 0L) {
+                member.setIdentityKey(identityKey);
+            }
+        }
+
+        return person;
+    }
+
+}
@@ -0,0 +1,1082 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code GedcomFile} class imports family graphs from, and exports them to, GEDCOM files.
+ * <p>
+ * The {@code GedcomFile} class reads a GEDCOM file in a single pass, without holding the file in memory. A lexer
+ * thread splits the file into lines and fields, and hands them in batches through a bounded queue to the calling
+ * thread, which builds the model as the records arrive; memory use is therefore bounded by the model being built,
+ * not by the size of the file. Every individual ({@code INDI}) record becomes a {@code FamilyMember} with a name, sex,
+ * address, and biography taken from its {@code NAME}, {@code SEX}, {@code RESI}/{@code ADDR}, and {@code NOTE}
+ * structures, and every family ({@code FAM}) record links its husband, wife, and children. Cross-references to
+ * individuals that have not been read yet are resolved through a table of identifiers, which holds a placeholder
+ * family member until the individual's own record fills it in.
+ * <p>
+ * Every imported family member is given an identity key, so that linking relatives to one another never requires the
+ * structural hash of a family member. Records of other kinds, and structures that the model cannot represent, are
+ * skipped. The file is decoded as UTF-8, which includes ASCII.
+ * <p>
+ * Export walks the family graph once, in identifier order, and encodes each record straight into a buffer that is
+ * drained to a {@code WritableByteChannel}; couples and the children they share are gathered into family records as
+ * they are met, so that a spouse shared by several persons, or a cycle of relationships, is written only once. Either
+ * the whole graph, or a family member with only their ancestors or only their descendants, can be exported.
+ *
+ * @see familytree.FamilyGraph
+ */
+public final class GedcomFile {
+
+    /**
+     * The number of lines in each batch handed from the lexer to the builder.
+     */
+    private static final int BATCH_SIZE = 4096;
+    /**
+     * The number of batches that the lexer may run ahead of the builder.
+     */
+    private static final int QUEUE_CAPACITY = 16;
+    /**
+     * The initial size of the lexer's read buffer; it grows to hold the longest line.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The number of slots in the lexer's cache of tag strings; a power of two.
+     */
+    private static final int TAG_CACHE_SIZE = 256;
+    /**
+     * The number of characters of a note written on each line before it is continued with {@code CONC}.
+     */
+    private static final int NOTE_WIDTH = 200;
+
+    /**
+     * The {@code GedcomFile.Lineage} enumeration selects the relatives of a family member that are exported with them.
+     */
+    public enum Lineage {
+
+        /**
+         * The family member's parents, their parents, and so on.
+         */
+        ANCESTORS,
+        /**
+         * The family member's children, their children, and so on.
+         */
+        DESCENDANTS
+
+    }
+
+    private GedcomFile() {
+    }
+
+    /**
+     * Reads a family graph from a GEDCOM file.
+     * <p>
+     * The return value is a new family graph holding every individual in the file, in the order of their records,
+     * followed by any individual who was referred to but never defined.
+     *
+     * @param path the path of the file.
+     * @return The family graph.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if a line of the file is malformed.
+     */
+    public static FamilyGraph read(final Path path) throws IOException, DataFormatException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a family graph from a stream holding a GEDCOM file. The stream is read to its end but not closed.
+     * <p>
+     * The return value is a new family graph holding every individual in the file, in the order of their records,
+     * followed by any individual who was referred to but never defined.
+     *
+     * @param in the stream to read from.
+     * @return The family graph.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if a line of the file is malformed.
+     */
+    public static FamilyGraph read(final InputStream in) throws IOException, DataFormatException {
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final Thread lexer = new Thread(new Lexer(in, queue), "gedcom-lexer");
+        lexer.setDaemon(true);
+        lexer.start();
+
+        try {
+            final Builder builder = new Builder();
+
+            while (true) {
+                final Batch batch = queue.take();
+                for (int i = 0; i < batch.count; i++) {
+                    builder.line(batch.levels[i], batch.xrefs[i], batch.tags[i], batch.values[i]);
+                }
+
+                if (batch.failure instanceof IOException exc) {
+                    throw exc;
+                } else if (batch.failure instanceof DataFormatException exc) {
+                    throw exc;
+                } else if (batch.failure != null) {
+                    throw new IllegalStateException("GEDCOM lexer failed", batch.failure);
+                } else if (batch.last) {
+                    return builder.finish();
+                }
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading GEDCOM", exc);
+        } finally {
+            lexer.interrupt();
+            try {
+                lexer.join();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes every person in a family graph to a GEDCOM file, replacing the file if it exists.
+     *
+     * @param graph the family graph to be written.
+     * @param path  the path of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FamilyGraph graph, final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(graph, channel);
+        }
+    }
+
+    /**
+     * Writes every person in a family graph as GEDCOM to a channel. The channel is not closed.
+     *
+     * @param graph   the family graph to be written.
+     * @param channel the channel to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void write(final FamilyGraph graph, final WritableByteChannel channel) throws IOException {
+        final BitSet selected = new BitSet(graph.size());
+        selected.set(0, graph.size());
+        write(graph, selected, channel);
+    }
+
+    /**
+     * Writes a family member and their ancestors, or a family member and their descendants, as GEDCOM to a channel.
+     * The channel is not closed.
+     * <p>
+     * The {@code write} method walks the family graph to which the root is bound, from the root towards their parents
+     * or towards their children, visiting every person once however many lines of descent lead to them. Only the
+     * persons visited are written, and only the families among them.
+     *
+     * @param root    the family member from whom the subset is taken.
+     * @param lineage whether to write the root's ancestors or the root's descendants.
+     * @param channel the channel to write to.
+     * @throws IOException              if an I/O error occurs.
+     * @throws IllegalArgumentException if the root is not bound to a family graph.
+     */
+    public static void write(final FamilyMember root, final Lineage lineage, final WritableByteChannel channel)
+    throws IOException, IllegalArgumentException {
+        final FamilyGraph graph = root.graph;
+        if (graph == null) {
+            throw new IllegalArgumentException("Family member is not bound to a graph: " + root.getName());
+        }
+
+        final BitSet selected = new BitSet(graph.size());
+        final int[] stack = new int[graph.size()];
+        int top = 0;
+        stack[top++] = root.id;
+        selected.set(root.id);
+
+        while (top > 0) {
+            final int id = stack[--top];
+            final int count = lineage == Lineage.ANCESTORS ? graph.parentCount(id) : graph.childCount(id);
+            for (int i = 0; i < count; i++) {
+                final int next = lineage == Lineage.ANCESTORS ? graph.parent(id, i) : graph.child(id, i);
+                if (!selected.get(next)) {
+                    selected.set(next);
+                    stack[top++] = next;
+                }
+            }
+        }
+
+        write(graph, selected, channel);
+    }
+
+    private static void write(final FamilyGraph graph, final BitSet selected, final WritableByteChannel channel)
+    throws IOException {
+        final int size = graph.size();
+        final Map<Long, Family> couples = new HashMap<>();
+        final List<Family> families = new ArrayList<>();
+        final int[] childOf = new int[size];
+        final int[] spouseIn = new int[size + 1];
+        Arrays.fill(childOf, -1);
+
+        // Gather the families first, so that every individual record can point to its families.
+        for (int id = selected.nextSetBit(0); id >= 0; id = selected.nextSetBit(id + 1)) {
+            final int spouse = graph.spouse(id);
+            if (spouse != FamilyGraph.NONE && selected.get(spouse)) {
+                family(graph, couples, families, id, spouse, false);
+            }
+
+            int father = graph.father(id), mother = graph.mother(id);
+            if (father == FamilyGraph.NONE && mother == FamilyGraph.NONE && graph.parentCount(id) > 0) {
+                father = graph.parent(id, 0);
+                mother = graph.parentCount(id) > 1 ? graph.parent(id, 1) : FamilyGraph.NONE;
+            }
+            father = father != FamilyGraph.NONE && selected.get(father) ? father : FamilyGraph.NONE;
+            mother = mother != FamilyGraph.NONE && selected.get(mother) ? mother : FamilyGraph.NONE;
+            if (father != FamilyGraph.NONE || mother != FamilyGraph.NONE) {
+                final Family family = family(graph, couples, families, father, mother, true);
+                family.addChild(id);
+                childOf[id] = family.number;
+            }
+        }
+
+        for (Family family : families) {
+            if (family.husband != FamilyGraph.NONE) {
+                spouseIn[family.husband + 1]++;
+            }
+            if (family.wife != FamilyGraph.NONE) {
+                spouseIn[family.wife + 1]++;
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            spouseIn[id + 1] += spouseIn[id];
+        }
+        final int[] cursor = Arrays.copyOf(spouseIn, size);
+        final int[] spouseFamilies = new int[spouseIn[size]];
+        for (Family family : families) {
+            if (family.husband != FamilyGraph.NONE) {
+                spouseFamilies[cursor[family.husband]++] = family.number;
+            }
+            if (family.wife != FamilyGraph.NONE) {
+                spouseFamilies[cursor[family.wife]++] = family.number;
+            }
+        }
+
+        final Output out = new Output(channel);
+        out.line(0, "HEAD");
+        out.line(1, "SOUR").ascii(" ARBOR-FAMILIAE");
+        out.line(1, "GEDC");
+        out.line(2, "VERS").ascii(" 5.5.1");
+        out.line(2, "FORM").ascii(" LINEAGE-LINKED");
+        out.line(1, "CHAR").ascii(" UTF-8");
+
+        for (int id = selected.nextSetBit(0); id >= 0; id = selected.nextSetBit(id + 1)) {
+            writeIndividual(graph.person(id), id, out);
+            for (int i = spouseIn[id]; i < spouseIn[id + 1]; i++) {
+                out.line(1, "FAMS").pointer('F', spouseFamilies[i]);
+            }
+            if (childOf[id] >= 0) {
+                out.line(1, "FAMC").pointer('F', childOf[id]);
+            }
+        }
+
+        for (Family family : families) {
+            if (family.children == 0 && (family.husband == FamilyGraph.NONE || family.wife == FamilyGraph.NONE)) {
+                continue;
+            }
+            out.record('F', family.number, "FAM");
+            if (family.husband != FamilyGraph.NONE) {
+                out.line(1, "HUSB").pointer('I', family.husband);
+            }
+            if (family.wife != FamilyGraph.NONE) {
+                out.line(1, "WIFE").pointer('I', family.wife);
+            }
+            for (int i = 0; i < family.children; i++) {
+                out.line(1, "CHIL").pointer('I', family.childIds[i]);
+            }
+        }
+
+        out.line(0, "TRLR");
+        out.flush();
+    }
+
+    private static Family family(final FamilyGraph graph, final Map<Long, Family> couples, final List<Family> families,
+                                 final int first, final int second, final boolean parents) {
+        final int low = Math.min(first, second), high = Math.max(first, second);
+        final Long key = (long) low << 32 | high & 0xFFFFFFFFL;
+        Family family = couples.get(key);
+        if (family == null) {
+            family = new Family(families.size());
+            couples.put(key, family);
+            families.add(family);
+        }
+
+        if (parents) {
+            // The parents of a child take the roles of father and mother, whatever a spouse link suggested.
+            family.husband = first;
+            family.wife = second;
+        } else if (family.husband == FamilyGraph.NONE && family.wife == FamilyGraph.NONE) {
+            final boolean firstIsWife = graph.person(first).getSex() == Sex.Female
+                                        || graph.person(second).getSex() == Sex.Male;
+            family.husband = firstIsWife ? second : first;
+            family.wife = firstIsWife ? first : second;
+        }
+
+        return family;
+    }
+
+    private static void writeIndividual(final Person person, final int id, final Output out) throws IOException {
+        out.record('I', id, "INDI");
+
+        final Name name = person.getName();
+        if (name != null && (name.getForename() != null || name.getMidname() != null || name.getSurname() != null)) {
+            out.line(1, "NAME");
+            if (name.getForename() != null) {
+                out.ascii(" ").text(name.getForename());
+            }
+            if (name.getMidname() != null) {
+                out.ascii(" ").text(name.getMidname());
+            }
+            out.ascii(" /").text(name.getSurname() == null ? "" : name.getSurname()).ascii("/");
+            if (name.getForename() != null || name.getMidname() != null) {
+                out.line(2, "GIVN").ascii(" ");
+                out.text(name.getForename() == null ? name.getMidname() : name.getForename());
+                if (name.getForename() != null && name.getMidname() != null) {
+                    out.ascii(" ").text(name.getMidname());
+                }
+            }
+            if (name.getSurname() != null) {
+                out.line(2, "SURN").ascii(" ").text(name.getSurname());
+            }
+        }
+
+        final Sex sex = person.getSex();
+        if (sex != null) {
+            out.line(1, "SEX").ascii(sex == Sex.Male ? " M" : sex == Sex.Female ? " F" : " U");
+        }
+
+        final Address address = person.getAddress();
+        final String postalCode = address == null || address.getPostalCode() == null ? null
+                                  : address.getPostalCode().getCharacterSet();
+        if (address != null && (address.getStreetNumberAsInt() != 0 || address.getStreetName() != null
+                                || address.getCityName() != null || postalCode != null)) {
+            out.line(1, "RESI");
+            out.line(2, "ADDR");
+            if (address.getStreetNumberAsInt() != 0 || address.getStreetName() != null) {
+                street(address, out.ascii(" "));
+                street(address, out.line(3, "ADR1").ascii(" "));
+            }
+            if (address.getCityName() != null) {
+                out.line(3, "CITY").ascii(" ").text(address.getCityName());
+            }
+            if (postalCode != null) {
+                out.line(3, "POST").ascii(" ").text(postalCode);
+            }
+        }
+
+        final String biography = person.getBiography();
+        if (biography != null) {
+            note(biography, out);
+        }
+    }
+
+    private static void street(final Address address, final Output out) throws IOException {
+        if (address.getStreetNumberAsInt() != 0) {
+            out.number(address.getStreetNumberAsInt());
+            if (address.getStreetName() != null) {
+                out.ascii(" ");
+            }
+        }
+        if (address.getStreetName() != null) {
+            out.text(address.getStreetName());
+        }
+    }
+
+    private static void note(final String text, final Output out) throws IOException {
+        out.line(1, "NOTE");
+        int start = 0, length = 0;
+        boolean first = true, concatenated = false;
+
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean end = i == text.length();
+            final char c = end ? '\n' : text.charAt(i);
+            if (c == '\n' || c == '\r' || length == NOTE_WIDTH && !Character.isLowSurrogate(c)) {
+                if (!first) {
+                    out.line(2, concatenated ? "CONC" : "CONT");
+                }
+                if (i > start) {
+                    out.ascii(" ").text(text, start, i);
+                }
+                first = false;
+                concatenated = c != '\n' && c != '\r';
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = concatenated ? i : i + 1;
+                length = concatenated ? 1 : 0;
+            } else {
+                length++;
+            }
+        }
+    }
+
+    /**
+     * The {@code GedcomFile.Batch} class holds consecutive lexed lines, as parallel arrays of their level,
+     * cross-reference identifier, tag, and value.
+     */
+    private static final class Batch {
+
+        private final int[] levels = new int[BATCH_SIZE];
+        private final String[] xrefs = new String[BATCH_SIZE];
+        private final String[] tags = new String[BATCH_SIZE];
+        private final String[] values = new String[BATCH_SIZE];
+        private int count = 0;
+        private boolean last = false;
+        private Exception failure = null;
+
+    }
+
+    /**
+     * The {@code GedcomFile.Lexer} class splits a GEDCOM stream into lines and fields on its own thread.
+     */
+    private static final class Lexer implements Runnable {
+
+        private final InputStream in;
+        private final BlockingQueue<Batch> queue;
+        private final String[] tags = new String[TAG_CACHE_SIZE];
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private long lineNumber = 0L;
+        private Batch batch = new Batch();
+
+        private Lexer(final InputStream in, final BlockingQueue<Batch> queue) {
+            this.in = in;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                lex();
+                batch.last = true;
+            } catch (IOException | DataFormatException | RuntimeException exc) {
+                batch.failure = exc;
+            }
+
+            try {
+                queue.put(batch);
+            } catch (InterruptedException exc) {
+                // The builder has given up and no longer reads the queue.
+            }
+        }
+
+        private void lex() throws IOException, DataFormatException {
+            int start = 0, end = 0;
+            boolean eof = false, marked = false;
+
+            while (true) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+
+                final int read = in.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    end += read;
+                }
+
+                if (!marked) {
+                    if (end < 3 && !eof) {
+                        continue;
+                    }
+                    if (end >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                        start = 3;
+                    }
+                    marked = true;
+                }
+
+                for (int i = start; i < end; i++) {
+                    final byte b = buffer[i];
+                    if (b == '\n' || b == '\r') {
+                        if (b == '\r' && i + 1 == end && !eof) {
+                            // The carriage return may be the first half of a line break split across reads.
+                            break;
+                        }
+                        line(start, i);
+                        if (b == '\r' && i + 1 < end && buffer[i + 1] == '\n') {
+                            i++;
+                        }
+                        start = i + 1;
+                    }
+                }
+
+                if (eof) {
+                    if (start < end) {
+                        line(start, end);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void line(final int from, final int to) throws DataFormatException {
+            lineNumber++;
+            int i = skipSpaces(from, to);
+            if (i == to) {
+                return;
+            }
+
+            int level = 0;
+            final int levelStart = i;
+            while (i < to && buffer[i] >= '0' && buffer[i] <= '9') {
+                level = level * 10 + buffer[i++] - '0';
+                if (i - levelStart > 2) {
+                    throw new DataFormatException("Invalid level on line " + lineNumber);
+                }
+            }
+            if (i == levelStart || i == to || buffer[i] != ' ' && buffer[i] != '\t') {
+                throw new DataFormatException("Missing level on line " + lineNumber);
+            }
+            i = skipSpaces(i, to);
+
+            String xref = null;
+            if (i < to && buffer[i] == '@') {
+                final int close = indexOf('@', i + 1, to);
+                if (close < 0) {
+                    throw new DataFormatException("Unterminated cross-reference on line " + lineNumber);
+                }
+                xref = new String(buffer, i + 1, close - i - 1, StandardCharsets.UTF_8);
+                i = skipSpaces(close + 1, to);
+            }
+
+            final int tagStart = i;
+            while (i < to && buffer[i] != ' ' && buffer[i] != '\t') {
+                i++;
+            }
+            if (i == tagStart) {
+                throw new DataFormatException("Missing tag on line " + lineNumber);
+            }
+            final String tag = tag(tagStart, i);
+            final String value = i < to ? new String(buffer, i + 1, to - i - 1, StandardCharsets.UTF_8) : null;
+
+            if (batch.count == BATCH_SIZE) {
+                flush();
+            }
+            batch.levels[batch.count] = level;
+            batch.xrefs[batch.count] = xref;
+            batch.tags[batch.count] = tag;
+            batch.values[batch.count] = value;
+            batch.count++;
+        }
+
+        private String tag(final int from, final int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+
+            // Tags come from a small vocabulary, so the lexer reuses one string per tag rather than decoding each.
+            final int slot = (hash ^ hash >>> 16) & (tags.length - 1);
+            final String cached = tags[slot];
+            if (cached != null && cached.length() == to - from) {
+                boolean same = true;
+                for (int i = from; i < to && same; i++) {
+                    same = cached.charAt(i - from) == buffer[i];
+                }
+                if (same) {
+                    return cached;
+                }
+            }
+
+            final String tag = new String(buffer, from, to - from, StandardCharsets.UTF_8);
+            tags[slot] = tag;
+
+            return tag;
+        }
+
+        private void flush() throws DataFormatException {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new DataFormatException("Interrupted on line " + lineNumber);
+            }
+            batch = new Batch();
+        }
+
+        private int skipSpaces(final int from, final int to) {
+            int i = from;
+            while (i < to && (buffer[i] == ' ' || buffer[i] == '\t')) {
+                i++;
+            }
+
+            return i;
+        }
+
+        private int indexOf(final char c, final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer[i] == c) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+    }
+
+    /**
+     * The {@code GedcomFile.Builder} class turns lexed lines into family members and their relationships.
+     */
+    private static final class Builder {
+
+        private enum Record { OTHER, INDIVIDUAL, FAMILY }
+
+        private final Map<String, FamilyMember> individuals = new HashMap<>();
+        private final List<FamilyMember> defined = new ArrayList<>();
+        private Record record = Record.OTHER;
+        private String structure = null;
+        private boolean named = false, addressed = false;
+
+        private FamilyMember member = null;
+        private String given = null, surname = null;
+        private String street = null, city = null, post = null;
+        private StringBuilder note = null;
+
+        private FamilyMember husband = null, wife = null;
+        private final List<FamilyMember> children = new ArrayList<>();
+
+        private void line(final int level, final String xref, final String tag, final String value) {
+            if (level == 0) {
+                finishRecord();
+                if ("INDI".equals(tag) && xref != null) {
+                    record = Record.INDIVIDUAL;
+                    member = individual(xref);
+                    defined.add(member);
+                } else if ("FAM".equals(tag)) {
+                    record = Record.FAMILY;
+                } else {
+                    record = Record.OTHER;
+                }
+                return;
+            }
+
+            if (level == 1) {
+                // Only the first name and the first residence of an individual are kept.
+                if ("NAME".equals(structure)) {
+                    named = named || given != null || surname != null;
+                } else if ("RESI".equals(structure) || "ADDR".equals(structure)) {
+                    addressed = addressed || street != null || city != null || post != null;
+                }
+                structure = tag;
+            }
+
+            switch (record) {
+                case INDIVIDUAL -> individualLine(level, tag, value);
+                case FAMILY -> familyLine(level, tag, value);
+                default -> {
+                }
+            }
+        }
+
+        private void individualLine(final int level, final String tag, final String raw) {
+            if (structure == null) {
+                return;
+            }
+
+            final String value = unescape(raw);
+
+            switch (structure) {
+                case "NAME" -> {
+                    if (named) {
+                        return;
+                    }
+                    if (level == 1) {
+                        name(value);
+                    } else if (level == 2 && "GIVN".equals(tag)) {
+                        given = value;
+                    } else if (level == 2 && "SURN".equals(tag)) {
+                        surname = value;
+                    }
+                }
+                case "SEX" -> {
+                    if (level == 1) {
+                        member.setSex(sex(value));
+                    }
+                }
+                case "RESI", "ADDR" -> {
+                    if (addressed) {
+                        return;
+                    }
+                    if ("ADDR".equals(tag) && value != null && !value.isBlank()) {
+                        street = value.strip();
+                    } else if ("ADR1".equals(tag)) {
+                        street = value;
+                    } else if ("CITY".equals(tag)) {
+                        city = value;
+                    } else if ("POST".equals(tag)) {
+                        post = value;
+                    }
+                }
+                case "NOTE" -> {
+                    // A note pointer starts with a single '@'; an escaped text value starts with "@@".
+                    if (level == 1 && (raw == null || !raw.startsWith("@") || raw.startsWith("@@"))) {
+                        final String text = value == null ? "" : value;
+                        note = note == null ? new StringBuilder(text) : note.append('\n').append(text);
+                    } else if (level == 2 && note != null && "CONT".equals(tag)) {
+                        note.append('\n').append(value == null ? "" : value);
+                    } else if (level == 2 && note != null && "CONC".equals(tag)) {
+                        note.append(value == null ? "" : value);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void familyLine(final int level, final String tag, final String value) {
+            if (level != 1 || value == null || !value.startsWith("@")) {
+                return;
+            }
+
+            final FamilyMember individual = individual(pointer(value));
+            switch (tag) {
+                case "HUSB" -> husband = individual;
+                case "WIFE" -> wife = individual;
+                case "CHIL" -> children.add(individual);
+                default -> {
+                }
+            }
+        }
+
+        private FamilyMember individual(final String xref) {
+            FamilyMember individual = individuals.get(xref);
+            if (individual == null) {
+                individual = new FamilyMember(new Person(), null, null, null, null, new HashSet<>());
+                individual.identify();
+                individuals.put(xref, individual);
+            }
+
+            return individual;
+        }
+
+        private void name(final String value) {
+            if (value == null) {
+                return;
+            }
+
+            final int slash = value.indexOf('/');
+            if (slash < 0) {
+                given = value;
+            } else {
+                final int close = value.indexOf('/', slash + 1);
+                given = value.substring(0, slash);
+                surname = value.substring(slash + 1, close < 0 ? value.length() : close).strip();
+            }
+        }
+
+        private void finishName() {
+            final String names = given == null ? "" : given.strip();
+            final int space = names.indexOf(' ');
+            final String forename = space < 0 ? names : names.substring(0, space);
+            final String midname = space < 0 ? null : names.substring(space + 1).strip();
+
+            member.setName(new Name(forename.isEmpty() ? null : forename, midname,
+                                    surname == null || surname.isEmpty() ? null : surname));
+            member.setFamilyName(member.getName().getSurname());
+        }
+
+        private void finishAddress() {
+            final Address address = new Address();
+            String streetName = street == null ? null : street.strip();
+
+            if (streetName != null) {
+                int digits = 0;
+                while (digits < streetName.length() && Character.isDigit(streetName.charAt(digits))
+                       && digits < 9) {
+                    digits++;
+                }
+                if (digits > 0) {
+                    try {
+                        final int number = Integer.parseInt(streetName, 0, digits, 10);
+                        if (number > 0) {
+                            address.setStreetNumber(number);
+                            streetName = streetName.substring(digits).strip();
+                        }
+                    } catch (NumberFormatException | DataFormatException exc) {
+                        // The leading digits are not a street number; keep them as part of the street name.
+                    }
+                }
+            }
+            address.setStreetName(streetName);
+            address.setCityName(city == null ? null : city.strip());
+
+            if (post != null) {
+                try {
+                    address.setPostalCode(new PostalCode(post.strip()));
+                } catch (DataFormatException exc) {
+                    // A postal code that the model cannot represent is dropped.
+                }
+            }
+
+            member.setAddress(address);
+        }
+
+        private void finishRecord() {
+            if (record == Record.INDIVIDUAL) {
+                if (given != null || surname != null) {
+                    finishName();
+                }
+                if (street != null || city != null || post != null) {
+                    finishAddress();
+                }
+                if (note != null) {
+                    member.setBiography(note.toString());
+                }
+            } else if (record == Record.FAMILY) {
+                if (husband != null && wife != null) {
+                    if (husband.getSpouse() == null) {
+                        husband.setSpouse(wife);
+                    }
+                    if (wife.getSpouse() == null) {
+                        wife.setSpouse(husband);
+                    }
+                }
+                for (FamilyMember child : children) {
+                    if (wife != null) {
+                        child.setMother(wife);
+                        wife.addChild(child);
+                    }
+                    if (husband != null) {
+                        child.setFather(husband);
+                        husband.addChild(child);
+                    }
+                }
+            }
+
+            record = Record.OTHER;
+            structure = null;
+            named = false;
+            addressed = false;
+            member = null;
+            given = null;
+            surname = null;
+            street = null;
+            city = null;
+            post = null;
+            note = null;
+            husband = null;
+            wife = null;
+            children.clear();
+        }
+
+        private FamilyGraph finish() {
+            finishRecord();
+            final FamilyGraph graph = new FamilyGraph(Math.max(individuals.size(), 1));
+            graph.addAll(defined);
+            for (FamilyMember individual : individuals.values()) {
+                graph.add(individual);
+            }
+
+            return graph;
+        }
+
+        private static Sex sex(final String value) {
+            if (value == null || value.isBlank()) {
+                return Sex.Unspecified;
+            }
+
+            return switch (Character.toUpperCase(value.strip().charAt(0))) {
+                case 'M' -> Sex.Male;
+                case 'F' -> Sex.Female;
+                default -> Sex.Unspecified;
+            };
+        }
+
+        private static String pointer(final String value) {
+            final int close = value.indexOf('@', 1);
+
+            return value.substring(1, close < 0 ? value.length() : close);
+        }
+
+        private static String unescape(final String value) {
+            return value == null || !value.contains("@@") ? value : value.replace("@@", "@");
+        }
+
+    }
+
+    /**
+     * The {@code GedcomFile.Family} class gathers the partners and children of one family record while a graph is
+     * written.
+     */
+    private static final class Family {
+
+        private final int number;
+        private int husband = FamilyGraph.NONE;
+        private int wife = FamilyGraph.NONE;
+        private int[] childIds = new int[2];
+        private int children = 0;
+
+        private Family(final int number) {
+            this.number = number;
+        }
+
+        private void addChild(final int id) {
+            if (children == childIds.length) {
+                childIds = Arrays.copyOf(childIds, children * 2);
+            }
+            childIds[children++] = id;
+        }
+
+    }
+
+    /**
+     * The {@code GedcomFile.Output} class encodes GEDCOM lines straight into a buffer, which is drained to a channel
+     * whenever it fills, so that no intermediate string is built for a line or a record.
+     */
+    private static final class Output {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private boolean started = false;
+
+        private Output(final WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private Output record(final char kind, final int number, final String tag) throws IOException {
+            line(0, null);
+            pointer(kind, number);
+            return ascii(" ").ascii(tag);
+        }
+
+        private Output line(final int level, final String tag) throws IOException {
+            if (started) {
+                put('\n');
+            }
+            started = true;
+            put('0' + level);
+            if (tag != null) {
+                put(' ');
+                ascii(tag);
+            }
+            return this;
+        }
+
+        private Output pointer(final char kind, final int number) throws IOException {
+            ascii(" @");
+            put(kind);
+            number(number + 1);
+            put('@');
+            return this;
+        }
+
+        private Output number(final int value) throws IOException {
+            if (value >= 10) {
+                number(value / 10);
+            }
+            put('0' + value % 10);
+            return this;
+        }
+
+        private Output ascii(final String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                put(value.charAt(i));
+            }
+            return this;
+        }
+
+        private Output text(final String value) throws IOException {
+            return text(value, 0, value.length());
+        }
+
+        private Output text(final String value, final int from, final int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c == '@') {
+                        put('@');
+                    }
+                    put(c == '\n' || c == '\r' ? ' ' : c);
+                } else if (c < 0x800) {
+                    put(0xC0 | c >> 6);
+                    put(0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < to
+                           && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int code = Character.toCodePoint(c, value.charAt(++i));
+                    put(0xF0 | code >> 18);
+                    put(0x80 | code >> 12 & 0x3F);
+                    put(0x80 | code >> 6 & 0x3F);
+                    put(0x80 | code & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    put('?');
+                } else {
+                    put(0xE0 | c >> 12);
+                    put(0x80 | c >> 6 & 0x3F);
+                    put(0x80 | c & 0x3F);
+                }
+            }
+            return this;
+        }
+
+        private void put(final int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        private void flush() throws IOException {
+            put('\n');
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code GenerationIndex} class assigns every person in a family graph a generation number relative to the
+ * founders of the tree.
+ * <p>
+ * A founder (a person with no known parents) is of generation zero, and every other person is one generation after the
+ * latest of their parents, so that a person's generation is always greater than that of any of their ancestors. The
+ * generations are held in a primitive {@code int} column indexed by the identifiers of the {@code FamilyGraph}.
+ * <p>
+ * The column is built by a topological sort of the parent graph using Kahn's algorithm, one generation at a time: the
+ * founders form the first frontier, and each frontier is split into chunks that are expanded in parallel, every child
+ * joining the next frontier once all of its parents have been placed. Persons who are never placed lie on, or below, a
+ * cycle in the parent links; they are given no generation and are reported by {@link #cyclicMembers()}.
+ * <p>
+ * The index registers itself as a listener of the graph. When a single parent link changes, only the child and those of
+ * their descendants whose generation actually changes are revisited; the work is deferred until the next query, so a
+ * run of edits is applied together. Adding persons to the graph causes the column to be rebuilt in full at the next
+ * query.
+ * <p>
+ * The {@code GenerationIndex} class is not thread-safe, and must not be queried while the graph is being changed.
+ *
+ * @see familytree.FamilyGraph
+ */
+public final class GenerationIndex implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final FamilyGraph graph;
+    private final FamilyGraph.Listener listener = this::memberChanged;
+    private int[] generations = new int[0];
+    private final BitSet cyclic = new BitSet();
+    private boolean stale = true;
+    private int[] pending = new int[16];
+    private int pendingCount = 0;
+
+    /**
+     * Creates a new {@code GenerationIndex} object over the supplied family graph, assigns the generations, and
+     * registers the index as a listener of the graph.
+     *
+     * @param graph the family graph to index.
+     * @see familytree.FamilyGraph#addListener(familytree.FamilyGraph.Listener)
+     */
+    public GenerationIndex(final FamilyGraph graph) {
+        this.graph = graph;
+        graph.addListener(listener);
+        refresh();
+    }
+
+    /**
+     * Returns the generation of a person.
+     *
+     * @param id the identifier of the person.
+     * @return The generation of the person, counted from zero for founders; {@link FamilyGraph#NONE} if the person lies
+     * on or below a cycle.
+     * @throws IndexOutOfBoundsException if the identifier is not in use.
+     */
+    public int generation(final int id) throws IndexOutOfBoundsException {
+        graph.person(id);
+        refresh();
+        return generations[id];
+    }
+
+    /**
+     * Returns the number of generations in the graph; that is, one more than the greatest generation of any person.
+     *
+     * @return The number of generations.
+     */
+    public int generationCount() {
+        refresh();
+        int greatest = FamilyGraph.NONE;
+
+        for (int generation : generations) {
+            greatest = Math.max(greatest, generation);
+        }
+
+        return greatest + 1;
+    }
+
+    /**
+     * Returns a copy of the generation column, indexed by person identifier.
+     *
+     * @return The generations of every person.
+     */
+    public int[] toArray() {
+        refresh();
+        return generations.clone();
+    }
+
+    /**
+     * Indicates whether the parent links of the graph are free of cycles.
+     *
+     * @return {@code true} if every person has a generation; {@code false} otherwise.
+     */
+    public boolean isAcyclic() {
+        refresh();
+        return cyclic.isEmpty();
+    }
+
+    /**
+     * Returns the set of persons who lie on, or below, a cycle in the parent links, and so have no generation.
+     *
+     * @return The set of the identifiers of the persons without a generation.
+     */
+    public BitSet cyclicMembers() {
+        refresh();
+        return (BitSet) cyclic.clone();
+    }
+
+    /**
+     * Unregisters the index from the graph. The generations assigned so far remain available, but are no longer kept
+     * up to date.
+     */
+    @Override
+    public void close() {
+        graph.removeListener(listener);
+    }
+
+    private void memberChanged(final int id, final FamilyGraph.Change change, final Object previous) {
+        switch (change) {
+            case ADDED -> stale = true;
+            case MOTHER, FATHER -> defer(id);
+            case CHILD_ADDED, CHILD_REMOVED -> defer(graph.idOf((Person) previous));
+            default -> {
+            }
+        }
+    }
+
+    private void defer(final int id) {
+        if (stale || id == FamilyGraph.NONE) {
+            return;
+        }
+
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = id;
+    }
+
+    private void refresh() {
+        if (stale) {
+            rebuild();
+        } else if (pendingCount > 0) {
+            propagate();
+        }
+    }
+
+    /**
+     * Recomputes the generation of each changed child from their parents, and carries any change down to their
+     * children. A walk that meets a cyclic person, or that raises a generation beyond the number of persons, has met a
+     * cycle, and falls back to a full rebuild.
+     */
+    private void propagate() {
+        int[] work = Arrays.copyOf(pending, Math.max(pendingCount, 16));
+        int count = pendingCount;
+        pendingCount = 0;
+
+        while (count > 0) {
+            final int node = work[--count];
+            if (cyclic.get(node)) {
+                rebuild();
+                return;
+            }
+
+            int generation = 0;
+            for (int i = 0, parents = graph.parentCount(node); i < parents; i++) {
+                final int parent = graph.parent(node, i);
+                if (cyclic.get(parent)) {
+                    rebuild();
+                    return;
+                }
+                generation = Math.max(generation, generations[parent] + 1);
+            }
+
+            if (generation > graph.size()) {
+                rebuild();
+                return;
+            }
+
+            if (generation != generations[node]) {
+                generations[node] = generation;
+
+                for (int i = 0, children = graph.childCount(node); i < children; i++) {
+                    if (count == work.length) {
+                        work = Arrays.copyOf(work, count * 2);
+                    }
+                    work[count++] = graph.child(node, i);
+                }
+            }
+        }
+    }
+
+    private void rebuild() {
+        graph.validate();
+        final int size = graph.size();
+        final int[] result = new int[size];
+        final AtomicIntegerArray unplaced = new AtomicIntegerArray(size);
+        Arrays.fill(result, FamilyGraph.NONE);
+
+        IntStream.range(0, size).parallel().forEach(id -> unplaced.set(id, graph.parentCount(id)));
+        int[] frontier = IntStream.range(0, size).parallel().filter(id -> unplaced.get(id) == 0).toArray();
+
+        for (int generation = 0; frontier.length > 0; generation++) {
+            final int[] current = frontier;
+            final int level = generation;
+            final int chunks = (current.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            final int[][] produced = new int[chunks][];
+
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int[] next = new int[16];
+                int count = 0;
+
+                for (int i = chunk * CHUNK_SIZE, end = Math.min(current.length, i + CHUNK_SIZE); i < end; i++) {
+                    final int node = current[i];
+                    result[node] = level;
+
+                    for (int c = 0, children = graph.childCount(node); c < children; c++) {
+                        final int child = graph.child(node, c);
+                        if (unplaced.decrementAndGet(child) == 0) {
+                            if (count == next.length) {
+                                next = Arrays.copyOf(next, count * 2);
+                            }
+                            next[count++] = child;
+                        }
+                    }
+                }
+
+                produced[chunk] = Arrays.copyOf(next, count);
+            });
+
+            int total = 0;
+            for (int[] part : produced) {
+                total += part.length;
+            }
+            frontier = new int[total];
+            total = 0;
+            for (int[] part : produced) {
+                System.arraycopy(part, 0, frontier, total, part.length);
+                total += part.length;
+            }
+        }
+
+        cyclic.clear();
+        for (int id = 0; id < size; id++) {
+            if (result[id] == FamilyGraph.NONE) {
+                cyclic.set(id);
+            }
+        }
+
+        generations = result;
+        stale = false;
+        pendingCount = 0;
+    }
+
+}
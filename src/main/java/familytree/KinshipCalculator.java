@@ -0,0 +1,431 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * The {@code KinshipCalculator} class computes coefficients of kinship and inbreeding for the persons in a family
+ * graph.
+ * <p>
+ * The coefficient of kinship of two persons is the probability that an allele picked at random from each of them is
+ * identical by descent; the coefficient of inbreeding of a person is the coefficient of kinship of their mother and
+ * father. Both are computed from the mother and father columns of a {@code FamilyGraph} by the recursive definition
+ * <ul>
+ * <li>{@code kinship(a, a) = (1 + kinship(mother(a), father(a))) / 2};</li>
+ * <li>{@code kinship(a, b) = (kinship(mother(a), b) + kinship(father(a), b)) / 2}, where {@code a} is not an ancestor
+ * of {@code b};</li>
+ * <li>{@code kinship(a, b) = 0} where either person is unknown.</li>
+ * </ul>
+ * <p>
+ * Evaluated naively, the recursion takes time exponential in the depth of the pedigree. The calculator orders the
+ * persons by generation, using a {@code GenerationIndex}, so that the recursion always descends from the person of the
+ * later generation (who cannot be an ancestor of the other), and memoizes the pairs it reaches by following parent
+ * links. The pairs asked for are computed from their parents' pairs but are not themselves memoized, so that
+ * coefficients for a whole cohort can be computed on a fork/join pool and streamed to the caller in batches, without
+ * an n-by-n matrix ever being held in memory; the memo grows with the pairs of ancestors met on the way. It is a hash
+ * table of primitive keys and coefficients, split into segments by hash code, each with its own lock, and is shared
+ * between threads.
+ * <p>
+ * The calculator captures the graph as it is when the calculator is created; the graph must not be changed while the
+ * calculator is in use.
+ *
+ * @see familytree.FamilyGraph
+ * @see familytree.GenerationIndex
+ */
+public final class KinshipCalculator {
+
+    private static final int LEAF_ROWS = 16;
+
+    private final FamilyGraph graph;
+    private final int expectedModCount;
+    private final int[] generation;
+    private final Memo memo = new Memo();
+
+    /**
+     * The {@code Batch} class holds a batch of coefficients of kinship streamed from
+     * {@link KinshipCalculator#kinship(int[], int, java.util.function.Consumer)}.
+     */
+    public static final class Batch {
+
+        private final int[] first;
+        private final int[] second;
+        private final double[] coefficients;
+        private int size = 0;
+
+        private Batch(final int capacity) {
+            this.first = new int[capacity];
+            this.second = new int[capacity];
+            this.coefficients = new double[capacity];
+        }
+
+        /**
+         * Returns the number of pairs in the batch.
+         *
+         * @return The number of pairs.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the identifier of the first person of a pair.
+         *
+         * @param index the index of the pair.
+         * @return The identifier of the first person.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public int first(final int index) throws IndexOutOfBoundsException {
+            return first[Objects.checkIndex(index, size)];
+        }
+
+        /**
+         * Returns the identifier of the second person of a pair.
+         *
+         * @param index the index of the pair.
+         * @return The identifier of the second person.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public int second(final int index) throws IndexOutOfBoundsException {
+            return second[Objects.checkIndex(index, size)];
+        }
+
+        /**
+         * Returns the coefficient of kinship of a pair.
+         *
+         * @param index the index of the pair.
+         * @return The coefficient of kinship.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public double kinship(final int index) throws IndexOutOfBoundsException {
+            return coefficients[Objects.checkIndex(index, size)];
+        }
+
+    }
+
+    /**
+     * Creates a new {@code KinshipCalculator} object over the supplied family graph.
+     *
+     * @param graph the family graph.
+     * @throws IllegalStateException if the parent links of the graph contain a cycle.
+     */
+    public KinshipCalculator(final FamilyGraph graph) throws IllegalStateException {
+        this.graph = Objects.requireNonNull(graph);
+        this.expectedModCount = graph.modCount();
+        try (GenerationIndex generations = new GenerationIndex(graph)) {
+            if (!generations.isAcyclic()) {
+                throw new IllegalStateException("The parent links contain a cycle");
+            }
+            this.generation = generations.toArray();
+        }
+    }
+
+    /**
+     * Returns the coefficient of kinship of two persons.
+     *
+     * @param a the identifier of the first person.
+     * @param b the identifier of the second person.
+     * @return The coefficient of kinship, from {@code 0} to {@code 1}.
+     * @throws IndexOutOfBoundsException       if either identifier is not in use.
+     * @throws ConcurrentModificationException if the graph has changed since the calculator was created.
+     */
+    public double kinship(final int a, final int b)
+    throws IndexOutOfBoundsException, ConcurrentModificationException {
+        checkGraph();
+        graph.person(a);
+        graph.person(b);
+        return coefficient(a, b);
+    }
+
+    /**
+     * Returns the coefficient of inbreeding of a person; that is, the coefficient of kinship of their parents.
+     *
+     * @param id the identifier of the person.
+     * @return The coefficient of inbreeding, from {@code 0} to {@code 1}.
+     * @throws IndexOutOfBoundsException       if the identifier is not in use.
+     * @throws ConcurrentModificationException if the graph has changed since the calculator was created.
+     */
+    public double inbreeding(final int id) throws IndexOutOfBoundsException, ConcurrentModificationException {
+        checkGraph();
+        return coefficient(graph.mother(id), graph.father(id));
+    }
+
+    /**
+     * Computes the coefficient of kinship of every pair of persons in a cohort, in parallel, and streams the results to
+     * the supplied sink in batches.
+     * <p>
+     * Each unordered pair of distinct persons in the cohort is computed once. The batches are delivered from the
+     * threads of the common fork/join pool, one at a time, and each batch belongs to the sink once delivered. The
+     * method returns when every batch has been delivered.
+     *
+     * @param cohort    the identifiers of the persons in the cohort.
+     * @param batchSize the greatest number of pairs in a batch.
+     * @param sink      the consumer of the batches.
+     * @throws IllegalArgumentException        if the batch size is not positive.
+     * @throws IndexOutOfBoundsException       if an identifier is not in use.
+     * @throws ConcurrentModificationException if the graph has changed since the calculator was created.
+     */
+    public void kinship(final int[] cohort, final int batchSize, final Consumer<? super Batch> sink)
+    throws IllegalArgumentException, IndexOutOfBoundsException, ConcurrentModificationException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        checkGraph();
+        for (int id : cohort) {
+            graph.person(id);
+        }
+
+        ForkJoinPool.commonPool().invoke(new Rows(cohort, 0, cohort.length, batchSize, Objects.requireNonNull(sink)));
+    }
+
+    /**
+     * Returns the number of memoized coefficients of kinship.
+     *
+     * @return The number of memoized pairs.
+     */
+    int memoSize() {
+        return memo.size();
+    }
+
+    private void checkGraph() throws ConcurrentModificationException {
+        if (graph.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Computes the coefficient of kinship of a pair from the memoized coefficients of their parents' pairs, without
+     * memoizing the pair itself.
+     */
+    private double coefficient(final int a, final int b) {
+        if (a == FamilyGraph.NONE || b == FamilyGraph.NONE) {
+            return 0.0;
+        }
+
+        final long key = a < b ? (long) a << 32 | b : (long) b << 32 | a;
+        final double cached = memo.get(key);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+
+        if (a == b) {
+            return (1.0 + phi(graph.mother(a), graph.father(a))) / 2.0;
+        }
+
+        final int later = generation[a] >= generation[b] ? a : b, other = later == a ? b : a;
+        return (phi(graph.mother(later), other) + phi(graph.father(later), other)) / 2.0;
+    }
+
+    /**
+     * Returns the coefficient of kinship of a pair reached by following parent links, memoizing it.
+     */
+    private double phi(final int a, final int b) {
+        if (a == FamilyGraph.NONE || b == FamilyGraph.NONE) {
+            return 0.0;
+        }
+
+        final long key = a < b ? (long) a << 32 | b : (long) b << 32 | a;
+        final double cached = memo.get(key);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+
+        final double value = coefficient(a, b);
+        memo.put(key, value);
+        return value;
+    }
+
+    /**
+     * The hash table of memoized coefficients of kinship, keyed by pairs of identifiers packed into a {@code long}. The
+     * table is split into segments by hash code, each with its own lock, and probes linearly within a segment.
+     */
+    private static final class Memo {
+
+        /**
+         * The number of segments of the table; a power of two.
+         */
+        private static final int SEGMENTS = 16;
+        /**
+         * The key of an empty slot; packed pairs of identifiers are never negative.
+         */
+        private static final long EMPTY = -1L;
+
+        private final Segment[] segments = new Segment[SEGMENTS];
+
+        private Memo() {
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        private static int hash(final long key) {
+            final long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+
+        /**
+         * Returns the coefficient of a pair, or {@code NaN} if none is memoized.
+         */
+        private double get(final long key) {
+            final int hash = hash(key);
+            return segments[hash >>> 28].get(key, hash);
+        }
+
+        private void put(final long key, final double value) {
+            final int hash = hash(key);
+            segments[hash >>> 28].put(key, hash, value);
+        }
+
+        private int size() {
+            int size = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    size += segment.size;
+                }
+            }
+
+            return size;
+        }
+
+        private static final class Segment {
+
+            private long[] keys = Segment.emptyKeys(16);
+            private double[] values = new double[16];
+            private int size = 0;
+
+            private static long[] emptyKeys(final int capacity) {
+                final long[] keys = new long[capacity];
+                Arrays.fill(keys, EMPTY);
+                return keys;
+            }
+
+            private synchronized double get(final long key, final int hash) {
+                for (int slot = hash & (keys.length - 1); keys[slot] != EMPTY; slot = (slot + 1) & (keys.length - 1)) {
+                    if (keys[slot] == key) {
+                        return values[slot];
+                    }
+                }
+
+                return Double.NaN;
+            }
+
+            private synchronized void put(final long key, final int hash, final double value) {
+                if ((size + 1) * 2 > keys.length) {
+                    final long[] oldKeys = keys;
+                    final double[] oldValues = values;
+                    keys = Segment.emptyKeys(oldKeys.length * 2);
+                    values = new double[oldKeys.length * 2];
+                    size = 0;
+                    for (int i = 0; i < oldKeys.length; i++) {
+                        if (oldKeys[i] != EMPTY) {
+                            insert(oldKeys[i], hash(oldKeys[i]), oldValues[i]);
+                        }
+                    }
+                }
+
+                insert(key, hash, value);
+            }
+
+            private void insert(final long key, final int hash, final double value) {
+                int slot = hash & (keys.length - 1);
+                while (keys[slot] != EMPTY && keys[slot] != key) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+
+                if (keys[slot] == EMPTY) {
+                    keys[slot] = key;
+                    size++;
+                }
+                values[slot] = value;
+            }
+
+        }
+
+    }
+
+    /**
+     * The fork/join task which computes a range of rows of the upper triangle of the cohort's kinship matrix. The task
+     * is never serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class Rows extends RecursiveAction {
+
+        private final int[] cohort;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final Consumer<? super Batch> sink;
+
+        private Rows(final int[] cohort, final int from, final int to, final int batchSize,
+                     final Consumer<? super Batch> sink) {
+            this.cohort = cohort;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                final int middle = (from + to) >>> 1;
+                RecursiveAction.invokeAll(new Rows(cohort, from, middle, batchSize, sink),
+                                          new Rows(cohort, middle, to, batchSize, sink));
+                return;
+            }
+
+            Batch batch = new Batch(batchSize);
+            for (int i = from; i < to; i++) {
+                for (int j = i + 1; j < cohort.length; j++) {
+                    batch.first[batch.size] = cohort[i];
+                    batch.second[batch.size] = cohort[j];
+                    batch.coefficients[batch.size++] = coefficient(cohort[i], cohort[j]);
+
+                    if (batch.size == batchSize) {
+                        deliver(batch);
+                        batch = new Batch(batchSize);
+                    }
+                }
+            }
+
+            if (batch.size > 0) {
+                deliver(batch);
+            }
+        }
+
+        private void deliver(final Batch batch) {
+            synchronized (sink) {
+                sink.accept(batch);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,854 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code ModelJournal} class saves a family graph incrementally, as an append-only journal of its changes beside a
+ * base family tree file.
+ * <p>
+ * The {@code ModelJournal} class listens to a family graph and encodes every change to it, whether a person being
+ * added, a relationship changing, or a setter of {@code Person} or {@code FamilyMember} replacing a personal detail, as
+ * a journal record holding the new value. Records are held in memory until {@link #save()} appends them to the journal
+ * file and forces them to the storage device, so the cost of a save is proportional to the edits since the last save
+ * rather than to the size of the tree. Changes made in place to a {@code Name} or {@code Address} object, rather than
+ * through a setter, are not seen.
+ * <p>
+ * The journal file has the path of the base file with {@code .journal} appended. It begins with a header identifying
+ * the base file by its size and modification time, and every record is framed by its length and a CRC-32 checksum.
+ * Opening a base file replays the journal over it, stopping at the first incomplete or corrupt record, such as one
+ * torn by a crash; a journal whose header does not match the base file is discarded.
+ * <p>
+ * Compaction folds the journal into a new base file, and may run periodically on a background thread. It reads the
+ * base file and replays the journal into a separate graph, so that the graph being edited is never read off its own
+ * thread; records saved while compaction runs are carried over into the new journal. The new base file and journal
+ * are written to temporary files and moved into place atomically.
+ * <p>
+ * The journal is told of changes on the thread that makes them, which must be the only thread that changes the graph.
+ *
+ * @see familytree.FamilyTreeFile
+ * @see familytree.FamilyGraph.Listener
+ */
+public final class ModelJournal implements AutoCloseable {
+
+    /**
+     * The magic number at the start of a journal file: the characters {@code ARBJ}.
+     */
+    public static final int MAGIC = 0x4152424A;
+    /**
+     * The latest version of the journal format, which is the version written.
+     */
+    public static final int VERSION = 1;
+
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_SIZE = 24;
+    private static final int FRAME_SIZE = 8;
+    private static final FamilyGraph.Change[] CHANGES = FamilyGraph.Change.values();
+    private static final Sex[] SEXES = Sex.values();
+
+    private static final int MEMBER = 0x01;
+    private static final int CHILDREN = 0x02;
+
+    private final Path base;
+    private final Path journal;
+    private final FamilyGraph graph;
+    private final FamilyGraph.Listener listener = this::memberChanged;
+    private final Object lock = new Object();
+    private final Object fileLock = new Object();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataCodec.Writer recordWriter = new DataCodec.Writer(record);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final CRC32 checksum = new CRC32();
+    private FileChannel channel;
+    private boolean baseSaved;
+    private ScheduledExecutorService compactor = null;
+    private boolean closed = false;
+
+    private ModelJournal(final Path base, final FamilyGraph graph, final FileChannel channel) {
+        this.base = base;
+        this.journal = journalOf(base);
+        this.graph = graph;
+        this.channel = channel;
+        this.baseSaved = channel != null;
+        graph.addListener(listener);
+    }
+
+    /**
+     * Writes a family graph to a new base file, starts an empty journal beside it, and begins journaling the graph.
+     *
+     * @param graph the family graph to be journaled.
+     * @param base  the path of the base file, which is replaced if it exists.
+     * @return The journal.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static ModelJournal create(final FamilyGraph graph, final Path base) throws IOException {
+        final Path temporary = temporaryFile(base);
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                FamilyTreeFile.write(graph, new ChannelOutput(out));
+                out.force(true);
+            }
+            Files.move(temporary, base, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return new ModelJournal(base, graph, startJournal(base, journalOf(base), ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * Writes a snapshot of a family graph to a new base file in the background, and begins journaling the graph at
+     * once.
+     * <p>
+     * The changes made after the snapshot is taken are held in memory until the base file has been written. The journal
+     * file is then started through the save service, and the listener told once it has been. The base file is marked
+     * written on the save service's thread, so a journal closed after the service has finished its saves keeps those
+     * changes, even if the listener has not yet been told.
+     *
+     * @param graph    the family graph to be journaled.
+     * @param base     the path of the base file, which is replaced if it exists.
+     * @param service  the save service which writes the base file.
+     * @param listener the listener to be told of the progress and completion of the save.
+     * @return The journal.
+     * @throws IllegalStateException if the save service is closed.
+     * @see familytree.SaveService#save(familytree.FamilyGraph, java.nio.file.Path, familytree.SaveService.Encoder,
+     * familytree.SaveService.Listener)
+     */
+    public static ModelJournal create(final FamilyGraph graph, final Path base, final SaveService service,
+                                      final SaveService.Listener listener) throws IllegalStateException {
+        final ModelJournal journal = new ModelJournal(base, graph, null);
+        service.save(graph, base, FamilyTreeFile::write, new SaveService.Listener() {
+            @Override
+            public void progress(final Path target, final long bytesWritten) {
+                listener.progress(target, bytesWritten);
+            }
+
+            @Override
+            public void written(final Path target) {
+                // Marked on the writer thread, so that a journal closed before the listener is told still saves.
+                synchronized (journal.lock) {
+                    journal.baseSaved = true;
+                }
+            }
+
+            @Override
+            public void completed(final Path target, final IOException failure) {
+                if (failure != null) {
+                    listener.completed(target, failure);
+                    return;
+                }
+
+                final boolean closed;
+                synchronized (journal.lock) {
+                    closed = journal.closed;
+                }
+                if (!closed) {
+                    try {
+                        service.save(journal, listener);
+                        return;
+                    } catch (IllegalStateException exc) {
+                        // The service has been closed; the journal saves the changes itself when it is closed.
+                    }
+                }
+                listener.completed(target, null);
+            }
+        });
+
+        return journal;
+    }
+
+    /**
+     * Reads a base file, replays its journal (if any) over it, and begins journaling the resulting graph.
+     *
+     * @param base the path of the base file.
+     * @return The journal, whose graph holds the base file with every journaled change applied.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if the base file is not a valid family tree file, or a journal record is
+     *                             inconsistent with it.
+     */
+    public static ModelJournal open(final Path base) throws IOException, DataFormatException {
+        final FamilyGraph graph = FamilyTreeFile.read(base);
+        final Path journal = journalOf(base);
+        ByteBuffer tail = ByteBuffer.allocate(0);
+
+        if (Files.exists(journal)) {
+            try (FileChannel in = FileChannel.open(journal, StandardOpenOption.READ)) {
+                final ByteBuffer contents = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                if (matches(contents, base)) {
+                    contents.position(HEADER_SIZE);
+                    final int end = replay(graph, contents);
+                    tail = contents.slice(HEADER_SIZE, end - HEADER_SIZE);
+                }
+            }
+        }
+
+        return new ModelJournal(base, graph, startJournal(base, journal, tail));
+    }
+
+    /**
+     * Returns the family graph being journaled.
+     *
+     * @return The family graph.
+     */
+    public FamilyGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the path of the base file.
+     *
+     * @return The path of the base file.
+     */
+    public Path getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the path of the journal file.
+     *
+     * @return The path of the journal file.
+     */
+    public Path getFile() {
+        return journal;
+    }
+
+    /**
+     * Returns the number of bytes of journal records not yet saved.
+     *
+     * @return The number of unsaved bytes.
+     */
+    public int unsavedBytes() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of saved journal records that have not yet been compacted into the base file.
+     *
+     * @return The number of saved bytes in the journal.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long journalBytes() throws IOException {
+        synchronized (fileLock) {
+            return channel == null ? 0 : channel.size() - HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Appends the changes made since the last save to the journal file, and forces them to the storage device. The
+     * changes to a journal whose base file is still being written in the background remain in memory.
+     *
+     * @throws IOException           if an I/O error occurs.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public void save() throws IOException, IllegalStateException {
+        synchronized (fileLock) {
+            final byte[] records;
+            synchronized (lock) {
+                if (closed) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                if (channel == null && !baseSaved) {
+                    return;
+                }
+
+                // The records are taken out of memory so that the file can be written without holding up the thread
+                // making the changes; they are put back should the write fail.
+                records = pending.toByteArray();
+                pending.reset();
+            }
+
+            long start = -1L;
+            try {
+                if (channel == null) {
+                    channel = startJournal(base, journal, ByteBuffer.allocate(0));
+                }
+                if (records.length == 0) {
+                    return;
+                }
+
+                final ByteBuffer bytes = ByteBuffer.wrap(records);
+                start = channel.position();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            } catch (IOException exc) {
+                if (start >= 0L) {
+                    // A record torn by the failed write would hide every record written after it from replay.
+                    try {
+                        channel.truncate(start);
+                        channel.position(start);
+                    } catch (IOException suppressed) {
+                        exc.addSuppressed(suppressed);
+                    }
+                }
+                synchronized (lock) {
+                    final byte[] later = pending.toByteArray();
+                    pending.reset();
+                    pending.write(records, 0, records.length);
+                    pending.write(later, 0, later.length);
+                }
+                throw exc;
+            }
+        }
+    }
+
+    /**
+     * Folds the saved journal into a new base file, and starts a new journal holding only the records saved since
+     * compaction began.
+     * <p>
+     * The {@code compact} method may be called from any thread. It does not read the graph being journaled, and saves
+     * may continue while it runs.
+     *
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if the base file or the journal cannot be read back.
+     */
+    public void compact() throws IOException, DataFormatException {
+        final long end;
+        synchronized (fileLock) {
+            if (channel == null) {
+                return;
+            }
+            end = channel.size();
+        }
+        if (end == HEADER_SIZE) {
+            return;
+        }
+
+        final FamilyGraph folded = FamilyTreeFile.read(base);
+        try (FileChannel in = FileChannel.open(journal, StandardOpenOption.READ)) {
+            final ByteBuffer records = in.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            records.position(HEADER_SIZE);
+            if (replay(folded, records) != end) {
+                throw new DataFormatException("Corrupt journal: " + journal);
+            }
+        }
+
+        final Path temporaryBase = temporaryFile(base), temporaryJournal = temporaryFile(journal);
+        try {
+            try (FileChannel out = FileChannel.open(temporaryBase, StandardOpenOption.WRITE)) {
+                FamilyTreeFile.write(folded, new ChannelOutput(out));
+                out.force(true);
+            }
+
+            synchronized (fileLock) {
+                if (!channel.isOpen()) {
+                    return;
+                }
+
+                final long size = channel.size();
+                final ByteBuffer carried = ByteBuffer.allocate((int) (size - end));
+                while (carried.hasRemaining() && channel.read(carried, end + carried.position()) >= 0) {
+                    // Read the records saved while compaction was running.
+                }
+                carried.flip();
+
+                try (FileChannel out = FileChannel.open(temporaryJournal, StandardOpenOption.WRITE)) {
+                    writeHeader(out, temporaryBase);
+                    while (carried.hasRemaining()) {
+                        out.write(carried);
+                    }
+                    out.force(true);
+                }
+
+                // The base file moves first: should the second move not happen, the old journal no longer matches
+                // the new base file and is discarded, rather than being replayed twice.
+                channel.close();
+                Files.move(temporaryBase, base, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporaryJournal, journal, StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+                channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        } finally {
+            Files.deleteIfExists(temporaryBase);
+            Files.deleteIfExists(temporaryJournal);
+        }
+    }
+
+    /**
+     * Compacts the journal periodically on a background daemon thread, whenever it holds saved records. Failures are
+     * logged, and compaction is tried again at the next period.
+     *
+     * @param period the time between the end of one compaction and the start of the next.
+     * @param unit   the unit of the period.
+     * @throws IllegalStateException if compaction has already been scheduled, or the journal is closed.
+     */
+    public void scheduleCompaction(final long period, final TimeUnit unit) throws IllegalStateException {
+        synchronized (lock) {
+            if (closed || compactor != null) {
+                throw new IllegalStateException("Compaction already scheduled, or journal closed");
+            }
+
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(() -> {
+                try {
+                    compact();
+                } catch (IOException | DataFormatException | RuntimeException exc) {
+                    Logger.getLogger(ModelJournal.class.getName()).log(Level.WARNING, exc.toString(), exc);
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Stops journaling the graph, waits for any compaction in progress, saves the changes made since the last save,
+     * and closes the journal file. The changes to a journal whose base file has not yet been written are lost.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        final ScheduledExecutorService running;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            graph.removeListener(listener);
+            running = compactor;
+        }
+
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (fileLock) {
+            try {
+                save();
+            } finally {
+                synchronized (lock) {
+                    closed = true;
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the path of the journal file of a base file.
+     *
+     * @param base the path of the base file.
+     * @return The path of the journal file.
+     */
+    static Path journalOf(final Path base) {
+        return base.resolveSibling(base.getFileName() + SUFFIX);
+    }
+
+    private static Path temporaryFile(final Path target) throws IOException {
+        final Path directory = target.toAbsolutePath().getParent();
+        return Files.createTempFile(directory, target.getFileName() + ".", ".tmp");
+    }
+
+    private static FileChannel startJournal(final Path base, final Path journal, final ByteBuffer records)
+    throws IOException {
+        final Path temporary = temporaryFile(journal);
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                writeHeader(out, base);
+                while (records.hasRemaining()) {
+                    out.write(records);
+                }
+                out.force(true);
+            }
+            Files.move(temporary, journal, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        final FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private static void writeHeader(final FileChannel out, final Path base) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.putLong(Files.size(base)).putLong(Files.getLastModifiedTime(base).toMillis());
+        header.flip();
+        while (header.hasRemaining()) {
+            out.write(header);
+        }
+    }
+
+    private static boolean matches(final ByteBuffer contents, final Path base) throws IOException {
+        return contents.limit() >= HEADER_SIZE && contents.getInt(0) == MAGIC && contents.getInt(4) == VERSION
+               && contents.getLong(8) == Files.size(base)
+               && contents.getLong(16) == Files.getLastModifiedTime(base).toMillis();
+    }
+
+    private void memberChanged(final int id, final FamilyGraph.Change change, final Object previous) {
+        synchronized (lock) {
+            try {
+                recordWriter.putVarint(id);
+                recordWriter.putByte(change.ordinal());
+                final Person person = graph.person(id);
+
+                switch (change) {
+                    case ADDED -> writeAdded(person);
+                    case MOTHER -> recordWriter.putVarint(graph.mother(id) + 1);
+                    case FATHER -> recordWriter.putVarint(graph.father(id) + 1);
+                    case SPOUSE -> recordWriter.putVarint(graph.spouse(id) + 1);
+                    case CHILD_ADDED, CHILD_REMOVED -> recordWriter.putVarint(graph.idOf((Person) previous) + 1);
+                    case NAME -> writeName(person.getName());
+                    case SEX -> writeSex(person.getSex());
+                    case ADDRESS -> writeAddress(person.getAddress());
+                    case BIOGRAPHY -> recordWriter.putString(person.getBiography());
+                    case FAMILY_NAME -> recordWriter.putString(((FamilyMember) person).getFamilyName());
+                }
+                recordWriter.flush();
+
+                final byte[] payload = record.toByteArray();
+                record.reset();
+                checksum.reset();
+                checksum.update(payload);
+                final ByteBuffer frame = ByteBuffer.allocate(payload.length + FRAME_SIZE);
+                frame.putInt(payload.length).put(payload).putInt((int) checksum.getValue());
+                pending.write(frame.array(), 0, frame.capacity());
+            } catch (IOException exc) {
+                // The record is written to memory, which does not fail.
+                throw new IllegalStateException(exc);
+            }
+        }
+    }
+
+    private void writeAdded(final Person person) throws IOException {
+        final FamilyMember member = person instanceof FamilyMember m ? m : null;
+        recordWriter.putByte(member == null ? 0 : member.getChildren() == null ? MEMBER : MEMBER | CHILDREN);
+        writeName(person.getName());
+        writeSex(person.getSex());
+        writeAddress(person.getAddress());
+        recordWriter.putString(person.getBiography());
+
+        if (member != null) {
+            recordWriter.putString(member.getFamilyName());
+            recordWriter.putVarlong(member.getIdentityKey());
+            recordWriter.putVarint(graph.idOf(member.getMother()) + 1);
+            recordWriter.putVarint(graph.idOf(member.getFather()) + 1);
+            recordWriter.putVarint(graph.idOf(member.getSpouse()) + 1);
+            if (member.getChildren() != null) {
+                recordWriter.putVarint(member.getChildren().size());
+                for (Person child : member.getChildren()) {
+                    recordWriter.putVarint(graph.idOf(child) + 1);
+                }
+            }
+        }
+    }
+
+    private void writeName(final Name name) throws IOException {
+        recordWriter.putByte(name == null ? 0 : 1);
+        if (name != null) {
+            recordWriter.putString(name.getForename());
+            recordWriter.putString(name.getMidname());
+            recordWriter.putString(name.getSurname());
+        }
+    }
+
+    private void writeSex(final Sex sex) throws IOException {
+        recordWriter.putByte(sex == null ? 0 : sex.ordinal() + 1);
+    }
+
+    private void writeAddress(final Address address) throws IOException {
+        recordWriter.putByte(address == null ? 0 : 1);
+        if (address != null) {
+            recordWriter.putVarint(address.getStreetNumberAsInt());
+            recordWriter.putString(address.getStreetName());
+            recordWriter.putString(address.getCityName());
+            final PostalCode postalCode = address.getPostalCode();
+            recordWriter.putByte(postalCode == null ? 0 : 1);
+            if (postalCode != null) {
+                recordWriter.putString(postalCode.getCharacterSet());
+            }
+        }
+    }
+
+    /**
+     * Applies the journal records in a buffer to a graph, from the buffer's position up to the first incomplete or
+     * corrupt record.
+     *
+     * @param graph   the graph to which the records are applied.
+     * @param records the buffer holding the records.
+     * @return The offset in the buffer of the end of the last record applied.
+     * @throws DataFormatException if a record is inconsistent with the graph.
+     */
+    static int replay(final FamilyGraph graph, final ByteBuffer records) throws DataFormatException {
+        final CRC32 crc = new CRC32();
+        final Replay added = new Replay(graph);
+        int end = records.position();
+
+        while (records.limit() - end >= FRAME_SIZE) {
+            final int length = records.getInt(end);
+            if (length < 0 || length > records.limit() - end - FRAME_SIZE) {
+                break;
+            }
+
+            final ByteBuffer payload = records.slice(end + 4, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != records.getInt(end + 4 + length)) {
+                break;
+            }
+
+            try {
+                apply(graph, payload, added);
+            } catch (RuntimeException exc) {
+                final DataFormatException invalid = new DataFormatException("Invalid journal record at " + end);
+                invalid.initCause(exc);
+                throw invalid;
+            }
+            end += length + FRAME_SIZE;
+        }
+        added.flush();
+
+        return end;
+    }
+
+    private static void apply(final FamilyGraph graph, final ByteBuffer payload, final Replay added)
+    throws DataFormatException {
+        final int id = DataCodec.getVarint(payload);
+        final int ordinal = payload.get() & 0xFF;
+        if (ordinal >= CHANGES.length) {
+            throw new DataFormatException("Unknown journal change: " + ordinal);
+        }
+
+        final FamilyGraph.Change change = CHANGES[ordinal];
+        if (change == FamilyGraph.Change.ADDED) {
+            added.add(id, payload);
+            return;
+        }
+
+        added.flush();
+        final Person person = graph.person(id);
+        switch (change) {
+            case MOTHER -> ((FamilyMember) person).setMother(person(graph, DataCodec.getVarint(payload) - 1));
+            case FATHER -> ((FamilyMember) person).setFather(person(graph, DataCodec.getVarint(payload) - 1));
+            case SPOUSE -> ((FamilyMember) person).setSpouse(person(graph, DataCodec.getVarint(payload) - 1));
+            case CHILD_ADDED -> ((FamilyMember) person).addChild(person(graph, DataCodec.getVarint(payload) - 1));
+            case CHILD_REMOVED -> ((FamilyMember) person).unlinkChild(person(graph, DataCodec.getVarint(payload) - 1));
+            case NAME -> person.setName(readName(payload));
+            case SEX -> person.setSex(readSex(payload));
+            case ADDRESS -> person.setAddress(readAddress(payload));
+            case BIOGRAPHY -> person.setBiography(DataCodec.getString(payload));
+            case FAMILY_NAME -> ((FamilyMember) person).setFamilyName(DataCodec.getString(payload));
+            default -> throw new DataFormatException("Unexpected journal change: " + change);
+        }
+    }
+
+    private static Person person(final FamilyGraph graph, final int id) {
+        return id == FamilyGraph.NONE ? null : graph.person(id);
+    }
+
+    private static Name readName(final ByteBuffer payload) throws DataFormatException {
+        if (payload.get() == 0) {
+            return null;
+        }
+
+        return new Name(DataCodec.getString(payload), DataCodec.getString(payload), DataCodec.getString(payload));
+    }
+
+    private static Sex readSex(final ByteBuffer payload) throws DataFormatException {
+        final int sex = payload.get() & 0xFF;
+        if (sex > SEXES.length) {
+            throw new DataFormatException("Sex out of range: " + sex);
+        }
+
+        return sex == 0 ? null : SEXES[sex - 1];
+    }
+
+    private static Address readAddress(final ByteBuffer payload) throws DataFormatException {
+        if (payload.get() == 0) {
+            return null;
+        }
+
+        final Address address = new Address();
+        final int streetNumber = DataCodec.getVarint(payload);
+        if (streetNumber != 0) {
+            address.setStreetNumber(streetNumber);
+        }
+        address.setStreetName(DataCodec.getString(payload));
+        address.setCityName(DataCodec.getString(payload));
+        if (payload.get() != 0) {
+            final String characterSet = DataCodec.getString(payload);
+            address.setPostalCode(characterSet == null ? new PostalCode() : new PostalCode(characterSet));
+        }
+
+        return address;
+    }
+
+    /**
+     * The {@code ModelJournal.Replay} class gathers consecutive records of persons being added, whose relationships may
+     * refer to one another, and adds them to the graph together once their relationships can be resolved.
+     */
+    private static final class Replay {
+
+        private final FamilyGraph graph;
+        private final List<Person> persons = new ArrayList<>();
+        private final List<int[]> links = new ArrayList<>();
+
+        private Replay(final FamilyGraph graph) {
+            this.graph = graph;
+        }
+
+        private void add(final int id, final ByteBuffer payload) throws DataFormatException {
+            if (id != graph.size() + persons.size()) {
+                throw new DataFormatException("Journal does not match base file: person " + id + " added out of order");
+            }
+
+            final int flags = payload.get();
+            final Person person;
+            if ((flags & MEMBER) == 0) {
+                person = new Person();
+            } else if ((flags & CHILDREN) == 0) {
+                person = new FamilyMember();
+            } else {
+                person = new FamilyMember(new Person(), null, null, null, null, new HashSet<>());
+            }
+
+            person.setName(readName(payload));
+            person.setSex(readSex(payload));
+            person.setAddress(readAddress(payload));
+            person.setBiography(DataCodec.getString(payload));
+
+            int[] related = new int[0];
+            if (person instanceof FamilyMember member) {
+                member.setFamilyName(DataCodec.getString(payload));
+                final long identityKey = DataCodec.getVarlong(payload);
+                if (identityKey != 0L) {
+                    member.setIdentityKey(identityKey);
+                }
+
+                final int mother = DataCodec.getVarint(payload) - 1;
+                final int father = DataCodec.getVarint(payload) - 1;
+                final int spouse = DataCodec.getVarint(payload) - 1;
+                final int children = (flags & CHILDREN) == 0 ? 0 : DataCodec.getCount(payload);
+                related = new int[3 + children];
+                related[0] = mother;
+                related[1] = father;
+                related[2] = spouse;
+                for (int i = 0; i < children; i++) {
+                    related[3 + i] = DataCodec.getVarint(payload) - 1;
+                }
+            }
+
+            persons.add(person);
+            links.add(related);
+        }
+
+        private void flush() {
+            if (persons.isEmpty()) {
+                return;
+            }
+
+            for (int i = 0; i < persons.size(); i++) {
+                if (persons.get(i) instanceof FamilyMember member) {
+                    final int[] related = links.get(i);
+                    final Set<Person> children = member.getChildren();
+                    for (int c = 3; c < related.length; c++) {
+                        children.add(resolve(related[c]));
+                    }
+                }
+            }
+            for (int i = 0; i < persons.size(); i++) {
+                if (persons.get(i) instanceof FamilyMember member) {
+                    final int[] related = links.get(i);
+                    member.setMother(resolve(related[0]));
+                    member.setFather(resolve(related[1]));
+                    member.setSpouse(resolve(related[2]));
+                }
+            }
+
+            graph.addAll(persons);
+            persons.clear();
+            links.clear();
+        }
+
+        private Person resolve(final int id) {
+            if (id == FamilyGraph.NONE) {
+                return null;
+            }
+
+            return id < graph.size() ? graph.person(id) : persons.get(id - graph.size());
+        }
+
+    }
+
+    /**
+     * The {@code ModelJournal.ChannelOutput} class adapts a file channel to an output stream without closing it.
+     */
+    private static final class ChannelOutput extends OutputStream {
+
+        private final FileChannel channel;
+
+        private ChannelOutput(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final ByteBuffer bytes = ByteBuffer.wrap(b, off, len);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+
+    }
+
+}
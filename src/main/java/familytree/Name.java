@@ -23,7 +23,11 @@
  */
 package familytree;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Objects;
 
 /**
@@ -37,8 +41,19 @@ import java.util.Objects;
  * The default constructor leaves the fields of the name undefined and nullified. If the parameters {@code forename},
  * {@code midname}, and {@code surname} are supplied, then they are assigned to the name's <i>praenomen</i>,
  * <i>nomen</i>, and <i>cognomen</i> fields, respectively.
+ * <p>
+ * A name is externalized as a schema version followed by its three parts, each as a length-prefixed UTF-8 string.
  */
-public class Name implements Serializable {
+public class Name implements Externalizable {
+
+    /**
+     * The serialization version of the class.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The version of the externalized form written by {@link #writeExternal(java.io.ObjectOutput)}.
+     */
+    private static final int SCHEMA_VERSION = 1;
 
     /**
      * The forename, or personal name.
@@ -72,7 +87,7 @@ public class Name implements Serializable {
     public Name(final String forename, final String midname, final String surname) {
         this.praenomen = forename;
         this.nomen = midname;
-        this.cognomen = surname;
+        this.cognomen = SymbolTable.SHARED.intern(surname);
     }
 
     /**
@@ -173,9 +188,47 @@ public class Name implements Serializable {
      *
      * @param surname the new family, or gentile, name.
      * @see java.lang.String
+     * @see familytree.SymbolTable
      */
     public final void setSurname(final String surname) {
-        this.cognomen = surname;
+        this.cognomen = SymbolTable.SHARED.intern(surname);
+    }
+
+    /**
+     * Writes the name to an object output.
+     * <p>
+     * The {@code writeExternal} method writes the schema version, followed by the <i>praenomen</i>, <i>nomen</i>, and
+     * <i>cognomen</i> as length-prefixed UTF-8 strings, any of which may be {@code null}.
+     *
+     * @param out the stream to write the name to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeByte(SCHEMA_VERSION);
+        DataCodec.putString(out, praenomen);
+        DataCodec.putString(out, nomen);
+        DataCodec.putString(out, cognomen);
+    }
+
+    /**
+     * Reads the name from an object input.
+     * <p>
+     * The {@code readExternal} method restores a name written by {@link #writeExternal(java.io.ObjectOutput)}.
+     *
+     * @param in the stream to read the name from.
+     * @throws IOException if an I/O error occurs, or the schema version is not supported.
+     */
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException {
+        final int version = in.readUnsignedByte();
+        if (version != SCHEMA_VERSION) {
+            throw new InvalidObjectException("Unsupported Name schema version: " + version);
+        }
+
+        this.praenomen = DataCodec.getString(in);
+        this.nomen = DataCodec.getString(in);
+        this.cognomen = SymbolTable.SHARED.intern(DataCodec.getString(in));
     }
 
     /**
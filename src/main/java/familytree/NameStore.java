@@ -0,0 +1,459 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@code NameStore} class packs the names of many persons into a single array of bytes.
+ * <p>
+ * A name store holds each name it is given as a row of three entries, one for each of the <i>praenomen</i>,
+ * <i>nomen</i>, and <i>cognomen</i> parts of the name. An entry is the offset and length of the part's characters in a
+ * shared arena of bytes, to which every part is appended. A part whose characters all fit in ISO 8859-1 (Latin-1), as
+ * the parts of most names do, takes one byte per character; any other part takes two bytes per character, as UTF-16.
+ * A name thus costs a few dozen bytes of entries and text, rather than the four objects and three arrays of a
+ * {@code Name} and its strings.
+ * <p>
+ * The parts of a row are returned as {@code CharSequence} views of the arena, which read its bytes in place and make
+ * no copy until {@code toString} is called. Rows are compared by {@link #compare(int, int)} on the bytes of the arena,
+ * without making any {@code String}. Entries are never overwritten, so that a view stays valid for as long as it is
+ * held.
+ * <p>
+ * {@link #of(FamilyGraph)} fills a store with the name of every person in a family graph, in the order of their
+ * identifiers, so that a row number is a person's identifier; names given to persons afterwards are not picked up.
+ * Several threads may read a name store while no names are being added to it, but a thread adding names must have the
+ * store to itself, as the arena may be replaced as it grows.
+ *
+ * @see familytree.Name
+ * @see familytree.FamilyGraph
+ */
+public final class NameStore {
+
+    /**
+     * The index of the <i>praenomen</i>, or forename, among the parts of a row.
+     */
+    public static final int FORENAME = 0;
+    /**
+     * The index of the <i>nomen</i>, or middle name(s), among the parts of a row.
+     */
+    public static final int MIDNAME = 1;
+    /**
+     * The index of the <i>cognomen</i>, or surname, among the parts of a row.
+     */
+    public static final int SURNAME = 2;
+
+    private static final int PARTS = 3;
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * The length entry of a part that is undefined.
+     */
+    private static final int NULL_PART = -1;
+    /**
+     * The lowest bit of a length entry, set for a part held as UTF-16.
+     */
+    private static final int UTF16 = 1;
+
+    private byte[] arena;
+    private int used = 0;
+    private int size = 0;
+    private int[] offsets;
+    /**
+     * The length of each part in characters, shifted left by one bit and combined with {@link #UTF16}.
+     */
+    private int[] lengths;
+
+    /**
+     * Creates a new, empty {@code NameStore} object.
+     */
+    public NameStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty {@code NameStore} object with room for the supplied number of names before its entries
+     * need to grow.
+     *
+     * @param initialCapacity the number of names to reserve room for.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public NameStore(final int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+
+        this.offsets = new int[initialCapacity * PARTS];
+        this.lengths = new int[initialCapacity * PARTS];
+        this.arena = new byte[initialCapacity * 16];
+    }
+
+    /**
+     * Creates a name store with a row for every person in a family graph.
+     *
+     * @param graph the family graph.
+     * @return The name store, whose row numbers are the identifiers of the persons.
+     */
+    public static NameStore of(final FamilyGraph graph) {
+        final NameStore store = new NameStore(graph.size());
+        for (int id = 0; id < graph.size(); id++) {
+            store.add(graph.person(id).getName());
+        }
+
+        return store;
+    }
+
+    /**
+     * Adds a name to the store.
+     * <p>
+     * The return value is the number of the row holding the name.
+     *
+     * @param name the name, or {@code null} for a row whose three parts are undefined.
+     * @return The row number.
+     */
+    public int add(final Name name) {
+        if (name == null) {
+            return add(null, null, null);
+        }
+
+        return add(name.getForename(), name.getMidname(), name.getSurname());
+    }
+
+    /**
+     * Adds the parts of a name to the store.
+     * <p>
+     * The return value is the number of the row holding the name.
+     *
+     * @param forename the forename, or personal name, or {@code null}.
+     * @param midname  the middle name(s), or additional personal name(s), or {@code null}.
+     * @param surname  the surname, or family/gentile name, or {@code null}.
+     * @return The row number.
+     */
+    public int add(final CharSequence forename, final CharSequence midname, final CharSequence surname) {
+        if ((size + 1) * PARTS > offsets.length) {
+            final int capacity = Math.max(DEFAULT_CAPACITY, size * 2) * PARTS;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        final int row = size++;
+        append(row * PARTS + FORENAME, forename);
+        append(row * PARTS + MIDNAME, midname);
+        append(row * PARTS + SURNAME, surname);
+        return row;
+    }
+
+    private void append(final int entry, final CharSequence part) {
+        if (part == null) {
+            offsets[entry] = used;
+            lengths[entry] = NULL_PART;
+            return;
+        }
+
+        final int length = part.length();
+        boolean latin1 = true;
+        for (int i = 0; i < length && latin1; i++) {
+            latin1 = part.charAt(i) <= 0xFF;
+        }
+
+        final int bytes = latin1 ? length : length * 2;
+        if (used + bytes > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(used + bytes, arena.length * 2));
+        }
+
+        offsets[entry] = used;
+        lengths[entry] = length << 1 | (latin1 ? 0 : UTF16);
+        for (int i = 0; i < length; i++) {
+            final char c = part.charAt(i);
+            if (latin1) {
+                arena[used++] = (byte) c;
+            } else {
+                arena[used++] = (byte) (c >> 8);
+                arena[used++] = (byte) c;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows in the store.
+     *
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the arena holding the parts of names.
+     *
+     * @return The number of bytes of text.
+     */
+    public int byteSize() {
+        return used;
+    }
+
+    /**
+     * Returns a view of one part of a row.
+     *
+     * @param row  the row number.
+     * @param part the part: {@link #FORENAME}, {@link #MIDNAME}, or {@link #SURNAME}.
+     * @return A view of the part, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row or part does not exist.
+     */
+    public CharSequence part(final int row, final int part) throws IndexOutOfBoundsException {
+        final int entry = entry(row, part), length = lengths[entry];
+        return length == NULL_PART ? null : new View(arena, offsets[entry], length >>> 1, (length & UTF16) != 0);
+    }
+
+    /**
+     * Returns a view of the forename, or personal name, of a row.
+     *
+     * @param row the row number.
+     * @return A view of the forename, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public CharSequence forename(final int row) throws IndexOutOfBoundsException {
+        return part(row, FORENAME);
+    }
+
+    /**
+     * Returns a view of the middle name(s), or additional personal name(s), of a row.
+     *
+     * @param row the row number.
+     * @return A view of the middle name(s), or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public CharSequence midname(final int row) throws IndexOutOfBoundsException {
+        return part(row, MIDNAME);
+    }
+
+    /**
+     * Returns a view of the surname, or family/gentile name, of a row.
+     *
+     * @param row the row number.
+     * @return A view of the surname, or {@code null} if it is undefined.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public CharSequence surname(final int row) throws IndexOutOfBoundsException {
+        return part(row, SURNAME);
+    }
+
+    /**
+     * Returns the name of a row, as a new {@code Name} object. A row added for a {@code null} name is returned as a
+     * name whose three parts are undefined.
+     *
+     * @param row the row number.
+     * @return The name.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public Name name(final int row) throws IndexOutOfBoundsException {
+        return new Name(string(forename(row)), string(midname(row)), string(surname(row)));
+    }
+
+    private static String string(final CharSequence part) {
+        return part == null ? null : part.toString();
+    }
+
+    /**
+     * Compares the names of two rows, by surname, then forename, then middle name(s).
+     * <p>
+     * Parts are compared character by character, as {@code String#compareTo} compares strings, and an undefined part
+     * comes before any other. Parts held as Latin-1 are compared on their bytes directly.
+     *
+     * @param row   the row number of the first name.
+     * @param other the row number of the second name.
+     * @return A negative integer, zero, or a positive integer as the first name comes before, is equal to, or comes
+     *         after the second.
+     * @throws IndexOutOfBoundsException if either row does not exist.
+     */
+    public int compare(final int row, final int other) throws IndexOutOfBoundsException {
+        int result = comparePart(entry(row, SURNAME), entry(other, SURNAME));
+        if (result == 0) {
+            result = comparePart(entry(row, FORENAME), entry(other, FORENAME));
+        }
+        if (result == 0) {
+            result = comparePart(entry(row, MIDNAME), entry(other, MIDNAME));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns whether the name of a row is equal to a name, without making any {@code String}.
+     *
+     * @param row  the row number.
+     * @param name the name, or {@code null}, which matches a row whose three parts are undefined.
+     * @return {@code true} if every part of the row is equal to the same part of the name; {@code false} otherwise.
+     * @throws IndexOutOfBoundsException if the row does not exist.
+     */
+    public boolean matches(final int row, final Name name) throws IndexOutOfBoundsException {
+        if (name == null) {
+            return lengths[entry(row, SURNAME)] == NULL_PART && lengths[entry(row, FORENAME)] == NULL_PART &&
+                   lengths[entry(row, MIDNAME)] == NULL_PART;
+        }
+
+        return matches(entry(row, SURNAME), name.getSurname()) && matches(entry(row, FORENAME), name.getForename()) &&
+               matches(entry(row, MIDNAME), name.getMidname());
+    }
+
+    private boolean matches(final int entry, final String part) {
+        final int length = lengths[entry];
+        if (length == NULL_PART || part == null) {
+            return length == NULL_PART && part == null;
+        } else if (length >>> 1 != part.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < part.length(); i++) {
+            if (charAt(arena, offsets[entry], length, i) != part.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int comparePart(final int entry, final int other) {
+        final int length = lengths[entry], otherLength = lengths[other];
+        if (length == NULL_PART || otherLength == NULL_PART) {
+            return Boolean.compare(length != NULL_PART, otherLength != NULL_PART);
+        }
+
+        final int count = length >>> 1, otherCount = otherLength >>> 1;
+        if ((length & UTF16) == 0 && (otherLength & UTF16) == 0) {
+            final int mismatch = Arrays.mismatch(arena, offsets[entry], offsets[entry] + count, arena, offsets[other],
+                                                 offsets[other] + otherCount);
+            if (mismatch < 0 || mismatch == Math.min(count, otherCount)) {
+                return count - otherCount;
+            }
+            return (arena[offsets[entry] + mismatch] & 0xFF) - (arena[offsets[other] + mismatch] & 0xFF);
+        }
+
+        for (int i = 0; i < Math.min(count, otherCount); i++) {
+            final char c = charAt(arena, offsets[entry], length, i), d = charAt(arena, offsets[other], otherLength, i);
+            if (c != d) {
+                return c - d;
+            }
+        }
+
+        return count - otherCount;
+    }
+
+    private static char charAt(final byte[] arena, final int offset, final int length, final int index) {
+        if ((length & UTF16) == 0) {
+            return (char) (arena[offset + index] & 0xFF);
+        }
+
+        return (char) ((arena[offset + index * 2] & 0xFF) << 8 | (arena[offset + index * 2 + 1] & 0xFF));
+    }
+
+    private int entry(final int row, final int part) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row out of range: " + row);
+        } else if (part < FORENAME || part > SURNAME) {
+            throw new IndexOutOfBoundsException("Part out of range: " + part);
+        }
+
+        return row * PARTS + part;
+    }
+
+    /**
+     * A view of characters held in the arena of a name store.
+     * <p>
+     * A view holds the arena in which its characters were written, which is never overwritten, and so stays valid
+     * after the store grows. Views are equal if their characters are, and hash as {@code String} does.
+     */
+    private static final class View implements CharSequence {
+
+        private final byte[] arena;
+        private final int offset;
+        private final int length;
+        private final boolean utf16;
+
+        private View(final byte[] arena, final int offset, final int length, final boolean utf16) {
+            this.arena = arena;
+            this.offset = offset;
+            this.length = length;
+            this.utf16 = utf16;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) throws IndexOutOfBoundsException {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            }
+
+            return NameStore.charAt(arena, offset, utf16 ? UTF16 : 0, index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) throws IndexOutOfBoundsException {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range out of bounds: " + start + ", " + end);
+            }
+
+            return new View(arena, offset + (utf16 ? start * 2 : start), end - start, utf16);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof View)) {
+                return false;
+            }
+
+            return CharSequence.compare(this, (View) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + charAt(i);
+            }
+
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            if (utf16) {
+                final char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = charAt(i);
+                }
+                return new String(chars);
+            }
+
+            return new String(arena, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@code PathFinder} class finds the shortest chain of relationships connecting two persons in a family graph.
+ * <p>
+ * The {@code PathFinder} class treats the {@code FamilyGraph} as an undirected graph whose edges are the parent, child,
+ * and spouse relationships, and finds a shortest path between two persons by a bidirectional breadth-first search. The
+ * search grows a frontier from each end in turn, always expanding the smaller of the two by a whole generation, until
+ * the frontiers meet; it therefore explores roughly the square root of the persons that a one-sided search would. The
+ * search gives up once the path would exceed a configurable number of steps.
+ * <p>
+ * The visited sets, frontiers, and back-pointers of the search are primitive arrays that are stamped with a query
+ * number instead of being cleared, so a search allocates nothing but its result.
+ * <p>
+ * The {@code PathFinder} class is not thread-safe, and must not be used while the graph is being changed.
+ *
+ * @see familytree.FamilyGraph
+ */
+public final class PathFinder {
+
+    /**
+     * The default greatest number of steps in a path.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 64;
+
+    private final FamilyGraph graph;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int query = 0;
+    private int[] forwardMark = new int[0];
+    private int[] backwardMark = new int[0];
+    private int[] forwardVia = new int[0];
+    private int[] backwardVia = new int[0];
+    private int[] forwardQueue = new int[0];
+    private int[] backwardQueue = new int[0];
+    private int[] spousedBy = new int[0];
+    private int[] spousedByNext = new int[0];
+    private int spouseModCount = -1;
+
+    /**
+     * Creates a new {@code PathFinder} object over the supplied family graph.
+     *
+     * @param graph the family graph.
+     */
+    public PathFinder(final FamilyGraph graph) {
+        this.graph = Objects.requireNonNull(graph);
+    }
+
+    /**
+     * Returns the greatest number of steps in a path that the search will find.
+     *
+     * @return The greatest number of steps.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the greatest number of steps in a path that the search will find.
+     *
+     * @param maxDepth the new greatest number of steps.
+     * @throws IllegalArgumentException if the number of steps is negative.
+     */
+    public void setMaxDepth(final int maxDepth) throws IllegalArgumentException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Negative depth: " + maxDepth);
+        }
+
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns a shortest chain of parent, child, and spouse relationships connecting two persons.
+     * <p>
+     * The return value is an array of the identifiers of the persons along the path, starting with {@code from} and
+     * ending with {@code to}, in which each person is a parent, child, or spouse of the next. If there is no such path
+     * within the greatest number of steps, the return value is {@code null}.
+     *
+     * @param from the identifier of the first person.
+     * @param to   the identifier of the second person.
+     * @return The identifiers of the persons along a shortest path, if any; {@code null} otherwise.
+     * @throws IndexOutOfBoundsException if either identifier is not in use.
+     */
+    public int[] shortestPath(final int from, final int to) throws IndexOutOfBoundsException {
+        graph.person(from);
+        graph.person(to);
+        prepare();
+
+        if (from == to) {
+            return new int[]{from};
+        }
+
+        forwardMark[from] = query;
+        forwardVia[from] = FamilyGraph.NONE;
+        forwardQueue[0] = from;
+        backwardMark[to] = query;
+        backwardVia[to] = FamilyGraph.NONE;
+        backwardQueue[0] = to;
+
+        int forwardStart = 0, forwardEnd = 1, forwardDepth = 0;
+        int backwardStart = 0, backwardEnd = 1, backwardDepth = 0;
+
+        while (forwardStart < forwardEnd && backwardStart < backwardEnd && forwardDepth + backwardDepth < maxDepth) {
+            final boolean forward = forwardEnd - forwardStart <= backwardEnd - backwardStart;
+            final int[] queue = forward ? forwardQueue : backwardQueue;
+            final int[] mark = forward ? forwardMark : backwardMark;
+            final int[] via = forward ? forwardVia : backwardVia;
+            final int[] otherMark = forward ? backwardMark : forwardMark;
+            final int start = forward ? forwardStart : backwardStart, end = forward ? forwardEnd : backwardEnd;
+            int tail = end, meeting = FamilyGraph.NONE;
+
+            for (int i = start; i < end && meeting == FamilyGraph.NONE; i++) {
+                final int node = queue[i];
+
+                for (int n = 0, count = neighbourCount(node); n < count; n++) {
+                    final int next = neighbour(node, n);
+                    if (next == FamilyGraph.NONE || mark[next] == query) {
+                        continue;
+                    }
+
+                    mark[next] = query;
+                    via[next] = node;
+                    queue[tail++] = next;
+
+                    if (otherMark[next] == query) {
+                        meeting = next;
+                        break;
+                    }
+                }
+            }
+
+            if (meeting != FamilyGraph.NONE) {
+                return path(meeting);
+            }
+
+            if (forward) {
+                forwardStart = end;
+                forwardEnd = tail;
+                forwardDepth++;
+            } else {
+                backwardStart = end;
+                backwardEnd = tail;
+                backwardDepth++;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Sizes the working arrays to the graph, starts a new query, and rebuilds the inverse of the spouse column if the
+     * graph has changed since it was last built.
+     */
+    private void prepare() {
+        final int size = graph.size();
+        graph.validate();
+
+        if (forwardMark.length < size || query == Integer.MAX_VALUE) {
+            forwardMark = new int[size];
+            backwardMark = new int[size];
+            forwardVia = new int[size];
+            backwardVia = new int[size];
+            forwardQueue = new int[size];
+            backwardQueue = new int[size];
+            query = 0;
+        }
+        query++;
+
+        if (spouseModCount != graph.modCount() || spousedBy.length != size) {
+            spousedBy = new int[size];
+            spousedByNext = new int[size];
+            Arrays.fill(spousedBy, FamilyGraph.NONE);
+
+            for (int id = 0; id < size; id++) {
+                final int spouse = graph.spouse(id);
+                if (spouse != FamilyGraph.NONE) {
+                    spousedByNext[id] = spousedBy[spouse];
+                    spousedBy[spouse] = id;
+                }
+            }
+            spouseModCount = graph.modCount();
+        }
+    }
+
+    private int neighbourCount(final int id) {
+        int inverse = 0;
+        for (int other = spousedBy[id]; other != FamilyGraph.NONE; other = spousedByNext[other]) {
+            inverse++;
+        }
+
+        return graph.parentCount(id) + graph.childCount(id) + 1 + inverse;
+    }
+
+    private int neighbour(final int id, final int index) {
+        final int parents = graph.parentCount(id), children = graph.childCount(id);
+
+        if (index < parents) {
+            return graph.parent(id, index);
+        } else if (index < parents + children) {
+            return graph.child(id, index - parents);
+        } else if (index == parents + children) {
+            return graph.spouse(id);
+        }
+
+        int other = spousedBy[id];
+        for (int i = parents + children + 1; i < index; i++) {
+            other = spousedByNext[other];
+        }
+
+        return other;
+    }
+
+    private int[] path(final int meeting) {
+        int forwardLength = 0, backwardLength = 0;
+        for (int node = meeting; node != FamilyGraph.NONE; node = forwardVia[node]) {
+            forwardLength++;
+        }
+        for (int node = backwardVia[meeting]; node != FamilyGraph.NONE; node = backwardVia[node]) {
+            backwardLength++;
+        }
+
+        final int[] path = new int[forwardLength + backwardLength];
+        int index = forwardLength - 1;
+        for (int node = meeting; node != FamilyGraph.NONE; node = forwardVia[node]) {
+            path[index--] = node;
+        }
+        index = forwardLength;
+        for (int node = backwardVia[meeting]; node != FamilyGraph.NONE; node = backwardVia[node]) {
+            path[index++] = node;
+        }
+
+        return path;
+    }
+
+}
@@ -23,7 +23,11 @@
  */
 package familytree;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Objects;
 
 /**
@@ -38,9 +42,27 @@ import java.util.Objects;
  * <p>
  * The default constructor leaves the fields of the person undefined and nullified. If the parameters {@code name},
  * {@code sex}, {@code address}, and {@code biography} are supplied, then they are assigned to the person's name, sex,
- * address, and biography fields, respectively.
+ * address, and biography fields, respectively. Any of them may be {@code null}, the address included.
+ * <p>
+ * A person holds the canonical instance of their address, which is shared with every other person at an equal address
+ * and may not be changed; see {@link Address#intern()}. Its setters throw {@code UnsupportedOperationException}. To
+ * change a person's address, pass a changed copy, made with {@link Address#Address(Address)}, to
+ * {@link #setAddress(Address)}.
+ * <p>
+ * A person is externalized as a schema version followed by their name, sex, address, and biography, with the name and
+ * address written in place. Subclasses that add state override {@link #writeExternal(java.io.ObjectOutput)} and
+ * {@link #readExternal(java.io.ObjectInput)}, calling the superclass methods first.
  */
-public class Person implements Serializable {
+public class Person implements Externalizable {
+
+    /**
+     * The serialization version of the class.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The version of the externalized form written by {@link #writeExternal(java.io.ObjectOutput)}.
+     */
+    private static final int SCHEMA_VERSION = 1;
 
     /**
      * The person's name.
@@ -55,9 +77,27 @@ public class Person implements Serializable {
      */
     private Address accommodatio = null;
     /**
-     * The person's biographical life description.
+     * The person's biographical life description, unless it is held by the biography store of the bound family graph.
      */
     private String vitaeDescriptio = null;
+    /**
+     * The handle of the person's biographical life description in the biography store of the bound family graph, or
+     * zero if it is held by {@code vitaeDescriptio}.
+     */
+    private transient long vitaeHandle = 0L;
+    /**
+     * The hash code of the biographical life description held by the biography store, so that hashing the person does
+     * not decompress it.
+     */
+    private transient int vitaeHash = 0;
+    /**
+     * The family graph to which the person is bound (if any).
+     */
+    transient FamilyGraph graph = null;
+    /**
+     * The person's dense integer identifier within the bound family graph.
+     */
+    transient int id = FamilyGraph.NONE;
 
     /**
      * Creates a new {@code Person} object and leaves the fields of the person undefined and nullified.
@@ -71,7 +111,7 @@ public class Person implements Serializable {
      *
      * @param name      the person's name.
      * @param sex       the person's sex.
-     * @param address   the person's postal address.
+     * @param address   the person's postal address, or {@code null} if none.
      * @param biography the person's biographical life description.
      * @see familytree.Name
      * @see familytree.Sex
@@ -81,7 +121,7 @@ public class Person implements Serializable {
     public Person(final Name name, final Sex sex, final Address address, final String biography) {
         this.nomini = new Name(name);
         this.sors = sex;
-        this.accommodatio = new Address(address);
+        this.accommodatio = address == null ? null : address.intern();
         this.vitaeDescriptio = biography;
     }
 
@@ -96,7 +136,7 @@ public class Person implements Serializable {
         this.nomini = obj.nomini;
         this.sors = obj.sors;
         this.accommodatio = obj.accommodatio;
-        this.vitaeDescriptio = obj.vitaeDescriptio;
+        this.vitaeDescriptio = obj.getBiography();
     }
 
     /**
@@ -124,7 +164,12 @@ public class Person implements Serializable {
      * @see familytree.Name
      */
     public final void setName(final Name name) {
+        final Name previous = this.nomini;
         this.nomini = name;
+
+        if (graph != null) {
+            graph.nameChanged(this, previous);
+        }
     }
 
     /**
@@ -152,7 +197,12 @@ public class Person implements Serializable {
      * @see familytree.Sex
      */
     public final void setSex(final Sex sex) {
+        final Sex previous = this.sors;
         this.sors = sex;
+
+        if (graph != null) {
+            graph.detailChanged(this, FamilyGraph.Change.SEX, previous);
+        }
     }
 
     /**
@@ -161,7 +211,9 @@ public class Person implements Serializable {
      * The {@code getAddress} method retrieves the person's postal address. It is assumed that a person's address
      * contains a street number, a street name, a city/suburb, and a postal code.
      * <p>
-     * The return value is an {@code Address} object representing the person's entire postal address.
+     * The return value is a canonical {@code Address} object representing the person's entire postal address, which
+     * may not be changed; see {@link Address#intern()}. Its setters throw {@code UnsupportedOperationException}; a
+     * changed copy is to be passed to {@link #setAddress(Address)} instead.
      *
      * @return The person's postal address.
      * @see familytree.Address
@@ -173,15 +225,20 @@ public class Person implements Serializable {
     /**
      * Sets the person's postal address.
      * <p>
-     * The {@code setAddress} method assigns the value supplied by the {@code address} parameter to the person's postal
-     * address. It is assumed that a person's address contains a street number, a street name, a city/suburb, and a
-     * postal code.
+     * The {@code setAddress} method assigns the canonical instance of the value supplied by the {@code address}
+     * parameter to the person's postal address, so that persons with equal addresses share one instance. It is assumed
+     * that a person's address contains a street number, a street name, a city/suburb, and a postal code.
      *
      * @param address the person's new postal address.
      * @see familytree.Address
      */
     public final void setAddress(final Address address) {
-        this.accommodatio = address;
+        final Address previous = this.accommodatio;
+        this.accommodatio = address == null ? null : address.intern();
+
+        if (graph != null) {
+            graph.detailChanged(this, FamilyGraph.Change.ADDRESS, previous);
+        }
     }
 
     /**
@@ -195,7 +252,7 @@ public class Person implements Serializable {
      * @see java.lang.String
      */
     public final String getBiography() {
-        return vitaeDescriptio;
+        return vitaeHandle != 0L ? graph.biographies.get(vitaeHandle) : vitaeDescriptio;
     }
 
     /**
@@ -208,7 +265,104 @@ public class Person implements Serializable {
      * @see java.lang.String
      */
     public final void setBiography(final String biography) {
+        final String previous = getBiography();
         this.vitaeDescriptio = biography;
+        this.vitaeHandle = 0L;
+
+        if (graph != null) {
+            storeBiography();
+            graph.detailChanged(this, FamilyGraph.Change.BIOGRAPHY, previous);
+        }
+    }
+
+    /**
+     * Moves the person's biography into the biography store of the bound family graph, if it is long enough to be worth
+     * compressing.
+     */
+    final void storeBiography() {
+        if (vitaeDescriptio != null && vitaeDescriptio.length() >= BiographyStore.INLINE_LIMIT) {
+            vitaeHash = vitaeDescriptio.hashCode();
+            vitaeHandle = graph.biographies.put(vitaeDescriptio);
+            vitaeDescriptio = null;
+        }
+    }
+
+    /**
+     * Makes this person share the stored biography of another person, without decompressing it. This person must be
+     * bound, before its biography is next read, to a family graph sharing the biography store of the other person's.
+     *
+     * @param other the person whose biography is shared.
+     */
+    final void shareBiography(final Person other) {
+        this.vitaeDescriptio = other.vitaeDescriptio;
+        this.vitaeHandle = other.vitaeHandle;
+        this.vitaeHash = other.vitaeHash;
+    }
+
+    /**
+     * Writes the person to an object output.
+     * <p>
+     * The {@code writeExternal} method writes the schema version, then whether a name is present followed by the name,
+     * the sex as its ordinal plus one (zero if undefined), whether an address is present followed by the address, and
+     * the biography as a length-prefixed UTF-8 string. The binding of the person to a family graph is not written.
+     *
+     * @param out the stream to write the person to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeByte(SCHEMA_VERSION);
+        out.writeBoolean(nomini != null);
+        if (nomini != null) {
+            nomini.writeExternal(out);
+        }
+        out.writeByte(sors == null ? 0 : sors.ordinal() + 1);
+        out.writeBoolean(accommodatio != null);
+        if (accommodatio != null) {
+            accommodatio.writeExternal(out);
+        }
+        DataCodec.putString(out, getBiography());
+    }
+
+    /**
+     * Reads the person from an object input.
+     * <p>
+     * The {@code readExternal} method restores a person written by {@link #writeExternal(java.io.ObjectOutput)}. The
+     * person is not bound to any family graph.
+     *
+     * @param in the stream to read the person from.
+     * @throws IOException            if an I/O error occurs, the schema version is not supported, or a field is not
+     *                                valid.
+     * @throws ClassNotFoundException if the class of a nested object cannot be found.
+     */
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+        final int version = in.readUnsignedByte();
+        if (version != SCHEMA_VERSION) {
+            throw new InvalidObjectException("Unsupported Person schema version: " + version);
+        }
+
+        if (in.readBoolean()) {
+            this.nomini = new Name();
+            this.nomini.readExternal(in);
+        } else {
+            this.nomini = null;
+        }
+
+        final int sex = in.readUnsignedByte();
+        if (sex > Sex.values().length) {
+            throw new InvalidObjectException("Invalid sex: " + sex);
+        }
+        this.sors = sex == 0 ? null : Sex.values()[sex - 1];
+
+        if (in.readBoolean()) {
+            final Address address = new Address();
+            address.readExternal(in);
+            this.accommodatio = address.intern();
+        } else {
+            this.accommodatio = null;
+        }
+        this.vitaeDescriptio = DataCodec.getString(in);
     }
 
     /**
@@ -250,9 +404,32 @@ public class Person implements Serializable {
             return false;
         }
 
-        final Person other = (Person) obj;
+        return sameDetails((Person) obj);
+    }
+
+    /**
+     * Indicates whether the name, sex, address, and biography of some other person are equal to this person's,
+     * regardless of the class of either person.
+     *
+     * @param other the person with which to compare.
+     * @return {@code true} if the personal details are equal; {@code false} otherwise.
+     */
+    final boolean sameDetails(final Person other) {
         return Objects.equals(this.nomini, other.nomini) && Objects.equals(this.sors, other.sors) && Objects.equals(
-                this.accommodatio, other.accommodatio) && Objects.equals(this.vitaeDescriptio, other.vitaeDescriptio);
+                this.accommodatio, other.accommodatio) && sameBiography(other);
+    }
+
+    private boolean sameBiography(final Person other) {
+        if (this.vitaeHandle != 0L && other.vitaeHandle != 0L) {
+            if (this.vitaeHandle == other.vitaeHandle && this.graph.biographies == other.graph.biographies) {
+                return true;
+            }
+            if (this.vitaeHash != other.vitaeHash) {
+                return false;
+            }
+        }
+
+        return Objects.equals(this.getBiography(), other.getBiography());
     }
 
     /**
@@ -287,7 +464,7 @@ public class Person implements Serializable {
         hash = 16 * hash + Objects.hashCode(this.nomini);
         hash = 16 * hash + Objects.hashCode(this.sors);
         hash = 16 * hash + Objects.hashCode(this.accommodatio);
-        hash = 16 * hash + Objects.hashCode(this.vitaeDescriptio);
+        hash = 16 * hash + (vitaeHandle != 0L ? vitaeHash : Objects.hashCode(this.vitaeDescriptio));
 
         return hash;
     }
@@ -311,7 +488,7 @@ public class Person implements Serializable {
     @Override
     public String toString() {
         return "Person{" + "nomini=" + nomini + ", sors=" + sors + ", accommodatio=" + accommodatio +
-               ", vitaeDescriptio=" + vitaeDescriptio + '}';
+               ", vitaeDescriptio=" + getBiography() + '}';
     }
 
 }
@@ -23,7 +23,11 @@
  */
 package familytree;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Objects;
 import java.util.zip.DataFormatException;
 
@@ -41,13 +45,36 @@ import java.util.zip.DataFormatException;
  * The default constructor leaves the field of the postal code undefined and nullified. If the
  * parameter {@code postalCode} is supplied, then it is assigned to the postal code's character set
  * field.
+ * <p>
+ * A postal code is externalized as a schema version followed by its character set. The character set is validated
+ * again when it is read.
+ * <p>
+ * The {@link #intern()} method returns a canonical, immutable postal code equal to this one. Addresses hold interned
+ * postal codes, so that the many addresses with the same postal code share one instance, and copy it by reference.
  */
-public class PostalCode implements Serializable {
+public class PostalCode implements Externalizable {
+
+    /**
+     * The serialization version of the class.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The version of the externalized form written by {@link #writeExternal(java.io.ObjectOutput)}.
+     */
+    private static final int SCHEMA_VERSION = 1;
+    /**
+     * The canonical postal codes.
+     */
+    private static final SymbolTable<PostalCode> CANONICAL = new SymbolTable<>();
 
     /**
      * The character set representing the postal code.
      */
     private String characterSet = null;
+    /**
+     * Whether the postal code is canonical, and so may not be changed.
+     */
+    private transient boolean frozen = false;
 
     /**
      * Creates a new {@code PostalCode} object and leaves the field of the postal code undefined and nullified.
@@ -69,6 +96,7 @@ public class PostalCode implements Serializable {
      * @throws DataFormatException if the postal code does not represent a valid character set.
      * @see java.lang.String
      * @see java.util.zip.DataFormatException
+     * @see familytree.PostalCodeFormat#GENERIC
      */
     public PostalCode(final String characterSet) throws DataFormatException {
         if (PostalCode.isValidCharacterSet(characterSet)) {
@@ -90,9 +118,40 @@ public class PostalCode implements Serializable {
     }
 
     private static boolean isValidCharacterSet(final String characterSet) {
-        final String REGEX = "^[a-zA-Z0-9]*(-\\s)*[a-zA-Z0-9]*$";
+        return PostalCodeFormat.GENERIC.matches(characterSet);
+    }
 
-        return characterSet.matches(REGEX);
+    /**
+     * Returns the canonical instance of the postal code.
+     * <p>
+     * The {@code intern} method returns the immutable postal code that is equal to this one and is shared by every
+     * caller, creating it from a copy of this postal code if there is none. A canonical postal code returns itself.
+     * <p>
+     * The return value is an immutable {@code PostalCode} object, whose setter throws an
+     * {@code UnsupportedOperationException}.
+     *
+     * @return The canonical instance of the postal code.
+     * @see familytree.SymbolTable
+     */
+    public final PostalCode intern() {
+        if (frozen) {
+            return this;
+        }
+
+        return CANONICAL.intern(this, postalCode -> {
+            final PostalCode canonical = new PostalCode(postalCode);
+            canonical.frozen = true;
+            return canonical;
+        });
+    }
+
+    /**
+     * Returns whether the postal code is a canonical instance, which may not be changed.
+     *
+     * @return {@code true} if the postal code was returned by {@link #intern()}; {@code false} otherwise.
+     */
+    public final boolean isFrozen() {
+        return frozen;
     }
 
     /**
@@ -123,18 +182,67 @@ public class PostalCode implements Serializable {
      * </ul>
      *
      * @param characterSet the new postal code.
-     * @throws DataFormatException if the postal code does not represent a valid character set.
+     * @throws DataFormatException           if the postal code does not represent a valid character set.
+     * @throws UnsupportedOperationException if the postal code is canonical.
      * @see java.lang.String
      * @see java.util.zip.DataFormatException
+     * @see familytree.PostalCodeFormat#GENERIC
      */
-    public final void setCharacterSet(final String characterSet) throws DataFormatException {
-        if (PostalCode.isValidCharacterSet(characterSet)) {
+    public final void setCharacterSet(final String characterSet)
+    throws DataFormatException, UnsupportedOperationException {
+        if (frozen) {
+            throw new UnsupportedOperationException("Canonical postal code");
+        } else if (PostalCode.isValidCharacterSet(characterSet)) {
             this.characterSet = characterSet;
         } else {
             throw new DataFormatException();
         }
     }
 
+    /**
+     * Writes the postal code to an object output.
+     * <p>
+     * The {@code writeExternal} method writes the schema version, followed by the character set as a length-prefixed
+     * UTF-8 string, which may be {@code null}.
+     *
+     * @param out the stream to write the postal code to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeByte(SCHEMA_VERSION);
+        DataCodec.putString(out, characterSet);
+    }
+
+    /**
+     * Reads the postal code from an object input.
+     * <p>
+     * The {@code readExternal} method restores a postal code written by
+     * {@link #writeExternal(java.io.ObjectOutput)}.
+     *
+     * @param in the stream to read the postal code from.
+     * @throws IOException                   if an I/O error occurs, the schema version is not supported, or the
+     *                                       character set is not valid.
+     * @throws UnsupportedOperationException if the postal code is canonical.
+     */
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException, UnsupportedOperationException {
+        if (frozen) {
+            throw new UnsupportedOperationException("Canonical postal code");
+        }
+
+        final int version = in.readUnsignedByte();
+        if (version != SCHEMA_VERSION) {
+            throw new InvalidObjectException("Unsupported PostalCode schema version: " + version);
+        }
+
+        final String value = DataCodec.getString(in);
+        if (value != null && !PostalCode.isValidCharacterSet(value)) {
+            throw new InvalidObjectException("Invalid postal code: " + value);
+        }
+        this.characterSet = value;
+    }
+
     /**
      * Indicates whether some other object is "equal to" this one.
      * <p>
@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code PostalCodeFormat} enumeration specifies the formats of postal codes, and validates postal codes against
+ * them.
+ * <p>
+ * Every format is compiled, when the enumeration is initialized, into a deterministic finite automaton over five
+ * classes of characters: digits, letters of the ISO basic Latin alphabet, white space, hyphens, and anything else.
+ * Validating a postal code steps the automaton once per character through a flat transition table, so that it takes
+ * time proportional to the length of the code and allocates nothing. The {@link #GENERIC} format is the character set
+ * accepted by {@link PostalCode}; the others are the formats of particular countries, named by their ISO 3166-1
+ * alpha-2 codes, in which letters may be of either case.
+ *
+ * @see familytree.PostalCode
+ */
+public enum PostalCodeFormat {
+
+    /**
+     * Any postal code: letters and digits, optionally followed by hyphen-and-space separators and more letters and
+     * digits.
+     */
+    GENERIC(new int[][]{
+        // Digit, letter, space, hyphen, other.
+        {0, 0, -1, 1, -1},
+        {-1, -1, 2, -1, -1},
+        {3, 3, -1, 1, -1},
+        {3, 3, -1, -1, -1}
+    }, true, false, true, true),
+    /**
+     * Australian postcodes: four digits.
+     */
+    AU("9999"),
+    /**
+     * Canadian postal codes: letter, digit, letter, optionally a space, then digit, letter, digit.
+     */
+    CA("A9A 9A9", "A9A9A9"),
+    /**
+     * German postcodes: five digits.
+     */
+    DE("99999"),
+    /**
+     * British postcodes: an outward code of one or two letters, a digit, and an optional digit or letter, then a space
+     * and an inward code of a digit and two letters.
+     */
+    GB("A9 9AA", "A99 9AA", "A9A 9AA", "AA9 9AA", "AA99 9AA", "AA9A 9AA"),
+    /**
+     * Dutch postcodes: four digits, optionally a space, then two letters.
+     */
+    NL("9999 AA", "9999AA"),
+    /**
+     * United States ZIP codes: five digits, optionally followed by a hyphen and four digits.
+     */
+    US("99999", "99999-9999");
+
+    private static final int DIGIT = 0;
+    private static final int LETTER = 1;
+    private static final int SPACE = 2;
+    private static final int HYPHEN = 3;
+    private static final int OTHER = 4;
+    private static final int CLASSES = 5;
+    private static final int REJECT = -1;
+
+    /**
+     * The transition table, indexed by state times {@link #CLASSES} plus character class; {@link #REJECT} where there
+     * is no transition.
+     */
+    private final int[] transitions;
+    /**
+     * Whether each state accepts.
+     */
+    private final boolean[] accepting;
+
+    PostalCodeFormat(final int[][] table, final boolean... accepting) {
+        this.transitions = new int[table.length * CLASSES];
+        for (int state = 0; state < table.length; state++) {
+            System.arraycopy(table[state], 0, transitions, state * CLASSES, CLASSES);
+        }
+        this.accepting = accepting;
+    }
+
+    /**
+     * Compiles a format from the patterns it accepts, in which {@code 9} stands for a digit, {@code A} for a letter,
+     * and any other character for itself. The automaton is the trie of the patterns.
+     */
+    PostalCodeFormat(final String... patterns) {
+        final List<int[]> table = new ArrayList<>();
+        final List<Boolean> accepts = new ArrayList<>();
+        table.add(reject());
+        accepts.add(false);
+
+        for (String pattern : patterns) {
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                final char c = pattern.charAt(i);
+                final int charClass = c == '9' ? DIGIT : c == 'A' ? LETTER : classOf(c);
+                if (table.get(state)[charClass] == REJECT) {
+                    table.get(state)[charClass] = table.size();
+                    table.add(reject());
+                    accepts.add(false);
+                }
+                state = table.get(state)[charClass];
+            }
+            accepts.set(state, true);
+        }
+
+        this.transitions = new int[table.size() * CLASSES];
+        this.accepting = new boolean[table.size()];
+        for (int state = 0; state < table.size(); state++) {
+            System.arraycopy(table.get(state), 0, transitions, state * CLASSES, CLASSES);
+            accepting[state] = accepts.get(state);
+        }
+    }
+
+    private static int[] reject() {
+        final int[] row = new int[CLASSES];
+        Arrays.fill(row, REJECT);
+        return row;
+    }
+
+    /**
+     * Returns the class of a character. White space is as matched by the {@code \s} class of
+     * {@link java.util.regex.Pattern}.
+     */
+    private static int classOf(final char c) {
+        if (c >= '0' && c <= '9') {
+            return DIGIT;
+        } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            return LETTER;
+        } else if (c == ' ' || (c >= '\t' && c <= '\r')) {
+            return SPACE;
+        } else if (c == '-') {
+            return HYPHEN;
+        }
+
+        return OTHER;
+    }
+
+    /**
+     * Returns whether a postal code is in this format.
+     * <p>
+     * The {@code matches} method allocates nothing, and so may be called for every record of an import.
+     *
+     * @param code the postal code.
+     * @return {@code true} if the postal code is in this format; {@code false} if it is not, or is {@code null}.
+     * @see java.lang.CharSequence
+     */
+    public boolean matches(final CharSequence code) {
+        if (code == null) {
+            return false;
+        }
+
+        int state = 0;
+        for (int i = 0, length = code.length(); i < length; i++) {
+            state = transitions[state * CLASSES + classOf(code.charAt(i))];
+            if (state == REJECT) {
+                return false;
+            }
+        }
+
+        return accepting[state];
+    }
+
+    /**
+     * Validates a column of postal codes.
+     * <p>
+     * The {@code validate} method records whether each postal code is in this format, as {@link #matches} would, and
+     * counts those that are. It allocates nothing.
+     *
+     * @param codes the postal codes, any of which may be {@code null}.
+     * @param valid the array in which to record whether each postal code is valid, at the same index.
+     * @return The number of valid postal codes.
+     * @throws IllegalArgumentException if the array of results is shorter than the array of postal codes.
+     */
+    public int validate(final CharSequence[] codes, final boolean[] valid) throws IllegalArgumentException {
+        if (valid.length < codes.length) {
+            throw new IllegalArgumentException("Results shorter than postal codes: " + valid.length);
+        }
+
+        int count = 0;
+        for (int i = 0; i < codes.length; i++) {
+            valid[i] = matches(codes[i]);
+            if (valid[i]) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+
+/**
+ * The {@code RecoveryLog} class autosaves every change made to a family graph, so that the changes can be recovered
+ * after a crash.
+ * <p>
+ * A recovery log is a {@link ModelJournal} kept in a recovery directory, whose base file is a snapshot of the graph
+ * taken when the log is started. The snapshot is written in the background, and the journal records of the changes
+ * made since are appended to the journal file by a background thread every {@link #AUTOSAVE_INTERVAL_MILLIS}
+ * milliseconds. Recording a change therefore costs the thread making it no more than encoding a few bytes into memory,
+ * and a crash loses at most the changes of the last interval. The log is compacted periodically, like any journal.
+ * Starting a log copies the whole graph on the calling thread and writes it out as a saved file would be, so for a
+ * large tree it costs about as much as saving the tree; it should be started once per tree opened, not per change.
+ * <p>
+ * The log also counts the changes made to the graph, and is told by {@link #saved(long, Path)} when they have been
+ * saved elsewhere. While the graph holds changes that have not been saved, the autosave marks the recovery directory
+ * as unsaved; a graph that has been saved since its last change, or has not been changed at all, leaves nothing to be
+ * recovered.
+ * <p>
+ * Closing a recovery log deletes it. A recovery directory still marked as unsaved when the application starts was left
+ * by a session that did not close it, and {@link #recover(Path)} replays the log into the graph as it stood at the last
+ * autosave. The recovery directory also records the file the graph was read from, or last saved to, if any.
+ *
+ * @see familytree.ModelJournal
+ */
+public final class RecoveryLog implements AutoCloseable {
+
+    /**
+     * The time between autosaves, in milliseconds.
+     */
+    public static final long AUTOSAVE_INTERVAL_MILLIS = 1000L;
+
+    private static final String BASE = "recovery.dat";
+    private static final String SOURCE = "recovery.source";
+    private static final String UNSAVED = "recovery.unsaved";
+    private static final long COMPACTION_PERIOD_MINUTES = 5L;
+
+    private final FamilyGraph graph;
+    private final Path directory;
+    private final SaveService service;
+    private final ModelJournal journal;
+    private final ScheduledExecutorService autosaver;
+    /**
+     * The number of changes made to the graph; changed only by the thread changing the graph.
+     */
+    private volatile long changes = 0L;
+    /**
+     * The number of changes that had been made when the graph was last saved, or {@code -1} if it has not been.
+     */
+    private volatile long savedChanges;
+    /**
+     * Whether the recovery directory is marked as unsaved.
+     */
+    private boolean marked;
+    private final FamilyGraph.Listener listener = (id, change, previous) -> changes++;
+
+    private RecoveryLog(final FamilyGraph graph, final Path directory, final SaveService service,
+                        final ModelJournal journal, final boolean unsaved) {
+        this.graph = graph;
+        this.directory = directory;
+        this.service = service;
+        this.journal = journal;
+        this.savedChanges = unsaved ? -1L : 0L;
+        this.marked = unsaved;
+        graph.addListener(listener);
+        this.autosaver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "recovery-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        autosaver.scheduleWithFixedDelay(this::autosave, AUTOSAVE_INTERVAL_MILLIS, AUTOSAVE_INTERVAL_MILLIS,
+                                         TimeUnit.MILLISECONDS);
+        journal.scheduleCompaction(COMPACTION_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Returns the default recovery directory, {@code .arbor-familiae/recovery} in the user's home directory.
+     *
+     * @return The default recovery directory.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".arbor-familiae", "recovery");
+    }
+
+    /**
+     * Starts a recovery log of a family graph whose state is saved, replacing any log in the recovery directory.
+     *
+     * @param graph     the family graph whose changes are to be recorded.
+     * @param source    the file the graph was read from, or {@code null} if none.
+     * @param directory the recovery directory, which is created if it does not exist.
+     * @return The recovery log.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static RecoveryLog start(final FamilyGraph graph, final Path source, final Path directory)
+    throws IOException {
+        return start(graph, source, directory, false);
+    }
+
+    /**
+     * Starts a recovery log of a family graph, replacing any log in the recovery directory.
+     * <p>
+     * A graph whose state is not saved anywhere, such as one that has itself been recovered, is recovered after a crash
+     * even if it is not changed. The log it replaces is left in place until the new log's snapshot has been written.
+     * Any other log in the directory is deleted before the method returns.
+     *
+     * @param graph     the family graph whose changes are to be recorded.
+     * @param source    the file the graph was read from, or {@code null} if none.
+     * @param directory the recovery directory, which is created if it does not exist.
+     * @param unsaved   whether the state of the graph is not saved anywhere.
+     * @return The recovery log.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static RecoveryLog start(final FamilyGraph graph, final Path source, final Path directory,
+                                    final boolean unsaved) throws IOException {
+        Files.createDirectories(directory);
+        writeSource(directory, source);
+        if (unsaved) {
+            Files.write(directory.resolve(UNSAVED), new byte[0]);
+        } else {
+            // The previous log is removed before the first autosave can mark the directory unsaved, lest a crash
+            // while the new snapshot is being written leave the previous log to be recovered in its place.
+            Files.deleteIfExists(directory.resolve(UNSAVED));
+            Files.deleteIfExists(ModelJournal.journalOf(directory.resolve(BASE)));
+            Files.deleteIfExists(directory.resolve(BASE));
+        }
+
+        final SaveService service = new SaveService(Runnable::run);
+        final ModelJournal journal = ModelJournal.create(graph, directory.resolve(BASE), service, (target, failure) -> {
+            if (failure != null) {
+                log(failure);
+            }
+        });
+
+        return new RecoveryLog(graph, directory, service, journal, unsaved);
+    }
+
+    private static void writeSource(final Path directory, final Path source) throws IOException {
+        Files.writeString(directory.resolve(SOURCE), source == null ? "" : source.toAbsolutePath().toString(),
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether a recovery directory holds a log of unsaved changes left by a session that did not close it.
+     *
+     * @param directory the recovery directory.
+     * @return {@code true} if the directory holds a recovery log marked as unsaved; {@code false} otherwise.
+     */
+    public static boolean isDirty(final Path directory) {
+        return Files.exists(directory.resolve(BASE)) && Files.exists(directory.resolve(UNSAVED));
+    }
+
+    /**
+     * Replays the recovery log in a recovery directory.
+     * <p>
+     * The log is left in place, to be replaced by the recovery log of the recovered graph, so that it is not lost
+     * should the application fail again before then.
+     *
+     * @param directory the recovery directory.
+     * @return The recovered graph, and the file it was originally read from.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataFormatException if the log is corrupt.
+     */
+    public static Recovery recover(final Path directory) throws IOException, DataFormatException {
+        final FamilyGraph graph;
+        try (ModelJournal journal = ModelJournal.open(directory.resolve(BASE))) {
+            graph = journal.getGraph();
+        }
+
+        final Path sourceFile = directory.resolve(SOURCE);
+        final String source = Files.exists(sourceFile) ? Files.readString(sourceFile, StandardCharsets.UTF_8) : "";
+        return new Recovery(graph, source.isEmpty() ? null : Path.of(source));
+    }
+
+    /**
+     * Returns the number of changes made to the graph since the log was started.
+     * <p>
+     * The count is to be read when a save of the graph starts, and handed to {@link #saved(long, Path)} once the save
+     * has completed.
+     *
+     * @return The number of changes.
+     */
+    public long changeCount() {
+        return changes;
+    }
+
+    /**
+     * Records that the graph has been saved as it stood after the supplied number of changes, so that those changes
+     * need not be recovered. A later autosave clears the unsaved mark of the recovery directory unless the graph has
+     * been changed since.
+     *
+     * @param changeCount the number of changes made when the save started, as returned by {@link #changeCount()}.
+     * @param target      the file the graph was saved to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void saved(final long changeCount, final Path target) throws IOException {
+        if (changeCount > savedChanges) {
+            savedChanges = changeCount;
+        }
+        writeSource(directory, target);
+    }
+
+    /**
+     * Saves the changes recorded since the last autosave, unless the snapshot of the graph is still being written, and
+     * marks the recovery directory as unsaved, or not, accordingly.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        mark();
+        journal.save();
+    }
+
+    /**
+     * Marks the recovery directory as unsaved if the graph has been changed since it was last saved, and clears the
+     * mark otherwise. The mark is written before the changes are, so that no autosaved change goes unrecovered.
+     */
+    private synchronized void mark() throws IOException {
+        final boolean unsaved = changes != savedChanges;
+        if (unsaved != marked) {
+            if (unsaved) {
+                Files.write(directory.resolve(UNSAVED), new byte[0]);
+            } else {
+                Files.deleteIfExists(directory.resolve(UNSAVED));
+            }
+            marked = unsaved;
+        }
+    }
+
+    /**
+     * Stops recording changes, and deletes the recovery log.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        graph.removeListener(listener);
+        autosaver.shutdown();
+        try {
+            autosaver.awaitTermination(1, TimeUnit.MINUTES);
+            service.close();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            journal.close();
+        } finally {
+            Files.deleteIfExists(directory.resolve(UNSAVED));
+            Files.deleteIfExists(journal.getFile());
+            Files.deleteIfExists(directory.resolve(BASE));
+            Files.deleteIfExists(directory.resolve(SOURCE));
+        }
+    }
+
+    private void autosave() {
+        try {
+            mark();
+        } catch (IOException exc) {
+            log(exc);
+        }
+
+        if (journal.unsavedBytes() > 0) {
+            try {
+                service.save(journal, (target, failure) -> {
+                    if (failure != null) {
+                        log(failure);
+                    }
+                });
+            } catch (IllegalStateException exc) {
+                // The log is being closed, which saves it.
+            }
+        }
+    }
+
+    private static void log(final Exception exc) {
+        Logger.getLogger(RecoveryLog.class.getName()).log(Level.WARNING, exc.toString(), exc);
+    }
+
+    /**
+     * The {@code RecoveryLog.Recovery} class holds a family graph recovered from a recovery log.
+     */
+    public static final class Recovery {
+
+        private final FamilyGraph graph;
+        private final Path source;
+
+        private Recovery(final FamilyGraph graph, final Path source) {
+            this.graph = graph;
+            this.source = source;
+        }
+
+        /**
+         * Returns the recovered family graph.
+         *
+         * @return The recovered family graph.
+         */
+        public FamilyGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Returns the file the recovered graph was originally read from.
+         *
+         * @return The file, or {@code null} if the graph was not read from a file.
+         */
+        public Path getSource() {
+            return source;
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+/**
+ * The {@code Relationship} class encapsulates the kinship between two persons in a family graph.
+ * <p>
+ * The {@code Relationship} class describes how a person {@code b} is related to a person {@code a} in terms of their
+ * closest common ancestor: the number of generations from {@code a} up to the common ancestor, the number of
+ * generations from {@code b} up to the common ancestor, and whether the two persons descend from only one of a couple
+ * (a "half" relationship) or from both. A direct ancestor or descendant is its own common ancestor, at zero
+ * generations.
+ * <p>
+ * Relationships are created by a {@code RelationshipCalculator}, and are immutable.
+ *
+ * @see familytree.RelationshipCalculator
+ */
+public final class Relationship {
+
+    private static final String[] ORDINALS = {"zeroth", "first", "second", "third", "fourth", "fifth", "sixth",
+                                              "seventh", "eighth", "ninth", "tenth"};
+    private static final String[] REMOVALS = {"", " once removed", " twice removed", " thrice removed"};
+
+    private final int commonAncestor;
+    private final int generationsA;
+    private final int generationsB;
+    private final boolean half;
+
+    /**
+     * Creates a new {@code Relationship} object.
+     *
+     * @param commonAncestor the identifier of the closest common ancestor.
+     * @param generationsA   the number of generations from {@code a} to the common ancestor.
+     * @param generationsB   the number of generations from {@code b} to the common ancestor.
+     * @param half           whether {@code a} and {@code b} share only one ancestor at the closest generation.
+     */
+    Relationship(final int commonAncestor, final int generationsA, final int generationsB, final boolean half) {
+        this.commonAncestor = commonAncestor;
+        this.generationsA = generationsA;
+        this.generationsB = generationsB;
+        this.half = half;
+    }
+
+    /**
+     * Returns the identifier of the closest common ancestor. Where several ancestors are equally close, as is the case
+     * for the two parents of full siblings, one of them is returned.
+     *
+     * @return The identifier of the closest common ancestor.
+     */
+    public int getCommonAncestor() {
+        return commonAncestor;
+    }
+
+    /**
+     * Returns the number of generations from the first person up to the closest common ancestor.
+     *
+     * @return The number of generations from {@code a}.
+     */
+    public int getGenerationsA() {
+        return generationsA;
+    }
+
+    /**
+     * Returns the number of generations from the second person up to the closest common ancestor.
+     *
+     * @return The number of generations from {@code b}.
+     */
+    public int getGenerationsB() {
+        return generationsB;
+    }
+
+    /**
+     * Indicates whether the two persons share only one ancestor at the closest generation, as half-siblings and half
+     * cousins do.
+     *
+     * @return {@code true} if the relationship is a half relationship; {@code false} otherwise.
+     */
+    public boolean isHalf() {
+        return half;
+    }
+
+    /**
+     * Indicates whether one of the two persons is a direct ancestor of the other (or they are the same person).
+     *
+     * @return {@code true} if the relationship is lineal; {@code false} if it is collateral.
+     */
+    public boolean isLineal() {
+        return generationsA == 0 || generationsB == 0;
+    }
+
+    /**
+     * Returns the degree of cousinship; for example, {@code 2} for second cousins. Siblings, aunts and uncles, nieces
+     * and nephews, and lineal relatives have a degree of {@code 0}.
+     *
+     * @return The degree of cousinship.
+     */
+    public int getCousinDegree() {
+        return Math.max(0, Math.min(generationsA, generationsB) - 1);
+    }
+
+    /**
+     * Returns the number of generations by which the two persons are removed from one another.
+     *
+     * @return The number of generations removed.
+     */
+    public int getRemoval() {
+        return Math.abs(generationsA - generationsB);
+    }
+
+    /**
+     * Returns an English description of what the second person is to the first; for example, {@code "grandparent"},
+     * {@code "half-sibling"}, or {@code "second cousin twice removed"}.
+     *
+     * @return The description of the relationship.
+     */
+    public String describe() {
+        final String prefix = half ? "half-" : "";
+
+        if (generationsA == 0 && generationsB == 0) {
+            return "self";
+        } else if (generationsB == 0) {
+            return Relationship.lineal(generationsA, "parent");
+        } else if (generationsA == 0) {
+            return Relationship.lineal(generationsB, "child");
+        } else if (generationsA == 1 && generationsB == 1) {
+            return prefix + "sibling";
+        } else if (generationsB == 1) {
+            return prefix + Relationship.greats(generationsA - 2) + "aunt or uncle";
+        } else if (generationsA == 1) {
+            return prefix + Relationship.greats(generationsB - 2) + "niece or nephew";
+        }
+
+        final int degree = getCousinDegree(), removal = getRemoval();
+        return prefix + (degree < ORDINALS.length ? ORDINALS[degree] : Relationship.ordinal(degree)) + " cousin" +
+               (removal < REMOVALS.length ? REMOVALS[removal] : " " + removal + " times removed");
+    }
+
+    private static String lineal(final int generations, final String noun) {
+        return generations == 1 ? noun : Relationship.greats(generations - 2) + "grand" + noun;
+    }
+
+    private static String greats(final int count) {
+        return "great-".repeat(count);
+    }
+
+    private static String ordinal(final int number) {
+        if (number % 100 >= 11 && number % 100 <= 13) {
+            return number + "th";
+        }
+
+        return number + switch (number % 10) {
+            case 1 -> "st";
+            case 2 -> "nd";
+            case 3 -> "rd";
+            default -> "th";
+        };
+    }
+
+    /**
+     * Returns a string representation of the object. In general, the {@code toString} method returns a string that
+     * "textually represents" this object.
+     * <p>
+     * The {@code toString} method for the {@code Relationship} class returns a string consisting of the name of the
+     * class followed by a list of its member variables and their values encapsulated within curly braces.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "Relationship{" + "commonAncestor=" + commonAncestor + ", generationsA=" + generationsA +
+               ", generationsB=" + generationsB + ", half=" + half + '}';
+    }
+
+}
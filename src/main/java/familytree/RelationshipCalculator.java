@@ -0,0 +1,234 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code RelationshipCalculator} class determines how pairs of persons in a family graph are related.
+ * <p>
+ * The {@code RelationshipCalculator} class finds the closest common ancestor of two persons in the parent graph of a
+ * {@code FamilyGraph}, and from it the {@code Relationship} between them. As every person has two parents, the parent
+ * graph is a directed acyclic graph rather than a tree, and two persons may have several closest common ancestors;
+ * full siblings, for example, have two. The lowest common ancestor is therefore found by a breadth-first walk up from
+ * the first person, marking each ancestor with its generation, followed by a breadth-first walk up from the second
+ * person that stops at the first generation which can no longer improve on the closest ancestor found.
+ * <p>
+ * The walks use primitive arrays that are stamped with a query number instead of being cleared, so a query allocates
+ * nothing but its result and costs time in proportion to the pedigrees of the two persons, not to the size of the
+ * graph. The calculator keeps one set of arrays between queries. A batch of pairs is related in parallel, each of its
+ * threads using a set of arrays of its own that is dropped when the batch completes, so that no arrays are left
+ * behind on the threads of the common pool.
+ * <p>
+ * The graph must not be changed while a query, or a batch of queries, is running.
+ *
+ * @see familytree.Relationship
+ * @see familytree.FamilyGraph
+ */
+public final class RelationshipCalculator {
+
+    private final FamilyGraph graph;
+    private final AtomicReference<Scratch> idle = new AtomicReference<>();
+
+    /**
+     * Creates a new {@code RelationshipCalculator} object over the supplied family graph.
+     *
+     * @param graph the family graph.
+     */
+    public RelationshipCalculator(final FamilyGraph graph) {
+        this.graph = Objects.requireNonNull(graph);
+    }
+
+    /**
+     * Returns the relationship of one person to another.
+     * <p>
+     * The {@code relate} method determines what the person {@code b} is to the person {@code a}; for example, if
+     * {@code b} is the mother of {@code a}, the relationship describes a "parent".
+     * <p>
+     * The return value is a {@code Relationship} object. If the two persons have no common ancestor, the return value
+     * is {@code null}.
+     *
+     * @param a the identifier of the first person.
+     * @param b the identifier of the second person.
+     * @return The relationship, if any; {@code null} otherwise.
+     * @throws IndexOutOfBoundsException if either identifier is not in use.
+     */
+    public Relationship relate(final int a, final int b) throws IndexOutOfBoundsException {
+        graph.person(a);
+        graph.person(b);
+        graph.validate();
+
+        // A query running alongside another on a different thread works with arrays of its own.
+        final Scratch taken = idle.getAndSet(null);
+        final Scratch scratch = taken == null ? new Scratch() : taken;
+        try {
+            return scratch.relate(graph, a, b);
+        } finally {
+            idle.set(scratch);
+        }
+    }
+
+    /**
+     * Returns the relationships of many pairs of persons, computed in parallel.
+     * <p>
+     * The return value is an array whose element {@code i} is the relationship of {@code b[i]} to {@code a[i]}, or
+     * {@code null} if the two persons have no common ancestor.
+     *
+     * @param a the identifiers of the first person of each pair.
+     * @param b the identifiers of the second person of each pair.
+     * @return The relationships.
+     * @throws IllegalArgumentException  if the two arrays differ in length.
+     * @throws IndexOutOfBoundsException if an identifier is not in use.
+     */
+    public Relationship[] relate(final int[] a, final int[] b)
+    throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Mismatched pair arrays: " + a.length + " and " + b.length);
+        }
+
+        for (int i = 0; i < a.length; i++) {
+            graph.person(a[i]);
+            graph.person(b[i]);
+        }
+        graph.validate();
+
+        final Relationship[] relationships = new Relationship[a.length];
+        final Queue<Scratch> scratches = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, a.length).parallel().forEach(i -> {
+            final Scratch taken = scratches.poll();
+            final Scratch scratch = taken == null ? new Scratch() : taken;
+            relationships[i] = scratch.relate(graph, a[i], b[i]);
+            scratches.offer(scratch);
+        });
+
+        return relationships;
+    }
+
+    /**
+     * Returns the closest common ancestor of two persons.
+     *
+     * @param a the identifier of the first person.
+     * @param b the identifier of the second person.
+     * @return The identifier of the closest common ancestor, if any; {@link FamilyGraph#NONE} otherwise.
+     * @throws IndexOutOfBoundsException if either identifier is not in use.
+     */
+    public int lowestCommonAncestor(final int a, final int b) throws IndexOutOfBoundsException {
+        final Relationship relationship = relate(a, b);
+        return relationship == null ? FamilyGraph.NONE : relationship.getCommonAncestor();
+    }
+
+    /**
+     * The working arrays of the breadth-first walks, used by one thread at a time.
+     */
+    private static final class Scratch {
+
+        private int query = 0;
+        private int[] markA = new int[0];
+        private int[] generationA = new int[0];
+        private int[] markB = new int[0];
+        private int[] queue = new int[0];
+        private int[] generation = new int[0];
+
+        private Relationship relate(final FamilyGraph graph, final int a, final int b) {
+            final int size = graph.size();
+            if (markA.length < size || query == Integer.MAX_VALUE) {
+                markA = new int[size];
+                generationA = new int[size];
+                markB = new int[size];
+                queue = new int[size];
+                generation = new int[size];
+                query = 0;
+            }
+            query++;
+
+            // Mark every ancestor of a with its distance from a.
+            int head = 0, tail = 0;
+            markA[a] = query;
+            generationA[a] = 0;
+            queue[tail++] = a;
+            while (head < tail) {
+                final int node = queue[head++];
+                for (int i = 0, count = graph.parentCount(node); i < count; i++) {
+                    final int parent = graph.parent(node, i);
+                    if (markA[parent] != query) {
+                        markA[parent] = query;
+                        generationA[parent] = generationA[node] + 1;
+                        queue[tail++] = parent;
+                    }
+                }
+            }
+
+            // Walk up from b a generation at a time, keeping the closest marked ancestor.
+            int best = Integer.MAX_VALUE, ancestor = FamilyGraph.NONE, generationsA = 0, generationsB = 0, ties = 0;
+            head = 0;
+            tail = 0;
+            markB[b] = query;
+            generation[tail] = 0;
+            queue[tail++] = b;
+            while (head < tail) {
+                final int node = queue[head];
+                final int level = generation[head++];
+                if (level > best) {
+                    break;
+                }
+
+                if (markA[node] == query) {
+                    final int cost = generationA[node] + level;
+                    if (cost < best) {
+                        best = cost;
+                        ancestor = node;
+                        generationsA = generationA[node];
+                        generationsB = level;
+                        ties = 1;
+                    } else if (cost == best && generationA[node] == generationsA) {
+                        ties++;
+                    }
+                    continue;
+                }
+
+                for (int i = 0, count = graph.parentCount(node); i < count; i++) {
+                    final int parent = graph.parent(node, i);
+                    if (markB[parent] != query) {
+                        markB[parent] = query;
+                        generation[tail] = level + 1;
+                        queue[tail++] = parent;
+                    }
+                }
+            }
+
+            if (ancestor == FamilyGraph.NONE) {
+                return null;
+            }
+
+            final boolean lineal = generationsA == 0 || generationsB == 0;
+            return new Relationship(ancestor, generationsA, generationsB, !lineal && ties < 2);
+        }
+
+    }
+
+}
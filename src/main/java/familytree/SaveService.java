@@ -0,0 +1,334 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code SaveService} class saves family graphs on a background thread, so that the thread editing them is never
+ * held up by encoding or by the storage device.
+ * <p>
+ * The {@code save} method takes a snapshot of the graph on the calling thread and returns at once; the graph may be
+ * edited again straight away. The snapshot copies every person, so it costs time and memory in proportion to the size
+ * of the graph. The snapshot is encoded on a daemon thread into a temporary file beside the target, which is forced to
+ * the storage device and then moved over the target atomically, so that the target always holds either the previous
+ * save or the new one in full.
+ * <p>
+ * Saves are made one at a time. A save requested while an earlier save of the same target is still waiting to start
+ * replaces the waiting snapshot rather than queueing another write, so that saves requested in quick succession are
+ * coalesced into one. If the graph has not changed since the waiting snapshot was taken, the save joins the waiting
+ * request without taking another. The listeners of every coalesced request are told when the write completes.
+ * <p>
+ * Listeners are told of progress and completion through an executor supplied on construction, such as
+ * {@code Platform::runLater} to tell them on the JavaFX application thread.
+ *
+ * @see familytree.FamilyGraph#snapshot()
+ */
+public final class SaveService implements AutoCloseable {
+
+    /**
+     * The number of bytes written between progress reports.
+     */
+    public static final int PROGRESS_INTERVAL = 1 << 20;
+
+    private final Executor notifier;
+    private final ExecutorService writer;
+    private final Map<Path, Request> waiting = new HashMap<>();
+    private boolean closed = false;
+
+    /**
+     * Creates a new {@code SaveService} object, which tells listeners of progress and completion through the supplied
+     * executor.
+     *
+     * @param notifier the executor through which listeners are told.
+     * @throws NullPointerException if the executor is {@code null}.
+     */
+    public SaveService(final Executor notifier) throws NullPointerException {
+        this.notifier = Objects.requireNonNull(notifier);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Saves a snapshot of a family graph to a file, in the background.
+     *
+     * @param graph    the family graph to be saved, of which a snapshot is taken before the method returns.
+     * @param target   the file to be replaced.
+     * @param encoder  the encoder which writes the snapshot, such as {@code FamilyTreeFile::write}.
+     * @param listener the listener to be told of progress and completion.
+     * @throws IllegalStateException if the service is closed.
+     * @throws NullPointerException  if an argument is {@code null}.
+     */
+    public void save(final FamilyGraph graph, final Path target, final Encoder encoder, final Listener listener)
+    throws IllegalStateException, NullPointerException {
+        Objects.requireNonNull(encoder);
+        Objects.requireNonNull(listener);
+        final Path file = target.toAbsolutePath().normalize();
+        final long changes = graph.changeCount();
+        synchronized (waiting) {
+            // The waiting snapshot of the same, unchanged graph is written for this request too.
+            final Request earlier = waiting.get(file);
+            if (!closed && earlier != null && earlier.source == graph && earlier.changes == changes
+                && earlier.encoder == encoder) {
+                earlier.listeners.add(listener);
+                return;
+            }
+        }
+
+        final FamilyGraph snapshot = graph.snapshot();
+        submit(new Request(file, listener, graph, changes, encoder,
+                           request -> write(request, out -> encoder.encode(snapshot, out))));
+    }
+
+    /**
+     * Saves the unsaved changes held by a journal, in the background.
+     *
+     * @param journal  the journal whose changes are to be saved.
+     * @param listener the listener to be told of completion.
+     * @throws IllegalStateException if the service is closed.
+     * @throws NullPointerException  if an argument is {@code null}.
+     * @see familytree.ModelJournal#save()
+     */
+    public void save(final ModelJournal journal, final Listener listener)
+    throws IllegalStateException, NullPointerException {
+        final Path file = journal.getFile().toAbsolutePath().normalize();
+        submit(new Request(file, listener, null, 0L, null, request -> journal.save()));
+    }
+
+    /**
+     * Stops accepting saves, and waits for the saves already requested to complete.
+     * <p>
+     * If interrupted while waiting, the interrupt status is restored and the saves already requested complete in the
+     * background.
+     */
+    @Override
+    public void close() {
+        synchronized (waiting) {
+            closed = true;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(final Request request) {
+        synchronized (waiting) {
+            if (closed) {
+                throw new IllegalStateException("Save service is closed");
+            }
+
+            final Request earlier = waiting.put(request.file, request);
+            if (earlier != null) {
+                request.listeners.addAll(0, earlier.listeners);
+                return;
+            }
+        }
+        writer.execute(() -> complete(request.file));
+    }
+
+    private void complete(final Path file) {
+        final Request request;
+        synchronized (waiting) {
+            request = waiting.remove(file);
+        }
+
+        IOException failure = null;
+        try {
+            request.task.run(request);
+            for (Listener listener : request.listeners) {
+                listener.written(file);
+            }
+        } catch (IOException exc) {
+            failure = exc;
+        } catch (RuntimeException exc) {
+            failure = new IOException(exc);
+        }
+
+        final IOException result = failure;
+        for (Listener listener : request.listeners) {
+            notifier.execute(() -> listener.completed(file, result));
+        }
+    }
+
+    private void write(final Request request, final Content content) throws IOException {
+        final Path temporary = Files.createTempFile(request.file.getParent(), request.file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                final OutputStream out = new Progress(Channels.newOutputStream(channel), request);
+                content.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, request.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * The {@code SaveService.Encoder} interface is implemented by the encoders of family graphs.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+
+        /**
+         * Writes a family graph to an output stream, without closing it.
+         *
+         * @param graph the family graph to be written.
+         * @param out   the stream to write to.
+         * @throws IOException if an I/O error occurs.
+         */
+        void encode(FamilyGraph graph, OutputStream out) throws IOException;
+
+    }
+
+    /**
+     * The {@code SaveService.Listener} interface is implemented by objects to be told of the progress and completion
+     * of saves.
+     */
+    public interface Listener {
+
+        /**
+         * Called every {@link #PROGRESS_INTERVAL} bytes while a file is being written.
+         *
+         * @param target       the file being saved.
+         * @param bytesWritten the number of bytes written so far.
+         */
+        default void progress(final Path target, final long bytesWritten) {
+        }
+
+        /**
+         * Called on the service's own thread once a file has been saved, before the listener is told of completion
+         * through the executor.
+         *
+         * @param target the file saved.
+         */
+        default void written(final Path target) {
+        }
+
+        /**
+         * Called once a save has completed, successfully or not.
+         *
+         * @param target  the file saved.
+         * @param failure the error which prevented the save, or {@code null} if the save succeeded.
+         */
+        void completed(Path target, IOException failure);
+
+    }
+
+    @FunctionalInterface
+    private interface Task {
+
+        void run(Request request) throws IOException;
+
+    }
+
+    @FunctionalInterface
+    private interface Content {
+
+        void write(OutputStream out) throws IOException;
+
+    }
+
+    private static final class Request {
+
+        private final Path file;
+        private final List<Listener> listeners = new ArrayList<>(1);
+        private final FamilyGraph source;
+        private final long changes;
+        private final Encoder encoder;
+        private final Task task;
+
+        private Request(final Path file, final Listener listener, final FamilyGraph source, final long changes,
+                        final Encoder encoder, final Task task) {
+            this.file = file;
+            this.listeners.add(Objects.requireNonNull(listener));
+            this.source = source;
+            this.changes = changes;
+            this.encoder = encoder;
+            this.task = task;
+        }
+
+    }
+
+    private final class Progress extends FilterOutputStream {
+
+        private final Request request;
+        private long written = 0;
+        private long reported = 0;
+
+        private Progress(final OutputStream out, final Request request) {
+            super(out);
+            this.request = request;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            advance(1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            advance(len);
+        }
+
+        private void advance(final int count) {
+            written += count;
+            if (written - reported >= PROGRESS_INTERVAL) {
+                reported = written;
+                final long bytesWritten = written;
+                for (Listener listener : request.listeners) {
+                    notifier.execute(() -> listener.progress(request.file, bytesWritten));
+                }
+            }
+        }
+
+    }
+
+}
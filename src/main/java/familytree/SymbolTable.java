@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@code SymbolTable} class canonicalizes values, so that equal values held by the model share one instance.
+ * <p>
+ * Surnames, family names, and city/suburb names repeat heavily across a large family tree: a few thousand distinct
+ * values may be held by millions of persons. The model passes these fields through the {@link #SHARED} table whenever
+ * they are set, read, or copied in from a file, so that a tree keeps a single {@code String} instance of each value
+ * however many times it occurs and however many times it was read. Immutable addresses and postal codes are
+ * canonicalized by tables of their own.
+ * <p>
+ * The table refers to its values weakly, and forgets a value once the model no longer holds it. The values must not
+ * change while they are held, as they are found by their hash codes. The table is split into segments by hash code,
+ * each with its own lock, so that threads interning different values seldom contend, and its hits and misses are
+ * counted with {@code LongAdder}s, which do not contend at all. A symbol table may be used by several threads at once.
+ *
+ * @param <T> the type of the values.
+ * @see familytree.Address#intern()
+ * @see familytree.PostalCode#intern()
+ */
+public final class SymbolTable<T> {
+
+    /**
+     * The symbol table through which the model canonicalizes surnames, family names, and city/suburb names.
+     */
+    public static final SymbolTable<String> SHARED = new SymbolTable<>();
+
+    /**
+     * The number of segments of the table; a power of two.
+     */
+    private static final int SEGMENTS = 16;
+
+    private final Segment<T>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new, empty {@code SymbolTable} object.
+     */
+    @SuppressWarnings("unchecked")
+    public SymbolTable() {
+        segments = (Segment<T>[]) new Segment<?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * Returns the canonical instance of a value.
+     * <p>
+     * The {@code intern} method returns the value held by the table that is equal to the supplied value, if there is
+     * one; otherwise, it adds the supplied value to the table and returns it.
+     *
+     * @param value the value.
+     * @return The canonical instance of the value, or {@code null} if the value is {@code null}.
+     */
+    public T intern(final T value) {
+        return intern(value, UnaryOperator.identity());
+    }
+
+    /**
+     * Returns the canonical instance of a value, adding an immutable copy of the value if the table holds none.
+     *
+     * @param value the value, which may be mutable.
+     * @param copy  the function that makes an immutable copy of a value, equal to it.
+     * @return The canonical instance of the value, or {@code null} if the value is {@code null}.
+     */
+    T intern(final T value, final UnaryOperator<T> copy) {
+        if (value == null) {
+            return null;
+        }
+
+        final int hash = value.hashCode();
+        final Segment<T> segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            final WeakReference<T> reference = segment.values.get(value);
+            final T canonical = reference == null ? null : reference.get();
+            if (canonical != null) {
+                hits.increment();
+                return canonical;
+            }
+
+            misses.increment();
+            final T added = copy.apply(value);
+            segment.values.put(added, new WeakReference<>(added));
+            return added;
+        }
+    }
+
+    /**
+     * Returns the number of values held by the table, including any that are no longer held elsewhere but have not
+     * yet been collected.
+     *
+     * @return The number of values held by the table.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                size += segment.values.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of values interned that were already held by the table.
+     *
+     * @return The number of hits.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of values interned that were not held by the table, and were added to it.
+     *
+     * @return The number of misses.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of the values interned that were already held by the table.
+     *
+     * @return The hit rate, from {@code 0.0} to {@code 1.0}; {@code 0.0} if no value has been interned.
+     */
+    public double hitRate() {
+        final long hits = hits(), total = hits + misses();
+        return total == 0L ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * The {@code SymbolTable.Segment} class holds the values of a table whose hash codes fall in one segment.
+     */
+    private static final class Segment<T> {
+
+        private final WeakHashMap<T, WeakReference<T>> values = new WeakHashMap<>();
+
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code UndoHistory} class records the changes made to a family graph so that they can be undone and redone.
+ * <p>
+ * The {@code UndoHistory} class listens to a family graph and records, for every change, the person concerned and the
+ * values of the changed field before and after the change. Undoing a step sets the fields back through the setters of
+ * {@code Person} and {@code FamilyMember}, and redoing it sets them forward again, so the graph, its indices, and any
+ * journal follow undo and redo as they follow any other edit. A step costs memory in proportion to the number of
+ * fields it changed, whatever the size of the graph, so hundreds of steps may be kept of a very large tree.
+ * <p>
+ * The changes made while {@link #edit(Runnable)} runs form a single step; any other change forms a step of its own.
+ * Persons cannot be taken out of a family graph, so undoing a step that added persons to the graph undoes the change
+ * that added them but leaves them in it, with any relationships they were given before being added. Changes made in
+ * place to a {@code Name} or {@code Address} object, rather than through a setter, are not recorded.
+ * <p>
+ * The {@code UndoHistory} class is not thread-safe, and must be used on the thread that changes the graph.
+ *
+ * @see familytree.FamilyGraph.Listener
+ */
+public final class UndoHistory {
+
+    /**
+     * The default greatest number of steps that can be undone.
+     */
+    public static final int DEFAULT_LIMIT = 500;
+
+    private final FamilyGraph graph;
+    private final FamilyGraph.Listener listener = this::memberChanged;
+    private final ArrayDeque<Edit[]> undo = new ArrayDeque<>();
+    private final ArrayDeque<Edit[]> redo = new ArrayDeque<>();
+    private List<Edit> step = null;
+    private boolean replaying = false;
+    private int limit = DEFAULT_LIMIT;
+
+    /**
+     * Creates a new {@code UndoHistory} object which records the changes made to the supplied family graph from now
+     * on.
+     *
+     * @param graph the family graph.
+     * @throws NullPointerException if the graph is {@code null}.
+     */
+    public UndoHistory(final FamilyGraph graph) throws NullPointerException {
+        this.graph = Objects.requireNonNull(graph);
+        graph.addListener(listener);
+    }
+
+    /**
+     * Returns the greatest number of steps that can be undone.
+     *
+     * @return The greatest number of steps that can be undone.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the greatest number of steps that can be undone, forgetting the oldest steps beyond it.
+     *
+     * @param limit the greatest number of steps that can be undone.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public void setLimit(final int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative limit: " + limit);
+        }
+
+        this.limit = limit;
+        trim();
+    }
+
+    /**
+     * Makes the changes, and records them as a single step.
+     *
+     * @param changes the changes to be made.
+     * @throws IllegalStateException if called while another edit, an undo, or a redo is running.
+     */
+    public void edit(final Runnable changes) throws IllegalStateException {
+        if (step != null || replaying) {
+            throw new IllegalStateException("Edit already running");
+        }
+
+        step = new ArrayList<>();
+        try {
+            changes.run();
+        } finally {
+            final List<Edit> edits = step;
+            step = null;
+            if (!edits.isEmpty()) {
+                push(edits.toArray(new Edit[0]));
+            }
+        }
+    }
+
+    /**
+     * Returns whether there is a step to undo.
+     *
+     * @return {@code true} if there is a step to undo; {@code false} otherwise.
+     */
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    /**
+     * Returns whether there is a step to redo.
+     *
+     * @return {@code true} if there is a step to redo; {@code false} otherwise.
+     */
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /**
+     * Undoes the most recent step that has not been undone.
+     *
+     * @return {@code true} if a step was undone; {@code false} if there was none.
+     * @throws IllegalStateException if called while an edit is running.
+     */
+    public boolean undo() throws IllegalStateException {
+        if (step != null) {
+            throw new IllegalStateException("Edit running");
+        }
+        if (undo.isEmpty()) {
+            return false;
+        }
+
+        final Edit[] edits = undo.pop();
+        replaying = true;
+        try {
+            for (int i = edits.length - 1; i >= 0; i--) {
+                edits[i].apply(false);
+            }
+        } finally {
+            replaying = false;
+        }
+        redo.push(edits);
+
+        return true;
+    }
+
+    /**
+     * Redoes the most recent step that has been undone.
+     *
+     * @return {@code true} if a step was redone; {@code false} if there was none.
+     * @throws IllegalStateException if called while an edit is running.
+     */
+    public boolean redo() throws IllegalStateException {
+        if (step != null) {
+            throw new IllegalStateException("Edit running");
+        }
+        if (redo.isEmpty()) {
+            return false;
+        }
+
+        final Edit[] edits = redo.pop();
+        replaying = true;
+        try {
+            for (Edit edit : edits) {
+                edit.apply(true);
+            }
+        } finally {
+            replaying = false;
+        }
+        undo.push(edits);
+
+        return true;
+    }
+
+    /**
+     * Forgets every step, and stops recording the changes made to the graph.
+     */
+    public void close() {
+        graph.removeListener(listener);
+        undo.clear();
+        redo.clear();
+    }
+
+    private void memberChanged(final int id, final FamilyGraph.Change change, final Object previous) {
+        if (replaying || change == FamilyGraph.Change.ADDED) {
+            return;
+        }
+
+        final Person person = graph.person(id);
+        final Object next = switch (change) {
+            case MOTHER -> ((FamilyMember) person).getMother();
+            case FATHER -> ((FamilyMember) person).getFather();
+            case SPOUSE -> ((FamilyMember) person).getSpouse();
+            case CHILD_ADDED, CHILD_REMOVED -> previous;
+            case NAME -> person.getName();
+            case SEX -> person.getSex();
+            case ADDRESS -> person.getAddress();
+            case BIOGRAPHY -> person.getBiography();
+            case FAMILY_NAME -> ((FamilyMember) person).getFamilyName();
+            case ADDED -> null;
+        };
+
+        final Edit edit = new Edit(person, change, previous, next);
+        if (step != null) {
+            step.add(edit);
+        } else {
+            push(new Edit[]{edit});
+        }
+    }
+
+    private void push(final Edit[] edits) {
+        undo.push(edits);
+        redo.clear();
+        trim();
+    }
+
+    private void trim() {
+        while (undo.size() > limit) {
+            undo.removeLast();
+        }
+    }
+
+    /**
+     * The {@code UndoHistory.Edit} class holds a change to one field of one person.
+     */
+    private static final class Edit {
+
+        private final Person person;
+        private final FamilyGraph.Change change;
+        private final Object before;
+        private final Object after;
+
+        private Edit(final Person person, final FamilyGraph.Change change, final Object before, final Object after) {
+            this.person = person;
+            this.change = change;
+            this.before = before;
+            this.after = after;
+        }
+
+        private void apply(final boolean forward) {
+            final Object value = forward ? after : before;
+            switch (change) {
+                case MOTHER -> ((FamilyMember) person).setMother((Person) value);
+                case FATHER -> ((FamilyMember) person).setFather((Person) value);
+                case SPOUSE -> ((FamilyMember) person).setSpouse((Person) value);
+                case CHILD_ADDED, CHILD_REMOVED -> {
+                    if (forward == (change == FamilyGraph.Change.CHILD_ADDED)) {
+                        ((FamilyMember) person).addChild((Person) value);
+                    } else {
+                        ((FamilyMember) person).unlinkChild((Person) value);
+                    }
+                }
+                case NAME -> person.setName((Name) value);
+                case SEX -> person.setSex((Sex) value);
+                case ADDRESS -> person.setAddress((Address) value);
+                case BIOGRAPHY -> person.setBiography((String) value);
+                case FAMILY_NAME -> ((FamilyMember) person).setFamilyName((String) value);
+                case ADDED -> {
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddressTableTest {
+
+    public AddressTableTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testPackRoundTrip() {
+        System.out.println("AddressTableTest.testPackRoundTrip");
+        for (String code : new String[] {"", "0", "00", "0800", "3000", "SW1A1AA", "K1A0B1", "ZZZZZZZZZZZZ"}) {
+            long packed = AddressTable.pack(code);
+
+            assertTrue(packed >= 0, code);
+            assertEquals(code, AddressTable.unpack(packed));
+        }
+        assertNotEquals(AddressTable.pack("0"), AddressTable.pack("00"));
+    }
+
+    @Test
+    public void testPackUnpackable() {
+        System.out.println("AddressTableTest.testPackUnpackable");
+        assertEquals(AddressTable.NOT_PACKED, AddressTable.pack(null));
+        assertEquals(AddressTable.NOT_PACKED, AddressTable.pack("sw1a1aa"));
+        assertEquals(AddressTable.NOT_PACKED, AddressTable.pack("SW1A 1AA"));
+        assertEquals(AddressTable.NOT_PACKED, AddressTable.pack("0123456789ABC"));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        System.out.println("AddressTableTest.testColumns");
+        AddressTable table = new AddressTable(0);
+        int first = table.add(new Address(1, "High Street", "Melbourne", new PostalCode("3000")));
+        int second = table.add(new Address(2, "High Street", "Sydney", new PostalCode("2000")));
+        int none = table.add(null);
+
+        assertEquals(3, table.size());
+        assertEquals(3, table.stringCount());
+        assertEquals(1, table.streetNumber(first));
+        assertEquals(2, table.streetNumber(second));
+        assertEquals(table.streetNameId(first), table.streetNameId(second));
+        assertNotEquals(table.cityNameId(first), table.cityNameId(second));
+        assertEquals("Sydney", table.cityName(second));
+        assertEquals(AddressTable.pack("3000"), table.packedPostalCode(first));
+        assertFalse(table.hasAddress(none));
+        assertEquals(0, table.streetNumber(none));
+        assertEquals(AddressTable.NO_STRING, table.streetNameId(none));
+        assertNull(table.address(none));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.streetNumber(3));
+    }
+
+    @Test
+    public void testAddressCanonical() throws Exception {
+        System.out.println("AddressTableTest.testAddressCanonical");
+        AddressTable table = new AddressTable();
+        Address packed = new Address(1, "High Street", "Melbourne", new PostalCode("3000"));
+        Address unpacked = new Address(2, "Low Street", null, new PostalCode("sw1a1aa"));
+        Address empty = new Address();
+        table.add(packed);
+        table.add(unpacked);
+        table.add(empty);
+
+        assertSame(packed.intern(), table.address(0));
+        assertSame(unpacked.intern(), table.address(1));
+        assertSame(empty.intern(), table.address(2));
+        assertEquals(AddressTable.NOT_PACKED, table.packedPostalCode(1));
+        assertSame(unpacked.getPostalCode().intern(), table.postalCode(1));
+        assertNull(table.postalCode(2));
+    }
+
+    @Test
+    public void testOf() throws Exception {
+        System.out.println("AddressTableTest.testOf");
+        FamilyGraph graph = new FamilyGraph();
+        Address address = new Address(5, "Main Road", "Perth", new PostalCode("6000"));
+        graph.add(new Person(new Name("Alice", null, "Smith"), Sex.Female, address, null));
+        graph.add(new Person(new Name("Bob", null, "Smith"), Sex.Male, new Address(), null));
+        AddressTable table = AddressTable.of(graph);
+
+        assertEquals(graph.size(), table.size());
+        assertEquals(5, table.streetNumber(0));
+        assertEquals("Perth", table.cityName(0));
+        assertSame(graph.person(0).getAddress(), table.address(0));
+        assertEquals(0, table.streetNumber(1));
+    }
+
+}
@@ -31,6 +31,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static familytree.Serialization.externalize;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AddressTest {
@@ -132,6 +133,19 @@ public class AddressTest {
         });
     }
 
+    @Test
+    public void testStreetNumberAsInt() throws Exception {
+        System.out.println("AddressTest.testStreetNumberAsInt");
+        Address instance = new Address();
+
+        assertEquals(0, instance.getStreetNumberAsInt());
+        instance.setStreetNumber(7);
+        assertEquals(7, instance.getStreetNumberAsInt());
+        assertEquals(Integer.valueOf(7), instance.getStreetNumber());
+        assertThrows(DataFormatException.class, () -> instance.setStreetNumber(-1));
+        assertEquals(instance, externalize(instance));
+    }
+
     @Test
     public void testGetStreetName() throws Exception {
         System.out.println("AddressTest.testGetStreetName");
@@ -367,4 +381,50 @@ public class AddressTest {
         assertEquals(toString, instance.toString());
     }
 
+    @Test
+    public void testExternalize() throws Exception {
+        System.out.println("AddressTest.testExternalize");
+        Address instance = new Address(42, "Main Street", "Springfield", new PostalCode("AB12"));
+        Address result = externalize(instance);
+
+        assertEquals(instance, result);
+        assertEquals(42, result.getStreetNumber());
+        assertNull(externalize(new Address()).getStreetNumber());
+        assertNull(externalize(new Address()).getPostalCode());
+    }
+
+    @Test
+    public void testIntern() throws Exception {
+        System.out.println("AddressTest.testIntern");
+        Address first = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        Address second = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        Address canonical = first.intern();
+
+        assertNotSame(first, canonical);
+        assertEquals(first, canonical);
+        assertSame(canonical, second.intern());
+        assertSame(canonical, canonical.intern());
+        assertTrue(canonical.isFrozen());
+        assertFalse(first.isFrozen());
+        assertSame(first.getPostalCode(), second.getPostalCode());
+        assertTrue(first.getPostalCode().isFrozen());
+        assertNotSame(canonical, new Address(13, "Main Street", "Springfield", new PostalCode("AB12")).intern());
+    }
+
+    @Test
+    public void testInternImmutable() throws Exception {
+        System.out.println("AddressTest.testInternImmutable");
+        Address canonical = new Address(12, "Main Street", "Springfield", new PostalCode("AB12")).intern();
+
+        assertThrows(UnsupportedOperationException.class, () -> canonical.setStreetNumber(13));
+        assertThrows(UnsupportedOperationException.class, () -> canonical.setStreetName("High Street"));
+        assertThrows(UnsupportedOperationException.class, () -> canonical.setCityName("Shelbyville"));
+        assertThrows(UnsupportedOperationException.class, () -> canonical.setPostalCode(new PostalCode()));
+
+        Address copy = new Address(canonical);
+        copy.setCityName("Shelbyville");
+        assertFalse(copy.isFrozen());
+        assertSame(canonical.getPostalCode(), copy.getPostalCode());
+        assertEquals("Springfield", canonical.getCityName());
+    }
 }
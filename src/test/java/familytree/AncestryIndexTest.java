@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AncestryIndexTest {
+
+    private FamilyMember grandmother, grandfather, mother, father, child, sibling;
+    private FamilyGraph graph;
+
+    public AncestryIndexTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        grandmother = member();
+        grandfather = member();
+        mother = member();
+        father = member();
+        child = member();
+        sibling = member();
+        mother.setMother(grandmother);
+        mother.setFather(grandfather);
+        child.setMother(mother);
+        child.setFather(father);
+        sibling.setMother(mother);
+        graph = graph(child, sibling);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private BitSet ids(final Person... persons) {
+        BitSet set = new BitSet();
+        for (Person person : persons) {
+            set.set(graph.idOf(person));
+        }
+        return set;
+    }
+
+    @Test
+    public void testAncestors() {
+        System.out.println("AncestryIndexTest.testAncestors");
+        AncestryIndex instance = new AncestryIndex(graph);
+
+        assertEquals(ids(mother, father, grandmother, grandfather), instance.ancestors(graph.idOf(child)));
+        assertEquals(ids(mother, grandmother, grandfather), instance.ancestors(graph.idOf(sibling)));
+        assertEquals(ids(), instance.ancestors(graph.idOf(grandmother)));
+        assertEquals(4, instance.ancestorCount(graph.idOf(child)));
+    }
+
+    @Test
+    public void testDescendants() {
+        System.out.println("AncestryIndexTest.testDescendants");
+        AncestryIndex instance = new AncestryIndex(graph);
+
+        assertEquals(ids(mother, child, sibling), instance.descendants(graph.idOf(grandmother)));
+        assertEquals(ids(child), instance.descendants(graph.idOf(father)));
+        assertEquals(0, instance.descendantCount(graph.idOf(child)));
+    }
+
+    @Test
+    public void testIsAncestor() {
+        System.out.println("AncestryIndexTest.testIsAncestor");
+        AncestryIndex instance = new AncestryIndex(graph);
+
+        assertTrue(instance.isAncestor(graph.idOf(grandfather), graph.idOf(child)));
+        assertFalse(instance.isAncestor(graph.idOf(father), graph.idOf(sibling)));
+        assertTrue(instance.isDescendant(graph.idOf(sibling), graph.idOf(grandmother)));
+        assertFalse(instance.isDescendant(graph.idOf(grandmother), graph.idOf(sibling)));
+    }
+
+    @Test
+    public void testReturnedSetIsCopy() {
+        System.out.println("AncestryIndexTest.testReturnedSetIsCopy");
+        AncestryIndex instance = new AncestryIndex(graph);
+
+        instance.ancestors(graph.idOf(child)).clear();
+
+        assertEquals(4, instance.ancestorCount(graph.idOf(child)));
+    }
+
+    @Test
+    public void testSetMotherInvalidates() {
+        System.out.println("AncestryIndexTest.testSetMotherInvalidates");
+        AncestryIndex instance = new AncestryIndex(graph);
+        FamilyMember greatGrandmother = member();
+        instance.ancestors(graph.idOf(child));
+        instance.descendants(graph.idOf(grandmother));
+
+        grandmother.setMother(greatGrandmother);
+
+        assertTrue(instance.isAncestor(graph.idOf(greatGrandmother), graph.idOf(child)));
+        assertEquals(ids(grandmother, mother, child, sibling), instance.descendants(graph.idOf(greatGrandmother)));
+
+        mother.setFather(null);
+
+        assertEquals(ids(mother, father, grandmother, greatGrandmother), instance.ancestors(graph.idOf(child)));
+        assertEquals(0, instance.descendantCount(graph.idOf(grandfather)));
+    }
+
+    @Test
+    public void testAddInvalidates() {
+        System.out.println("AncestryIndexTest.testAddInvalidates");
+        AncestryIndex instance = new AncestryIndex(graph);
+        FamilyMember grandchild = member(), paternalGrandfather = member();
+        assertEquals(ids(), instance.descendants(graph.idOf(child)));
+        instance.descendants(graph.idOf(grandmother));
+        instance.ancestors(graph.idOf(child));
+
+        grandchild.setMother(child);
+        graph.add(grandchild);
+        paternalGrandfather.addChild(father);
+        graph.add(paternalGrandfather);
+
+        assertEquals(1, graph.childCount(graph.idOf(child)));
+        assertEquals(ids(grandchild), instance.descendants(graph.idOf(child)));
+        assertEquals(ids(mother, child, sibling, grandchild), instance.descendants(graph.idOf(grandmother)));
+        assertTrue(instance.isAncestor(graph.idOf(paternalGrandfather), graph.idOf(child)));
+        assertTrue(instance.isAncestor(graph.idOf(paternalGrandfather), graph.idOf(grandchild)));
+    }
+
+    @Test
+    public void testAddChildAndRemoveChildInvalidate() throws Exception {
+        System.out.println("AncestryIndexTest.testAddChildAndRemoveChildInvalidate");
+        AncestryIndex instance = new AncestryIndex(graph);
+        Person grandchild = new Person(new Name("Grandchild", "", ""), Sex.Unspecified,
+                                       new Address(1, "", "", new PostalCode()), "");
+        instance.descendants(graph.idOf(grandmother));
+
+        child.addChild(grandchild);
+
+        assertTrue(instance.isDescendant(graph.idOf(grandchild), graph.idOf(grandmother)));
+        assertEquals(5, instance.ancestorCount(graph.idOf(grandchild)));
+
+        child.removeChild(grandchild.getName());
+
+        assertFalse(instance.isDescendant(graph.idOf(grandchild), graph.idOf(grandmother)));
+        assertEquals(0, instance.ancestorCount(graph.idOf(grandchild)));
+    }
+
+    @Test
+    public void testCycleTerminates() {
+        System.out.println("AncestryIndexTest.testCycleTerminates");
+        AncestryIndex instance = new AncestryIndex(graph);
+
+        grandmother.setMother(child);
+
+        assertTrue(instance.isAncestor(graph.idOf(child), graph.idOf(mother)));
+        assertFalse(instance.ancestors(graph.idOf(child)).get(graph.idOf(child)));
+    }
+
+    @Test
+    public void testClose() {
+        System.out.println("AncestryIndexTest.testClose");
+        AncestryIndex instance = new AncestryIndex(graph);
+        instance.ancestors(graph.idOf(child));
+
+        instance.close();
+
+        assertEquals(4, instance.ancestorCount(graph.idOf(child)));
+    }
+
+}
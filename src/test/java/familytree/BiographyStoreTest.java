@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BiographyStoreTest {
+
+    public BiographyStoreTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private static String random(final int length, final long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) (0x20 + random.nextInt(0x3000)));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testPutGet() {
+        System.out.println("BiographyStoreTest.testPutGet");
+        BiographyStore instance = new BiographyStore(0);
+        String text = "Née Jones; emigrated in 1852 ☺. ".repeat(200);
+        long handle = instance.put(text);
+
+        assertNotEquals(0L, handle);
+        assertEquals(text, instance.get(handle));
+        assertEquals("", instance.get(instance.put("")));
+        assertTrue(instance.storedBytes() < text.length());
+        assertEquals(2, instance.size());
+    }
+
+    @Test
+    public void testIncompressible() {
+        System.out.println("BiographyStoreTest.testIncompressible");
+        BiographyStore instance = new BiographyStore(0);
+        String text = random(5000, 1L);
+
+        assertEquals(text, instance.get(instance.put(text)));
+    }
+
+    @Test
+    public void testManyChunks() {
+        System.out.println("BiographyStoreTest.testManyChunks");
+        BiographyStore instance = new BiographyStore(0);
+        String[] texts = new String[8];
+        long[] handles = new long[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = random(300_000, i);
+            handles[i] = instance.put(texts[i]);
+        }
+
+        for (int i = 0; i < texts.length; i++) {
+            assertEquals(texts[i], instance.get(handles[i]));
+        }
+    }
+
+    @Test
+    public void testCache() {
+        System.out.println("BiographyStoreTest.testCache");
+        BiographyStore instance = new BiographyStore(1);
+        long first = instance.put("First biography."), second = instance.put("Second biography.");
+
+        assertEquals("Second biography.", instance.get(second));
+        assertEquals("First biography.", instance.get(first));
+        assertEquals("First biography.", instance.get(first));
+        assertEquals(2, instance.hits());
+        assertEquals(1, instance.misses());
+    }
+
+    @Test
+    public void testUnknownHandle() {
+        System.out.println("BiographyStoreTest.testUnknownHandle");
+        BiographyStore instance = new BiographyStore();
+        instance.put("Biography.");
+
+        assertThrows(IllegalArgumentException.class, () -> instance.get(0L));
+        assertThrows(IllegalArgumentException.class, () -> instance.get((2L << 32)));
+        assertThrows(IllegalArgumentException.class, () -> new BiographyStore(-1));
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedTreeFileTest {
+
+    private Path directory, file;
+    private FamilyMember grandmother, grandfather, mother, father, child, grandchild;
+    private Person stranger;
+    private FamilyGraph graph;
+
+    public ChunkedTreeFileTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("chunked-tree-file");
+        file = directory.resolve("tree.arbc");
+        grandmother = member("Ada", Sex.Female, null, null);
+        grandfather = member("Bob", Sex.Male, null, null);
+        marry(grandmother, grandfather);
+        mother = member("Cat", Sex.Female, grandmother, grandfather);
+        father = member("Dan", Sex.Male, null, null);
+        marry(mother, father);
+        child = member("Eve", Sex.Female, mother, father);
+        grandchild = member("Fay", Sex.Female, child, null);
+        stranger = new Person(new Name("Gus", null, "Jones"), Sex.Male,
+                              new Address(12, "Main Street", "Springfield", new PostalCode("AB12")), "Unrelated.");
+        graph = graph(stranger, grandchild);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void marry(final FamilyMember wife, final FamilyMember husband) {
+        wife.setSpouse(husband);
+        husband.setSpouse(wife);
+    }
+
+    private static String forename(final FamilyGraph graph, final int id) {
+        return id == FamilyGraph.NONE ? null : graph.person(id).getName().getForename();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testRoundTrip");
+        ChunkedTreeFile.write(graph, file, 2);
+        FamilyGraph result = ChunkedTreeFile.read(file);
+
+        assertEquals(graph.size(), result.size());
+        for (int id = 0; id < graph.size(); id++) {
+            Person expected = graph.person(id), actual = result.person(id);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertTrue(expected.sameDetails(actual));
+            assertEquals(graph.mother(id), result.mother(id));
+            assertEquals(graph.father(id), result.father(id));
+            assertEquals(graph.spouse(id), result.spouse(id));
+            assertEquals(graph.childCount(id), result.childCount(id));
+        }
+        assertEquals(grandchild.getIdentityKey(),
+                     ((FamilyMember) result.person(graph.idOf(grandchild))).getIdentityKey());
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testEmptyGraph");
+        ChunkedTreeFile.write(new FamilyGraph(), file);
+
+        assertEquals(0, ChunkedTreeFile.read(file).size());
+    }
+
+    @Test
+    public void testReadBranch() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testReadBranch");
+        ChunkedTreeFile.write(graph, file, 1);
+        FamilyGraph result = ChunkedTreeFile.readBranch(file, graph.idOf(mother), 1);
+
+        assertEquals(5, result.size());
+        assertEquals("Cat", forename(result, 0));
+        assertEquals("Dan", forename(result, result.spouse(0)));
+        assertEquals("Ada", forename(result, result.mother(0)));
+        assertEquals("Bob", forename(result, result.father(0)));
+        assertEquals(1, result.childCount(0));
+        assertEquals("Eve", forename(result, result.child(0, 0)));
+        assertEquals(0, result.childCount(result.child(0, 0)));
+        assertEquals(FamilyGraph.NONE, result.idOf(stranger));
+    }
+
+    @Test
+    public void testReadBranchSpouse() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testReadBranchSpouse");
+        ChunkedTreeFile.write(graph, file, 1);
+        FamilyGraph result = ChunkedTreeFile.readBranch(file, graph.idOf(father), 0);
+
+        assertEquals(2, result.size());
+        assertEquals("Dan", forename(result, 0));
+        assertEquals("Cat", forename(result, 1));
+        assertEquals(FamilyGraph.NONE, result.mother(1));
+        assertEquals(0, result.childCount(1));
+    }
+
+    @Test
+    public void testReadBranchDistance() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testReadBranchDistance");
+        ChunkedTreeFile.write(graph, file);
+        FamilyGraph result = ChunkedTreeFile.readBranch(file, graph.idOf(grandchild), 2);
+
+        assertEquals(4, result.size());
+        assertEquals("Fay", forename(result, 0));
+        assertEquals("Eve", forename(result, 1));
+        assertEquals(2, result.parentCount(1));
+        assertEquals("Cat", forename(result, result.mother(1)));
+        assertEquals("Dan", forename(result, result.spouse(result.mother(1))));
+    }
+
+    @Test
+    public void testReadBranchReadsOnlyItsChunks() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testReadBranchReadsOnlyItsChunks");
+        ChunkedTreeFile.write(graph, file, 1);
+
+        // Overwrite the chunk of the stranger, found through the footer.
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int length = bytes.limit();
+        int footer = (int) bytes.getLong(length - 20), chunkCount = bytes.getInt(length - 12);
+        int chunk = bytes.getInt(footer + chunkCount * 16 + graph.idOf(stranger) * 4);
+        int offset = (int) bytes.getLong(footer + chunk * 16), size = (int) bytes.getLong(footer + chunk * 16 + 8);
+        for (int i = offset; i < offset + size; i++) {
+            bytes.put(i, (byte) 0xFF);
+        }
+        Files.write(file, bytes.array());
+
+        assertEquals(6, ChunkedTreeFile.readBranch(file, graph.idOf(child), 5).size());
+        assertThrows(DataFormatException.class, () -> ChunkedTreeFile.read(file));
+        assertThrows(DataFormatException.class, () -> ChunkedTreeFile.readBranch(file, graph.idOf(stranger), 0));
+    }
+
+    @Test
+    public void testIllegalArguments() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testIllegalArguments");
+        ChunkedTreeFile.write(graph, file);
+
+        assertThrows(IllegalArgumentException.class, () -> ChunkedTreeFile.write(graph, file, 0));
+        assertThrows(IllegalArgumentException.class, () -> ChunkedTreeFile.readBranch(file, 0, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> ChunkedTreeFile.readBranch(file, graph.size(), 1));
+    }
+
+    @Test
+    public void testCorruptCount() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testCorruptCount");
+        ChunkedTreeFile.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (byte last : new byte[] {0x07, 0x0F}) {
+            // The person count of the first chunk follows the eight-byte header.
+            byte[] corrupt = bytes.clone();
+            System.arraycopy(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, last}, 0, corrupt, 8, 5);
+            Files.write(file, corrupt);
+
+            assertThrows(DataFormatException.class, () -> ChunkedTreeFile.read(file));
+        }
+    }
+
+    @Test
+    public void testNotChunkedFile() throws Exception {
+        System.out.println("ChunkedTreeFileTest.testNotChunkedFile");
+        FamilyTreeFile.write(graph, file);
+        assertThrows(DataFormatException.class, () -> ChunkedTreeFile.read(file));
+
+        Files.write(file, new byte[4]);
+        assertThrows(DataFormatException.class, () -> ChunkedTreeFile.readBranch(file, 0, 1));
+    }
+
+}
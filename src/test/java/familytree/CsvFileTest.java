@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvFileTest {
+
+    private Path directory, source, rejects;
+    private FamilyGraph graph;
+
+    public CsvFileTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("csv-file");
+        source = directory.resolve("people.csv");
+        rejects = directory.resolve("people.csv.rejects");
+        graph = new FamilyGraph();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        System.out.println("CsvFileTest.testRead");
+        Files.write(source, List.of("forename,midname,surname,sex,number,street,city,postcode",
+                                    "Mary,Ann,Smith,F,12,Main Street,Springfield,AB12",
+                                    "\"John \"\"Jack\"\"\",,Smith,male,,\"Elm Street, North\",Springfield,"));
+        CsvFile.Report report = CsvFile.read(source, true, graph, rejects);
+
+        assertEquals(2, report.imported());
+        assertEquals(0, report.rejected());
+        assertEquals(2, graph.size());
+        Person mary = graph.person(0), john = graph.person(1);
+        assertEquals(new Name("Mary", "Ann", "Smith"), mary.getName());
+        assertEquals(Sex.Female, mary.getSex());
+        assertEquals(12, mary.getAddress().getStreetNumber());
+        assertEquals("AB12", mary.getAddress().getPostalCode().getCharacterSet());
+        assertEquals("John \"Jack\"", john.getName().getForename());
+        assertNull(john.getName().getMidname());
+        assertEquals(Sex.Male, john.getSex());
+        assertNull(john.getAddress().getStreetNumber());
+        assertEquals("Elm Street, North", john.getAddress().getStreetName());
+        assertNull(john.getAddress().getPostalCode());
+        assertTrue(Files.readAllLines(rejects).isEmpty());
+    }
+
+    @Test
+    public void testRejects() throws Exception {
+        System.out.println("CsvFileTest.testRejects");
+        Files.write(source, List.of("Mary,Ann,Smith,F,12,Main Street,Springfield,AB12",
+                                    "Mary,Ann,Smith,F,12,Main Street,Springfield",
+                                    "\"Mary,Ann,Smith,F,12,Main Street,Springfield,AB12",
+                                    ",Ann,,F,12,Main Street,Springfield,AB12",
+                                    "Mary,Ann,Smith,X,12,Main Street,Springfield,AB12",
+                                    "Mary,Ann,Smith,F,-12,Main Street,Springfield,AB12",
+                                    "Mary,Ann,Smith,F,12,Main Street,Springfield,AB_12"));
+        CsvFile.Report report = CsvFile.read(source, false, graph, rejects);
+
+        assertEquals(1, report.imported());
+        assertEquals(6, report.rejected());
+        for (CsvFile.Result result : CsvFile.Result.values()) {
+            assertEquals(1, report.count(result));
+        }
+
+        List<String> lines = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+        assertEquals(6, lines.size());
+        assertEquals("2,FIELD_COUNT,Mary,Ann,Smith,F,12,Main Street,Springfield", lines.get(0));
+        assertTrue(lines.get(5).startsWith("7,INVALID_POSTAL_CODE,"));
+    }
+
+    @Test
+    public void testSplit() {
+        System.out.println("CsvFileTest.testSplit");
+        String[] fields = new String[CsvFile.FIELDS];
+
+        assertEquals(CsvFile.Result.VALID, CsvFile.split(",,,,,,,", fields));
+        assertNull(fields[7]);
+        assertEquals(CsvFile.Result.VALID, CsvFile.split(" a ,\"\",\" b \",,,,,\"h\"", fields));
+        assertEquals("a", fields[0]);
+        assertNull(fields[1]);
+        assertEquals("b", fields[2]);
+        assertEquals("h", fields[7]);
+        assertEquals(CsvFile.Result.FIELD_COUNT, CsvFile.split(",,,,,,,,", fields));
+        assertEquals(CsvFile.Result.MALFORMED_QUOTE, CsvFile.split("\"a\"b,,,,,,,", fields));
+    }
+
+    @Test
+    public void testManyChunks() throws Exception {
+        System.out.println("CsvFileTest.testManyChunks");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            lines.add(i % 20 == 0 ? "Person" + i + ",,,,,,,bad code!"
+                      : "Person" + i + ",,Jones,U," + (i + 1) + ",High Street,Springfield,");
+        }
+        Files.write(source, lines);
+        CsvFile.Report report = CsvFile.read(source, false, graph, null);
+
+        assertEquals(47_500, report.imported());
+        assertEquals(2_500, report.count(CsvFile.Result.INVALID_POSTAL_CODE));
+        assertEquals(47_500, graph.size());
+        assertEquals("Person1", graph.person(0).getName().getForename());
+        assertEquals("Person49999", graph.person(graph.size() - 1).getName().getForename());
+        assertEquals(Sex.Unspecified, graph.person(0).getSex());
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataCodecTest {
+
+    public DataCodecTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testVarint() throws Exception {
+        System.out.println("DataCodecTest.testVarint");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.Writer writer = new DataCodec.Writer(out);
+        writer.putVarint(0);
+        writer.putVarint(127);
+        writer.putVarint(128);
+        writer.putVarint(Integer.MAX_VALUE);
+        writer.putVarlong(Long.MAX_VALUE);
+        writer.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+        assertEquals(1 + 1 + 2 + 5 + 9, writer.position());
+        assertEquals(0, DataCodec.getVarint(buffer));
+        assertEquals(127, DataCodec.getVarint(buffer));
+        assertEquals(128, DataCodec.getVarint(buffer));
+        assertEquals(Integer.MAX_VALUE, DataCodec.getVarint(buffer));
+        assertEquals(Long.MAX_VALUE, DataCodec.getVarlong(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testVarintOutOfRange() {
+        System.out.println("DataCodecTest.testVarintOutOfRange");
+        byte[] bytes = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+
+        assertThrows(DataFormatException.class, () -> DataCodec.getVarint(ByteBuffer.wrap(bytes)));
+        assertThrows(StreamCorruptedException.class,
+                     () -> DataCodec.getVarint(new DataInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        System.out.println("DataCodecTest.testCount");
+
+        assertEquals(2, DataCodec.getCount(ByteBuffer.wrap(new byte[] {2, 0, 0})));
+        assertThrows(DataFormatException.class, () -> DataCodec.getCount(ByteBuffer.wrap(new byte[] {3, 0, 0})));
+        assertThrows(DataFormatException.class,
+                     () -> DataCodec.getCount(ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xFF, 0x7F})));
+    }
+
+    @Test
+    public void testString() throws Exception {
+        System.out.println("DataCodecTest.testString");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.Writer writer = new DataCodec.Writer(out);
+        String large = "x".repeat(100000);
+        writer.putString(null);
+        writer.putString("");
+        writer.putString("Zoë");
+        writer.putString(large);
+        writer.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+        assertNull(DataCodec.getString(buffer));
+        assertEquals("", DataCodec.getString(buffer));
+        assertEquals("Zoë", DataCodec.getString(buffer));
+        assertEquals(large, DataCodec.getString(buffer.asReadOnlyBuffer()));
+    }
+
+    @Test
+    public void testMalformed() {
+        System.out.println("DataCodecTest.testMalformed");
+
+        assertThrows(DataFormatException.class, () -> DataCodec.getVarint(ByteBuffer.wrap(new byte[]{(byte) 0x80})));
+        assertThrows(DataFormatException.class,
+                     () -> DataCodec.getVarint(ByteBuffer.wrap(new byte[]{-1, -1, -1, -1, 0x10})));
+        assertThrows(DataFormatException.class, () -> DataCodec.getString(ByteBuffer.wrap(new byte[]{5, 'a'})));
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.HashSet;
+
+/**
+ * Builds the small families that the graph, index, calculator, and file tests share.
+ * <p>
+ * The plain members have a default person and no family name, and are linked to their parents only by the child's
+ * mother and father; a {@link FamilyGraph} finds the rest of the family through those links. The named members are
+ * Smiths, carry an identity key, and are also added to their parents' children, as the importers add them.
+ */
+final class Families {
+
+    private Families() {
+    }
+
+    static FamilyMember member() {
+        return member(null, null);
+    }
+
+    static FamilyMember member(final Person mother, final Person father) {
+        return new FamilyMember(new Person(), "", mother, father, null, new HashSet<>());
+    }
+
+    static FamilyMember member(final String forename, final Sex sex, final FamilyMember mother,
+                               final FamilyMember father) {
+        FamilyMember member = new FamilyMember(new Person(new Name(forename, null, "Smith"), sex, new Address(), null),
+                                               "Smith", mother, father, null, new HashSet<>());
+        member.identify();
+        if (mother != null) {
+            mother.addChild(member);
+        }
+        if (father != null) {
+            father.addChild(member);
+        }
+        return member;
+    }
+
+    static FamilyGraph graph(final Person... persons) {
+        FamilyGraph graph = new FamilyGraph();
+        for (Person person : persons) {
+            graph.add(person);
+        }
+        return graph;
+    }
+
+}
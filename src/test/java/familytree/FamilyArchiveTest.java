@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FamilyArchiveTest {
+
+    private FamilyMember mother, father, child;
+    private FamilyGraph graph;
+    private byte[] file;
+
+    public FamilyArchiveTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Address address = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        mother = new FamilyMember(new Person(new Name("Mary", "Ann", "Smith"), Sex.Female, address, "Née Jones."),
+                                  "Smith", null, null, null, new HashSet<>());
+        father = new FamilyMember(new Person(new Name("John", null, "Smith"), Sex.Male, address, null), "Smith",
+                                  null, null, mother, new HashSet<>());
+        mother.identify();
+        father.identify();
+        mother.setSpouse(father);
+        child = new FamilyMember();
+        child.setName(new Name("Jane", "", "Smith"));
+        child.setBiography("Biography ☺");
+        child.setMother(mother);
+        child.setFather(father);
+        child.identify();
+        mother.addChild(child);
+        father.addChild(child);
+        graph = new FamilyGraph();
+        graph.add(child);
+        graph.add(new Person());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FamilyTreeFile.write(graph, out);
+        file = out.toByteArray();
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private static byte[] withoutIndexSections(final byte[] file) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        int index = (int) buffer.getLong(file.length - 12);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(file, 0, index);
+        out.writeByte(3);
+        out.write(file, index + 1, 3 * 20);
+        out.writeLong(index);
+        out.writeInt(FamilyTreeFile.MAGIC);
+        return bytes.toByteArray();
+    }
+
+    private void assertArchive(final FamilyArchive instance) throws Exception {
+        assertEquals(graph.size(), instance.size());
+        for (int id = 0; id < graph.size(); id++) {
+            Person person = graph.person(id);
+            assertEquals(person instanceof FamilyMember, instance.isMember(id));
+            assertEquals(person.getSex(), instance.sex(id));
+            assertEquals(person.getName(), instance.name(id));
+            assertEquals(person.getBiography(), instance.biography(id));
+            assertTrue(person.sameDetails(instance.person(id)));
+            assertEquals(graph.mother(id), instance.mother(id));
+            assertEquals(graph.father(id), instance.father(id));
+            assertEquals(graph.spouse(id), instance.spouse(id));
+
+            int[] children = new int[graph.childCount(id)];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = graph.child(id, i);
+            }
+            int[] actual = instance.children(id);
+            Arrays.sort(children);
+            Arrays.sort(actual);
+            assertArrayEquals(children, actual);
+        }
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        System.out.println("FamilyArchiveTest.testOpen");
+        assertArchive(FamilyArchive.open(ByteBuffer.wrap(file)));
+    }
+
+    @Test
+    public void testOpenWithoutIndexSections() throws Exception {
+        System.out.println("FamilyArchiveTest.testOpenWithoutIndexSections");
+        byte[] legacy = withoutIndexSections(file);
+
+        assertEquals(graph.size(), FamilyTreeFile.read(ByteBuffer.wrap(legacy)).size());
+        assertArchive(FamilyArchive.open(ByteBuffer.wrap(legacy)));
+    }
+
+    @Test
+    public void testOpenPath() throws Exception {
+        System.out.println("FamilyArchiveTest.testOpenPath");
+        Path path = Files.createTempFile("family-archive", ".dat");
+        try {
+            Files.write(path, file);
+            assertArchive(FamilyArchive.open(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testOpenPathBeyondTwoGiB() throws Exception {
+        System.out.println("FamilyArchiveTest.testOpenPathBeyondTwoGiB");
+        // Moves every section of the file 3 GiB further in, leaving a hole that the file system need not store.
+        long gap = 3L << 30;
+        ByteBuffer shifted = ByteBuffer.wrap(file.clone());
+        int index = (int) shifted.getLong(file.length - 12);
+        for (int i = 0, count = shifted.get(index); i < count; i++) {
+            int entry = index + 1 + i * 20 + 4;
+            shifted.putLong(entry, shifted.getLong(entry) + gap);
+        }
+        shifted.putLong(file.length - 12, index + gap);
+
+        Path path = Files.createTempFile("family-archive", ".dat");
+        try {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(shifted.slice(0, 8), 0);
+                channel.write(shifted.slice(8, file.length - 8), 8 + gap);
+            }
+            assertTrue(Files.size(path) > Integer.MAX_VALUE);
+            assertArchive(FamilyArchive.open(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testDetails() throws Exception {
+        System.out.println("FamilyArchiveTest.testDetails");
+        FamilyArchive instance = FamilyArchive.open(ByteBuffer.wrap(file));
+        int id = graph.idOf(mother);
+
+        assertEquals("Smith", instance.familyName(id));
+        assertEquals("AB12", instance.address(id).getPostalCode().getCharacterSet());
+        assertEquals(12, instance.address(id).getStreetNumber());
+        assertNull(instance.address(graph.idOf(child)));
+        assertNull(instance.familyName(graph.size() - 1));
+        assertEquals(FamilyGraph.NONE, instance.mother(graph.size() - 1));
+        assertEquals(0, instance.children(graph.size() - 1).length);
+        assertEquals(mother.getIdentityKey(), ((FamilyMember) instance.person(id)).getIdentityKey());
+        assertNull(((FamilyMember) instance.person(id)).getChildren());
+    }
+
+    @Test
+    public void testOutOfRange() throws Exception {
+        System.out.println("FamilyArchiveTest.testOutOfRange");
+        FamilyArchive instance = FamilyArchive.open(ByteBuffer.wrap(file));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.name(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.mother(graph.size()));
+    }
+
+    @Test
+    public void testNotAFile() {
+        System.out.println("FamilyArchiveTest.testNotAFile");
+        assertThrows(DataFormatException.class, () -> FamilyArchive.open(ByteBuffer.wrap(new byte[32])));
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FamilyGraphTest {
+
+    public FamilyGraphTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private static FamilyMember member(final String forename) throws Exception {
+        return new FamilyMember(new Person(new Name(forename, "", ""), Sex.Unspecified,
+                                           new Address(1, "", "", new PostalCode("")), ""), "", null, null, null,
+                                new HashSet<>());
+    }
+
+    @Test
+    public void testAddReachableRelatives() throws Exception {
+        System.out.println("FamilyGraphTest.testAddReachableRelatives");
+        FamilyMember grandmother = member("Grandmother"), mother = member("Mother"), father = member("Father"),
+                child = member("Child");
+        mother.setMother(grandmother);
+        child.setMother(mother);
+        child.setFather(father);
+        FamilyGraph instance = new FamilyGraph();
+
+        int id = instance.add(child);
+
+        assertEquals(4, instance.size());
+        assertSame(child, instance.person(id));
+        assertEquals(instance.idOf(mother), instance.mother(id));
+        assertEquals(instance.idOf(father), instance.father(id));
+        assertEquals(instance.idOf(grandmother), instance.mother(instance.idOf(mother)));
+        assertEquals(FamilyGraph.NONE, instance.spouse(id));
+    }
+
+    @Test
+    public void testAddTwice() throws Exception {
+        System.out.println("FamilyGraphTest.testAddTwice");
+        FamilyMember child = member("Child");
+        FamilyGraph instance = new FamilyGraph();
+
+        assertEquals(instance.add(child), instance.add(child));
+        assertEquals(1, instance.size());
+    }
+
+    @Test
+    public void testAddBoundToOtherGraph() throws Exception {
+        System.out.println("FamilyGraphTest.testAddBoundToOtherGraph");
+        FamilyMember child = member("Child");
+        new FamilyGraph().add(child);
+
+        assertThrows(IllegalArgumentException.class, () -> new FamilyGraph().add(child));
+    }
+
+    @Test
+    public void testAddAll() throws Exception {
+        System.out.println("FamilyGraphTest.testAddAll");
+        FamilyMember mother = member("Mother"), child = member("Child"), other = member("Other");
+        child.setMother(mother);
+        FamilyGraph instance = new FamilyGraph(0);
+
+        assertEquals(3, instance.addAll(List.of(child, other)));
+        assertEquals(0, instance.addAll(List.of(mother)));
+    }
+
+    @Test
+    public void testIdOfUnbound() throws Exception {
+        System.out.println("FamilyGraphTest.testIdOfUnbound");
+        FamilyGraph instance = new FamilyGraph();
+
+        assertEquals(FamilyGraph.NONE, instance.idOf(member("Child")));
+        assertEquals(FamilyGraph.NONE, instance.idOf(null));
+    }
+
+    @Test
+    public void testChildrenFromParentLinks() throws Exception {
+        System.out.println("FamilyGraphTest.testChildrenFromParentLinks");
+        FamilyMember mother = member("Mother"), first = member("First"), second = member("Second");
+        first.setMother(mother);
+        second.setMother(mother);
+        FamilyGraph instance = new FamilyGraph();
+        instance.addAll(List.of(first, second));
+        int id = instance.idOf(mother);
+
+        assertEquals(2, instance.childCount(id));
+        assertEquals(instance.idOf(first), instance.child(id, 0));
+        assertEquals(instance.idOf(second), instance.child(id, 1));
+        assertEquals(1, instance.parentCount(instance.idOf(first)));
+        assertEquals(id, instance.parent(instance.idOf(first), 0));
+    }
+
+    @Test
+    public void testChildrenCountedOnce() throws Exception {
+        System.out.println("FamilyGraphTest.testChildrenCountedOnce");
+        FamilyMember mother = member("Mother"), child = member("Child");
+        FamilyGraph instance = new FamilyGraph();
+        instance.add(mother);
+        mother.addChild(child);
+        child.setMother(mother);
+
+        assertEquals(1, instance.childCount(instance.idOf(mother)));
+        assertEquals(1, instance.parentCount(instance.idOf(child)));
+    }
+
+    @Test
+    public void testSetMotherUpdatesColumns() throws Exception {
+        System.out.println("FamilyGraphTest.testSetMotherUpdatesColumns");
+        FamilyMember child = member("Child"), mother = member("Mother");
+        FamilyGraph instance = new FamilyGraph();
+        int id = instance.add(child);
+        int modCount = instance.modCount();
+
+        child.setMother(mother);
+
+        assertEquals(2, instance.size());
+        assertEquals(instance.idOf(mother), instance.mother(id));
+        assertEquals(1, instance.childCount(instance.idOf(mother)));
+        assertNotEquals(modCount, instance.modCount());
+    }
+
+    @Test
+    public void testAddChildAndRemoveChild() throws Exception {
+        System.out.println("FamilyGraphTest.testAddChildAndRemoveChild");
+        FamilyMember parent = member("Parent");
+        Person child = new Person(new Name("Child", "", ""), Sex.Unspecified,
+                                  new Address(1, "", "", new PostalCode("")), "");
+        FamilyGraph instance = new FamilyGraph();
+        int id = instance.add(parent);
+
+        parent.addChild(child);
+
+        assertEquals(1, instance.childCount(id));
+        assertEquals(instance.idOf(child), instance.child(id, 0));
+
+        parent.removeChild(child.getName());
+
+        assertEquals(0, instance.childCount(id));
+        assertEquals(0, instance.parentCount(instance.idOf(child)));
+    }
+
+    @Test
+    public void testSpouse() throws Exception {
+        System.out.println("FamilyGraphTest.testSpouse");
+        FamilyMember husband = member("Husband"), wife = member("Wife");
+        FamilyGraph instance = new FamilyGraph();
+        int id = instance.add(husband);
+
+        husband.setSpouse(wife);
+
+        assertEquals(instance.idOf(wife), instance.spouse(id));
+    }
+
+    @Test
+    public void testFindByName() throws Exception {
+        System.out.println("FamilyGraphTest.testFindByName");
+        FamilyMember mother = member("Mary"), first = member("John"), second = member("John");
+        first.setMother(mother);
+        second.setMother(mother);
+        FamilyGraph instance = new FamilyGraph();
+        instance.addAll(List.of(first, second));
+
+        assertSame(mother, instance.findByName(new Name("Mary", "", "")));
+        assertEquals(2, instance.countByName(new Name("John", "", "")));
+        assertEquals(instance.idOf(first), instance.idByName(new Name("John", "", ""), 0));
+        assertEquals(instance.idOf(second), instance.idByName(new Name("John", "", ""), 1));
+        assertNull(instance.findByName(new Name("Jane", "", "")));
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.idByName(new Name("John", "", ""), 2));
+    }
+
+    @Test
+    public void testFindByNameAfterSetName() throws Exception {
+        System.out.println("FamilyGraphTest.testFindByNameAfterSetName");
+        FamilyMember child = member("John");
+        FamilyGraph instance = new FamilyGraph();
+        instance.add(child);
+
+        child.setName(new Name("Jack", "", ""));
+
+        assertEquals(0, instance.countByName(new Name("John", "", "")));
+        assertSame(child, instance.findByName(new Name("Jack", "", "")));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        System.out.println("FamilyGraphTest.testSnapshot");
+        FamilyMember mother = member("Mother"), father = member("Father"), child = member("Child");
+        mother.identify();
+        father.identify();
+        child.identify();
+        mother.setSpouse(father);
+        father.setSpouse(mother);
+        child.setMother(mother);
+        child.setFather(father);
+        mother.addChild(child);
+        father.addChild(child);
+        FamilyGraph instance = new FamilyGraph();
+        instance.add(child);
+        instance.add(new Person());
+
+        FamilyGraph snapshot = instance.snapshot();
+        Address moved = new Address(child.getAddress());
+        moved.setCityName("Shelbyville");
+        child.setAddress(moved);
+        mother.setBiography("Changed.");
+
+        assertEquals(instance.size(), snapshot.size());
+        for (int id = 0; id < instance.size(); id++) {
+            assertNotSame(instance.person(id), snapshot.person(id));
+            assertEquals(instance.person(id).getClass(), snapshot.person(id).getClass());
+            assertEquals(instance.mother(id), snapshot.mother(id));
+            assertEquals(instance.father(id), snapshot.father(id));
+            assertEquals(instance.spouse(id), snapshot.spouse(id));
+            assertEquals(instance.childCount(id), snapshot.childCount(id));
+        }
+        FamilyMember copy = (FamilyMember) snapshot.person(instance.idOf(child));
+        assertEquals("", copy.getAddress().getCityName());
+        assertEquals("", copy.getMother().getBiography());
+        assertEquals(child.getIdentityKey(), copy.getIdentityKey());
+        assertTrue(((FamilyMember) copy.getMother()).getChildren().contains(copy));
+    }
+
+    @Test
+    public void testChangeCount() throws Exception {
+        System.out.println("FamilyGraphTest.testChangeCount");
+        FamilyMember parent = member("Parent");
+        FamilyGraph instance = new FamilyGraph();
+        instance.add(parent);
+        long changes = instance.changeCount();
+        int modCount = instance.modCount();
+
+        parent.setBiography("Changed.");
+
+        assertEquals(changes + 1, instance.changeCount());
+        assertEquals(modCount, instance.modCount());
+    }
+
+    @Test
+    public void testSnapshotSkipsNullAndUnboundChildren() throws Exception {
+        System.out.println("FamilyGraphTest.testSnapshotSkipsNullAndUnboundChildren");
+        FamilyMember parent = member("Parent"), child = member("Child");
+        FamilyGraph instance = new FamilyGraph();
+        instance.add(parent);
+        parent.addChild(null);
+        parent.getChildren().add(child);
+
+        FamilyGraph snapshot = instance.snapshot();
+
+        assertEquals(1, snapshot.size());
+        assertTrue(((FamilyMember) snapshot.person(0)).getChildren().isEmpty());
+    }
+
+    @Test
+    public void testPersonOutOfRange() {
+        System.out.println("FamilyGraphTest.testPersonOutOfRange");
+        FamilyGraph instance = new FamilyGraph();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.person(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.childCount(-1));
+    }
+
+}
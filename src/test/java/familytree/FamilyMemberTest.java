@@ -32,6 +32,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static familytree.Serialization.externalize;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class FamilyMemberTest {
@@ -243,6 +244,77 @@ public class FamilyMemberTest {
         assertNull(instance.getChild(new Name("", "", "")));
     }
 
+    @Test
+    public void testGetChildAfterRemoval() throws Exception {
+        System.out.println("FamilyMemberTest.testGetChildAfterRemoval");
+        String familyName = "";
+        Person mother = new Person(), father = new Person(), spouse = new Person();
+        Set<Person> children = new HashSet<>();
+        FamilyMember instance = new FamilyMember(new Person(), familyName, mother, father, spouse, children);
+        Person first = new Person(new Name("First", "", ""), Sex.Unspecified, new Address(1, "", "", new PostalCode()),
+                                  ""), second = new Person(new Name("Second", "", ""), Sex.Unspecified,
+                                                           new Address(1, "", "", new PostalCode()), "");
+        instance.addChild(first);
+        instance.addChild(second);
+
+        assertEquals(first, instance.getChild(new Name("First", "", "")));
+        assertTrue(instance.removeChild(new Name("First", "", "")));
+        assertNull(instance.getChild(new Name("First", "", "")));
+        assertEquals(second, instance.getChild(new Name("Second", "", "")));
+    }
+
+    @Test
+    public void testGetChildSharedName() throws Exception {
+        System.out.println("FamilyMemberTest.testGetChildSharedName");
+        String familyName = "";
+        Person mother = new Person(), father = new Person(), spouse = new Person();
+        Set<Person> children = new HashSet<>();
+        FamilyMember instance = new FamilyMember(new Person(), familyName, mother, father, spouse, children);
+        Person first = new Person(new Name("Twin", "", ""), Sex.Female, new Address(1, "", "", new PostalCode()), ""),
+                second = new Person(new Name("Twin", "", ""), Sex.Male, new Address(1, "", "", new PostalCode()), "");
+        instance.addChild(first);
+        instance.addChild(second);
+
+        assertTrue(instance.removeChild(new Name("Twin", "", "")));
+        assertNotNull(instance.getChild(new Name("Twin", "", "")));
+        assertTrue(instance.removeChild(new Name("Twin", "", "")));
+        assertNull(instance.getChild(new Name("Twin", "", "")));
+    }
+
+    @Test
+    public void testGetChildAddedDirectly() throws Exception {
+        System.out.println("FamilyMemberTest.testGetChildAddedDirectly");
+        String familyName = "";
+        Person mother = new Person(), father = new Person(), spouse = new Person();
+        Set<Person> children = new HashSet<>();
+        FamilyMember instance = new FamilyMember(new Person(), familyName, mother, father, spouse, children);
+        Person child = new Person(new Name("Child", "", ""), Sex.Unspecified, new Address(1, "", "", new PostalCode()),
+                                  "");
+        instance.getChild(new Name());
+        children.add(child);
+
+        assertEquals(child, instance.getChild(new Name("Child", "", "")));
+    }
+
+    @Test
+    public void testGetChildRemovedDirectly() throws Exception {
+        System.out.println("FamilyMemberTest.testGetChildRemovedDirectly");
+        String familyName = "";
+        Person mother = new Person(), father = new Person(), spouse = new Person();
+        Set<Person> children = new HashSet<>();
+        FamilyMember instance = new FamilyMember(new Person(), familyName, mother, father, spouse, children);
+        Person first = new Person(new Name("First", "", ""), Sex.Unspecified, new Address(1, "", "", new PostalCode()),
+                                  ""), second = new Person(new Name("Second", "", ""), Sex.Unspecified,
+                                                           new Address(2, "", "", new PostalCode()), "");
+        instance.addChild(first);
+        instance.getChild(new Name());
+        children.remove(first);
+        children.add(second);
+
+        assertNull(instance.getChild(new Name("First", "", "")));
+        assertEquals(second, instance.getChild(new Name("Second", "", "")));
+    }
+
     @Test
     public void testAddChildSuccessful() throws Exception {
         System.out.println("FamilyMemberTest.testAddChildSuccessful");
@@ -512,6 +584,110 @@ public class FamilyMemberTest {
         assertEquals(0, x.hashCode());
     }
 
+    @Test
+    public void testIdentify() {
+        System.out.println("FamilyMemberTest.testIdentify");
+        FamilyMember x = new FamilyMember(), y = new FamilyMember();
+        long key = x.identify();
+
+        assertNotEquals(0L, key);
+        assertEquals(key, x.identify());
+        assertEquals(key, x.getIdentityKey());
+        assertNotEquals(key, y.identify());
+    }
+
+    @Test
+    public void testSetIdentityKey() {
+        System.out.println("FamilyMemberTest.testSetIdentityKey");
+        FamilyMember x = new FamilyMember(), y = new FamilyMember();
+
+        x.setIdentityKey(Long.MAX_VALUE / 2);
+
+        assertEquals(Long.MAX_VALUE / 2, x.getIdentityKey());
+        assertTrue(y.identify() > x.getIdentityKey());
+        assertThrows(IllegalArgumentException.class, () -> x.setIdentityKey(-1L));
+    }
+
+    @Test
+    public void testEqualsIdentityKey() throws Exception {
+        System.out.println("FamilyMemberTest.testEqualsIdentityKey");
+        Person person = new Person(new Name(), Sex.Unspecified, new Address(1, "", "", new PostalCode()), "");
+        String familyName = "";
+        Person mother = new Person(), father = new Person(), spouse = new Person();
+        Set<Person> children = new HashSet<>();
+        FamilyMember x = new FamilyMember(person, familyName, mother, father, spouse, children), y =
+                new FamilyMember(person, familyName, mother, father, spouse, children);
+        x.identify();
+
+        assertNotEquals(x, y);
+        assertEquals(x, new FamilyMember(x));
+
+        y.setIdentityKey(x.getIdentityKey());
+        y.setFamilyName(" ");
+
+        assertEquals(x, y);
+        assertEquals(x.hashCode(), y.hashCode());
+    }
+
+    @Test
+    public void testHashCodeIdentityKeyCyclicSpouses() {
+        System.out.println("FamilyMemberTest.testHashCodeIdentityKeyCyclicSpouses");
+        FamilyMember x = new FamilyMember(), y = new FamilyMember();
+        x.identify();
+        y.identify();
+        x.setSpouse(y);
+        y.setSpouse(x);
+        Set<Person> set = new HashSet<>();
+
+        assertTrue(set.add(x));
+        assertTrue(set.add(y));
+        assertTrue(set.contains(x));
+        assertFalse(set.add(x));
+    }
+
+    @Test
+    public void testDeepEqualsTrue() throws Exception {
+        System.out.println("FamilyMemberTest.testDeepEqualsTrue");
+        FamilyMember x = new FamilyMember(new Person(), "", new Person(), null, null, new HashSet<>()), y =
+                new FamilyMember(new Person(), "", new Person(), null, null, new HashSet<>());
+        x.addChild(new Person(new Name("Child", "", ""), Sex.Male, new Address(1, "", "", new PostalCode()), ""));
+        y.addChild(new Person(new Name("Child", "", ""), Sex.Male, new Address(1, "", "", new PostalCode()), ""));
+        x.identify();
+        y.identify();
+
+        assertNotEquals(x, y);
+        assertTrue(FamilyMember.deepEquals(x, y, 1));
+    }
+
+    @Test
+    public void testDeepEqualsFalse() throws Exception {
+        System.out.println("FamilyMemberTest.testDeepEqualsFalse");
+        FamilyMember x = new FamilyMember(new Person(), "", null, null, null, new HashSet<>()), y =
+                new FamilyMember(new Person(), "", null, null, null, new HashSet<>());
+        x.addChild(new Person(new Name("Child", "", ""), Sex.Male, new Address(1, "", "", new PostalCode()), ""));
+        y.addChild(new Person(new Name("Child", "", ""), Sex.Female, new Address(1, "", "", new PostalCode()), ""));
+
+        assertTrue(FamilyMember.deepEquals(x, y, 0));
+        assertFalse(FamilyMember.deepEquals(x, y, 1));
+        assertFalse(FamilyMember.deepEquals(x, null, 1));
+    }
+
+    @Test
+    public void testDeepEqualsCyclicSpouses() {
+        System.out.println("FamilyMemberTest.testDeepEqualsCyclicSpouses");
+        FamilyMember a = new FamilyMember(), b = new FamilyMember(), c = new FamilyMember(), d = new FamilyMember();
+        a.setSpouse(b);
+        b.setSpouse(a);
+        c.setSpouse(d);
+        d.setSpouse(c);
+
+        assertTrue(FamilyMember.deepEquals(a, c, Integer.MAX_VALUE));
+
+        d.setSpouse(d);
+
+        assertFalse(FamilyMember.deepEquals(a, c, Integer.MAX_VALUE));
+    }
+
     @Test
     public void testToString() throws Exception {
         System.out.println("FamilyMemberTest.testToString");
@@ -539,4 +715,28 @@ public class FamilyMemberTest {
         assertEquals(toString, instance.toString());
     }
 
+    @Test
+    public void testExternalize() throws Exception {
+        System.out.println("FamilyMemberTest.testExternalize");
+        FamilyMember mother = new FamilyMember(), child = new FamilyMember();
+        mother.setName(new Name("Mary", "", "Smith"));
+        child.setName(new Name("Jane", "", "Smith"));
+        mother.identify();
+        child.identify();
+        FamilyMember instance = new FamilyMember(mother, "Smith", null, null, null, new HashSet<>());
+        instance.setIdentityKey(mother.getIdentityKey());
+        child.setMother(instance);
+        instance.addChild(child);
+        instance.setSpouse(child);
+        FamilyMember result = externalize(instance);
+
+        assertEquals(instance, result);
+        assertEquals("Smith", result.getFamilyName());
+        assertEquals(mother.getName(), result.getName());
+        assertSame(result.getSpouse(), result.getChild(child.getName()));
+        assertSame(result, ((FamilyMember) result.getSpouse()).getMother());
+        assertTrue(result.getChildren().contains(result.getSpouse()));
+        assertTrue(new FamilyMember().identify() > child.getIdentityKey());
+    }
+
 }
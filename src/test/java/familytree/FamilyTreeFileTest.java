@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FamilyTreeFileTest {
+
+    private FamilyMember mother, father, child;
+    private Person friend;
+    private FamilyGraph graph;
+
+    public FamilyTreeFileTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Address address = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        Address blank = new Address();
+        blank.setPostalCode(new PostalCode());
+        mother = new FamilyMember(new Person(new Name("Mary", "Ann", "Smith"), Sex.Female, address, "Née Jones."),
+                                  "Smith", null, null, null, new HashSet<>());
+        father = new FamilyMember(new Person(new Name("John", null, "Smith"), Sex.Male, address, null), "Smith",
+                                  null, null, mother, new HashSet<>());
+        mother.identify();
+        father.identify();
+        mother.setSpouse(father);
+        child = new FamilyMember(new Person(new Name("Jane", "", "Smith"), Sex.Female, blank, "Biography ☺"),
+                                 "Smith", mother, father, null, new HashSet<>());
+        child.identify();
+        mother.addChild(child);
+        father.addChild(child);
+        friend = new Person();
+        graph = new FamilyGraph();
+        graph.add(child);
+        graph.add(friend);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private FamilyGraph roundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FamilyTreeFile.write(graph, out);
+        return FamilyTreeFile.read(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        System.out.println("FamilyTreeFileTest.testRoundTrip");
+        FamilyGraph result = roundTrip();
+
+        assertEquals(graph.size(), result.size());
+        for (int id = 0; id < graph.size(); id++) {
+            Person expected = graph.person(id), actual = result.person(id);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertTrue(expected.sameDetails(actual));
+            assertEquals(graph.mother(id), result.mother(id));
+            assertEquals(graph.father(id), result.father(id));
+            assertEquals(graph.spouse(id), result.spouse(id));
+            assertEquals(graph.childCount(id), result.childCount(id));
+        }
+    }
+
+    @Test
+    public void testRoundTripMember() throws Exception {
+        System.out.println("FamilyTreeFileTest.testRoundTripMember");
+        FamilyGraph result = roundTrip();
+        FamilyMember copy = (FamilyMember) result.person(graph.idOf(child));
+
+        assertEquals("Smith", copy.getFamilyName());
+        assertEquals(child.getIdentityKey(), copy.getIdentityKey());
+        assertEquals("Biography ☺", copy.getBiography());
+        assertNull(copy.getAddress().getStreetNumber());
+        assertSame(result.person(graph.idOf(mother)), copy.getMother());
+        assertTrue(((FamilyMember) copy.getMother()).getChildren().contains(copy));
+        assertEquals("AB12", copy.getMother().getAddress().getPostalCode().getCharacterSet());
+        assertEquals(12, copy.getMother().getAddress().getStreetNumber());
+        assertNull(copy.getFather().getName().getMidname());
+        assertNull(copy.getAddress().getPostalCode().getCharacterSet());
+    }
+
+    @Test
+    public void testNullChildren() throws Exception {
+        System.out.println("FamilyTreeFileTest.testNullChildren");
+        graph = new FamilyGraph();
+        graph.add(new FamilyMember());
+        FamilyMember copy = (FamilyMember) roundTrip().person(0);
+
+        assertNull(copy.getChildren());
+        assertNull(copy.getName());
+        assertNull(copy.getSex());
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        System.out.println("FamilyTreeFileTest.testEmptyGraph");
+        graph = new FamilyGraph();
+
+        assertEquals(0, roundTrip().size());
+    }
+
+    @Test
+    public void testPath() throws Exception {
+        System.out.println("FamilyTreeFileTest.testPath");
+        Path path = Files.createTempFile("family-tree", ".dat");
+        try {
+            FamilyTreeFile.write(graph, path);
+            assertEquals(graph.size(), FamilyTreeFile.read(path).size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testNotFamilyTreeFile() {
+        System.out.println("FamilyTreeFileTest.testNotFamilyTreeFile");
+
+        assertThrows(DataFormatException.class, () -> FamilyTreeFile.read(ByteBuffer.allocate(32)));
+    }
+
+    @Test
+    public void testUnsupportedVersion() throws Exception {
+        System.out.println("FamilyTreeFileTest.testUnsupportedVersion");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FamilyTreeFile.write(graph, out);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        buffer.putInt(4, FamilyTreeFile.VERSION + 1);
+
+        assertThrows(DataFormatException.class, () -> FamilyTreeFile.read(buffer));
+    }
+
+    @Test
+    public void testCorrupt() throws Exception {
+        System.out.println("FamilyTreeFileTest.testCorrupt");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FamilyTreeFile.write(graph, out);
+        byte[] bytes = out.toByteArray();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putLong(bytes.length - 12, bytes.length);
+
+        assertThrows(DataFormatException.class, () -> FamilyTreeFile.read(buffer));
+    }
+
+    @Test
+    public void testCorruptCount() throws Exception {
+        System.out.println("FamilyTreeFileTest.testCorruptCount");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FamilyTreeFile.write(graph, out);
+        for (byte last : new byte[] {0x07, 0x0F}) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            ByteBuffer strings = FamilyTreeFile.sections(buffer, FamilyTreeFile.STRINGS)[0];
+            strings.put(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, last});
+
+            assertThrows(DataFormatException.class, () -> FamilyTreeFile.read(buffer));
+        }
+    }
+
+}
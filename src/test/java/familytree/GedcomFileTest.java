@@ -0,0 +1,340 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GedcomFileTest {
+
+    private static final String FAMILY = String.join("\r\n",
+            "0 HEAD",
+            "1 CHAR UTF-8",
+            "0 @F1@ FAM",
+            "1 HUSB @I1@",
+            "1 WIFE @I2@",
+            "1 CHIL @I3@",
+            "0 @I1@ INDI",
+            "1 NAME John Paul /Smith/",
+            "1 SEX M",
+            "1 RESI",
+            "2 ADDR 12 Main Street",
+            "3 CITY Springfield",
+            "3 POST AB12",
+            "1 NOTE @N1@",
+            "0 @I2@ INDI",
+            "1 NAME Mary /Jones/",
+            "2 GIVN Maria",
+            "1 NAME Other /Name/",
+            "1 SEX F",
+            "1 NOTE First line",
+            "2 CONT second line",
+            "2 CONC , continued",
+            "0 @I3@ INDI",
+            "1 NAME Zoë /Smith/",
+            "1 SEX U",
+            "1 NOTE Email: jane@@example.com",
+            "0 TRLR",
+            "");
+
+    public GedcomFileTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private static FamilyGraph read(final String text) throws Exception {
+        return GedcomFile.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String write(final FamilyGraph graph) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GedcomFile.write(graph, Channels.newChannel(out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String write(final FamilyMember root, final GedcomFile.Lineage lineage) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GedcomFile.write(root, lineage, Channels.newChannel(out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static FamilyMember find(final FamilyGraph graph, final String forename, final String surname) {
+        for (int id = 0; id < graph.size(); id++) {
+            Name name = graph.person(id).getName();
+            if (name != null && forename.equals(name.getForename()) && surname.equals(name.getSurname())) {
+                return (FamilyMember) graph.person(id);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testIndividuals() throws Exception {
+        System.out.println("GedcomFileTest.testIndividuals");
+        FamilyGraph graph = read(FAMILY);
+        FamilyMember john = find(graph, "John", "Smith");
+
+        assertEquals(3, graph.size());
+        assertEquals(new Name("John", "Paul", "Smith"), john.getName());
+        assertEquals("Smith", john.getFamilyName());
+        assertEquals(Sex.Male, john.getSex());
+        assertEquals(12, john.getAddress().getStreetNumber());
+        assertEquals("Main Street", john.getAddress().getStreetName());
+        assertEquals("Springfield", john.getAddress().getCityName());
+        assertEquals("AB12", john.getAddress().getPostalCode().getCharacterSet());
+        assertEquals(0, graph.idOf(john));
+    }
+
+    @Test
+    public void testStructures() throws Exception {
+        System.out.println("GedcomFileTest.testStructures");
+        FamilyGraph graph = read(FAMILY);
+        FamilyMember mary = find(graph, "Maria", "Jones"), zoe = find(graph, "Zoë", "Smith");
+
+        assertNotNull(mary);
+        assertNull(mary.getName().getMidname());
+        assertEquals(Sex.Female, mary.getSex());
+        assertEquals("First line\nsecond line, continued", mary.getBiography());
+        assertNull(find(graph, "John", "Smith").getBiography());
+        assertEquals(Sex.Unspecified, zoe.getSex());
+        assertEquals("Email: jane@example.com", zoe.getBiography());
+        assertNull(zoe.getAddress());
+    }
+
+    @Test
+    public void testFamily() throws Exception {
+        System.out.println("GedcomFileTest.testFamily");
+        FamilyGraph graph = read(FAMILY);
+        FamilyMember john = find(graph, "John", "Smith"), mary = find(graph, "Maria", "Jones");
+        FamilyMember zoe = find(graph, "Zoë", "Smith");
+
+        assertSame(mary, john.getSpouse());
+        assertSame(john, mary.getSpouse());
+        assertSame(mary, zoe.getMother());
+        assertSame(john, zoe.getFather());
+        assertTrue(john.getChildren().contains(zoe));
+        assertEquals(graph.idOf(mary), graph.mother(graph.idOf(zoe)));
+        assertEquals(1, graph.childCount(graph.idOf(john)));
+    }
+
+    @Test
+    public void testUndefinedIndividual() throws Exception {
+        System.out.println("GedcomFileTest.testUndefinedIndividual");
+        FamilyGraph graph = read("0 @I1@ INDI\n1 NAME Jane /Smith/\n0 @F1@ FAM\n1 WIFE @I9@\n1 CHIL @I1@\n0 TRLR\n");
+
+        assertEquals(2, graph.size());
+        assertEquals(1, graph.mother(0));
+        assertNull(graph.person(1).getName());
+    }
+
+    @Test
+    public void testByteOrderMarkAndLineBreaks() throws Exception {
+        System.out.println("GedcomFileTest.testByteOrderMarkAndLineBreaks");
+        FamilyGraph graph = read("\uFEFF0 @I1@ INDI\r1 NAME Jane /Smith/\n\n  0 @I2@ INDI\r\n1 NAME John /Smith/");
+
+        assertEquals(2, graph.size());
+        assertEquals("John", graph.person(1).getName().getForename());
+    }
+
+    @Test
+    public void testLarge() throws Exception {
+        System.out.println("GedcomFileTest.testLarge");
+        StringBuilder text = new StringBuilder("0 HEAD\n");
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            text.append("0 @I").append(i).append("@ INDI\n1 NAME Person").append(i).append(" /Family/\n");
+            if (i > 0) {
+                text.append("0 @F").append(i).append("@ FAM\n1 HUSB @I").append(i - 1).append("@\n1 CHIL @I")
+                    .append(i).append("@\n");
+            }
+        }
+        text.append("0 @I").append(count).append("@ INDI\n1 NOTE ").append("x".repeat(200000)).append('\n');
+        FamilyGraph graph = read(text.toString());
+
+        assertEquals(count + 1, graph.size());
+        assertEquals(count - 2, graph.father(count - 1));
+        assertEquals("Person123", graph.person(123).getName().getForename());
+        assertEquals(200000, graph.person(count).getBiography().length());
+    }
+
+    @Test
+    public void testMalformed() {
+        System.out.println("GedcomFileTest.testMalformed");
+
+        assertThrows(DataFormatException.class, () -> read("0 HEAD\nINDI\n"));
+        assertThrows(DataFormatException.class, () -> read("0 @I1 INDI\n"));
+    }
+
+    @Test
+    public void testSlowStream() throws Exception {
+        System.out.println("GedcomFileTest.testSlowStream");
+        byte[] bytes = FAMILY.getBytes(StandardCharsets.UTF_8);
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+
+        assertEquals(3, GedcomFile.read(in).size());
+    }
+
+    @Test
+    public void testWriteRoundTrip() throws Exception {
+        System.out.println("GedcomFileTest.testWriteRoundTrip");
+        FamilyGraph graph = read(FAMILY);
+        String text = write(graph);
+        FamilyGraph result = read(text);
+
+        assertTrue(text.startsWith("0 HEAD\n"));
+        assertTrue(text.endsWith("0 TRLR\n"));
+        assertEquals(graph.size(), result.size());
+        for (int id = 0; id < graph.size(); id++) {
+            assertTrue(graph.person(id).sameDetails(result.person(id)));
+            assertEquals(graph.mother(id), result.mother(id));
+            assertEquals(graph.father(id), result.father(id));
+            assertEquals(graph.spouse(id), result.spouse(id));
+        }
+        assertEquals(text, write(result));
+    }
+
+    @Test
+    public void testWriteRecords() throws Exception {
+        System.out.println("GedcomFileTest.testWriteRecords");
+        String text = write(read(FAMILY));
+
+        assertTrue(text.contains("0 @I1@ INDI\n1 NAME John Paul /Smith/\n2 GIVN John Paul\n2 SURN Smith\n1 SEX M\n"));
+        assertTrue(text.contains("1 RESI\n2 ADDR 12 Main Street\n3 ADR1 12 Main Street\n3 CITY Springfield\n"));
+        assertTrue(text.contains("1 NOTE Email: jane@@example.com\n"));
+        assertTrue(text.contains("0 @F1@ FAM\n1 HUSB @I1@\n1 WIFE @I2@\n1 CHIL @I3@\n"));
+        assertTrue(text.contains("1 FAMS @F1@\n"));
+        assertTrue(text.contains("1 FAMC @F1@\n"));
+    }
+
+    @Test
+    public void testWriteLongNote() throws Exception {
+        System.out.println("GedcomFileTest.testWriteLongNote");
+        FamilyMember member = member("Jane", Sex.Female, null, null);
+        String biography = "a".repeat(450) + "\nsecond 😀 line\r\n" + "b".repeat(199) + "😀" + "c".repeat(10);
+        member.setBiography(biography);
+        FamilyGraph graph = graph(member);
+        String text = write(graph);
+
+        assertTrue(text.contains("2 CONC "));
+        assertTrue(text.contains("2 CONT second 😀 line\n"));
+        assertEquals(biography.replace("\r\n", "\n"), read(text).person(0).getBiography());
+    }
+
+    @Test
+    public void testWriteNoteRoundTrip() throws Exception {
+        System.out.println("GedcomFileTest.testWriteNoteRoundTrip");
+        for (String biography : new String[]{"\nSecond line", "@home", "@@home\n@work", "", "\n\nThird line"}) {
+            FamilyMember member = member("Jane", Sex.Female, null, null);
+            member.setBiography(biography);
+
+            assertEquals(biography, read(write(graph(member))).person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testWriteAncestors() throws Exception {
+        System.out.println("GedcomFileTest.testWriteAncestors");
+        FamilyMember grandmother = member("Grandmother", Sex.Female, null, null);
+        FamilyMember mother = member("Mother", Sex.Female, grandmother, null);
+        FamilyMember self = member("Self", Sex.Unspecified, mother, null);
+        FamilyMember child = member("Child", Sex.Unspecified, self, null);
+        FamilyMember aunt = member("Aunt", Sex.Female, grandmother, null);
+        graph(self, aunt, child);
+        FamilyGraph result = read(write(self, GedcomFile.Lineage.ANCESTORS));
+
+        assertEquals(3, result.size());
+        assertNotNull(find(result, "Grandmother", "Smith"));
+        assertNull(find(result, "Aunt", "Smith"));
+        assertNull(find(result, "Child", "Smith"));
+        assertSame(find(result, "Mother", "Smith"), find(result, "Self", "Smith").getMother());
+    }
+
+    @Test
+    public void testWriteDescendants() throws Exception {
+        System.out.println("GedcomFileTest.testWriteDescendants");
+        FamilyMember grandmother = member("Grandmother", Sex.Female, null, null);
+        FamilyMember mother = member("Mother", Sex.Female, grandmother, null);
+        FamilyMember self = member("Self", Sex.Unspecified, mother, null);
+        FamilyMember child = member("Child", Sex.Unspecified, self, null);
+        FamilyMember aunt = member("Aunt", Sex.Female, grandmother, null);
+        graph(self, aunt, child);
+        FamilyGraph result = read(write(mother, GedcomFile.Lineage.DESCENDANTS));
+
+        assertEquals(3, result.size());
+        assertNull(find(result, "Grandmother", "Smith"));
+        assertNull(find(result, "Mother", "Smith").getMother());
+        assertSame(find(result, "Self", "Smith"), find(result, "Child", "Smith").getMother());
+        assertThrows(IllegalArgumentException.class,
+                     () -> write(member("Unbound", Sex.Unspecified, null, null), GedcomFile.Lineage.DESCENDANTS));
+    }
+
+    @Test
+    public void testWriteSharedSpouse() throws Exception {
+        System.out.println("GedcomFileTest.testWriteSharedSpouse");
+        FamilyMember first = member("First", Sex.Male, null, null), second = member("Second", Sex.Female, null, null);
+        FamilyMember third = member("Third", Sex.Female, null, null);
+        first.setSpouse(second);
+        second.setSpouse(first);
+        third.setSpouse(first);
+        FamilyGraph graph = graph(first, second, third);
+        String text = write(graph);
+
+        assertEquals(2, text.split(" FAM\n", -1).length - 1);
+        assertTrue(text.contains("0 @F1@ FAM\n1 HUSB @I1@\n1 WIFE @I2@\n"));
+        assertTrue(text.contains("0 @F2@ FAM\n1 HUSB @I1@\n1 WIFE @I3@\n"));
+    }
+
+}
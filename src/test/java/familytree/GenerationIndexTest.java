@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenerationIndexTest {
+
+    private FamilyMember grandmother, mother, father, child;
+    private FamilyGraph graph;
+
+    public GenerationIndexTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        grandmother = member();
+        mother = member(grandmother, null);
+        father = member();
+        child = member(mother, father);
+        graph = graph(child);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testGeneration() {
+        System.out.println("GenerationIndexTest.testGeneration");
+        GenerationIndex instance = new GenerationIndex(graph);
+
+        assertEquals(0, instance.generation(graph.idOf(grandmother)));
+        assertEquals(1, instance.generation(graph.idOf(mother)));
+        assertEquals(0, instance.generation(graph.idOf(father)));
+        assertEquals(2, instance.generation(graph.idOf(child)));
+        assertEquals(3, instance.generationCount());
+        assertTrue(instance.isAcyclic());
+    }
+
+    @Test
+    public void testSetFatherUpdates() {
+        System.out.println("GenerationIndexTest.testSetFatherUpdates");
+        GenerationIndex instance = new GenerationIndex(graph);
+        FamilyMember grandfather = member(), greatGrandfather = member();
+        father.setFather(grandfather);
+        grandfather.setFather(greatGrandfather);
+
+        assertEquals(3, instance.generation(graph.idOf(child)));
+        assertEquals(2, instance.generation(graph.idOf(father)));
+
+        father.setFather(null);
+
+        assertEquals(2, instance.generation(graph.idOf(child)));
+        assertEquals(0, instance.generation(graph.idOf(father)));
+    }
+
+    @Test
+    public void testAddChildUpdates() throws Exception {
+        System.out.println("GenerationIndexTest.testAddChildUpdates");
+        GenerationIndex instance = new GenerationIndex(graph);
+        FamilyMember grandchild = member();
+
+        child.addChild(grandchild);
+
+        assertEquals(3, instance.generation(graph.idOf(grandchild)));
+        assertEquals(4, instance.generationCount());
+    }
+
+    @Test
+    public void testCycle() {
+        System.out.println("GenerationIndexTest.testCycle");
+        GenerationIndex instance = new GenerationIndex(graph);
+
+        grandmother.setMother(child);
+
+        assertFalse(instance.isAcyclic());
+        assertEquals(FamilyGraph.NONE, instance.generation(graph.idOf(mother)));
+        assertEquals(0, instance.generation(graph.idOf(father)));
+        assertTrue(instance.cyclicMembers().get(graph.idOf(child)));
+        assertFalse(instance.cyclicMembers().get(graph.idOf(father)));
+
+        grandmother.setMother(null);
+
+        assertTrue(instance.isAcyclic());
+        assertEquals(2, instance.generation(graph.idOf(child)));
+    }
+
+    @Test
+    public void testLargeGraph() {
+        System.out.println("GenerationIndexTest.testLargeGraph");
+        Random random = new Random(42);
+        List<FamilyMember> members = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Person mother = i < 100 ? null : members.get(random.nextInt(i));
+            Person father = i < 100 ? null : members.get(random.nextInt(i));
+            members.add(member(mother, father));
+        }
+        FamilyGraph large = new FamilyGraph();
+        large.addAll(members);
+        GenerationIndex instance = new GenerationIndex(large);
+
+        for (FamilyMember member : members) {
+            int expected = 0;
+            if (member.getMother() != null) {
+                expected = Math.max(expected, instance.generation(large.idOf(member.getMother())) + 1);
+            }
+            if (member.getFather() != null) {
+                expected = Math.max(expected, instance.generation(large.idOf(member.getFather())) + 1);
+            }
+            assertEquals(expected, instance.generation(large.idOf(member)));
+        }
+    }
+
+}
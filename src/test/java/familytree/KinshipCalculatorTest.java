@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KinshipCalculatorTest {
+
+    private static final double DELTA = 1e-12;
+
+    private FamilyMember grandmother, grandfather, mother, father, uncle, aunt, self, sister, cousin, inbred;
+    private FamilyGraph graph;
+
+    public KinshipCalculatorTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        grandmother = member();
+        grandfather = member();
+        mother = member(grandmother, grandfather);
+        father = member();
+        uncle = member(grandmother, grandfather);
+        aunt = member();
+        self = member(mother, father);
+        sister = member(mother, father);
+        cousin = member(aunt, uncle);
+        inbred = member(cousin, self);
+        graph = graph(sister, inbred);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private int id(final Person person) {
+        return graph.idOf(person);
+    }
+
+    @Test
+    public void testKinshipSelf() {
+        System.out.println("KinshipCalculatorTest.testKinshipSelf");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+
+        assertEquals(0.5, instance.kinship(id(self), id(self)), DELTA);
+        assertEquals(0.5 + 1.0 / 32.0, instance.kinship(id(inbred), id(inbred)), DELTA);
+    }
+
+    @Test
+    public void testKinshipRelatives() {
+        System.out.println("KinshipCalculatorTest.testKinshipRelatives");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+
+        assertEquals(0.25, instance.kinship(id(self), id(mother)), DELTA);
+        assertEquals(0.25, instance.kinship(id(sister), id(self)), DELTA);
+        assertEquals(0.125, instance.kinship(id(self), id(grandfather)), DELTA);
+        assertEquals(1.0 / 16.0, instance.kinship(id(self), id(cousin)), DELTA);
+        assertEquals(0.0, instance.kinship(id(self), id(aunt)), DELTA);
+    }
+
+    @Test
+    public void testInbreeding() {
+        System.out.println("KinshipCalculatorTest.testInbreeding");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+
+        assertEquals(1.0 / 16.0, instance.inbreeding(id(inbred)), DELTA);
+        assertEquals(0.0, instance.inbreeding(id(self)), DELTA);
+        assertEquals(0.0, instance.inbreeding(id(grandmother)), DELTA);
+    }
+
+    @Test
+    public void testKinshipCohort() {
+        System.out.println("KinshipCalculatorTest.testKinshipCohort");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+        int[] cohort = new int[graph.size()];
+        for (int i = 0; i < cohort.length; i++) {
+            cohort[i] = i;
+        }
+        List<KinshipCalculator.Batch> batches = new ArrayList<>();
+
+        instance.kinship(cohort, 7, batches::add);
+
+        int pairs = 0;
+        for (KinshipCalculator.Batch batch : batches) {
+            assertTrue(batch.size() <= 7);
+            for (int i = 0; i < batch.size(); i++) {
+                assertTrue(batch.first(i) != batch.second(i));
+                assertEquals(instance.kinship(batch.first(i), batch.second(i)), batch.kinship(i), DELTA);
+                pairs++;
+            }
+        }
+        assertEquals(cohort.length * (cohort.length - 1) / 2, pairs);
+    }
+
+    @Test
+    public void testKinshipCohortNotMemoized() {
+        System.out.println("KinshipCalculatorTest.testKinshipCohortNotMemoized");
+        List<Person> siblings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            siblings.add(member(mother, father));
+        }
+        graph.addAll(siblings);
+        KinshipCalculator instance = new KinshipCalculator(graph);
+        int[] cohort = new int[siblings.size()];
+        for (int i = 0; i < cohort.length; i++) {
+            cohort[i] = id(siblings.get(i));
+        }
+        double[] total = new double[1];
+
+        instance.kinship(cohort, 64, batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                total[0] += batch.kinship(i);
+            }
+        });
+
+        assertEquals(0.25 * cohort.length * (cohort.length - 1) / 2, total[0], 1e-9);
+        assertTrue(instance.memoSize() < 4 * cohort.length, "memoized " + instance.memoSize() + " pairs");
+    }
+
+    @Test
+    public void testKinshipCohortInvalidBatchSize() {
+        System.out.println("KinshipCalculatorTest.testKinshipCohortInvalidBatchSize");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+
+        assertThrows(IllegalArgumentException.class, () -> instance.kinship(new int[0], 0, batch -> {
+        }));
+    }
+
+    @Test
+    public void testGraphChanged() {
+        System.out.println("KinshipCalculatorTest.testGraphChanged");
+        KinshipCalculator instance = new KinshipCalculator(graph);
+
+        aunt.setMother(member());
+
+        assertThrows(ConcurrentModificationException.class, () -> instance.kinship(id(self), id(cousin)));
+    }
+
+    @Test
+    public void testCycle() {
+        System.out.println("KinshipCalculatorTest.testCycle");
+        grandmother.setMother(self);
+
+        assertThrows(IllegalStateException.class, () -> new KinshipCalculator(graph));
+    }
+
+}
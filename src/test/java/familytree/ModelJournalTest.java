@@ -0,0 +1,336 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelJournalTest {
+
+    private Path directory, base, journal;
+    private FamilyMember mother, father;
+    private FamilyGraph graph;
+
+    public ModelJournalTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("model-journal");
+        base = directory.resolve("tree.dat");
+        journal = directory.resolve("tree.dat.journal");
+        Address address = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        mother = new FamilyMember(new Person(new Name("Mary", "Ann", "Smith"), Sex.Female, address, "Née Jones."),
+                                  "Smith", null, null, null, new HashSet<>());
+        father = new FamilyMember(new Person(new Name("John", null, "Smith"), Sex.Male, address, null), "Smith",
+                                  null, null, mother, new HashSet<>());
+        mother.identify();
+        father.identify();
+        mother.setSpouse(father);
+        graph = new FamilyGraph();
+        graph.add(mother);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private FamilyMember edit(final ModelJournal journal) throws Exception {
+        FamilyGraph edited = journal.getGraph();
+        FamilyMember mary = (FamilyMember) edited.person(0);
+        FamilyMember child = new FamilyMember(new Person(), "Smith", mary, mary.getSpouse(), null, new HashSet<>());
+        child.setName(new Name("Jane", null, "Smith"));
+        child.identify();
+        mary.addChild(child);
+        ((FamilyMember) mary.getSpouse()).addChild(child);
+        child.setSex(Sex.Female);
+        child.setBiography("Biography ☺");
+        mary.setName(new Name("Mary", "Ann", "Jones"));
+        mary.setFamilyName("Jones");
+        Address moved = new Address();
+        moved.setCityName("Shelbyville");
+        mary.setAddress(moved);
+        return child;
+    }
+
+    private static void assertSameGraph(final FamilyGraph expected, final FamilyGraph actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int id = 0; id < expected.size(); id++) {
+            Person person = expected.person(id), copy = actual.person(id);
+            assertEquals(person.getClass(), copy.getClass());
+            assertTrue(person.sameDetails(copy));
+            assertEquals(expected.mother(id), actual.mother(id));
+            assertEquals(expected.father(id), actual.father(id));
+            assertEquals(expected.spouse(id), actual.spouse(id));
+            assertEquals(expected.childCount(id), actual.childCount(id));
+            if (person instanceof FamilyMember member) {
+                assertEquals(member.getFamilyName(), ((FamilyMember) copy).getFamilyName());
+                assertEquals(member.getIdentityKey(), ((FamilyMember) copy).getIdentityKey());
+            }
+        }
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        System.out.println("ModelJournalTest.testReplay");
+        FamilyGraph edited;
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            long size = Files.size(base);
+            edit(instance);
+            assertTrue(instance.unsavedBytes() > 0);
+            instance.save();
+            assertEquals(0, instance.unsavedBytes());
+            assertTrue(instance.journalBytes() > 0);
+            assertEquals(size, Files.size(base));
+            edited = instance.getGraph();
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertSameGraph(edited, instance.getGraph());
+            FamilyMember mary = (FamilyMember) instance.getGraph().person(0);
+            assertEquals("Jones", mary.getFamilyName());
+            assertEquals("Shelbyville", mary.getAddress().getCityName());
+            assertNull(mary.getAddress().getPostalCode());
+            assertEquals(1, mary.getChildren().size());
+        }
+    }
+
+    @Test
+    public void testCloseSaves() throws Exception {
+        System.out.println("ModelJournalTest.testCloseSaves");
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            instance.getGraph().person(0).setBiography("Saved on close.");
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("Saved on close.", instance.getGraph().person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testRemoveChild() throws Exception {
+        System.out.println("ModelJournalTest.testRemoveChild");
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            FamilyMember child = edit(instance);
+            instance.save();
+            FamilyMember mary = (FamilyMember) instance.getGraph().person(0);
+            mary.removeChild(child.getName());
+            mary.setSpouse(null);
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            FamilyMember mary = (FamilyMember) instance.getGraph().person(0);
+            assertTrue(mary.getChildren().isEmpty());
+            assertNull(mary.getSpouse());
+            assertEquals(3, instance.getGraph().size());
+        }
+    }
+
+    @Test
+    public void testNullChild() throws Exception {
+        System.out.println("ModelJournalTest.testNullChild");
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            FamilyMember mary = (FamilyMember) instance.getGraph().person(0);
+            assertTrue(mary.addChild(null));
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            FamilyMember mary = (FamilyMember) instance.getGraph().person(0);
+            assertTrue(mary.getChildren().contains(null));
+            assertTrue(mary.unlinkChild(null));
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertFalse(((FamilyMember) instance.getGraph().person(0)).getChildren().contains(null));
+        }
+    }
+
+    @Test
+    public void testTornTail() throws Exception {
+        System.out.println("ModelJournalTest.testTornTail");
+        FamilyGraph edited;
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            edit(instance);
+            instance.save();
+            edited = instance.getGraph();
+            instance.getGraph().person(0).setBiography("Torn.");
+        }
+
+        long size = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("Née Jones.", instance.getGraph().person(0).getBiography());
+            assertEquals(edited.size(), instance.getGraph().size());
+            instance.getGraph().person(0).setBiography("Rewritten.");
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("Rewritten.", instance.getGraph().person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testCorruptRecord() throws Exception {
+        System.out.println("ModelJournalTest.testCorruptRecord");
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            instance.getGraph().person(0).setBiography("First.");
+            instance.save();
+            instance.getGraph().person(0).setBiography("Second.");
+        }
+
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x55}), channel.size() - 6);
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("First.", instance.getGraph().person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testStaleJournal() throws Exception {
+        System.out.println("ModelJournalTest.testStaleJournal");
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            instance.getGraph().person(0).setBiography("Journaled.");
+        }
+
+        graph.person(0).setBiography("Replaced.");
+        FamilyTreeFile.write(graph, base);
+        Files.setLastModifiedTime(base, FileTime.fromMillis(Files.getLastModifiedTime(base).toMillis() + 2000));
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("Replaced.", instance.getGraph().person(0).getBiography());
+            assertEquals(0, instance.journalBytes());
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        System.out.println("ModelJournalTest.testCompact");
+        FamilyGraph edited;
+        try (ModelJournal instance = ModelJournal.create(graph, base)) {
+            edit(instance);
+            instance.save();
+            instance.compact();
+            assertEquals(0, instance.journalBytes());
+            assertSameGraph(instance.getGraph(), FamilyTreeFile.read(base));
+
+            instance.getGraph().person(0).setSex(null);
+            edited = instance.getGraph();
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertSameGraph(edited, instance.getGraph());
+            assertNull(instance.getGraph().person(0).getSex());
+        }
+    }
+
+    @Test
+    public void testCreateInBackground() throws Exception {
+        System.out.println("ModelJournalTest.testCreateInBackground");
+        CountDownLatch done = new CountDownLatch(1);
+        try (SaveService service = new SaveService(Runnable::run)) {
+            ModelJournal instance = ModelJournal.create(graph, base, service, (target, failure) -> done.countDown());
+            graph.person(0).setBiography("Changed after the snapshot.");
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            // The change may have been made after the journal file was started, so it is saved again here.
+            instance.save();
+            assertEquals("Née Jones.", FamilyTreeFile.read(base).person(0).getBiography());
+            assertTrue(instance.journalBytes() > 0);
+            instance.close();
+        }
+
+        try (ModelJournal instance = ModelJournal.open(base)) {
+            assertEquals("Changed after the snapshot.", instance.getGraph().person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testCloseBeforeCreationNotified() throws Exception {
+        System.out.println("ModelJournalTest.testCloseBeforeCreationNotified");
+        List<Runnable> notifications = new ArrayList<>();
+        List<IOException> failures = new ArrayList<>();
+        SaveService service = new SaveService(notifications::add);
+        ModelJournal instance = ModelJournal.create(graph, base, service, (target, failure) -> failures.add(failure));
+        graph.person(0).setBiography("Changed after the snapshot.");
+        service.close();
+        instance.close();
+        notifications.forEach(Runnable::run);
+
+        assertEquals(Collections.singletonList(null), failures);
+        try (ModelJournal reopened = ModelJournal.open(base)) {
+            assertEquals("Changed after the snapshot.", reopened.getGraph().person(0).getBiography());
+        }
+    }
+
+    @Test
+    public void testSaveAfterClose() throws Exception {
+        System.out.println("ModelJournalTest.testSaveAfterClose");
+        ModelJournal instance = ModelJournal.create(graph, base);
+        instance.close();
+
+        assertThrows(IllegalStateException.class, instance::save);
+        instance.getGraph().person(0).setBiography("Not journaled.");
+        assertEquals(0, instance.unsavedBytes());
+    }
+
+}
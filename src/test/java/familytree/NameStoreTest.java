@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameStoreTest {
+
+    public NameStoreTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testRoundTrip() {
+        System.out.println("NameStoreTest.testRoundTrip");
+        NameStore store = new NameStore(0);
+        Name[] names = {
+            new Name("Zoë", "Anne", "Müller"), new Name("Łukasz", null, "Wałęsa"), new Name(null, null, null),
+            new Name("", "", ""), new Name("花子", null, "山田")
+        };
+        for (Name name : names) {
+            store.add(name);
+        }
+
+        assertEquals(names.length, store.size());
+        for (int row = 0; row < names.length; row++) {
+            assertEquals(names[row], store.name(row));
+            assertTrue(store.matches(row, names[row]));
+        }
+        assertNull(store.midname(1));
+        assertEquals("Müller", store.surname(0).toString());
+        // One byte per Latin-1 character, two per character of the other parts.
+        assertEquals("ZoëAnneMüller".length() + 2 * "ŁukaszWałęsa花子山田".length(), store.byteSize());
+    }
+
+    @Test
+    public void testView() {
+        System.out.println("NameStoreTest.testView");
+        NameStore store = new NameStore();
+        int row = store.add(new Name("Wilhelmina", null, "Łódź"));
+        CharSequence forename = store.forename(row), surname = store.surname(row);
+
+        assertEquals(10, forename.length());
+        assertEquals('W', forename.charAt(0));
+        assertEquals("helm", forename.subSequence(3, 7).toString());
+        assertEquals('ó', surname.charAt(1));
+        assertEquals("ód", surname.subSequence(1, 3).toString());
+        assertEquals("Wilhelmina".hashCode(), forename.hashCode());
+        assertEquals(forename, store.forename(store.add(new Name("Wilhelmina", "", ""))));
+        assertThrows(IndexOutOfBoundsException.class, () -> forename.charAt(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> surname.subSequence(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.part(row, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.forename(2));
+    }
+
+    @Test
+    public void testViewOutlivesGrowth() {
+        System.out.println("NameStoreTest.testViewOutlivesGrowth");
+        NameStore store = new NameStore(1);
+        CharSequence surname = store.surname(store.add(new Name("John", null, "Smith")));
+        for (int i = 0; i < 1000; i++) {
+            store.add(new Name("Forename" + i, null, "Surname" + i));
+        }
+
+        assertEquals("Smith", surname.toString());
+        assertEquals(1001, store.size());
+    }
+
+    @Test
+    public void testCompare() {
+        System.out.println("NameStoreTest.testCompare");
+        NameStore store = new NameStore();
+        String[][] names = {
+            {"Anna", null, "Smith"}, {"Anna", "Marie", "Smith"}, {"Bob", null, "Smith"}, {"Zed", null, "Smit"},
+            {null, null, null}, {"Ärne", null, "Smith"}, {"Łucja", null, "Smith"}, {"Anna", null, "Smithson"}
+        };
+        for (String[] name : names) {
+            store.add(new Name(name[0], name[1], name[2]));
+        }
+
+        for (int row = 0; row < names.length; row++) {
+            for (int other = 0; other < names.length; other++) {
+                assertEquals(Integer.signum(expected(names[row], names[other])),
+                             Integer.signum(store.compare(row, other)), row + " " + other);
+            }
+        }
+    }
+
+    private static int expected(final String[] name, final String[] other) {
+        for (int part : new int[] {2, 0, 1}) {
+            if (name[part] == null || other[part] == null) {
+                int result = Boolean.compare(name[part] != null, other[part] != null);
+                if (result != 0) {
+                    return result;
+                }
+            } else if (name[part].compareTo(other[part]) != 0) {
+                return name[part].compareTo(other[part]);
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void testMatches() {
+        System.out.println("NameStoreTest.testMatches");
+        NameStore store = new NameStore();
+        int row = store.add(new Name("Jan", null, "Kowalski"));
+
+        assertTrue(store.matches(row, new Name("Jan", null, "Kowalski")));
+        assertFalse(store.matches(row, new Name("Jan", "", "Kowalski")));
+        assertFalse(store.matches(row, new Name("Jen", null, "Kowalski")));
+        assertFalse(store.matches(row, new Name("Jan", null, "Kowalska")));
+    }
+
+    @Test
+    public void testOf() {
+        System.out.println("NameStoreTest.testOf");
+        FamilyGraph graph = new FamilyGraph();
+        graph.add(new Person(new Name("Alice", null, "Smith"), Sex.Female, new Address(), null));
+        graph.add(new Person(new Name("Bob", "James", "Smith"), Sex.Male, new Address(), null));
+        NameStore store = NameStore.of(graph);
+
+        assertEquals(graph.size(), store.size());
+        for (int id = 0; id < graph.size(); id++) {
+            assertTrue(store.matches(id, graph.person(id).getName()));
+        }
+    }
+
+    @Test
+    public void testNullName() {
+        System.out.println("NameStoreTest.testNullName");
+        FamilyGraph graph = new FamilyGraph();
+        graph.add(new Person());
+        NameStore store = NameStore.of(graph);
+
+        assertEquals(1, store.size());
+        assertNull(store.forename(0));
+        assertNull(store.midname(0));
+        assertNull(store.surname(0));
+        assertEquals(new Name(), store.name(0));
+        assertTrue(store.matches(0, null));
+        assertTrue(store.matches(0, new Name()));
+        assertEquals(0, store.compare(0, store.add(null)));
+    }
+
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static familytree.Serialization.externalize;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class NameTest {
@@ -308,4 +309,15 @@ public class NameTest {
         assertEquals(toString, instance.toString());
     }
 
+    @Test
+    public void testExternalize() throws Exception {
+        System.out.println("NameTest.testExternalize");
+        Name instance = new Name("Zoë", null, "Smith");
+        Name result = externalize(instance);
+
+        assertEquals(instance, result);
+        assertNull(result.getMidname());
+        assertEquals(new Name(), externalize(new Name()));
+    }
+
 }
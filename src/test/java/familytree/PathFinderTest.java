@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathFinderTest {
+
+    private FamilyMember grandmother, mother, father, self, uncle, cousin, cousinWife, inLaw, stranger;
+    private FamilyGraph graph;
+    private PathFinder instance;
+
+    public PathFinderTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        grandmother = member();
+        mother = member(grandmother, null);
+        father = member();
+        self = member(mother, father);
+        uncle = member(grandmother, null);
+        cousin = member(null, uncle);
+        inLaw = member();
+        cousinWife = member(inLaw, null);
+        cousin.setSpouse(cousinWife);
+        stranger = member();
+        graph = graph(self, cousin, stranger);
+        instance = new PathFinder(graph);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private int[] ids(final Person... persons) {
+        final int[] ids = new int[persons.length];
+        for (int i = 0; i < persons.length; i++) {
+            ids[i] = graph.idOf(persons[i]);
+        }
+        return ids;
+    }
+
+    private int[] path(final Person from, final Person to) {
+        return instance.shortestPath(graph.idOf(from), graph.idOf(to));
+    }
+
+    @Test
+    public void testSelf() {
+        System.out.println("PathFinderTest.testSelf");
+
+        assertArrayEquals(ids(self), path(self, self));
+    }
+
+    @Test
+    public void testParentAndChild() {
+        System.out.println("PathFinderTest.testParentAndChild");
+
+        assertArrayEquals(ids(self, mother), path(self, mother));
+        assertArrayEquals(ids(mother, self), path(mother, self));
+        assertArrayEquals(ids(father, self, mother), path(father, mother));
+    }
+
+    @Test
+    public void testCousin() {
+        System.out.println("PathFinderTest.testCousin");
+
+        assertArrayEquals(ids(self, mother, grandmother, uncle, cousin), path(self, cousin));
+        assertArrayEquals(ids(cousin, uncle, grandmother, mother, self), path(cousin, self));
+    }
+
+    @Test
+    public void testSpouse() {
+        System.out.println("PathFinderTest.testSpouse");
+
+        assertArrayEquals(ids(self, mother, grandmother, uncle, cousin, cousinWife, inLaw), path(self, inLaw));
+        assertArrayEquals(ids(inLaw, cousinWife, cousin), path(inLaw, cousin));
+    }
+
+    @Test
+    public void testUnconnected() {
+        System.out.println("PathFinderTest.testUnconnected");
+
+        assertNull(path(self, stranger));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        System.out.println("PathFinderTest.testMaxDepth");
+        instance.setMaxDepth(3);
+
+        assertNull(path(self, cousin));
+        instance.setMaxDepth(4);
+        assertEquals(5, path(self, cousin).length);
+        assertThrows(IllegalArgumentException.class, () -> instance.setMaxDepth(-1));
+    }
+
+    @Test
+    public void testChangedGraph() {
+        System.out.println("PathFinderTest.testChangedGraph");
+        assertNull(path(self, stranger));
+        stranger.setSpouse(father);
+
+        assertArrayEquals(ids(self, father, stranger), path(self, stranger));
+    }
+
+    @Test
+    public void testInvalidId() {
+        System.out.println("PathFinderTest.testInvalidId");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.shortestPath(0, graph.size()));
+    }
+
+}
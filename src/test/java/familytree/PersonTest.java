@@ -29,6 +29,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static familytree.Serialization.externalize;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PersonTest {
@@ -163,6 +164,29 @@ public class PersonTest {
         assertEquals(address, instance.getAddress());
     }
 
+    @Test
+    public void testGetAddressUnchangeable() throws Exception {
+        System.out.println("PersonTest.testGetAddressUnchangeable");
+        Person instance = new Person();
+        instance.setAddress(new Address(12, "Main Street", "Springfield", new PostalCode("AB12")));
+
+        assertThrows(UnsupportedOperationException.class, () -> instance.getAddress().setCityName("Shelbyville"));
+
+        Address moved = new Address(instance.getAddress());
+        moved.setCityName("Shelbyville");
+        instance.setAddress(moved);
+
+        assertEquals("Shelbyville", instance.getAddress().getCityName());
+    }
+
+    @Test
+    public void testNullAddress() {
+        System.out.println("PersonTest.testNullAddress");
+        Person instance = new Person(new Name(), Sex.Unspecified, null, "");
+
+        assertNull(instance.getAddress());
+    }
+
     @Test
     public void testGetBiography() throws Exception {
         System.out.println("PersonTest.testGetBiography");
@@ -373,4 +397,50 @@ public class PersonTest {
         assertEquals(toString, instance.toString());
     }
 
+    @Test
+    public void testExternalize() throws Exception {
+        System.out.println("PersonTest.testExternalize");
+        Address address = new Address(1, "Main Street", "Springfield", new PostalCode("AB12"));
+        Person instance = new Person(new Name("Jane", "", "Smith"), Sex.Female, address, "Biography.");
+
+        assertEquals(instance, externalize(instance));
+        assertEquals(new Person(), externalize(new Person()));
+    }
+
+    @Test
+    public void testStoredBiography() throws Exception {
+        System.out.println("PersonTest.testStoredBiography");
+        String biography = "Born in Springfield. ".repeat(100);
+        Person instance = new Person(), unbound = new Person();
+        instance.setBiography(biography);
+        unbound.setBiography(biography);
+        FamilyGraph graph = new FamilyGraph();
+        graph.add(instance);
+
+        assertEquals(1, graph.biographies().size());
+        assertEquals(biography, instance.getBiography());
+        assertEquals(unbound, instance);
+        assertEquals(unbound.hashCode(), instance.hashCode());
+        assertEquals(instance, new Person(instance));
+
+        instance.setBiography("Short.");
+        assertEquals("Short.", instance.getBiography());
+        assertEquals(1, graph.biographies().size());
+        instance.setBiography(biography + "Died in Shelbyville.");
+        assertEquals(2, graph.biographies().size());
+        assertEquals(biography + "Died in Shelbyville.", externalize(instance).getBiography());
+    }
+
+    @Test
+    public void testSharedAddress() throws Exception {
+        System.out.println("PersonTest.testSharedAddress");
+        Person mother = new Person(new Name("Mary", null, "Smith"), Sex.Female,
+                                   new Address(12, "Main Street", "Springfield", new PostalCode("AB12")), null);
+        Person child = new Person();
+        child.setAddress(new Address(12, "Main Street", "Springfield", new PostalCode("AB12")));
+
+        assertSame(mother.getAddress(), child.getAddress());
+        assertTrue(mother.getAddress().isFrozen());
+        assertSame(mother.getAddress(), externalize(mother).getAddress());
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostalCodeFormatTest {
+
+    public PostalCodeFormatTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testGenericMatchesCharacterSetPattern() {
+        System.out.println("PostalCodeFormatTest.testGenericMatchesCharacterSetPattern");
+        Pattern pattern = Pattern.compile("^[a-zA-Z0-9]*(-\\s)*[a-zA-Z0-9]*$");
+        String[] codes = {"", "AB12", "ab12", "AB- 12", "AB-\t12", "- - ", "AB-", "AB 12", "AB-12", "12- AB- CD",
+                          "12- AB3", "-", "- ", "AB_12", "AB12!", "É1", "AB- 12- ", "AB- 12 "};
+        for (String code : codes) {
+            assertEquals(pattern.matcher(code).matches(), PostalCodeFormat.GENERIC.matches(code), code);
+        }
+    }
+
+    @Test
+    public void testCountryFormats() {
+        System.out.println("PostalCodeFormatTest.testCountryFormats");
+        assertTrue(PostalCodeFormat.AU.matches("2000"));
+        assertFalse(PostalCodeFormat.AU.matches("200"));
+        assertFalse(PostalCodeFormat.AU.matches("20000"));
+        assertTrue(PostalCodeFormat.US.matches("90210"));
+        assertTrue(PostalCodeFormat.US.matches("90210-1234"));
+        assertFalse(PostalCodeFormat.US.matches("90210-"));
+        assertTrue(PostalCodeFormat.CA.matches("K1A 0B1"));
+        assertTrue(PostalCodeFormat.CA.matches("k1a0b1"));
+        assertFalse(PostalCodeFormat.CA.matches("K1A-0B1"));
+        assertTrue(PostalCodeFormat.GB.matches("SW1A 1AA"));
+        assertTrue(PostalCodeFormat.GB.matches("M1 1AE"));
+        assertTrue(PostalCodeFormat.GB.matches("CR2 6XH"));
+        assertFalse(PostalCodeFormat.GB.matches("SW1A1AA"));
+        assertTrue(PostalCodeFormat.NL.matches("1012 AB"));
+        assertTrue(PostalCodeFormat.DE.matches("10115"));
+        assertFalse(PostalCodeFormat.DE.matches("1011A"));
+    }
+
+    @Test
+    public void testNull() {
+        System.out.println("PostalCodeFormatTest.testNull");
+        for (PostalCodeFormat format : PostalCodeFormat.values()) {
+            assertFalse(format.matches(null));
+        }
+    }
+
+    @Test
+    public void testCharSequence() {
+        System.out.println("PostalCodeFormatTest.testCharSequence");
+        assertTrue(PostalCodeFormat.AU.matches(new StringBuilder("2000")));
+        assertTrue(PostalCodeFormat.AU.matches("Sydney NSW 2000".subSequence(11, 15)));
+    }
+
+    @Test
+    public void testValidate() {
+        System.out.println("PostalCodeFormatTest.testValidate");
+        CharSequence[] codes = {"2000", null, "200", "3000"};
+        boolean[] valid = new boolean[codes.length];
+
+        assertEquals(2, PostalCodeFormat.AU.validate(codes, valid));
+        assertArrayEquals(new boolean[]{true, false, false, true}, valid);
+        assertThrows(IllegalArgumentException.class, () -> PostalCodeFormat.AU.validate(codes, new boolean[3]));
+    }
+
+}
@@ -31,6 +31,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static familytree.Serialization.externalize;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PostalCodeTest {
@@ -380,4 +381,27 @@ public class PostalCodeTest {
         assertEquals(toString, instance.toString());
     }
 
+    @Test
+    public void testExternalize() throws Exception {
+        System.out.println("PostalCodeTest.testExternalize");
+        PostalCode instance = new PostalCode("AB12");
+
+        assertEquals(instance, externalize(instance));
+        assertEquals(new PostalCode(), externalize(new PostalCode()));
+    }
+
+    @Test
+    public void testIntern() throws Exception {
+        System.out.println("PostalCodeTest.testIntern");
+        PostalCode first = new PostalCode("AB12"), second = new PostalCode("AB12");
+        PostalCode canonical = first.intern();
+
+        assertNotSame(first, canonical);
+        assertSame(canonical, second.intern());
+        assertTrue(canonical.isFrozen());
+        assertFalse(new PostalCode(canonical).isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> canonical.setCharacterSet("CD34"));
+        first.setCharacterSet("CD34");
+        assertEquals("AB12", canonical.getCharacterSet());
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecoveryLogTest {
+
+    private Path directory, recovery, crashed, source;
+    private FamilyGraph graph;
+
+    public RecoveryLogTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("recovery-log");
+        recovery = directory.resolve("recovery");
+        crashed = directory.resolve("crashed");
+        source = directory.resolve("tree.ged");
+        Address address = new Address(12, "Main Street", "Springfield", new PostalCode("AB12"));
+        FamilyMember mother = new FamilyMember(
+                new Person(new Name("Mary", "Ann", "Smith"), Sex.Female, address, "Née Jones."), "Smith", null, null,
+                null, new HashSet<>());
+        mother.identify();
+        graph = new FamilyGraph();
+        graph.add(mother);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Waits for the snapshot and the changes made so far to be autosaved, then copies the recovery directory as a
+     * crash would leave it.
+     */
+    private void crash(final RecoveryLog log) throws Exception {
+        Path base = recovery.resolve("recovery.dat"), journal = recovery.resolve("recovery.dat.journal");
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!Files.exists(base) || log.changeCount() > 0 && (!Files.exists(journal) || Files.size(journal) <= 24)) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        log.flush();
+
+        Files.createDirectories(crashed);
+        try (Stream<Path> files = Files.list(recovery)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, crashed.resolve(file.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        System.out.println("RecoveryLogTest.testRecover");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery)) {
+            graph.person(0).setBiography("Changed after the snapshot.");
+            crash(instance);
+        }
+
+        assertTrue(RecoveryLog.isDirty(crashed));
+        RecoveryLog.Recovery result = RecoveryLog.recover(crashed);
+        assertEquals("Changed after the snapshot.", result.getGraph().person(0).getBiography());
+        assertEquals(source.toAbsolutePath(), result.getSource());
+        assertTrue(RecoveryLog.isDirty(crashed));
+    }
+
+    @Test
+    public void testRecoverWithoutSource() throws Exception {
+        System.out.println("RecoveryLogTest.testRecoverWithoutSource");
+        try (RecoveryLog instance = RecoveryLog.start(graph, null, recovery)) {
+            graph.person(0).setSex(Sex.Male);
+            crash(instance);
+        }
+
+        RecoveryLog.Recovery result = RecoveryLog.recover(crashed);
+        assertEquals(Sex.Male, result.getGraph().person(0).getSex());
+        assertNull(result.getSource());
+    }
+
+    @Test
+    public void testNotDirtyWithoutChanges() throws Exception {
+        System.out.println("RecoveryLogTest.testNotDirtyWithoutChanges");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery)) {
+            crash(instance);
+        }
+
+        assertFalse(RecoveryLog.isDirty(crashed));
+    }
+
+    @Test
+    public void testNotDirtyAfterSave() throws Exception {
+        System.out.println("RecoveryLogTest.testNotDirtyAfterSave");
+        Path target = directory.resolve("tree.dat");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery)) {
+            graph.person(0).setBiography("Saved.");
+            instance.saved(instance.changeCount(), target);
+            crash(instance);
+        }
+
+        assertFalse(RecoveryLog.isDirty(crashed));
+        assertEquals(target.toAbsolutePath(), RecoveryLog.recover(crashed).getSource());
+    }
+
+    @Test
+    public void testDirtyAfterChangeSinceSave() throws Exception {
+        System.out.println("RecoveryLogTest.testDirtyAfterChangeSinceSave");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery)) {
+            graph.person(0).setBiography("Saved.");
+            long changes = instance.changeCount();
+            graph.person(0).setBiography("Not saved.");
+            instance.saved(changes, source);
+            crash(instance);
+        }
+
+        assertTrue(RecoveryLog.isDirty(crashed));
+        assertEquals("Not saved.", RecoveryLog.recover(crashed).getGraph().person(0).getBiography());
+    }
+
+    @Test
+    public void testDirtyWhenStartedUnsaved() throws Exception {
+        System.out.println("RecoveryLogTest.testDirtyWhenStartedUnsaved");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery, true)) {
+            crash(instance);
+        }
+
+        assertTrue(RecoveryLog.isDirty(crashed));
+    }
+
+    @Test
+    public void testStartDiscardsPreviousLog() throws Exception {
+        System.out.println("RecoveryLogTest.testStartDiscardsPreviousLog");
+        try (RecoveryLog instance = RecoveryLog.start(graph, source, recovery, true)) {
+            graph.person(0).setBiography("Previous.");
+            crash(instance);
+        }
+        try (Stream<Path> files = Files.list(crashed)) {
+            for (Path file : files.toList()) {
+                Files.move(file, recovery.resolve(file.getFileName()));
+            }
+        }
+
+        FamilyGraph current = new FamilyGraph();
+        current.add(new Person(new Name("John", null, "Smith"), Sex.Male, null, "Current."));
+        try (RecoveryLog instance = RecoveryLog.start(current, null, recovery)) {
+            current.person(0).setBiography("Changed.");
+            instance.flush();
+
+            // Until the new snapshot is written the directory is not dirty; it never holds the previous log.
+            if (RecoveryLog.isDirty(recovery)) {
+                assertEquals("John", RecoveryLog.recover(recovery).getGraph().person(0).getName().getForename());
+            }
+            crash(instance);
+        }
+
+        assertEquals("Changed.", RecoveryLog.recover(crashed).getGraph().person(0).getBiography());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        System.out.println("RecoveryLogTest.testClose");
+        assertFalse(RecoveryLog.isDirty(recovery));
+        RecoveryLog instance = RecoveryLog.start(graph, source, recovery);
+        graph.person(0).setBiography("Discarded.");
+        instance.close();
+
+        assertFalse(RecoveryLog.isDirty(recovery));
+        try (Stream<Path> files = Files.list(recovery)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+}
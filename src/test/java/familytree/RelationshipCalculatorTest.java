@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static familytree.Families.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RelationshipCalculatorTest {
+
+    private FamilyMember grandmother, grandfather, mother, father, uncle, aunt, self, sister, halfBrother, cousin,
+            cousinChild, stranger;
+    private FamilyGraph graph;
+
+    public RelationshipCalculatorTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        grandmother = member();
+        grandfather = member();
+        mother = member(grandmother, grandfather);
+        father = member();
+        uncle = member(grandmother, grandfather);
+        aunt = member();
+        self = member(mother, father);
+        sister = member(mother, father);
+        halfBrother = member(mother, member());
+        cousin = member(aunt, uncle);
+        cousinChild = member(null, cousin);
+        stranger = member();
+        graph = graph(self, sister, halfBrother, cousinChild, stranger);
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    private Relationship relate(final Person a, final Person b) {
+        return new RelationshipCalculator(graph).relate(graph.idOf(a), graph.idOf(b));
+    }
+
+    @Test
+    public void testSelf() {
+        System.out.println("RelationshipCalculatorTest.testSelf");
+        Relationship instance = relate(self, self);
+
+        assertEquals(graph.idOf(self), instance.getCommonAncestor());
+        assertEquals("self", instance.describe());
+    }
+
+    @Test
+    public void testLineal() {
+        System.out.println("RelationshipCalculatorTest.testLineal");
+
+        assertEquals("parent", relate(self, mother).describe());
+        assertEquals("grandparent", relate(self, grandfather).describe());
+        assertEquals("child", relate(mother, self).describe());
+        assertEquals("great-grandchild", relate(grandmother, cousinChild).describe());
+        assertTrue(relate(self, grandmother).isLineal());
+    }
+
+    @Test
+    public void testSiblings() {
+        System.out.println("RelationshipCalculatorTest.testSiblings");
+        Relationship full = relate(self, sister), half = relate(self, halfBrother);
+
+        assertFalse(full.isHalf());
+        assertEquals("sibling", full.describe());
+        assertTrue(half.isHalf());
+        assertEquals(graph.idOf(mother), half.getCommonAncestor());
+        assertEquals("half-sibling", half.describe());
+    }
+
+    @Test
+    public void testCollateral() {
+        System.out.println("RelationshipCalculatorTest.testCollateral");
+        Relationship cousins = relate(self, cousin), removed = relate(self, cousinChild);
+
+        assertEquals(1, cousins.getCousinDegree());
+        assertEquals(0, cousins.getRemoval());
+        assertEquals("first cousin", cousins.describe());
+        assertEquals(1, removed.getRemoval());
+        assertEquals("first cousin once removed", removed.describe());
+        assertEquals("aunt or uncle", relate(self, uncle).describe());
+        assertEquals("niece or nephew", relate(uncle, self).describe());
+        assertEquals("great-niece or nephew", relate(mother, cousinChild).describe());
+    }
+
+    @Test
+    public void testUnrelated() {
+        System.out.println("RelationshipCalculatorTest.testUnrelated");
+        RelationshipCalculator instance = new RelationshipCalculator(graph);
+
+        assertNull(relate(self, stranger));
+        assertNull(relate(self, aunt));
+        assertEquals(FamilyGraph.NONE, instance.lowestCommonAncestor(graph.idOf(self), graph.idOf(stranger)));
+    }
+
+    @Test
+    public void testLowestCommonAncestor() {
+        System.out.println("RelationshipCalculatorTest.testLowestCommonAncestor");
+        RelationshipCalculator instance = new RelationshipCalculator(graph);
+        int ancestor = instance.lowestCommonAncestor(graph.idOf(self), graph.idOf(cousin));
+
+        assertTrue(ancestor == graph.idOf(grandmother) || ancestor == graph.idOf(grandfather));
+    }
+
+    @Test
+    public void testBatch() {
+        System.out.println("RelationshipCalculatorTest.testBatch");
+        RelationshipCalculator instance = new RelationshipCalculator(graph);
+        int[] a = new int[1000], b = new int[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = graph.idOf(self);
+            b[i] = i % 2 == 0 ? graph.idOf(cousinChild) : graph.idOf(stranger);
+        }
+
+        Relationship[] relationships = instance.relate(a, b);
+
+        for (int i = 0; i < a.length; i++) {
+            if (i % 2 == 0) {
+                assertEquals("first cousin once removed", relationships[i].describe());
+            } else {
+                assertNull(relationships[i]);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> instance.relate(new int[1], new int[2]));
+    }
+
+}
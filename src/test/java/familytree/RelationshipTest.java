@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RelationshipTest {
+
+    public RelationshipTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testDescribeLineal() {
+        System.out.println("RelationshipTest.testDescribeLineal");
+
+        assertEquals("parent", new Relationship(0, 1, 0, false).describe());
+        assertEquals("great-great-grandparent", new Relationship(0, 4, 0, false).describe());
+        assertEquals("grandchild", new Relationship(0, 0, 2, false).describe());
+    }
+
+    @Test
+    public void testDescribeCollateral() {
+        System.out.println("RelationshipTest.testDescribeCollateral");
+
+        assertEquals("great-aunt or uncle", new Relationship(0, 3, 1, false).describe());
+        assertEquals("half-niece or nephew", new Relationship(0, 1, 2, true).describe());
+        assertEquals("second cousin twice removed", new Relationship(0, 3, 5, false).describe());
+        assertEquals("half-third cousin", new Relationship(0, 4, 4, true).describe());
+        assertEquals("12th cousin 5 times removed", new Relationship(0, 13, 18, false).describe());
+        assertEquals("21st cousin", new Relationship(0, 22, 22, false).describe());
+        assertEquals("22nd cousin once removed", new Relationship(0, 23, 24, false).describe());
+        assertEquals("23rd cousin", new Relationship(0, 24, 24, false).describe());
+        assertEquals("111th cousin", new Relationship(0, 112, 112, false).describe());
+    }
+
+    @Test
+    public void testCousinDegreeAndRemoval() {
+        System.out.println("RelationshipTest.testCousinDegreeAndRemoval");
+        Relationship instance = new Relationship(7, 3, 5, false);
+
+        assertEquals(7, instance.getCommonAncestor());
+        assertEquals(2, instance.getCousinDegree());
+        assertEquals(2, instance.getRemoval());
+        assertFalse(instance.isLineal());
+        assertFalse(instance.isHalf());
+    }
+
+    @Test
+    public void testToString() {
+        System.out.println("RelationshipTest.testToString");
+        Relationship instance = new Relationship(1, 2, 3, true);
+
+        assertEquals("Relationship{commonAncestor=1, generationsA=2, generationsB=3, half=true}", instance.toString());
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveServiceTest {
+
+    private Path directory, target;
+    private FamilyGraph graph;
+    private SaveService instance;
+
+    public SaveServiceTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("save-service");
+        target = directory.resolve("tree.dat");
+        graph = new FamilyGraph();
+        graph.add(new Person(new Name("Mary", "Ann", "Smith"), Sex.Female,
+                             new Address(12, "Main Street", "Springfield", new PostalCode("AB12")), "Née Jones."));
+        instance = new SaveService(Runnable::run);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        instance.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static final class Completion implements SaveService.Listener {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final List<Long> progress = new CopyOnWriteArrayList<>();
+        private volatile IOException failure;
+
+        @Override
+        public void progress(final Path target, final long bytesWritten) {
+            progress.add(bytesWritten);
+        }
+
+        @Override
+        public void completed(final Path target, final IOException failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+    }
+
+    @Test
+    public void testSave() throws Exception {
+        System.out.println("SaveServiceTest.testSave");
+        Completion completion = new Completion();
+        instance.save(graph, target, FamilyTreeFile::write, completion);
+        completion.await();
+
+        assertNull(completion.failure);
+        assertTrue(graph.person(0).sameDetails(FamilyTreeFile.read(target).person(0)));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        System.out.println("SaveServiceTest.testSnapshot");
+        Completion completion = new Completion();
+        instance.save(graph, target, FamilyTreeFile::write, completion);
+        graph.person(0).setBiography("Changed after saving.");
+        graph.add(new Person());
+        completion.await();
+
+        FamilyGraph saved = FamilyTreeFile.read(target);
+        assertEquals(1, saved.size());
+        assertEquals("Née Jones.", saved.person(0).getBiography());
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        System.out.println("SaveServiceTest.testCoalesce");
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        SaveService.Encoder blocking = (snapshot, out) -> {
+            writes.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exc) {
+                throw new IOException(exc);
+            }
+            FamilyTreeFile.write(snapshot, out);
+        };
+
+        Completion first = new Completion();
+        instance.save(graph, target, blocking, first);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        Completion[] later = {new Completion(), new Completion(), new Completion()};
+        for (int i = 0; i < later.length; i++) {
+            graph.person(0).setBiography("Save " + i);
+            instance.save(graph, target, blocking, later[i]);
+        }
+        release.countDown();
+        first.await();
+        for (Completion completion : later) {
+            completion.await();
+            assertNull(completion.failure);
+        }
+
+        assertEquals(2, writes.get());
+        assertEquals("Save 2", FamilyTreeFile.read(target).person(0).getBiography());
+    }
+
+    @Test
+    public void testCoalesceUnchanged() throws Exception {
+        System.out.println("SaveServiceTest.testCoalesceUnchanged");
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+        List<FamilyGraph> snapshots = new CopyOnWriteArrayList<>();
+        SaveService.Encoder blocking = (snapshot, out) -> {
+            snapshots.add(snapshot);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exc) {
+                throw new IOException(exc);
+            }
+            FamilyTreeFile.write(snapshot, out);
+        };
+
+        Completion first = new Completion();
+        instance.save(graph, target, blocking, first);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        graph.person(0).setBiography("Changed.");
+        Completion[] later = {new Completion(), new Completion(), new Completion()};
+        for (Completion completion : later) {
+            instance.save(graph, target, blocking, completion);
+        }
+        release.countDown();
+        first.await();
+        for (Completion completion : later) {
+            completion.await();
+            assertNull(completion.failure);
+        }
+
+        assertEquals(2, snapshots.size());
+        assertEquals("Changed.", FamilyTreeFile.read(target).person(0).getBiography());
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        System.out.println("SaveServiceTest.testProgress");
+        Completion completion = new Completion();
+        instance.save(graph, target, (snapshot, out) -> {
+            byte[] block = new byte[4096];
+            for (int i = 0; i < 3 * SaveService.PROGRESS_INTERVAL / block.length; i++) {
+                out.write(block);
+            }
+        }, completion);
+        completion.await();
+
+        assertEquals(List.of((long) SaveService.PROGRESS_INTERVAL, 2L * SaveService.PROGRESS_INTERVAL,
+                             3L * SaveService.PROGRESS_INTERVAL), completion.progress);
+        assertEquals(3L * SaveService.PROGRESS_INTERVAL, Files.size(target));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        System.out.println("SaveServiceTest.testFailure");
+        Files.writeString(target, "previous");
+        Completion completion = new Completion();
+        instance.save(graph, target, (snapshot, out) -> {
+            out.write(1);
+            throw new IOException("Encoding failed");
+        }, completion);
+        completion.await();
+
+        assertEquals("Encoding failed", completion.failure.getMessage());
+        assertEquals("previous", Files.readString(target));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testClosed() throws Exception {
+        System.out.println("SaveServiceTest.testClosed");
+        instance.close();
+
+        assertThrows(IllegalStateException.class,
+                     () -> instance.save(graph, target, FamilyTreeFile::write, new Completion()));
+    }
+
+}
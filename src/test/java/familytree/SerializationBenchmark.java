@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.zip.DataFormatException;
+
+/**
+ * Compares the throughput of the externalized model classes with that of default Java serialization.
+ * <p>
+ * The benchmark writes and reads a batch of persons through {@code ObjectOutputStream} and {@code ObjectInputStream},
+ * once as {@code Person} objects and once as field-for-field copies that rely on default serialization, and reports
+ * the best of several rounds. The streams are reset periodically, as a long-running writer would, so that neither
+ * side is dominated by the growth of the stream's handle table. It is run by hand rather than as part of the test
+ * suite:
+ * <blockquote><pre>
+ * java -cp target/classes:target/test-classes familytree.SerializationBenchmark [records] [rounds]
+ * </pre></blockquote>
+ */
+public class SerializationBenchmark {
+
+    private static final int RESET_INTERVAL = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        Person[] persons = new Person[records];
+        DefaultPerson[] defaults = new DefaultPerson[records];
+
+        for (int i = 0; i < records; i++) {
+            persons[i] = person(i);
+            defaults[i] = new DefaultPerson(persons[i]);
+        }
+
+        Result externalized = run(persons, rounds), serialized = run(defaults, rounds);
+        System.out.printf("%,d records, best of %d rounds%n", records, rounds);
+        report("Externalizable", externalized, records);
+        report("Serializable", serialized, records);
+        System.out.printf("speed-up: write %.1fx, read %.1fx, size %.1fx smaller%n",
+                          (double) serialized.writeNanos / externalized.writeNanos,
+                          (double) serialized.readNanos / externalized.readNanos,
+                          (double) serialized.bytes / externalized.bytes);
+    }
+
+    private static Person person(int i) throws DataFormatException {
+        Name name = new Name("Forename" + i % 1000, i % 3 == 0 ? null : "Midname" + i % 50, "Surname" + i % 5000);
+        Address address = new Address(1 + i % 300, "Street " + i % 2000, "City " + i % 400,
+                                      new PostalCode(Integer.toString(1000 + i % 9000)));
+        return new Person(name, Sex.values()[i % Sex.values().length], address, "Biography of person " + i + '.');
+    }
+
+    private static Result run(Object[] objects, int rounds) throws IOException, ClassNotFoundException {
+        Result best = new Result();
+        best.writeNanos = Long.MAX_VALUE;
+        best.readNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < rounds; round++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 24);
+            long start = System.nanoTime();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                for (int i = 0; i < objects.length; i++) {
+                    out.writeObject(objects[i]);
+                    if (i % RESET_INTERVAL == RESET_INTERVAL - 1) {
+                        out.reset();
+                    }
+                }
+            }
+            best.writeNanos = Math.min(best.writeNanos, System.nanoTime() - start);
+            best.bytes = bytes.size();
+
+            start = System.nanoTime();
+            int count = 0;
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                for (int i = 0; i < objects.length; i++) {
+                    count += in.readObject() == null ? 0 : 1;
+                }
+            }
+            best.readNanos = Math.min(best.readNanos, System.nanoTime() - start);
+            if (count != objects.length) {
+                throw new IllegalStateException("Read " + count + " of " + objects.length + " records");
+            }
+        }
+
+        return best;
+    }
+
+    private static void report(String label, Result result, int records) {
+        System.out.printf("%-15s write %8.1f ms (%,10.0f records/s), read %8.1f ms (%,10.0f records/s), %,d bytes%n",
+                          label, result.writeNanos / 1e6, records / (result.writeNanos / 1e9),
+                          result.readNanos / 1e6, records / (result.readNanos / 1e9), result.bytes);
+    }
+
+    private static final class Result {
+
+        private long writeNanos;
+        private long readNanos;
+        private long bytes;
+
+    }
+
+    /**
+     * The fields of a {@code Person}, serialized by default as the model classes were before they were externalized.
+     */
+    private static final class DefaultPerson implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DefaultName nomini;
+        private final Sex sors;
+        private final DefaultAddress accommodatio;
+        private final String vitaeDescriptio;
+
+        private DefaultPerson(Person person) {
+            Name name = person.getName();
+            Address address = person.getAddress();
+            this.nomini = new DefaultName(name.getForename(), name.getMidname(), name.getSurname());
+            this.sors = person.getSex();
+            this.accommodatio = new DefaultAddress(address.getStreetNumber(), address.getStreetName(),
+                                                   address.getCityName(),
+                                                   new DefaultPostalCode(address.getPostalCode().getCharacterSet()));
+            this.vitaeDescriptio = person.getBiography();
+        }
+
+    }
+
+    private static final class DefaultName implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String praenomen;
+        private final String nomen;
+        private final String cognomen;
+
+        private DefaultName(String praenomen, String nomen, String cognomen) {
+            this.praenomen = praenomen;
+            this.nomen = nomen;
+            this.cognomen = cognomen;
+        }
+
+    }
+
+    private static final class DefaultAddress implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Integer streetNumber;
+        private final String streetName;
+        private final String cityName;
+        private final DefaultPostalCode postalCode;
+
+        private DefaultAddress(Integer streetNumber, String streetName, String cityName, DefaultPostalCode postalCode) {
+            this.streetNumber = streetNumber;
+            this.streetName = streetName;
+            this.cityName = cityName;
+            this.postalCode = postalCode;
+        }
+
+    }
+
+    private static final class DefaultPostalCode implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String characterSet;
+
+        private DefaultPostalCode(String characterSet) {
+            this.characterSet = characterSet;
+        }
+
+    }
+
+}
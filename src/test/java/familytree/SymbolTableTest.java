@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymbolTableTest {
+
+    private SymbolTable<String> instance;
+
+    public SymbolTableTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        instance = new SymbolTable<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testIntern() {
+        System.out.println("SymbolTableTest.testIntern");
+        String first = new String("Smith"), second = new String("Smith");
+
+        assertSame(first, instance.intern(first));
+        assertSame(first, instance.intern(second));
+        assertNotSame(first, instance.intern("Jones"));
+        assertNull(instance.intern(null));
+        assertEquals(2, instance.size());
+    }
+
+    @Test
+    public void testHitRate() {
+        System.out.println("SymbolTableTest.testHitRate");
+        assertEquals(0.0, instance.hitRate());
+        instance.intern(new String("Springfield"));
+        instance.intern(new String("Springfield"));
+        instance.intern(new String("Springfield"));
+        instance.intern(new String("Shelbyville"));
+
+        assertEquals(2, instance.hits());
+        assertEquals(2, instance.misses());
+        assertEquals(0.5, instance.hitRate());
+    }
+
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        System.out.println("SymbolTableTest.testConcurrentIntern");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    String[] interned = new String[1000];
+                    for (int i = 0; i < interned.length; i++) {
+                        interned[i] = instance.intern(new String("Surname" + i));
+                    }
+                    return interned;
+                }));
+            }
+
+            String[] expected = futures.get(0).get();
+            for (Future<String[]> future : futures) {
+                String[] actual = future.get();
+                for (int i = 0; i < expected.length; i++) {
+                    assertSame(expected[i], actual[i]);
+                }
+            }
+            assertEquals(1000, instance.size());
+            assertEquals(4000, instance.hits() + instance.misses());
+            assertEquals(1000, instance.misses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testModelFields() throws Exception {
+        System.out.println("SymbolTableTest.testModelFields");
+        Name name = new Name("Mary", null, new String("Smith"));
+        Name other = new Name("John", null, null);
+        other.setSurname(new String("Smith"));
+        assertSame(name.getSurname(), other.getSurname());
+
+        Address address = new Address();
+        address.setCityName(new String("Springfield"));
+        Address copy = new Address(1, null, new String("Springfield"), new PostalCode());
+        assertSame(address.getCityName(), copy.getCityName());
+
+        FamilyMember member = new FamilyMember();
+        member.setFamilyName(new String("Smith"));
+        assertSame(name.getSurname(), member.getFamilyName());
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Jaiden di Lanzo <jaiden.dilanzo@bigpond.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package familytree;
+
+import java.util.HashSet;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UndoHistoryTest {
+
+    private FamilyMember mother, father, child;
+    private FamilyGraph graph;
+    private UndoHistory instance;
+
+    public UndoHistoryTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() {
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        mother = new FamilyMember(new Person(), "Smith", null, null, null, new HashSet<>());
+        father = new FamilyMember(new Person(), "Smith", null, null, null, new HashSet<>());
+        child = new FamilyMember(new Person(), "Smith", null, null, null, new HashSet<>());
+        mother.setName(new Name("Mary", null, "Smith"));
+        father.setName(new Name("John", null, "Smith"));
+        child.setName(new Name("Jane", null, "Smith"));
+        mother.identify();
+        father.identify();
+        child.identify();
+        graph = new FamilyGraph();
+        graph.add(mother);
+        graph.add(father);
+        graph.add(child);
+        instance = new UndoHistory(graph);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        instance.close();
+    }
+
+    @Test
+    public void testUndoRedoDetail() {
+        System.out.println("UndoHistoryTest.testUndoRedoDetail");
+        assertFalse(instance.canUndo());
+        mother.setBiography("Née Jones.");
+        mother.setName(new Name("Mary", "Ann", "Smith"));
+
+        assertTrue(instance.undo());
+        assertEquals(new Name("Mary", null, "Smith"), mother.getName());
+        assertEquals(mother, graph.findByName(new Name("Mary", null, "Smith")));
+        assertTrue(instance.undo());
+        assertNull(mother.getBiography());
+        assertFalse(instance.undo());
+
+        assertTrue(instance.redo());
+        assertEquals("Née Jones.", mother.getBiography());
+        assertTrue(instance.redo());
+        assertEquals(new Name("Mary", "Ann", "Smith"), mother.getName());
+        assertFalse(instance.canRedo());
+    }
+
+    @Test
+    public void testEdit() {
+        System.out.println("UndoHistoryTest.testEdit");
+        instance.edit(() -> {
+            child.setSex(Sex.Female);
+            child.setFamilyName("Jones");
+            child.setMother(mother);
+            mother.addChild(child);
+        });
+
+        assertEquals(graph.idOf(mother), graph.mother(graph.idOf(child)));
+        assertTrue(instance.undo());
+        assertNull(child.getSex());
+        assertEquals("Smith", child.getFamilyName());
+        assertNull(child.getMother());
+        assertTrue(mother.getChildren().isEmpty());
+        assertEquals(FamilyGraph.NONE, graph.mother(graph.idOf(child)));
+        assertEquals(0, graph.childCount(graph.idOf(mother)));
+        assertFalse(instance.canUndo());
+
+        assertTrue(instance.redo());
+        assertEquals(Sex.Female, child.getSex());
+        assertSame(mother, child.getMother());
+        assertEquals(1, graph.childCount(graph.idOf(mother)));
+    }
+
+    @Test
+    public void testUndoRemoveChild() {
+        System.out.println("UndoHistoryTest.testUndoRemoveChild");
+        father.addChild(child);
+        father.removeChild(child.getName());
+
+        assertTrue(instance.undo());
+        assertSame(child, father.getChild(child.getName()));
+        assertTrue(instance.undo());
+        assertTrue(father.getChildren().isEmpty());
+    }
+
+    @Test
+    public void testUndoSpouse() {
+        System.out.println("UndoHistoryTest.testUndoSpouse");
+        mother.setSpouse(father);
+        mother.setSpouse(null);
+
+        assertTrue(instance.undo());
+        assertSame(father, mother.getSpouse());
+        assertEquals(graph.idOf(father), graph.spouse(graph.idOf(mother)));
+    }
+
+    @Test
+    public void testEditClearsRedo() {
+        System.out.println("UndoHistoryTest.testEditClearsRedo");
+        mother.setSex(Sex.Female);
+        instance.undo();
+        assertTrue(instance.canRedo());
+
+        father.setSex(Sex.Male);
+        assertFalse(instance.canRedo());
+    }
+
+    @Test
+    public void testLimit() {
+        System.out.println("UndoHistoryTest.testLimit");
+        instance.setLimit(2);
+        for (int i = 0; i < 5; i++) {
+            mother.setBiography("Version " + i);
+        }
+
+        assertTrue(instance.undo());
+        assertTrue(instance.undo());
+        assertFalse(instance.undo());
+        assertEquals("Version 2", mother.getBiography());
+        assertThrows(IllegalArgumentException.class, () -> instance.setLimit(-1));
+    }
+
+    @Test
+    public void testClose() {
+        System.out.println("UndoHistoryTest.testClose");
+        instance.close();
+        mother.setSex(Sex.Female);
+
+        assertFalse(instance.canUndo());
+    }
+
+}